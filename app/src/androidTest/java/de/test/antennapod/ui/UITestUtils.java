@@ -5,6 +5,7 @@ import android.util.Log;
 
 import androidx.test.platform.app.InstrumentationRegistry;
 
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.FeedListUpdateEvent;
 import de.danoeh.antennapod.event.QueueEvent;
 import de.danoeh.antennapod.model.feed.Feed;
@@ -55,6 +56,8 @@ public class UITestUtils {
 
 
     public void setup() throws IOException {
+        // Tests check the screen right after changing the database
+        CoalescingEventDispatcher.getInstance().setWindowMillis(0);
         destDir = new File(context.getFilesDir(), "test/UITestUtils");
         destDir.mkdirs();
         hostedFeedDir = new File(destDir, "hostedFeeds");
@@ -193,7 +196,7 @@ public class UITestUtils {
         adapter.setCompleteFeed(hostedFeeds.toArray(new Feed[0]));
         adapter.setQueue(queue);
         adapter.close();
-        EventBus.getDefault().post(new FeedListUpdateEvent(hostedFeeds));
+        CoalescingEventDispatcher.getInstance().postImmediately(new FeedListUpdateEvent(hostedFeeds));
         EventBus.getDefault().post(QueueEvent.setQueue(queue));
     }
 
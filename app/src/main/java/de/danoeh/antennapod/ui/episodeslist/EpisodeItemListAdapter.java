@@ -34,7 +34,7 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
         implements View.OnCreateContextMenuListener {
 
     private final WeakReference<FragmentActivity> mainActivityRef;
-    private List<FeedItem> episodes = new ArrayList<>();
+    private final EpisodeListDiffer differ;
     private FeedItem longPressedItem;
     int longPressedPosition = 0; // used to init actionMode
     private int dummyViews = 0;
@@ -42,18 +42,57 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
     public EpisodeItemListAdapter(FragmentActivity mainActivity) {
         super(mainActivity);
         this.mainActivityRef = new WeakReference<>(mainActivity);
+        this.differ = new EpisodeListDiffer(this);
         setHasStableIds(true);
     }
 
     public void setDummyViews(int dummyViews) {
+        int oldDummyViews = this.dummyViews;
         this.dummyViews = dummyViews;
-        notifyDataSetChanged();
+        int episodeCount = differ.getItems().size();
+        differ.notifyWithoutListChange(() -> {
+            if (dummyViews > oldDummyViews) {
+                notifyItemRangeInserted(episodeCount + oldDummyViews, dummyViews - oldDummyViews);
+            } else if (dummyViews < oldDummyViews) {
+                notifyItemRangeRemoved(episodeCount + dummyViews, oldDummyViews - dummyViews);
+            }
+        });
     }
 
+    /**
+     * Shows a new list of episodes. Only the rows that changed are bound again. Apart from the first list,
+     * the new list is shown a moment later, once the changes are calculated.
+     */
     public void updateItems(List<FeedItem> items) {
-        episodes = items;
-        notifyDataSetChanged();
-        onSelectedItemsUpdated();
+        updateItems(items, null);
+    }
+
+    /**
+     * @param commitCallback Called once the new list is shown
+     */
+    public void updateItems(List<FeedItem> items, @Nullable Runnable commitCallback) {
+        differ.submitList(items, () -> {
+            onSelectedItemsUpdated();
+            if (commitCallback != null) {
+                commitCallback.run();
+            }
+        });
+    }
+
+    /**
+     * The position of an episode in the list that was last passed to {@link #updateItems}, or -1.
+     * Unlike {@link de.danoeh.antennapod.event.FeedItemEvent#indexOfItemWithId}, this does not search the list.
+     */
+    public int indexOfItemWithId(long id) {
+        return differ.indexOfItemWithId(id);
+    }
+
+    /**
+     * The position of the episode with the given media in the list that was last passed to
+     * {@link #updateItems}, or -1.
+     */
+    public int indexOfItemWithDownloadUrl(String downloadUrl) {
+        return differ.indexOfItemWithDownloadUrl(downloadUrl);
     }
 
     @Override
@@ -69,6 +108,7 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
 
     @Override
     public final void onBindViewHolder(EpisodeItemViewHolder holder, int pos) {
+        List<FeedItem> episodes = differ.getItems();
         if (pos >= episodes.size()) {
             beforeBindViewHolder(holder, pos);
             holder.bindDummy();
@@ -90,9 +130,9 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
             if (!inActionMode()) {
                 if (mainActivityRef.get() instanceof MainActivity) {
                     ((MainActivity) mainActivityRef.get())
-                            .loadChildFragment(ItemPagerFragment.newInstance(episodes, item));
+                            .loadChildFragment(ItemPagerFragment.newInstance(differ.getItems(), item));
                 } else {
-                    ItemPagerFragment fragment = ItemPagerFragment.newInstance(episodes, item);
+                    ItemPagerFragment fragment = ItemPagerFragment.newInstance(differ.getItems(), item);
                     mainActivityRef.get().getSupportFragmentManager()
                             .beginTransaction()
                             .replace(R.id.fragmentContainer, fragment, "Items")
@@ -177,6 +217,7 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
 
     @Override
     public long getItemId(int position) {
+        List<FeedItem> episodes = differ.getItems();
         if (position >= episodes.size()) {
             return RecyclerView.NO_ID; // Dummy views
         }
@@ -186,11 +227,11 @@ public class EpisodeItemListAdapter extends SelectableAdapter<EpisodeItemViewHol
 
     @Override
     public int getItemCount() {
-        return dummyViews + episodes.size();
+        return dummyViews + differ.getItems().size();
     }
 
     protected FeedItem getItem(int index) {
-        return episodes.get(index);
+        return differ.getItems().get(index);
     }
 
     protected Activity getActivity() {
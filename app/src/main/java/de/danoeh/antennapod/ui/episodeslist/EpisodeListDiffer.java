@@ -0,0 +1,387 @@
+package de.danoeh.antennapod.ui.episodeslist;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns a reload of an episode list into insert, remove, move and change notifications,
+ * so that rows that did not change are not bound again. Episodes are compared by their ID and by a
+ * version of the content that a row displays. The diff is calculated on a background thread.
+ *
+ * <p>The adapter shows a copy of the list it was given. Fragments still change their own list in place and
+ * notify the adapter, so such notifications are applied to the copy as well, one range at a time. If that
+ * happens while a diff is calculated, the diff is dropped and the whole list is refreshed.
+ */
+class EpisodeListDiffer extends RecyclerView.AdapterDataObserver {
+    private static final String TAG = "EpisodeListDiffer";
+    /**
+     * Makes RecyclerView re-use the ViewHolder of a changed row, see
+     * {@link EpisodeItemListAdapter#notifyItemChangedCompat(int)}.
+     */
+    private static final Object CHANGE_PAYLOAD = "changed";
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final EpisodeListIndex index = new EpisodeListIndex();
+    private List<FeedItem> items = new ArrayList<>();
+    private List<FeedItem> source = items;
+    private long[] ids = new long[0];
+    private long[] versions = new long[0];
+    private int generation = 0;
+    private boolean pending = false;
+    private boolean notifying = false;
+    private Disposable disposable;
+
+    EpisodeListDiffer(RecyclerView.Adapter<?> adapter) {
+        this.adapter = adapter;
+        adapter.registerAdapterDataObserver(this);
+    }
+
+    /**
+     * The episodes that the adapter currently shows.
+     */
+    @NonNull
+    List<FeedItem> getItems() {
+        return items;
+    }
+
+    /**
+     * The position of an episode in the list that was last submitted, or -1.
+     */
+    int indexOfItemWithId(long id) {
+        return index.indexOfItemWithId(id);
+    }
+
+    /**
+     * The position of the episode with the given media in the list that was last submitted, or -1.
+     */
+    int indexOfItemWithDownloadUrl(@NonNull String downloadUrl) {
+        return index.indexOfItemWithDownloadUrl(downloadUrl);
+    }
+
+    /**
+     * Shows a new list. The first list and an empty list are applied right away, other lists
+     * once the diff is calculated.
+     *
+     * @param commitCallback Called on the main thread once the list is shown
+     */
+    void submitList(@NonNull List<FeedItem> newSource, @Nullable Runnable commitCallback) {
+        generation++;
+        if (disposable != null) {
+            disposable.dispose();
+        }
+        source = newSource;
+        index.reset(newSource);
+        List<FeedItem> newItems = new ArrayList<>(newSource);
+        long[] newIds = getIds(newItems);
+        long[] newVersions = getVersions(newItems);
+        if (items.isEmpty() || newItems.isEmpty()) {
+            pending = false;
+            commit(newItems, newIds, newVersions, null, commitCallback);
+            return;
+        }
+        final long[] oldIds = ids;
+        final long[] oldVersions = versions;
+        final int submitted = generation;
+        pending = true;
+        disposable = Single.fromCallable(() -> DiffUtil.calculateDiff(
+                        new VersionCallback(oldIds, oldVersions, newIds, newVersions)))
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(result -> {
+                    if (submitted == generation) {
+                        pending = false;
+                        commit(newItems, newIds, newVersions, result, commitCallback);
+                    }
+                }, error -> {
+                    Log.e(TAG, Log.getStackTraceString(error));
+                    if (submitted == generation) {
+                        pending = false;
+                        commit(newItems, newIds, newVersions, null, commitCallback);
+                    }
+                });
+    }
+
+    /**
+     * Sends notifications of the adapter itself, for example about dummy views,
+     * which do not change the list of episodes.
+     */
+    void notifyWithoutListChange(@NonNull Runnable notification) {
+        notifying = true;
+        try {
+            notification.run();
+        } finally {
+            notifying = false;
+        }
+    }
+
+    private void commit(List<FeedItem> newItems, long[] newIds, long[] newVersions,
+                        @Nullable DiffUtil.DiffResult result, @Nullable Runnable commitCallback) {
+        items = newItems;
+        ids = newIds;
+        versions = newVersions;
+        notifyWithoutListChange(() -> {
+            if (result == null) {
+                adapter.notifyDataSetChanged();
+            } else {
+                result.dispatchUpdatesTo(adapter);
+            }
+        });
+        if (commitCallback != null) {
+            commitCallback.run();
+        }
+    }
+
+    /**
+     * Copies the list of the fragment again, after the fragment changed it and notified the adapter.
+     * Only for changes that cannot be applied to the copy one range at a time.
+     */
+    private void onSourceChanged() {
+        if (notifying) {
+            return;
+        }
+        boolean wasPending = pending;
+        if (wasPending) {
+            generation++;
+            pending = false;
+            disposable.dispose();
+        }
+        items = new ArrayList<>(source);
+        ids = getIds(items);
+        versions = getVersions(items);
+        if (wasPending) {
+            // The notification referred to the new list, which the adapter did not show yet
+            notifyWithoutListChange(adapter::notifyDataSetChanged);
+        }
+    }
+
+    @Override
+    public void onChanged() {
+        if (!notifying) {
+            index.reset(source);
+        }
+        onSourceChanged();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        if (notifying) {
+            return;
+        } else if (pending || source.size() != items.size()) {
+            index.reset(source);
+            onSourceChanged();
+            return;
+        }
+        int end = Math.min(positionStart + itemCount, items.size());
+        for (int i = positionStart; i < end; i++) {
+            FeedItem item = source.get(i);
+            if (!isSameEpisode(items.get(i), item)) {
+                index.reset(source);
+            }
+            items.set(i, item);
+            ids[i] = item.getId();
+            versions[i] = getVersion(item);
+        }
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, @Nullable Object payload) {
+        onItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        if (notifying) {
+            return;
+        }
+        index.onInserted(positionStart, itemCount);
+        if (pending || positionStart > items.size() || source.size() != items.size() + itemCount) {
+            onSourceChanged();
+            return;
+        }
+        items.addAll(positionStart, source.subList(positionStart, positionStart + itemCount));
+        ids = insertRange(ids, positionStart, itemCount);
+        versions = insertRange(versions, positionStart, itemCount);
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            FeedItem item = items.get(i);
+            ids[i] = item.getId();
+            versions[i] = getVersion(item);
+        }
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (notifying) {
+            return;
+        } else if (pending || positionStart + itemCount > items.size()
+                || source.size() != items.size() - itemCount) {
+            // The copy does not tell which episodes were removed from the list of the fragment
+            index.reset(source);
+            onSourceChanged();
+            return;
+        }
+        index.onRemoved(positionStart, items.subList(positionStart, positionStart + itemCount));
+        items.subList(positionStart, positionStart + itemCount).clear();
+        ids = removeRange(ids, positionStart, itemCount);
+        versions = removeRange(versions, positionStart, itemCount);
+        if (positionStart < items.size() && items.get(positionStart) != source.get(positionStart)) {
+            onSourceChanged();
+        }
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        if (notifying) {
+            return;
+        }
+        index.onMoved(fromPosition, toPosition, itemCount);
+        if (pending || source.size() != items.size()
+                || Math.max(fromPosition, toPosition) + itemCount > items.size()) {
+            onSourceChanged();
+            return;
+        }
+        List<FeedItem> moved = new ArrayList<>(items.subList(fromPosition, fromPosition + itemCount));
+        items.subList(fromPosition, fromPosition + itemCount).clear();
+        items.addAll(toPosition, moved);
+        moveRange(ids, fromPosition, toPosition, itemCount);
+        moveRange(versions, fromPosition, toPosition, itemCount);
+        for (int i = toPosition; i < toPosition + itemCount; i++) {
+            if (items.get(i) != source.get(i)) {
+                onSourceChanged();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the array with itemCount unset values at positionStart
+     */
+    private static long[] insertRange(long[] array, int positionStart, int itemCount) {
+        long[] result = new long[array.length + itemCount];
+        System.arraycopy(array, 0, result, 0, positionStart);
+        System.arraycopy(array, positionStart, result, positionStart + itemCount, array.length - positionStart);
+        return result;
+    }
+
+    private static long[] removeRange(long[] array, int positionStart, int itemCount) {
+        long[] result = new long[array.length - itemCount];
+        System.arraycopy(array, 0, result, 0, positionStart);
+        System.arraycopy(array, positionStart + itemCount, result, positionStart, result.length - positionStart);
+        return result;
+    }
+
+    /**
+     * Moves a range like {@link RecyclerView.Adapter#notifyItemMoved(int, int)} describes it:
+     * toPosition is the position of the range after the move.
+     */
+    private static void moveRange(long[] array, int fromPosition, int toPosition, int itemCount) {
+        long[] moved = Arrays.copyOfRange(array, fromPosition, fromPosition + itemCount);
+        if (fromPosition < toPosition) {
+            System.arraycopy(array, fromPosition + itemCount, array, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(array, toPosition, array, toPosition + itemCount, fromPosition - toPosition);
+        }
+        System.arraycopy(moved, 0, array, toPosition, itemCount);
+    }
+
+    private static boolean isSameEpisode(FeedItem a, FeedItem b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        String downloadUrlA = a.getMedia() != null ? a.getMedia().getDownloadUrl() : null;
+        String downloadUrlB = b.getMedia() != null ? b.getMedia().getDownloadUrl() : null;
+        return a.getId() == b.getId() && Objects.equals(downloadUrlA, downloadUrlB);
+    }
+
+    private static long[] getIds(List<FeedItem> items) {
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = items.get(i).getId();
+        }
+        return ids;
+    }
+
+    private static long[] getVersions(List<FeedItem> items) {
+        long[] versions = new long[items.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = getVersion(items.get(i));
+        }
+        return versions;
+    }
+
+    /**
+     * A hash of everything that {@link EpisodeItemViewHolder} displays about the episode, and of what its
+     * menus and swipe actions look at. Rows that keep their version also keep their old item object.
+     * The download progress is not part of it, it is updated through separate notifications.
+     */
+    static long getVersion(@NonNull FeedItem item) {
+        long version = Objects.hash(item.getTitle(), item.getImageUrl(), item.getLink(), item.getPlayState(),
+                item.getPubDate() != null ? item.getPubDate().getTime() : 0, item.isAutoDownloadEnabled(),
+                item.isTagged(FeedItem.TAG_FAVORITE), item.isTagged(FeedItem.TAG_QUEUE));
+        if (item.getFeed() != null) {
+            version = 31 * version + Objects.hash(item.getFeed().getTitle(), item.getFeed().getImageUrl());
+        }
+        FeedMedia media = item.getMedia();
+        if (media != null) {
+            version = 31 * version + Objects.hash(media.getId(), media.getDuration(), media.getPosition(),
+                    media.getSize(), media.getDownloadDate(), media.getLocalFileUrl(), media.getMimeType(),
+                    media.getDownloadUrl(), media.checkedOnSizeButUnknown());
+        }
+        return version;
+    }
+
+    private static class VersionCallback extends DiffUtil.Callback {
+        private final long[] oldIds;
+        private final long[] oldVersions;
+        private final long[] newIds;
+        private final long[] newVersions;
+
+        VersionCallback(long[] oldIds, long[] oldVersions, long[] newIds, long[] newVersions) {
+            this.oldIds = oldIds;
+            this.oldVersions = oldVersions;
+            this.newIds = newIds;
+            this.newVersions = newVersions;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldIds.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newIds.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldIds[oldItemPosition] == newIds[newItemPosition];
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldVersions[oldItemPosition] == newVersions[newItemPosition];
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return CHANGE_PAYLOAD;
+        }
+    }
+}
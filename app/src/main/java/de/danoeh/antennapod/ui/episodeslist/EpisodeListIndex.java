@@ -0,0 +1,268 @@
+package de.danoeh.antennapod.ui.episodeslist;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positions of the episodes in a list, by ID and by download URL. Event handlers look up every
+ * episode of an event, so they should not need to walk through the whole list each time.
+ * If an episode is in the list twice, the first position wins.
+ *
+ * <p>The index follows insertions, removals and moves of the list. Instead of updating the positions after
+ * the change, it remembers by how much they shift and applies that when a position is looked up.
+ * If the list changes without the index being told, a different size or a position that holds another
+ * episode makes the next lookup build it again.
+ */
+class EpisodeListIndex {
+    /**
+     * The index is built again after this many changes, so that looking up a position stays cheap.
+     */
+    private static final int MAX_SHIFTS = 32;
+
+    private final Map<Long, Position> positionsById = new HashMap<>();
+    private final Map<String, Position> positionsByDownloadUrl = new HashMap<>();
+    /**
+     * Start and size of each insertion since the index was built. The size of a removal is negative.
+     */
+    private final List<int[]> shifts = new ArrayList<>();
+    private List<FeedItem> list = null;
+    private int indexedSize = -1;
+    private boolean hasDuplicates = false;
+
+    /**
+     * A position, and how many of the shifts were applied to it already.
+     */
+    private static class Position {
+        private int position;
+        private int appliedShifts;
+
+        Position(int position, int appliedShifts) {
+            this.position = position;
+            this.appliedShifts = appliedShifts;
+        }
+    }
+
+    /**
+     * Forgets the positions. The index is built again on the next lookup.
+     */
+    void reset(@NonNull List<FeedItem> list) {
+        this.list = list;
+        indexedSize = -1;
+    }
+
+    void onInserted(int positionStart, int itemCount) {
+        if (!isValid(itemCount) || !addShift(positionStart, itemCount)) {
+            return;
+        }
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            put(i);
+        }
+        indexedSize = list.size();
+    }
+
+    /**
+     * @param removedItems The items that were at the positions before the removal
+     */
+    void onRemoved(int positionStart, @NonNull List<FeedItem> removedItems) {
+        if (!isValid(-removedItems.size())) {
+            return;
+        } else if (hasDuplicates) {
+            // The next position of a removed duplicate is not known
+            indexedSize = -1;
+            return;
+        }
+        for (int i = 0; i < removedItems.size(); i++) {
+            if (!remove(removedItems.get(i), positionStart + i)) {
+                indexedSize = -1;
+                return;
+            }
+        }
+        if (addShift(positionStart, -removedItems.size())) {
+            indexedSize = list.size();
+        }
+    }
+
+    void onMoved(int fromPosition, int toPosition, int itemCount) {
+        if (!isValid(0)) {
+            return;
+        } else if (hasDuplicates) {
+            // Which duplicate comes first might change
+            indexedSize = -1;
+            return;
+        }
+        for (int i = 0; i < itemCount; i++) {
+            if (!remove(list.get(toPosition + i), fromPosition + i)) {
+                indexedSize = -1;
+                return;
+            }
+        }
+        if (!addShift(fromPosition, -itemCount) || !addShift(toPosition, itemCount)) {
+            return;
+        }
+        for (int i = toPosition; i < toPosition + itemCount; i++) {
+            put(i);
+        }
+    }
+
+    int indexOfItemWithId(long id) {
+        if (list == null) {
+            return -1;
+        }
+        boolean wasValid = ensureValid();
+        Position position = positionsById.get(id);
+        if (position == null) {
+            return -1;
+        }
+        int index = resolve(position);
+        FeedItem item = index >= 0 && index < list.size() ? list.get(index) : null;
+        if (item != null && item.getId() == id) {
+            return index;
+        }
+        if (wasValid) {
+            indexedSize = -1;
+            return indexOfItemWithId(id);
+        }
+        return -1;
+    }
+
+    int indexOfItemWithDownloadUrl(@NonNull String downloadUrl) {
+        if (list == null) {
+            return -1;
+        }
+        boolean wasValid = ensureValid();
+        Position position = positionsByDownloadUrl.get(downloadUrl);
+        if (position == null) {
+            return -1;
+        }
+        int index = resolve(position);
+        if (index >= 0 && index < list.size() && downloadUrl.equals(getDownloadUrl(list.get(index)))) {
+            return index;
+        }
+        if (wasValid) {
+            indexedSize = -1;
+            return indexOfItemWithDownloadUrl(downloadUrl);
+        }
+        return -1;
+    }
+
+    /**
+     * @param sizeChange How much the list grew since the index was last updated
+     */
+    private boolean isValid(int sizeChange) {
+        if (list == null || indexedSize < 0) {
+            return false;
+        } else if (indexedSize + sizeChange != list.size()) {
+            indexedSize = -1;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return If the index was valid already, rather than built just now
+     */
+    private boolean ensureValid() {
+        if (indexedSize == list.size()) {
+            return true;
+        }
+        positionsById.clear();
+        positionsByDownloadUrl.clear();
+        shifts.clear();
+        hasDuplicates = false;
+        for (int i = 0; i < list.size(); i++) {
+            put(i);
+        }
+        indexedSize = list.size();
+        return false;
+    }
+
+    /**
+     * @return false if there were too many changes and the index needs to be built again
+     */
+    private boolean addShift(int positionStart, int itemCount) {
+        if (shifts.size() >= MAX_SHIFTS) {
+            indexedSize = -1;
+            return false;
+        }
+        shifts.add(new int[] {positionStart, itemCount});
+        return true;
+    }
+
+    private int resolve(Position position) {
+        for (int i = position.appliedShifts; i < shifts.size(); i++) {
+            int[] shift = shifts.get(i);
+            if (position.position >= shift[0]) {
+                position.position += shift[1];
+            }
+        }
+        position.appliedShifts = shifts.size();
+        return position.position;
+    }
+
+    /**
+     * Stores the position of the item at the given position, unless the same episode comes earlier.
+     */
+    private void put(int position) {
+        FeedItem item = list.get(position);
+        if (item == null) {
+            return;
+        }
+        put(positionsById, item.getId(), position);
+        String downloadUrl = getDownloadUrl(item);
+        if (downloadUrl != null) {
+            put(positionsByDownloadUrl, downloadUrl, position);
+        }
+    }
+
+    private <K> void put(Map<K, Position> positions, K key, int position) {
+        Position existing = positions.get(key);
+        if (existing == null) {
+            positions.put(key, new Position(position, shifts.size()));
+            return;
+        }
+        hasDuplicates = true;
+        if (position < resolve(existing)) {
+            existing.position = position;
+        }
+    }
+
+    /**
+     * Forgets the position of an item that is not in the list anymore.
+     *
+     * @return false if the index did not have the item at that position
+     */
+    private boolean remove(@Nullable FeedItem item, int position) {
+        if (item == null) {
+            return true;
+        }
+        if (!remove(positionsById, item.getId(), position)) {
+            return false;
+        }
+        String downloadUrl = getDownloadUrl(item);
+        return downloadUrl == null || remove(positionsByDownloadUrl, downloadUrl, position);
+    }
+
+    private <K> boolean remove(Map<K, Position> positions, K key, int position) {
+        Position existing = positions.get(key);
+        if (existing == null || resolve(existing) != position) {
+            return false;
+        }
+        positions.remove(key);
+        return true;
+    }
+
+    @Nullable
+    private static String getDownloadUrl(@Nullable FeedItem item) {
+        if (item == null || item.getMedia() == null) {
+            return null;
+        }
+        return item.getMedia().getDownloadUrl();
+    }
+}
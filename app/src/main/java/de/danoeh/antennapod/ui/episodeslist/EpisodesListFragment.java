@@ -240,16 +240,19 @@ public abstract class EpisodesListFragment extends Fragment
 
     private void performMultiSelectAction(int actionItemId) {
         EpisodeMultiSelectActionHandler handler = new EpisodeMultiSelectActionHandler(getActivity(), actionItemId);
+        final FeedItem lastLoadedItem = episodes.isEmpty() ? null : episodes.get(episodes.size() - 1);
         Completable.fromAction(
                 () -> {
                     handler.handleAction(listAdapter.getSelectedItems());
-                    if (listAdapter.shouldSelectLazyLoadedItems()) {
-                        int applyPage = page + 1;
+                    if (listAdapter.shouldSelectLazyLoadedItems() && lastLoadedItem != null) {
+                        FeedItem lastItem = lastLoadedItem;
                         List<FeedItem> nextPage;
                         do {
-                            nextPage = loadMoreData(applyPage);
+                            nextPage = loadMoreData(lastItem);
                             handler.handleAction(nextPage);
-                            applyPage++;
+                            if (!nextPage.isEmpty()) {
+                                lastItem = nextPage.get(nextPage.size() - 1);
+                            }
                         } while (nextPage.size() == EPISODES_PER_PAGE);
                     }
                 })
@@ -280,8 +283,8 @@ public abstract class EpisodesListFragment extends Fragment
         }
         isLoadingMore = true;
         listAdapter.setDummyViews(1);
-        listAdapter.notifyItemInserted(listAdapter.getItemCount() - 1);
-        disposable = Observable.fromCallable(() -> loadMoreData(page))
+        final FeedItem lastItem = episodes.get(episodes.size() - 1);
+        disposable = Observable.fromCallable(() -> loadMoreData(lastItem))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
@@ -291,10 +294,11 @@ public abstract class EpisodesListFragment extends Fragment
                             }
                             episodes.addAll(data);
                             listAdapter.setDummyViews(0);
-                            listAdapter.updateItems(episodes);
-                            if (listAdapter.shouldSelectLazyLoadedItems()) {
-                                listAdapter.setSelected(episodes.size() - data.size(), episodes.size(), true);
-                            }
+                            listAdapter.updateItems(episodes, () -> {
+                                if (listAdapter.shouldSelectLazyLoadedItems()) {
+                                    listAdapter.setSelected(episodes.size() - data.size(), episodes.size(), true);
+                                }
+                            });
                         }, error -> {
                             listAdapter.setDummyViews(0);
                             listAdapter.updateItems(Collections.emptyList());
@@ -330,7 +334,7 @@ public abstract class EpisodesListFragment extends Fragment
     public void onEventMainThread(FeedItemEvent event) {
         Log.d(TAG, "onEventMainThread() called with: " + "event = [" + event + "]");
         for (FeedItem item : event.items) {
-            int pos = FeedItemEvent.indexOfItemWithId(episodes, item.getId());
+            int pos = listAdapter.indexOfItemWithId(item.getId());
             if (pos >= 0) {
                 episodes.remove(pos);
                 if (getFilter().matches(item)) {
@@ -374,7 +378,7 @@ public abstract class EpisodesListFragment extends Fragment
     @Subscribe(sticky = true, threadMode = ThreadMode.MAIN)
     public void onEventMainThread(EpisodeDownloadEvent event) {
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(episodes, downloadUrl);
+            int pos = listAdapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 listAdapter.notifyItemChangedCompat(pos);
             }
@@ -426,8 +430,11 @@ public abstract class EpisodesListFragment extends Fragment
     @NonNull
     protected abstract List<FeedItem> loadData();
 
+    /**
+     * Loads the page of episodes that follows the given episode.
+     */
     @NonNull
-    protected abstract List<FeedItem> loadMoreData(int page);
+    protected abstract List<FeedItem> loadMoreData(@NonNull FeedItem lastItem);
 
     protected abstract int loadTotalItemCount();
 
@@ -13,6 +13,7 @@ import de.danoeh.antennapod.R;
 import de.danoeh.antennapod.storage.database.DBReader;
 import de.danoeh.antennapod.ui.AllEpisodesFilterDialog;
 import de.danoeh.antennapod.ui.screen.feed.ItemSortDialog;
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.FeedListUpdateEvent;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedItemFilter;
@@ -20,7 +21,6 @@ import de.danoeh.antennapod.model.feed.SortOrder;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
 import de.danoeh.antennapod.ui.episodeslist.EpisodesListFragment;
 import org.apache.commons.lang3.StringUtils;
-import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 
 import java.util.ArrayList;
@@ -62,8 +62,8 @@ public class AllEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData(int page) {
-        return DBReader.getEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE, getFilter(),
+    protected List<FeedItem> loadMoreData(@NonNull FeedItem lastItem) {
+        return DBReader.getEpisodes(lastItem, EPISODES_PER_PAGE, getFilter(),
                 UserPreferences.getAllEpisodesSortOrder());
     }
 
@@ -176,7 +176,7 @@ public class AllEpisodesFragment extends EpisodesListFragment {
         protected void onSelectionChanged() {
             super.onSelectionChanged();
             UserPreferences.setAllEpisodesSortOrder(sortOrder);
-            EventBus.getDefault().post(new FeedListUpdateEvent(0));
+            CoalescingEventDispatcher.getInstance().postImmediately(new FeedListUpdateEvent(0));
         }
     }
 }
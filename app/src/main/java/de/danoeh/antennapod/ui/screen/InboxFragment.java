@@ -14,6 +14,7 @@ import androidx.core.util.Pair;
 
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import de.danoeh.antennapod.R;
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.MessageEvent;
 import de.danoeh.antennapod.storage.database.DBReader;
 import de.danoeh.antennapod.storage.database.DBWriter;
@@ -102,8 +103,8 @@ public class InboxFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData(int page) {
-        return DBReader.getEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE,
+    protected List<FeedItem> loadMoreData(@NonNull FeedItem lastItem) {
+        return DBReader.getEpisodes(lastItem, EPISODES_PER_PAGE,
                 new FeedItemFilter(FeedItemFilter.NEW), UserPreferences.getInboxSortedOrder());
     }
 
@@ -153,7 +154,7 @@ public class InboxFragment extends EpisodesListFragment {
         protected void onSelectionChanged() {
             super.onSelectionChanged();
             UserPreferences.setInboxSortedOrder(sortOrder);
-            EventBus.getDefault().post(new FeedListUpdateEvent(0));
+            CoalescingEventDispatcher.getInstance().postImmediately(new FeedListUpdateEvent(0));
         }
     }
 }
@@ -108,9 +108,8 @@ public class PlaybackHistoryFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData(int page) {
-        return DBReader.getEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE, FILTER_HISTORY,
-                SortOrder.COMPLETION_DATE_NEW_OLD);
+    protected List<FeedItem> loadMoreData(@NonNull FeedItem lastItem) {
+        return DBReader.getEpisodes(lastItem, EPISODES_PER_PAGE, FILTER_HISTORY, SortOrder.COMPLETION_DATE_NEW_OLD);
     }
 
     @Override
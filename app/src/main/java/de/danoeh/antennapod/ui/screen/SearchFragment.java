@@ -70,6 +70,7 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
     private static final String ARG_FEED_NAME = "feedName";
     private static final String ARG_ARCHIVED = "archived";
     private static final int SEARCH_DEBOUNCE_INTERVAL = 1500;
+    private static final int RESULTS_PER_PAGE = 50;
 
     private EpisodeItemListAdapter adapter;
     private HorizontalFeedListAdapter adapterFeeds;
@@ -79,6 +80,12 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
     private EmptyViewHandler emptyViewHandler;
     private EpisodeItemListRecyclerView recyclerView;
     private List<FeedItem> results;
+    /**
+     * Identifies the search that {@link #results} belong to.
+     */
+    private String resultsSearch = null;
+    private boolean hasMoreResults = false;
+    private boolean isLoadingMore = false;
     private Chip chip;
     private SearchView searchView;
     private FloatingSelectMenu floatingSelectMenu;
@@ -224,6 +231,14 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
                     Keyboard.hide(getActivity());
                 }
             }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int deltaX, int deltaY) {
+                super.onScrolled(view, deltaX, deltaY);
+                if (!isLoadingMore && hasMoreResults && SearchFragment.this.recyclerView.isScrolledToBottom()) {
+                    loadMoreResults();
+                }
+            }
         });
         floatingSelectMenu.inflate(R.menu.episodes_apply_action_speeddial);
         floatingSelectMenu.setOnMenuItemClickListener(menuItem -> {
@@ -335,7 +350,7 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
         }
         for (int i = 0, size = event.items.size(); i < size; i++) {
             FeedItem item = event.items.get(i);
-            int pos = FeedItemEvent.indexOfItemWithId(results, item.getId());
+            int pos = adapter.indexOfItemWithId(item.getId());
             if (pos >= 0) {
                 results.remove(pos);
                 results.add(pos, item);
@@ -350,7 +365,7 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
             return;
         }
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(results, downloadUrl);
+            int pos = adapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 adapter.notifyItemChangedCompat(pos);
             }
@@ -423,17 +438,60 @@ public class SearchFragment extends Fragment implements EpisodeItemListAdapter.O
                         emptyViewHandler.setTitle(getString(R.string.no_results_for_query, query));
                     }, error -> Log.e(TAG, Log.getStackTraceString(error)));
         }
-        disposableEpisodes = Observable.fromCallable(() -> DBReader.searchFeedItems(feed, query, state))
+        // Reloading the same search keeps the pages that were loaded already
+        String search = feed + "/" + state + "/" + query;
+        int limit = RESULTS_PER_PAGE;
+        if (search.equals(resultsSearch) && results != null) {
+            limit = Math.max(limit, results.size());
+        }
+        final int pageLimit = limit;
+        isLoadingMore = false;
+        adapter.setDummyViews(0);
+        disposableEpisodes = Observable.fromCallable(() -> DBReader.searchFeedItems(feed, query, state, 0, pageLimit))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(results -> {
                     progressBar.setVisibility(View.GONE);
                     this.results = results;
+                    resultsSearch = search;
+                    hasMoreResults = results.size() == pageLimit;
                     adapter.updateItems(results);
                     emptyViewHandler.setTitle(getString(R.string.no_results_for_query, searchView.getQuery()));
                 }, error -> Log.e(TAG, Log.getStackTraceString(error)));
     }
 
+    private void loadMoreResults() {
+        long feed = getArguments().getLong(ARG_FEED, 0);
+        final int state = getArguments().getBoolean(ARG_ARCHIVED, false) ? Feed.STATE_ARCHIVED : Feed.STATE_SUBSCRIBED;
+        String query = searchView.getQuery().toString();
+        if (!(feed + "/" + state + "/" + query).equals(resultsSearch)) {
+            return; // A new search is about to start
+        }
+        if (disposableEpisodes != null) {
+            disposableEpisodes.dispose();
+        }
+        isLoadingMore = true;
+        adapter.setDummyViews(1);
+        int offset = results.size();
+        disposableEpisodes = Observable.fromCallable(() ->
+                        DBReader.searchFeedItems(feed, query, state, offset, RESULTS_PER_PAGE))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(page -> {
+                    hasMoreResults = page.size() == RESULTS_PER_PAGE;
+                    results.addAll(page);
+                    adapter.setDummyViews(0);
+                    adapter.updateItems(results);
+                }, error -> {
+                    adapter.setDummyViews(0);
+                    isLoadingMore = false;
+                    Log.e(TAG, Log.getStackTraceString(error));
+                }, () -> {
+                    // Make sure to not always load 2 pages at once
+                    recyclerView.post(() -> isLoadingMore = false);
+                });
+    }
+
     private void searchOnline() {
         if (adapter != null && adapter.inActionMode()) {
             adapter.endSelectMode();
@@ -219,7 +219,7 @@ public class CompletedDownloadsFragment extends Fragment
             return; // Refreshed anyway
         }
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(items, downloadUrl);
+            int pos = adapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 adapter.notifyItemChangedCompat(pos);
             }
@@ -259,7 +259,7 @@ public class CompletedDownloadsFragment extends Fragment
         }
         for (int i = 0, size = event.items.size(); i < size; i++) {
             FeedItem item = event.items.get(i);
-            int pos = FeedItemEvent.indexOfItemWithId(items, item.getId());
+            int pos = adapter.indexOfItemWithId(item.getId());
             if (pos >= 0) {
                 items.remove(pos);
                 if (item.getMedia().isDownloaded()) {
@@ -3,6 +3,7 @@ package de.danoeh.antennapod.ui.screen.download;
 import android.app.Dialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.View;
 import androidx.annotation.NonNull;
@@ -13,6 +14,7 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import de.danoeh.antennapod.R;
 import de.danoeh.antennapod.databinding.DownloadLogDetailsDialogBinding;
 import de.danoeh.antennapod.model.download.DownloadResult;
+import de.danoeh.antennapod.model.download.NotModifiedStatistics;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.storage.database.DBReader;
@@ -40,6 +42,7 @@ public class DownloadLogDetailsDialog extends DialogFragment {
     private String podcastName = null;
     private String episodeName = null;
     private String url = "unknown";
+    private NotModifiedStatistics notModifiedStatistics = null;
     private String clipboardContent = "";
 
     public static DownloadLogDetailsDialog newInstance(DownloadResult downloadResult, boolean isJumpToFeed) {
@@ -119,6 +122,7 @@ public class DownloadLogDetailsDialog extends DialogFragment {
                 if (feed != null) {
                     podcastName = feed.getTitle();
                     url = feed.getDownloadUrl();
+                    notModifiedStatistics = DBReader.getFeedNotModifiedStatistics(feed.getId());
                 } else {
                     podcastName = downloadResult.getTitle();
                 }
@@ -146,6 +150,13 @@ public class DownloadLogDetailsDialog extends DialogFragment {
         viewBinding.humanReadableReasonLabel.setText(humanReadableReason);
         viewBinding.technicalReasonLabel.setText(message);
         viewBinding.fileUrlLabel.setText(url);
+        if (notModifiedStatistics != null && notModifiedStatistics.getCount() > 0) {
+            viewBinding.notModifiedLabel.setText(getResources().getQuantityString(
+                    R.plurals.download_log_details_not_modified, notModifiedStatistics.getCount(),
+                    notModifiedStatistics.getCount(),
+                    Formatter.formatShortFileSize(getContext(), notModifiedStatistics.getBytesSaved())));
+            viewBinding.notModifiedContainer.setVisibility(View.VISIBLE);
+        }
 
         final String humanReadableReasonTitle = getString(R.string.download_log_details_human_readable_reason_title);
         final String technicalReasonTitle = getString(R.string.download_log_details_technical_reason_title);
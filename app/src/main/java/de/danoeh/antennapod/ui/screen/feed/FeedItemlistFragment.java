@@ -207,7 +207,9 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
             }
             EpisodeMultiSelectActionHandler handler
                     = new EpisodeMultiSelectActionHandler(getActivity(), menuItem.getItemId());
-            Completable.fromAction(() -> handleActionForAllSelectedItems(handler))
+            List<FeedItem> loadedItems = feed.getItems();
+            FeedItem lastLoadedItem = loadedItems.isEmpty() ? null : loadedItems.get(loadedItems.size() - 1);
+            Completable.fromAction(() -> handleActionForAllSelectedItems(handler, lastLoadedItem))
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
                     .subscribe(() -> adapter.endSelectMode(),
@@ -217,21 +219,24 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
         return viewBinding.getRoot();
     }
 
-    private void handleActionForAllSelectedItems(EpisodeMultiSelectActionHandler handler) {
+    private void handleActionForAllSelectedItems(EpisodeMultiSelectActionHandler handler,
+                                                 @Nullable FeedItem lastLoadedItem) {
         handler.handleAction(adapter.getSelectedItems());
-        if (adapter.shouldSelectLazyLoadedItems()) {
-            int applyPage = page + 1;
+        if (adapter.shouldSelectLazyLoadedItems() && lastLoadedItem != null) {
+            FeedItem lastItem = lastLoadedItem;
             List<FeedItem> nextPage;
             do {
-                nextPage = loadMoreData(applyPage);
+                nextPage = loadMoreData(lastItem);
                 handler.handleAction(nextPage);
-                applyPage++;
+                if (!nextPage.isEmpty()) {
+                    lastItem = nextPage.get(nextPage.size() - 1);
+                }
             } while (nextPage.size() == EPISODES_PER_PAGE);
         }
     }
 
-    private List<FeedItem> loadMoreData(int page) {
-        Feed feed = DBReader.getFeed(feedID, true, (page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE);
+    private List<FeedItem> loadMoreData(@NonNull FeedItem lastItem) {
+        Feed feed = DBReader.getFeed(feedID, true, lastItem, EPISODES_PER_PAGE);
         return feed != null ? feed.getItems() : Collections.emptyList();
     }
 
@@ -406,7 +411,7 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
         }
         for (int i = 0, size = event.items.size(); i < size; i++) {
             FeedItem item = event.items.get(i);
-            int pos = FeedItemEvent.indexOfItemWithId(feed.getItems(), item.getId());
+            int pos = adapter.indexOfItemWithId(item.getId());
             if (pos >= 0) {
                 feed.getItems().remove(pos);
                 feed.getItems().add(pos, item);
@@ -421,7 +426,7 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
             return;
         }
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(feed.getItems(), downloadUrl);
+            int pos = adapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 adapter.notifyItemChangedCompat(pos);
             }
@@ -699,8 +704,8 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
         }
         isLoadingMore = true;
         adapter.setDummyViews(1);
-        adapter.notifyItemInserted(adapter.getItemCount() - 1);
-        disposable = Observable.fromCallable(() -> loadMoreData(page))
+        FeedItem lastItem = feed.getItems().get(feed.getItems().size() - 1);
+        disposable = Observable.fromCallable(() -> loadMoreData(lastItem))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
@@ -710,11 +715,12 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
                             }
                             feed.getItems().addAll(items);
                             adapter.setDummyViews(0);
-                            adapter.updateItems(feed.getItems());
-                            if (adapter.shouldSelectLazyLoadedItems()) {
-                                adapter.setSelected(feed.getItems().size() - items.size(),
-                                        feed.getItems().size(), true);
-                            }
+                            adapter.updateItems(feed.getItems(), () -> {
+                                if (adapter.shouldSelectLazyLoadedItems()) {
+                                    adapter.setSelected(feed.getItems().size() - items.size(),
+                                            feed.getItems().size(), true);
+                                }
+                            });
                         }, error -> {
                             adapter.setDummyViews(0);
                             adapter.updateItems(Collections.emptyList());
@@ -102,7 +102,7 @@ public class InboxSection extends HomeSection {
     @Subscribe(sticky = true, threadMode = ThreadMode.MAIN)
     public void onEventMainThread(EpisodeDownloadEvent event) {
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(items, downloadUrl);
+            int pos = adapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 adapter.notifyItemChangedCompat(pos);
             }
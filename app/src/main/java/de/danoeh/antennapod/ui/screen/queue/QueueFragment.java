@@ -156,7 +156,7 @@ public class QueueFragment extends Fragment implements MaterialToolbar.OnMenuIte
                 break;
             case REMOVED:
             case IRREVERSIBLE_REMOVED:
-                position = FeedItemEvent.indexOfItemWithId(queue, event.item.getId());
+                position = recyclerAdapter.indexOfItemWithId(event.item.getId());
                 queue.remove(position);
                 recyclerAdapter.notifyItemRemoved(position);
                 break;
@@ -165,7 +165,7 @@ public class QueueFragment extends Fragment implements MaterialToolbar.OnMenuIte
                 recyclerAdapter.updateItems(queue);
                 break;
             case MOVED:
-                position = FeedItemEvent.indexOfItemWithId(queue, event.item.getId());
+                position = recyclerAdapter.indexOfItemWithId(event.item.getId());
                 queue.add(event.position, queue.remove(position));
                 recyclerAdapter.notifyItemMoved(position, event.position);
                 break;
@@ -188,7 +188,7 @@ public class QueueFragment extends Fragment implements MaterialToolbar.OnMenuIte
         }
         for (int i = 0, size = event.items.size(); i < size; i++) {
             FeedItem item = event.items.get(i);
-            int pos = FeedItemEvent.indexOfItemWithId(queue, item.getId());
+            int pos = recyclerAdapter.indexOfItemWithId(item.getId());
             if (pos >= 0) {
                 queue.remove(pos);
                 queue.add(pos, item);
@@ -200,11 +200,11 @@ public class QueueFragment extends Fragment implements MaterialToolbar.OnMenuIte
 
     @Subscribe(sticky = true, threadMode = ThreadMode.MAIN)
     public void onEventMainThread(EpisodeDownloadEvent event) {
-        if (queue == null) {
+        if (queue == null || recyclerAdapter == null) {
             return;
         }
         for (String downloadUrl : event.getUrls()) {
-            int pos = EpisodeDownloadEvent.indexOfItemWithDownloadUrl(queue, downloadUrl);
+            int pos = recyclerAdapter.indexOfItemWithDownloadUrl(downloadUrl);
             if (pos >= 0) {
                 recyclerAdapter.notifyItemChangedCompat(pos);
             }
@@ -372,7 +372,7 @@ public class QueueFragment extends Fragment implements MaterialToolbar.OnMenuIte
             return super.onContextItemSelected(item);
         }
 
-        int position = FeedItemEvent.indexOfItemWithId(queue, selectedItem.getId());
+        int position = recyclerAdapter.indexOfItemWithId(selectedItem.getId());
         if (position < 0) {
             Log.i(TAG, "Selected item no longer exist, ignoring selection");
             return super.onContextItemSelected(item);
@@ -3,10 +3,10 @@ package de.danoeh.antennapod.ui.screen.subscriptions;
 import android.content.Context;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import de.danoeh.antennapod.R;
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.UnreadItemsUpdateEvent;
 import de.danoeh.antennapod.model.feed.FeedCounter;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
-import org.greenrobot.eventbus.EventBus;
 
 import java.util.Arrays;
 import java.util.List;
@@ -28,7 +28,7 @@ public class FeedCounterDialog {
                 UserPreferences.setFeedCounterSetting(
                         FeedCounter.fromOrdinal(Integer.parseInt(entryValues.get(which))));
                 //Update subscriptions
-                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+                CoalescingEventDispatcher.getInstance().postImmediately(new UnreadItemsUpdateEvent());
             }
             d.dismiss();
         });
@@ -5,12 +5,12 @@ import android.content.Context;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
 import de.danoeh.antennapod.model.feed.FeedOrder;
-import org.greenrobot.eventbus.EventBus;
 
 import java.util.Arrays;
 import java.util.List;
 
 import de.danoeh.antennapod.R;
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.UnreadItemsUpdateEvent;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
 
@@ -30,7 +30,7 @@ public class FeedSortDialog {
             if (selectedIndex != which) {
                 UserPreferences.setFeedOrder(FeedOrder.fromOrdinal(Integer.parseInt(entryValues.get(which))));
                 //Update subscriptions
-                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+                CoalescingEventDispatcher.getInstance().postImmediately(new UnreadItemsUpdateEvent());
             }
             d.dismiss();
         });
@@ -0,0 +1,280 @@
+package de.danoeh.antennapod.ui.episodeslist;
+
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class EpisodeListDifferTest {
+    private TestAdapter adapter;
+    private EpisodeListDiffer differ;
+    private final List<String> notifications = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // Calculate diffs right away. The result is still delivered through the main looper.
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> Schedulers.trampoline());
+        adapter = new TestAdapter();
+        differ = new EpisodeListDiffer(adapter);
+        adapter.registerAdapterDataObserver(new RecordingObserver());
+    }
+
+    @After
+    public void tearDown() {
+        RxJavaPlugins.reset();
+    }
+
+    @Test
+    public void testFirstListIsShownRightAway() {
+        List<FeedItem> list = createItems(1, 2, 3);
+        differ.submitList(list, null);
+        assertEquals(list, differ.getItems());
+        assertEquals(Collections.singletonList("changed"), notifications);
+    }
+
+    @Test
+    public void testDiffOnlyNotifiesChangedRows() {
+        List<FeedItem> list = createItems(1, 2, 3);
+        differ.submitList(list, null);
+        notifications.clear();
+
+        List<FeedItem> reloaded = createItems(1, 2, 3);
+        reloaded.get(1).setTitle("New title");
+        differ.submitList(reloaded, null);
+        assertSame(list.get(1), differ.getItems().get(1)); // Not applied before the diff is done
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(Collections.singletonList("range changed 1 1"), notifications);
+        assertSame(reloaded.get(1), differ.getItems().get(1));
+    }
+
+    @Test
+    public void testDiffNotifiesInsertAndRemove() {
+        differ.submitList(createItems(1, 2, 3), null);
+        notifications.clear();
+
+        differ.submitList(createItems(1, 3, 4), null);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        // Only the removed and the inserted row, no matter in which order DiffUtil sends them
+        assertEquals(2, notifications.size());
+        assertTrue(notifications.contains("removed 1 1"));
+        assertTrue(notifications.get(0).startsWith("inserted") || notifications.get(1).startsWith("inserted"));
+        assertEquals(2, differ.indexOfItemWithId(4));
+        assertEquals(-1, differ.indexOfItemWithId(2));
+    }
+
+    @Test
+    public void testInsertWhileDiffIsPending() {
+        differ.submitList(createItems(1, 2), null);
+        List<FeedItem> reloaded = createItems(1, 2, 3);
+        differ.submitList(reloaded, null);
+        notifications.clear();
+
+        reloaded.add(0, createItem(4));
+        adapter.notifyItemInserted(0);
+        assertEquals(Arrays.asList("inserted 0 1", "changed"), notifications);
+        assertEquals(reloaded, differ.getItems());
+
+        // The dropped diff does not send anything anymore
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(2, notifications.size());
+        assertEquals(0, differ.indexOfItemWithId(4));
+        assertEquals(3, differ.indexOfItemWithId(3));
+    }
+
+    @Test
+    public void testRemoveWhileDiffIsPending() {
+        differ.submitList(createItems(1, 2), null);
+        List<FeedItem> reloaded = createItems(1, 2, 3);
+        differ.submitList(reloaded, null);
+        notifications.clear();
+
+        reloaded.remove(0);
+        adapter.notifyItemRemoved(0);
+        assertEquals(Arrays.asList("removed 0 1", "changed"), notifications);
+        assertEquals(reloaded, differ.getItems());
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(2, notifications.size());
+        assertEquals(-1, differ.indexOfItemWithId(1));
+        assertEquals(1, differ.indexOfItemWithId(3));
+    }
+
+    @Test
+    public void testInPlaceChangesWithoutPendingDiff() {
+        List<FeedItem> list = createItems(1, 2, 3);
+        differ.submitList(list, null);
+
+        list.remove(1);
+        adapter.notifyItemRemoved(1);
+        assertEquals(list, differ.getItems());
+        assertEquals(1, differ.indexOfItemWithId(3));
+
+        list.add(0, createItem(4));
+        adapter.notifyItemInserted(0);
+        assertEquals(list, differ.getItems());
+        assertEquals(0, differ.indexOfItemWithId(4));
+        assertEquals(2, differ.indexOfItemWithId(3));
+    }
+
+    @Test
+    public void testInPlaceChangesKeepTheDiffState() {
+        List<FeedItem> list = createItems(1, 2, 3, 4, 5);
+        differ.submitList(list, null);
+
+        list.add(3, list.remove(0));
+        adapter.notifyItemMoved(0, 3);
+        list.add(0, list.remove(4));
+        adapter.notifyItemMoved(4, 0);
+        list.addAll(2, createItems(6, 7));
+        adapter.notifyItemRangeInserted(2, 2);
+        list.subList(4, 6).clear();
+        adapter.notifyItemRangeRemoved(4, 2);
+        assertEquals(list, differ.getItems());
+        assertEquals(Arrays.asList(5L, 2L, 6L, 7L, 1L), getIds(differ.getItems()));
+        assertEquals(4, differ.indexOfItemWithId(1));
+
+        // The IDs and versions of the copy match the list, so reloading it changes nothing
+        notifications.clear();
+        differ.submitList(createItems(5, 2, 6, 7, 1), null);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Collections.emptyList(), notifications);
+    }
+
+    @Test
+    public void testDummyRowNotificationsKeepTheList() {
+        List<FeedItem> list = createItems(1, 2);
+        differ.submitList(list, null);
+        notifications.clear();
+
+        differ.notifyWithoutListChange(() -> adapter.notifyItemRangeInserted(2, 3));
+        differ.notifyWithoutListChange(() -> adapter.notifyItemRangeRemoved(2, 3));
+        assertEquals(Arrays.asList("inserted 2 3", "removed 2 3"), notifications);
+        assertEquals(list, differ.getItems());
+        assertEquals(1, differ.indexOfItemWithId(2));
+    }
+
+    @Test
+    public void testVersionDetectsDisplayedChanges() {
+        FeedItem item = createItem(1);
+        long version = EpisodeListDiffer.getVersion(item);
+        assertEquals(version, EpisodeListDiffer.getVersion(createItem(1)));
+
+        item.setPlayed(true);
+        assertNotEquals(version, EpisodeListDiffer.getVersion(item));
+        version = EpisodeListDiffer.getVersion(item);
+
+        item.getMedia().setPosition(1000);
+        assertNotEquals(version, EpisodeListDiffer.getVersion(item));
+        version = EpisodeListDiffer.getVersion(item);
+
+        item.addTag(FeedItem.TAG_FAVORITE);
+        assertNotEquals(version, EpisodeListDiffer.getVersion(item));
+        version = EpisodeListDiffer.getVersion(item);
+
+        item.getMedia().setLocalFileUrl("/episode.mp3");
+        assertNotEquals(version, EpisodeListDiffer.getVersion(item));
+    }
+
+    private static List<FeedItem> createItems(long... ids) {
+        List<FeedItem> items = new ArrayList<>();
+        for (long id : ids) {
+            items.add(createItem(id));
+        }
+        return items;
+    }
+
+    private static List<Long> getIds(List<FeedItem> items) {
+        List<Long> ids = new ArrayList<>();
+        for (FeedItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private static FeedItem createItem(long id) {
+        FeedItem item = new FeedItem(id, "Item " + id, "item-" + id, "http://example.com/" + id,
+                new Date(1700000000000L), FeedItem.UNPLAYED, null);
+        FeedMedia media = new FeedMedia(item, "http://example.com/" + id + ".mp3", 1000, "audio/mpeg");
+        media.setId(id);
+        item.setMedia(media);
+        return item;
+    }
+
+    private class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return differ.getItems().size();
+        }
+    }
+
+    private class RecordingObserver extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            notifications.add("changed");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            notifications.add("range changed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, @Nullable Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            notifications.add("inserted " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            notifications.add("removed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            notifications.add("moved " + fromPosition + " " + toPosition + " " + itemCount);
+        }
+    }
+}
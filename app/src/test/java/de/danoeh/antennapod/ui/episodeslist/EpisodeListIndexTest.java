@@ -0,0 +1,152 @@
+package de.danoeh.antennapod.ui.episodeslist;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class EpisodeListIndexTest {
+    private List<FeedItem> list;
+    private EpisodeListIndex index;
+
+    @Before
+    public void setUp() {
+        list = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            list.add(createItem(id));
+        }
+        index = new EpisodeListIndex();
+        index.reset(list);
+    }
+
+    @Test
+    public void testLookup() {
+        assertEquals(0, index.indexOfItemWithId(1));
+        assertEquals(4, index.indexOfItemWithId(5));
+        assertEquals(2, index.indexOfItemWithDownloadUrl(getDownloadUrl(3)));
+        assertEquals(-1, index.indexOfItemWithId(6));
+        assertEquals(-1, index.indexOfItemWithDownloadUrl(getDownloadUrl(6)));
+    }
+
+    @Test
+    public void testInsert() {
+        index.indexOfItemWithId(1);
+        list.add(1, createItem(6));
+        list.add(2, createItem(7));
+        index.onInserted(1, 2);
+
+        assertEquals(0, index.indexOfItemWithId(1));
+        assertEquals(1, index.indexOfItemWithId(6));
+        assertEquals(2, index.indexOfItemWithDownloadUrl(getDownloadUrl(7)));
+        assertEquals(3, index.indexOfItemWithId(2));
+        assertEquals(6, index.indexOfItemWithDownloadUrl(getDownloadUrl(5)));
+    }
+
+    @Test
+    public void testRemove() {
+        index.indexOfItemWithId(1);
+        List<FeedItem> removed = new ArrayList<>(list.subList(1, 3));
+        list.subList(1, 3).clear();
+        index.onRemoved(1, removed);
+
+        assertEquals(0, index.indexOfItemWithId(1));
+        assertEquals(-1, index.indexOfItemWithId(2));
+        assertEquals(-1, index.indexOfItemWithDownloadUrl(getDownloadUrl(3)));
+        assertEquals(1, index.indexOfItemWithId(4));
+        assertEquals(2, index.indexOfItemWithDownloadUrl(getDownloadUrl(5)));
+    }
+
+    @Test
+    public void testMove() {
+        index.indexOfItemWithId(1);
+        list.add(3, list.remove(0));
+        index.onMoved(0, 3, 1);
+        assertEquals(3, index.indexOfItemWithId(1));
+        assertEquals(0, index.indexOfItemWithId(2));
+        assertEquals(4, index.indexOfItemWithId(5));
+
+        list.add(0, list.remove(4));
+        index.onMoved(4, 0, 1);
+        assertEquals(0, index.indexOfItemWithId(5));
+        assertEquals(1, index.indexOfItemWithId(2));
+        assertEquals(4, index.indexOfItemWithDownloadUrl(getDownloadUrl(1)));
+    }
+
+    @Test
+    public void testFirstDuplicateWins() {
+        index.indexOfItemWithId(1);
+        list.add(createItem(2));
+        index.onInserted(5, 1);
+        assertEquals(1, index.indexOfItemWithId(2));
+
+        list.add(0, createItem(2));
+        index.onInserted(0, 1);
+        assertEquals(0, index.indexOfItemWithId(2));
+        assertEquals(0, index.indexOfItemWithDownloadUrl(getDownloadUrl(2)));
+
+        // The next duplicate takes over
+        List<FeedItem> removed = new ArrayList<>(list.subList(0, 1));
+        list.remove(0);
+        index.onRemoved(0, removed);
+        assertEquals(1, index.indexOfItemWithId(2));
+
+        removed = new ArrayList<>(list.subList(1, 2));
+        list.remove(1);
+        index.onRemoved(1, removed);
+        assertEquals(4, index.indexOfItemWithId(2));
+
+        list.add(0, list.remove(4));
+        index.onMoved(4, 0, 1);
+        assertEquals(0, index.indexOfItemWithId(2));
+    }
+
+    @Test
+    public void testRebuildOnStaleEntry() {
+        index.indexOfItemWithId(1);
+        // Changed without telling the index, with the same size
+        Collections.swap(list, 0, 4);
+        assertEquals(4, index.indexOfItemWithId(1));
+        assertEquals(0, index.indexOfItemWithId(5));
+
+        // Changed without telling the index, with a different size
+        list.add(0, createItem(6));
+        assertEquals(0, index.indexOfItemWithId(6));
+        assertEquals(5, index.indexOfItemWithId(1));
+    }
+
+    @Test
+    public void testManyChanges() {
+        index.indexOfItemWithId(1);
+        for (long id = 6; id < 106; id++) {
+            list.add(0, createItem(id));
+            index.onInserted(0, 1);
+        }
+        for (int i = 0; i < 50; i++) {
+            List<FeedItem> removed = new ArrayList<>(list.subList(0, 1));
+            list.remove(0);
+            index.onRemoved(0, removed);
+        }
+        assertEquals(0, index.indexOfItemWithId(55));
+        assertEquals(49, index.indexOfItemWithId(6));
+        assertEquals(50, index.indexOfItemWithId(1));
+        assertEquals(-1, index.indexOfItemWithId(56));
+    }
+
+    private static FeedItem createItem(long id) {
+        FeedItem item = new FeedItem(id, "Item " + id, "item-" + id, "http://example.com/" + id,
+                new Date(), FeedItem.UNPLAYED, null);
+        item.setMedia(new FeedMedia(item, getDownloadUrl(id), 1000, "audio/mpeg"));
+        return item;
+    }
+
+    private static String getDownloadUrl(long id) {
+        return "http://example.com/" + id + ".mp3";
+    }
+}
@@ -0,0 +1,153 @@
+package de.danoeh.antennapod.event;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Posts events that make subscribers reload whole lists, {@link FeedListUpdateEvent} and
+ * {@link UnreadItemsUpdateEvent}, at most once per window for each event type.
+ * The first event is posted right away. Events that follow within the window are merged
+ * and posted together when the window is over. Other events are posted right away,
+ * because merging them could lose the data they carry.
+ *
+ * <p>A merged event arrives up to one window after it was posted. Events of the same type stay in order,
+ * as long as all of them go through the dispatcher. Code that needs such an event to arrive right away
+ * uses {@link #postImmediately} instead of posting to the event bus, so that a pending event does not
+ * arrive after it. Events of other types that are posted in the meantime can arrive before a merged event.
+ */
+public class CoalescingEventDispatcher {
+    public static final long DEFAULT_WINDOW_MILLIS = 1000;
+
+    private static CoalescingEventDispatcher instance;
+
+    private final EventBus eventBus;
+    private final Handler handler;
+    private final Map<Class<?>, EventState> states = new HashMap<>();
+    private long windowMillis;
+    private long mergedEventCount = 0;
+
+    public static synchronized CoalescingEventDispatcher getInstance() {
+        if (instance == null) {
+            instance = new CoalescingEventDispatcher(EventBus.getDefault(), DEFAULT_WINDOW_MILLIS);
+        }
+        return instance;
+    }
+
+    public CoalescingEventDispatcher(EventBus eventBus, long windowMillis) {
+        this.eventBus = eventBus;
+        this.windowMillis = windowMillis;
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Changes the window for events that are posted from now on. With a window of 0, every event is posted
+     * right away.
+     */
+    public synchronized void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Number of events that were not posted on their own because they were merged into another event.
+     */
+    public synchronized long getMergedEventCount() {
+        return mergedEventCount;
+    }
+
+    public void post(@NonNull Object event) {
+        if (!canMerge(event)) {
+            eventBus.post(event);
+            return;
+        }
+        synchronized (this) {
+            EventState state = getState(event);
+            if (state.pending != null) {
+                state.pending = merge(state.pending, event);
+                mergedEventCount++;
+                return;
+            }
+            long now = SystemClock.elapsedRealtime();
+            long nextPostTime = state.lastPostTime + windowMillis;
+            if (state.lastPostTime != 0 && now < nextPostTime) {
+                state.pending = event;
+                final EventState delayedState = state;
+                handler.postDelayed(() -> postPending(delayedState), nextPostTime - now);
+                return;
+            }
+            state.lastPostTime = now;
+        }
+        eventBus.post(event);
+    }
+
+    /**
+     * Posts the event right away. If an event of the same type is pending, it is merged into this one
+     * instead of being posted later.
+     */
+    public void postImmediately(@NonNull Object event) {
+        if (canMerge(event)) {
+            synchronized (this) {
+                EventState state = getState(event);
+                if (state.pending != null) {
+                    event = merge(state.pending, event);
+                    state.pending = null;
+                    mergedEventCount++;
+                }
+                state.lastPostTime = SystemClock.elapsedRealtime();
+            }
+        }
+        eventBus.post(event);
+    }
+
+    private EventState getState(Object event) {
+        EventState state = states.get(event.getClass());
+        if (state == null) {
+            state = new EventState();
+            states.put(event.getClass(), state);
+        }
+        return state;
+    }
+
+    private void postPending(EventState state) {
+        Object event;
+        synchronized (this) {
+            event = state.pending;
+            if (event == null) {
+                // Already posted by postImmediately
+                return;
+            }
+            state.pending = null;
+            state.lastPostTime = SystemClock.elapsedRealtime();
+        }
+        eventBus.post(event);
+    }
+
+    private static boolean canMerge(Object event) {
+        return event instanceof FeedListUpdateEvent || event instanceof UnreadItemsUpdateEvent;
+    }
+
+    /**
+     * Needs to handle every event type that {@link #canMerge} accepts.
+     */
+    private static Object merge(Object pending, Object event) {
+        if (pending instanceof FeedListUpdateEvent) {
+            return ((FeedListUpdateEvent) pending).mergeWith((FeedListUpdateEvent) event);
+        } else if (pending instanceof UnreadItemsUpdateEvent) {
+            // The event does not carry any data, so one of them stands for all
+            return pending;
+        }
+        throw new IllegalArgumentException("Cannot merge " + pending.getClass().getSimpleName());
+    }
+
+    private static class EventState {
+        long lastPostTime = 0;
+        Object pending = null;
+    }
+}
@@ -2,11 +2,12 @@ package de.danoeh.antennapod.event;
 
 import de.danoeh.antennapod.model.feed.Feed;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FeedListUpdateEvent {
-    private final List<Long> feeds = new ArrayList<>();
+    private final Set<Long> feeds = new HashSet<>();
 
     public FeedListUpdateEvent(List<Feed> feeds) {
         for (Feed feed : feeds) {
@@ -22,7 +23,20 @@ public class FeedListUpdateEvent {
         feeds.add(feedId);
     }
 
+    private FeedListUpdateEvent() {
+    }
+
     public boolean contains(Feed feed) {
         return feeds.contains(feed.getId());
     }
+
+    /**
+     * Returns an event that contains the feeds of both events.
+     */
+    FeedListUpdateEvent mergeWith(FeedListUpdateEvent other) {
+        FeedListUpdateEvent merged = new FeedListUpdateEvent();
+        merged.feeds.addAll(feeds);
+        merged.feeds.addAll(other.feeds);
+        return merged;
+    }
 }
@@ -2,12 +2,32 @@ package de.danoeh.antennapod.event;
 
 public class SyncServiceEvent {
     private final int messageResId;
+    private final int progress;
+    private final int max;
 
     public SyncServiceEvent(int messageResId) {
+        this(messageResId, 0, 0);
+    }
+
+    /**
+     * @param progress Number of elements that are already processed
+     * @param max      Total number of elements, or 0 if the progress is unknown
+     */
+    public SyncServiceEvent(int messageResId, int progress, int max) {
         this.messageResId = messageResId;
+        this.progress = progress;
+        this.max = max;
     }
 
     public int getMessageResId() {
         return messageResId;
     }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public int getMax() {
+        return max;
+    }
 }
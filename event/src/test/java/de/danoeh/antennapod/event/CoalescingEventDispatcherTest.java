@@ -0,0 +1,152 @@
+package de.danoeh.antennapod.event;
+
+import android.os.Looper;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class CoalescingEventDispatcherTest {
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final List<Object> received = new ArrayList<>();
+    private CoalescingEventDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        EventBus eventBus = EventBus.builder().build();
+        eventBus.register(this);
+        dispatcher = new CoalescingEventDispatcher(eventBus, WINDOW_MILLIS);
+    }
+
+    @Subscribe
+    public void onFeedListUpdate(FeedListUpdateEvent event) {
+        received.add(event);
+    }
+
+    @Subscribe
+    public void onUnreadItemsUpdate(UnreadItemsUpdateEvent event) {
+        received.add(event);
+    }
+
+    @Subscribe
+    public void onFeedItemEvent(FeedItemEvent event) {
+        received.add(event);
+    }
+
+    @Test
+    public void testFirstEventIsPostedRightAway() {
+        dispatcher.post(new FeedListUpdateEvent(1));
+        assertEquals(1, received.size());
+        assertTrue(((FeedListUpdateEvent) received.get(0)).contains(feed(1)));
+    }
+
+    @Test
+    public void testEventsWithinWindowAreMerged() {
+        dispatcher.post(new FeedListUpdateEvent(1));
+        dispatcher.post(new FeedListUpdateEvent(2));
+        dispatcher.post(new FeedListUpdateEvent(3));
+        dispatcher.post(new FeedListUpdateEvent(2));
+        assertEquals(1, received.size());
+        assertEquals(2, dispatcher.getMergedEventCount());
+
+        idle(WINDOW_MILLIS / 2);
+        assertEquals(1, received.size());
+        idle(WINDOW_MILLIS / 2);
+        assertEquals(2, received.size());
+        FeedListUpdateEvent merged = (FeedListUpdateEvent) received.get(1);
+        assertFalse(merged.contains(feed(1)));
+        assertTrue(merged.contains(feed(2)));
+        assertTrue(merged.contains(feed(3)));
+    }
+
+    @Test
+    public void testEventsWithoutDataAreMerged() {
+        UnreadItemsUpdateEvent first = new UnreadItemsUpdateEvent();
+        dispatcher.post(first);
+        dispatcher.post(new UnreadItemsUpdateEvent());
+        dispatcher.post(new UnreadItemsUpdateEvent());
+        assertEquals(1, received.size());
+        assertSame(first, received.get(0));
+
+        idle(WINDOW_MILLIS);
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testEventTypesHaveSeparateWindows() {
+        dispatcher.post(new FeedListUpdateEvent(1));
+        dispatcher.post(new UnreadItemsUpdateEvent());
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testOtherEventsAreNotMerged() {
+        FeedItemEvent first = FeedItemEvent.updated(new FeedItem());
+        FeedItemEvent second = FeedItemEvent.updated(new FeedItem());
+        dispatcher.post(first);
+        dispatcher.post(second);
+        assertEquals(2, received.size());
+        assertSame(first, received.get(0));
+        assertSame(second, received.get(1));
+        assertEquals(0, dispatcher.getMergedEventCount());
+    }
+
+    @Test
+    public void testEventAfterWindowIsPostedRightAway() {
+        dispatcher.post(new FeedListUpdateEvent(1));
+        idle(WINDOW_MILLIS);
+        dispatcher.post(new FeedListUpdateEvent(2));
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testPostImmediatelyTakesPendingEvent() {
+        dispatcher.post(new FeedListUpdateEvent(1));
+        dispatcher.post(new FeedListUpdateEvent(2));
+        dispatcher.postImmediately(new FeedListUpdateEvent(3));
+        assertEquals(2, received.size());
+        FeedListUpdateEvent merged = (FeedListUpdateEvent) received.get(1);
+        assertTrue(merged.contains(feed(2)));
+        assertTrue(merged.contains(feed(3)));
+
+        // The pending event is not posted a second time
+        idle(WINDOW_MILLIS);
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testWithoutWindow() {
+        dispatcher.setWindowMillis(0);
+        dispatcher.post(new FeedListUpdateEvent(1));
+        dispatcher.post(new FeedListUpdateEvent(2));
+        assertEquals(2, received.size());
+        assertEquals(0, dispatcher.getMergedEventCount());
+    }
+
+    private static void idle(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    private static Feed feed(long id) {
+        Feed feed = new Feed("url" + id, null);
+        feed.setId(id);
+        return feed;
+    }
+}
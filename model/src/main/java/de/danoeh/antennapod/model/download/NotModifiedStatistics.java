@@ -0,0 +1,25 @@
+package de.danoeh.antennapod.model.download;
+
+/**
+ * How often refreshing a feed was answered with 304 Not Modified, and the traffic that saved.
+ */
+public class NotModifiedStatistics {
+    private final int count;
+    private final long bytesSaved;
+
+    public NotModifiedStatistics(int count, long bytesSaved) {
+        this.count = count;
+        this.bytesSaved = bytesSaved;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sum of the sizes of the last complete download at the time of each 304 response.
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+}
@@ -0,0 +1,135 @@
+package de.danoeh.antennapod.model.feed;
+
+import androidx.annotation.Nullable;
+
+/**
+ * What a row of an episode list shows, without the rest of the {@link FeedItem} and its {@link FeedMedia}.
+ * Rows are immutable and only hold primitive values and a few strings, so long lists stay small.
+ * Screens load the full {@link FeedItem} by ID when an episode is opened or changed.
+ */
+public final class EpisodeListRow {
+    private final long id;
+    private final long feedId;
+    private final String title;
+    private final long pubDate;
+    private final int state;
+    @Nullable
+    private final String imageUrl;
+    /**
+     * 0 if the episode has no media.
+     */
+    private final long mediaId;
+    private final int duration;
+    private final int position;
+    private final long size;
+    private final long downloadDate;
+    @Nullable
+    private final String mimeType;
+    private final boolean inQueue;
+    private final boolean favorite;
+
+    /**
+     * This constructor is used by DBReader.
+     */
+    public EpisodeListRow(long id, long feedId, String title, long pubDate, int state, @Nullable String imageUrl,
+                          long mediaId, int duration, int position, long size, long downloadDate,
+                          @Nullable String mimeType, boolean inQueue, boolean favorite) {
+        this.id = id;
+        this.feedId = feedId;
+        this.title = title;
+        this.pubDate = pubDate;
+        this.state = state;
+        this.imageUrl = imageUrl;
+        this.mediaId = mediaId;
+        this.duration = duration;
+        this.position = position;
+        this.size = size;
+        this.downloadDate = downloadDate;
+        this.mimeType = mimeType;
+        this.inQueue = inQueue;
+        this.favorite = favorite;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getFeedId() {
+        return feedId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Publication date in milliseconds.
+     */
+    public long getPubDate() {
+        return pubDate;
+    }
+
+    /**
+     * One of {@link FeedItem#NEW}, {@link FeedItem#UNPLAYED} and {@link FeedItem#PLAYED}.
+     */
+    public int getPlayState() {
+        return state;
+    }
+
+    public boolean isNew() {
+        return state == FeedItem.NEW;
+    }
+
+    public boolean isPlayed() {
+        return state == FeedItem.PLAYED;
+    }
+
+    /**
+     * The image of the episode itself. Lists fall back to the image of the feed if it is null.
+     */
+    @Nullable
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public boolean hasMedia() {
+        return mediaId != 0;
+    }
+
+    public long getMediaId() {
+        return mediaId;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isInProgress() {
+        return position > 0;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isDownloaded() {
+        return downloadDate > 0;
+    }
+
+    @Nullable
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public boolean isInQueue() {
+        return inQueue;
+    }
+
+    public boolean isFavorite() {
+        return favorite;
+    }
+}
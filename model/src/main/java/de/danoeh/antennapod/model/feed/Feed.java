@@ -1,5 +1,6 @@
 package de.danoeh.antennapod.model.feed;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
@@ -56,10 +57,18 @@ public class Feed {
     private List<FeedItem> items;
 
     /**
-     * String that identifies the last update (adopted from Last-Modified or ETag header).
+     * Value of the Last-Modified header of the last successful download.
      */
     private String lastModified;
+    /**
+     * Value of the ETag header of the last successful download.
+     */
+    private String etag;
     private long lastRefreshAttempt;
+    /**
+     * Time of the last refresh that parsed the whole feed instead of stopping at known items.
+     */
+    private long lastFullParse;
 
     private ArrayList<FeedFunding> fundingList;
     /**
@@ -154,6 +163,45 @@ public class Feed {
                 imageUrl, fileUrl, downloadUrl, lastRefreshAttempt, false, null, null, null, false, STATE_SUBSCRIBED);
     }
 
+    /**
+     * Creates a copy of another feed without its items. Changing the copy does not change the other feed.
+     */
+    public Feed(@NonNull Feed other) {
+        this.id = other.id;
+        this.localFileUrl = other.localFileUrl;
+        this.downloadUrl = other.downloadUrl;
+        this.feedTitle = other.feedTitle;
+        this.customTitle = other.customTitle;
+        this.feedIdentifier = other.feedIdentifier;
+        this.link = other.link;
+        this.description = other.description;
+        this.language = other.language;
+        this.author = other.author;
+        this.imageUrl = other.imageUrl;
+        this.items = new ArrayList<>();
+        this.lastModified = other.lastModified;
+        this.etag = other.etag;
+        this.lastRefreshAttempt = other.lastRefreshAttempt;
+        this.lastFullParse = other.lastFullParse;
+        if (other.fundingList != null) {
+            this.fundingList = new ArrayList<>(other.fundingList.size());
+            for (FeedFunding funding : other.fundingList) {
+                this.fundingList.add(new FeedFunding(funding.url, funding.content));
+            }
+        }
+        this.type = other.type;
+        if (other.preferences != null) {
+            this.preferences = new FeedPreferences(other.preferences);
+        }
+        this.pageNr = other.pageNr;
+        this.paged = other.paged;
+        this.nextPageLink = other.nextPageLink;
+        this.lastUpdateFailed = other.lastUpdateFailed;
+        this.itemfilter = other.itemfilter; // Immutable
+        this.sortOrder = other.sortOrder;
+        this.state = other.state;
+    }
+
     /**
      * This constructor is used for requesting a feed download (it must not be used for anything else!).
      * It should NOT be used if the title of the feed is already known.
@@ -251,6 +299,9 @@ public class Feed {
         if (other.lastRefreshAttempt > lastRefreshAttempt) {
             lastRefreshAttempt = other.lastRefreshAttempt;
         }
+        if (other.lastFullParse > lastFullParse) {
+            lastFullParse = other.lastFullParse;
+        }
         // this feed's nextPage might already point to a higher page, so we only update the nextPage value
         // if this feed is not paged and the other feed is.
         if (!this.paged && other.paged) {
@@ -337,6 +388,14 @@ public class Feed {
         this.lastModified = lastModified;
     }
 
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
     public String getFeedIdentifier() {
         return feedIdentifier;
     }
@@ -423,6 +482,14 @@ public class Feed {
         this.lastRefreshAttempt = lastRefreshAttempt;
     }
 
+    public long getLastFullParse() {
+        return lastFullParse;
+    }
+
+    public void setLastFullParse(long lastFullParse) {
+        this.lastFullParse = lastFullParse;
+    }
+
     public int getPageNr() {
         return pageNr;
     }
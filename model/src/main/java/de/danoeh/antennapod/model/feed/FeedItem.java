@@ -72,9 +72,18 @@ public class FeedItem implements Serializable {
     private boolean autoDownloadEnabled = true;
 
     /**
-     * Any tags assigned to this item
+     * The queue and favorite tags of this item. Nearly every item in a list has one of them,
+     * so they are kept as bits instead of a set per item.
      */
-    private final Set<String> tags = new HashSet<>();
+    private int knownTags = 0;
+    private static final int KNOWN_TAG_QUEUE = 1;
+    private static final int KNOWN_TAG_FAVORITE = 2;
+
+    /**
+     * Any other tags assigned to this item, only created when needed
+     */
+    @Nullable
+    private Set<String> tags = null;
 
     public FeedItem() {
         this.state = UNPLAYED;
@@ -410,13 +419,25 @@ public class FeedItem implements Serializable {
      * @return true if the item has this tag
      */
     public boolean isTagged(String tag) {
-        return tags.contains(tag);
+        int knownTag = getKnownTag(tag);
+        if (knownTag != 0) {
+            return (knownTags & knownTag) != 0;
+        }
+        return tags != null && tags.contains(tag);
     }
 
     /**
      * @param tag adds this tag to the item. NOTE: does NOT persist to the database
      */
     public void addTag(String tag) {
+        int knownTag = getKnownTag(tag);
+        if (knownTag != 0) {
+            knownTags |= knownTag;
+            return;
+        }
+        if (tags == null) {
+            tags = new HashSet<>();
+        }
         tags.add(tag);
     }
 
@@ -424,7 +445,21 @@ public class FeedItem implements Serializable {
      * @param tag the to remove
      */
     public void removeTag(String tag) {
-        tags.remove(tag);
+        int knownTag = getKnownTag(tag);
+        if (knownTag != 0) {
+            knownTags &= ~knownTag;
+        } else if (tags != null) {
+            tags.remove(tag);
+        }
+    }
+
+    private static int getKnownTag(String tag) {
+        if (TAG_QUEUE.equals(tag)) {
+            return KNOWN_TAG_QUEUE;
+        } else if (TAG_FAVORITE.equals(tag)) {
+            return KNOWN_TAG_FAVORITE;
+        }
+        return 0;
     }
 
     public String getPodcastIndexChapterUrl() {
@@ -155,6 +155,16 @@ public class FeedPreferences implements Serializable {
         this.tags.addAll(tags);
     }
 
+    /**
+     * Creates a copy of other preferences. Changing the copy does not change the other preferences.
+     */
+    public FeedPreferences(@NonNull FeedPreferences other) {
+        this(other.feedID, other.autoDownload, other.keepUpdated, other.autoDeleteAction,
+                other.volumeAdaptionSetting, other.username, other.password, other.filter,
+                other.feedPlaybackSpeed, other.feedSkipIntro, other.feedSkipEnding, other.feedSkipSilence,
+                other.showEpisodeNotification, other.newEpisodesAction, other.tags);
+    }
+
     /**
      * @return the filter for this feed
      */
@@ -9,6 +9,7 @@ import java.util.Date;
 import static de.danoeh.antennapod.model.feed.FeedItemMother.anyFeedItemWithImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class FeedItemTest {
 
@@ -123,6 +124,21 @@ public class FeedItemTest {
         testShownotes(TEXT_LONG, TEXT_SHORT);
     }
 
+    @Test
+    public void testTags() {
+        FeedItem item = new FeedItem();
+        item.addTag(FeedItem.TAG_QUEUE);
+        item.addTag("other");
+        assertTrue(item.isTagged(FeedItem.TAG_QUEUE));
+        assertFalse(item.isTagged(FeedItem.TAG_FAVORITE));
+        assertTrue(item.isTagged("other"));
+
+        item.removeTag(FeedItem.TAG_QUEUE);
+        item.removeTag("other");
+        assertFalse(item.isTagged(FeedItem.TAG_QUEUE));
+        assertFalse(item.isTagged("other"));
+    }
+
     /**
      * Checks if the shownotes equal TEXT_LONG, using the given `description` and `content:encoded`.
      *
@@ -6,6 +6,7 @@ import org.junit.Test;
 import static de.danoeh.antennapod.model.feed.FeedMother.anyFeed;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 public class FeedTest {
 
@@ -55,4 +56,25 @@ public class FeedTest {
     public void testSetSortOrder_NullAllowed() {
         original.setSortOrder(null); // should be okay
     }
+
+    @Test
+    public void testCopy() {
+        original.setPreferences(new FeedPreferences(0, FeedPreferences.AutoDownloadSetting.GLOBAL,
+                FeedPreferences.AutoDeleteAction.GLOBAL, VolumeAdaptionSetting.OFF,
+                FeedPreferences.NewEpisodesAction.GLOBAL, "user", "password"));
+        original.setEtag("etag");
+        Feed copy = new Feed(original);
+        assertEquals(original.getTitle(), copy.getTitle());
+        assertEquals(original.getDownloadUrl(), copy.getDownloadUrl());
+        assertEquals("etag", copy.getEtag());
+        assertEquals(original.getPaymentLinks(), copy.getPaymentLinks());
+        assertEquals("user", copy.getPreferences().getUsername());
+
+        copy.setTitle("Changed");
+        copy.getPaymentLinks().get(0).setUrl("http://example.com/changed");
+        copy.getPreferences().getTags().add("Tag");
+        assertEquals("title", original.getTitle());
+        assertEquals("http://example.com/payment", original.getPaymentLinks().get(0).url);
+        assertTrue(original.getPreferences().getTags().isEmpty());
+    }
 }
\ No newline at end of file
@@ -30,7 +30,8 @@ public class DownloadRequestCreator {
 
         return new DownloadRequestBuilder(dest.toString(), feed)
                 .withAuthentication(username, password)
-                .lastModified(feed.getLastModified());
+                .lastModified(feed.getLastModified())
+                .etag(feed.getEtag());
     }
 
     public static DownloadRequestBuilder create(FeedMedia media) {
@@ -4,6 +4,7 @@ import android.os.Bundle;
 import android.os.Parcel;
 
 import de.danoeh.antennapod.model.download.DownloadRequest;
+import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,6 +14,7 @@ import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(RobolectricTestRunner.class)
 public class DownloadRequestBuilderTest {
@@ -57,6 +59,36 @@ public class DownloadRequestBuilderTest {
         assertNotEquals(request1, request3);
     }
 
+    @Test
+    public void parcelKeepsCacheValidators() {
+        Feed feed = new Feed("http://example.com/feed.xml", null, "Feed");
+        DownloadRequest request = new DownloadRequestBuilder("file://location/feed.xml", feed)
+                .lastModified("Wed, 21 Oct 2015 07:28:00 GMT")
+                .etag("\"33a64df5\"")
+                .build();
+
+        Parcel parcel = Parcel.obtain();
+        request.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        DownloadRequest fromParcel = DownloadRequest.CREATOR.createFromParcel(parcel);
+
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", fromParcel.getLastModified());
+        assertEquals("\"33a64df5\"", fromParcel.getEtag());
+    }
+
+    @Test
+    public void forceClearsCacheValidators() {
+        Feed feed = new Feed("http://example.com/feed.xml", null, "Feed");
+        DownloadRequestBuilder builder = new DownloadRequestBuilder("file://location/feed.xml", feed)
+                .lastModified("Wed, 21 Oct 2015 07:28:00 GMT")
+                .etag("\"33a64df5\"");
+        builder.setForce(true);
+        DownloadRequest request = builder.build();
+
+        assertNull(request.getLastModified());
+        assertNull(request.getEtag());
+    }
+
     // Test to ensure parcel using put/getParcelableArrayList() API work
     // based on: https://stackoverflow.com/a/13507191
     private void doTestParcelInArrayList(String message,
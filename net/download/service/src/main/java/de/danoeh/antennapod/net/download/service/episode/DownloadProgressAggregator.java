@@ -0,0 +1,150 @@
+package de.danoeh.antennapod.net.download.service.episode;
+
+import android.Manifest;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+
+import de.danoeh.antennapod.model.download.DownloadRequest;
+import de.danoeh.antennapod.net.download.service.R;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the progress of all running episode downloads on a single timer.
+ * Downloaders only update their {@link DownloadRequest}, which is read on every tick.
+ * The notification is only rebuilt when one of the displayed percentages changes.
+ */
+class DownloadProgressAggregator {
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+
+    private static DownloadProgressAggregator instance;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DownloadProgress");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final long tickMillis;
+    private ScheduledFuture<?> tick = null;
+    private boolean entriesChanged = false;
+
+    interface ProgressListener {
+        void onProgress(int progressPercent);
+    }
+
+    private static class Entry {
+        final String title;
+        final DownloadRequest request;
+        final ProgressListener listener;
+        int publishedPercent = -1;
+
+        Entry(String title, DownloadRequest request, ProgressListener listener) {
+            this.title = title;
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Title and progress of a running download, as shown in the notification.
+     */
+    static class Progress {
+        final String title;
+        final int percent;
+
+        Progress(String title, int percent) {
+            this.title = title;
+            this.percent = percent;
+        }
+    }
+
+    static synchronized DownloadProgressAggregator getInstance() {
+        if (instance == null) {
+            instance = new DownloadProgressAggregator(DEFAULT_TICK_MILLIS);
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    DownloadProgressAggregator(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    synchronized void register(@NonNull Context context, long mediaId, @NonNull String title,
+                               @NonNull DownloadRequest request, @NonNull ProgressListener listener) {
+        entries.put(mediaId, new Entry(title, request, listener));
+        entriesChanged = true;
+        if (tick == null) {
+            Context appContext = context.getApplicationContext();
+            tick = executor.scheduleAtFixedRate(() -> onTick(appContext), 0, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized void unregister(@NonNull Context context, long mediaId) {
+        entries.remove(mediaId);
+        entriesChanged = true;
+        if (entries.isEmpty() && tick != null) {
+            tick.cancel(false);
+            tick = null;
+            NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            nm.cancel(R.id.notification_downloading);
+        }
+    }
+
+    /**
+     * Progress of the running downloads, by media ID. Different episodes can have the same title.
+     */
+    @NonNull
+    synchronized Map<Long, Progress> getProgress() {
+        Map<Long, Progress> progress = new LinkedHashMap<>();
+        for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+            progress.put(entry.getKey(), new Progress(entry.getValue().title,
+                    entry.getValue().request.getProgressPercent()));
+        }
+        return progress;
+    }
+
+    private synchronized void onTick(Context context) {
+        if (tick == null) {
+            return; // Cancelled while waiting for the lock
+        }
+        if (publishProgress() && ContextCompat.checkSelfPermission(context,
+                Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
+            NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            nm.notify(R.id.notification_downloading,
+                    EpisodeDownloadWorker.generateProgressNotification(context, getProgress()));
+        }
+    }
+
+    /**
+     * Tells the listeners of the downloads whose percentage changed since the last tick.
+     *
+     * @return true if the notification needs to be rebuilt
+     */
+    @VisibleForTesting
+    synchronized boolean publishProgress() {
+        boolean changed = entriesChanged;
+        entriesChanged = false;
+        for (Entry entry : entries.values()) {
+            int percent = entry.request.getProgressPercent();
+            if (percent != entry.publishedPercent) {
+                entry.publishedPercent = percent;
+                entry.listener.onProgress(percent);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,361 @@
+package de.danoeh.antennapod.net.download.service.episode;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import de.danoeh.antennapod.event.QueueEvent;
+
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import de.danoeh.antennapod.net.download.service.feed.remote.HttpDownloader;
+import de.danoeh.antennapod.storage.database.DBReader;
+import de.danoeh.antennapod.storage.database.LongIntMap;
+import de.danoeh.antennapod.storage.database.LongList;
+import de.danoeh.antennapod.storage.preferences.PlaybackPreferences;
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decides when episode downloads may start. WorkManager starts the workers, which hand their download to the
+ * scheduler. The scheduler runs it on its own threads as soon as there is a free connection, both overall and
+ * for the host of the episode, so no thread is blocked while a download waits. Downloads that use several
+ * connections at once, see {@link HttpDownloader}, count each of them.
+ * Waiting downloads of queued episodes start first, in queue order, followed by the others in the order
+ * they were requested. While an episode is being streamed, downloads share a limited bandwidth,
+ * so that they do not make playback stutter.
+ */
+public class DownloadScheduler {
+    private static final String TAG = "DownloadScheduler";
+    public static final int DEFAULT_MAX_DOWNLOADS = 3;
+    public static final int DEFAULT_MAX_DOWNLOADS_PER_HOST = 2;
+    public static final long DEFAULT_STREAMING_BANDWIDTH = 512 * 1024;
+    private static final long STREAMING_CHECK_INTERVAL_MILLIS = 2000;
+
+    private static DownloadScheduler instance;
+
+    private final TreeSet<Ticket> waiting = new TreeSet<>();
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private final ExecutorService executor;
+    private final int maxDownloads;
+    private final int maxDownloadsPerHost;
+    private final long streamingBandwidth;
+    private int running = 0;
+    private int connections = 0;
+    private long nextSequence = 0;
+
+    /**
+     * Position of each queued episode. Loaded when the first download needs it after the queue changed.
+     */
+    private LongIntMap queuePositions = null;
+    private long queueVersion = 0;
+
+    private boolean streaming = false;
+    private long lastStreamingCheck = -STREAMING_CHECK_INTERVAL_MILLIS;
+    private long streamedMediaId = PlaybackPreferences.NO_MEDIA_PLAYING;
+    private boolean streamedMediaDownloaded = false;
+    private long throttledUntil = 0;
+
+    public static synchronized DownloadScheduler getInstance() {
+        if (instance == null) {
+            instance = new DownloadScheduler(DEFAULT_MAX_DOWNLOADS, DEFAULT_MAX_DOWNLOADS_PER_HOST,
+                    DEFAULT_STREAMING_BANDWIDTH);
+            EventBus.getDefault().register(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * @param streamingBandwidth Bytes per second that all downloads together may use while an episode is streamed
+     */
+    DownloadScheduler(int maxDownloads, int maxDownloadsPerHost, long streamingBandwidth) {
+        this.maxDownloads = maxDownloads;
+        this.maxDownloadsPerHost = maxDownloadsPerHost;
+        this.streamingBandwidth = streamingBandwidth;
+        // Only has as many threads as there are running downloads
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r);
+            t.setName("EpisodeDownload");
+            return t;
+        });
+    }
+
+    /**
+     * A download that waits for, or holds, a connection. Limits the bandwidth and the additional
+     * connections of the download once it started.
+     */
+    public static class Ticket implements Comparable<Ticket>, HttpDownloader.BandwidthLimiter {
+        private final DownloadScheduler scheduler;
+        private final String host;
+        private final int queuePosition;
+        private final long sequence;
+        private final long createdAt = SystemClock.elapsedRealtime();
+        private Runnable download = null;
+        private int extraConnections = 0;
+
+        private Ticket(DownloadScheduler scheduler, String host, int queuePosition, long sequence) {
+            this.scheduler = scheduler;
+            this.host = host;
+            this.queuePosition = queuePosition;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void onBytesReceived(int count) throws InterruptedIOException {
+            scheduler.onBytesReceived(count);
+        }
+
+        @Override
+        public int acquireExtraConnections(int count) {
+            return scheduler.acquireExtraConnections(this, count);
+        }
+
+        @Override
+        public void releaseExtraConnections(int count) {
+            scheduler.releaseExtraConnections(this, count);
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            if (queuePosition != other.queuePosition) {
+                return Integer.compare(queuePosition, other.queuePosition);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Creates the ticket of an episode download. Reads the queue from the database if it changed since
+     * the last ticket, so this must not be called on the main thread.
+     *
+     * @param host Host that the episode is downloaded from
+     * @param itemId ID of the episode, used to put episodes in the queue first
+     */
+    @NonNull
+    public Ticket newTicket(@Nullable String host, long itemId) {
+        return createTicket(host, getQueuePosition(itemId));
+    }
+
+    @NonNull
+    synchronized Ticket createTicket(@Nullable String host, int queuePosition) {
+        return new Ticket(this, host != null ? host : "", queuePosition, nextSequence++);
+    }
+
+    /**
+     * The database is read without holding the lock, so that running downloads do not wait for it.
+     */
+    private int getQueuePosition(long itemId) {
+        LongIntMap positions;
+        long version;
+        synchronized (this) {
+            positions = queuePositions;
+            version = queueVersion;
+        }
+        if (positions == null) {
+            LongList queue = DBReader.getQueueIDList();
+            positions = new LongIntMap(queue.size());
+            for (int i = 0; i < queue.size(); i++) {
+                positions.put(queue.get(i), i);
+            }
+            synchronized (this) {
+                if (version == queueVersion) {
+                    queuePositions = positions;
+                }
+            }
+        }
+        return positions.get(itemId, Integer.MAX_VALUE);
+    }
+
+    @Subscribe
+    public synchronized void onQueueChanged(QueueEvent event) {
+        queuePositions = null;
+        queueVersion++;
+    }
+
+    /**
+     * Runs the download on a thread of the scheduler as soon as it may start.
+     * The download needs to call {@link #release} when it is done.
+     */
+    public synchronized void enqueue(@NonNull Ticket ticket, @NonNull Runnable download) {
+        ticket.download = download;
+        waiting.add(ticket);
+        startDownloads();
+    }
+
+    /**
+     * Frees the connection of a download that was started by the scheduler.
+     */
+    public synchronized void release(@NonNull Ticket ticket) {
+        running--;
+        removeConnections(ticket.host, 1 + ticket.extraConnections);
+        ticket.extraConnections = 0;
+        startDownloads();
+    }
+
+    /**
+     * Stops waiting for a connection, for example because the worker was stopped.
+     *
+     * @return true if the download was still waiting and will not start anymore
+     */
+    public synchronized boolean cancel(@NonNull Ticket ticket) {
+        return waiting.remove(ticket);
+    }
+
+    /**
+     * Grants connections in addition to the one of a running download, as far as the limits allow.
+     * Waiting downloads are more important, so there are none while another download waits.
+     */
+    synchronized int acquireExtraConnections(@NonNull Ticket ticket, int count) {
+        if (!waiting.isEmpty()) {
+            return 0;
+        }
+        Integer hostCount = runningPerHost.get(ticket.host);
+        int granted = Math.min(count, Math.min(maxDownloads - connections,
+                maxDownloadsPerHost - (hostCount == null ? 0 : hostCount)));
+        if (granted <= 0) {
+            return 0;
+        }
+        ticket.extraConnections += granted;
+        addConnections(ticket.host, granted);
+        return granted;
+    }
+
+    synchronized void releaseExtraConnections(@NonNull Ticket ticket, int count) {
+        count = Math.min(count, ticket.extraConnections);
+        if (count <= 0) {
+            return;
+        }
+        ticket.extraConnections -= count;
+        removeConnections(ticket.host, count);
+        startDownloads();
+    }
+
+    /**
+     * Starts the most important waiting downloads that have a free connection.
+     */
+    private void startDownloads() {
+        Iterator<Ticket> iterator = waiting.iterator();
+        while (connections < maxDownloads && iterator.hasNext()) {
+            Ticket ticket = iterator.next();
+            if (!hasFreeConnection(ticket.host)) {
+                continue;
+            }
+            iterator.remove();
+            running++;
+            addConnections(ticket.host, 1);
+            Log.d(TAG, "Starting download from " + ticket.host + " after "
+                    + (SystemClock.elapsedRealtime() - ticket.createdAt) + " ms, "
+                    + running + " running, " + waiting.size() + " waiting");
+            executor.execute(ticket.download);
+        }
+    }
+
+    private void addConnections(String host, int count) {
+        connections += count;
+        Integer hostCount = runningPerHost.get(host);
+        runningPerHost.put(host, hostCount == null ? count : hostCount + count);
+    }
+
+    private void removeConnections(String host, int count) {
+        connections -= count;
+        Integer hostCount = runningPerHost.get(host);
+        if (hostCount == null || hostCount <= count) {
+            runningPerHost.remove(host);
+        } else {
+            runningPerHost.put(host, hostCount - count);
+        }
+    }
+
+    private boolean hasFreeConnection(String host) {
+        Integer hostCount = runningPerHost.get(host);
+        return hostCount == null || hostCount < maxDownloadsPerHost;
+    }
+
+    void onBytesReceived(int count) throws InterruptedIOException {
+        long now = SystemClock.elapsedRealtime();
+        boolean isStreaming = isStreaming(now);
+        long delay;
+        synchronized (this) {
+            if (!isStreaming || streamingBandwidth <= 0) {
+                return;
+            }
+            throttledUntil = Math.max(throttledUntil, now) + count * 1000L / streamingBandwidth;
+            delay = throttledUntil - now;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
+     * Checks if the player streams an episode that is not downloaded. Only looked up every few seconds.
+     * The database is read without holding the lock, so that other downloads do not wait for it.
+     */
+    private boolean isStreaming(long now) {
+        long mediaId;
+        synchronized (this) {
+            if (now - lastStreamingCheck < STREAMING_CHECK_INTERVAL_MILLIS) {
+                return streaming;
+            }
+            lastStreamingCheck = now;
+            if (PlaybackPreferences.getCurrentPlayerStatus() != PlaybackPreferences.PLAYER_STATUS_PLAYING
+                    || PlaybackPreferences.getCurrentlyPlayingMediaType() != FeedMedia.PLAYABLE_TYPE_FEEDMEDIA) {
+                streaming = false;
+                return false;
+            }
+            mediaId = PlaybackPreferences.getCurrentlyPlayingFeedMediaId();
+            if (mediaId == streamedMediaId) {
+                streaming = !streamedMediaDownloaded;
+                return streaming;
+            }
+        }
+        FeedMedia media = DBReader.getFeedMedia(mediaId);
+        boolean downloaded = media == null || media.localFileAvailable();
+        synchronized (this) {
+            streamedMediaId = mediaId;
+            streamedMediaDownloaded = downloaded;
+            streaming = !downloaded;
+            return streaming;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int getRunningDownloads() {
+        return running;
+    }
+
+    /**
+     * Connections of all running downloads, including the additional ones of segmented downloads.
+     */
+    @VisibleForTesting
+    synchronized int getConnections() {
+        return connections;
+    }
+
+    @VisibleForTesting
+    synchronized int getWaitingDownloads() {
+        return waiting.size();
+    }
+
+    /**
+     * True if the bandwidth is limited because an episode is streamed.
+     */
+    @VisibleForTesting
+    synchronized boolean isThrottled() {
+        return streaming;
+    }
+}
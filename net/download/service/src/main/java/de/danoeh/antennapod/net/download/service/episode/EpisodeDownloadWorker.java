@@ -7,6 +7,7 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.net.wifi.WifiManager;
 import android.util.Log;
 import androidx.annotation.NonNull;
@@ -14,13 +15,15 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 import androidx.work.Data;
 import androidx.work.ForegroundInfo;
-import androidx.work.Worker;
+import androidx.work.ListenableWorker;
 import androidx.work.WorkerParameters;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import de.danoeh.antennapod.net.download.service.R;
 import de.danoeh.antennapod.net.download.service.feed.remote.DefaultDownloaderFactory;
 import de.danoeh.antennapod.net.download.service.feed.remote.Downloader;
+import de.danoeh.antennapod.net.download.service.feed.remote.HttpDownloader;
 import de.danoeh.antennapod.net.download.serviceinterface.DownloadRequestCreator;
 import de.danoeh.antennapod.storage.database.DBReader;
 import de.danoeh.antennapod.storage.database.DBWriter;
@@ -32,21 +35,31 @@ import de.danoeh.antennapod.model.download.DownloadRequest;
 import de.danoeh.antennapod.net.download.serviceinterface.DownloadServiceInterface;
 import de.danoeh.antennapod.ui.appstartintent.MainActivityStarter;
 import de.danoeh.antennapod.ui.notifications.NotificationUtils;
-import org.apache.commons.io.FileUtils;
 import org.greenrobot.eventbus.EventBus;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-public class EpisodeDownloadWorker extends Worker {
+public class EpisodeDownloadWorker extends ListenableWorker {
     private static final String TAG = "EpisodeDownloadWorker";
-    private static final Map<String, Integer> notificationProgress = new HashMap<>();
 
-    private Downloader downloader = null;
+    /**
+     * WorkManager calls {@link #startWork} on the main thread, but preparing a download reads the database.
+     */
+    private static final ExecutorService prepareExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r);
+        t.setName("EpisodeDownloadPreparation");
+        return t;
+    });
+
+    private final SettableFuture<Result> result = SettableFuture.create();
+    private volatile Downloader downloader = null;
+    private volatile DownloadScheduler.Ticket ticket = null;
+    private long mediaId;
 
     public EpisodeDownloadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
@@ -54,88 +67,35 @@ public class EpisodeDownloadWorker extends Worker {
 
     @Override
     @NonNull
-    public Result doWork() {
-        long mediaId = getInputData().getLong(DownloadServiceInterface.WORK_DATA_MEDIA_ID, 0);
-        FeedMedia media = DBReader.getFeedMedia(mediaId);
-        if (media == null) {
-            return Result.failure();
-        }
-
-        DownloadRequest request = DownloadRequestCreator.create(media).build();
-        Thread progressUpdaterThread = new Thread() {
-            @Override
-            public void run() {
-                while (true) {
-                    try {
-                        synchronized (notificationProgress) {
-                            if (isInterrupted()) {
-                                return;
-                            }
-                            notificationProgress.put(media.getEpisodeTitle(), request.getProgressPercent());
-                        }
-                        setProgressAsync(
-                                new Data.Builder()
-                                    .putInt(DownloadServiceInterface.WORK_DATA_PROGRESS, request.getProgressPercent())
-                                    .build())
-                                .get();
-                        NotificationManager nm = (NotificationManager) getApplicationContext()
-                                .getSystemService(Context.NOTIFICATION_SERVICE);
-                        if (ContextCompat.checkSelfPermission(getApplicationContext(),
-                                Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
-                            nm.notify(R.id.notification_downloading, generateProgressNotification());
-                        }
-                        Thread.sleep(1000);
-                    } catch (InterruptedException | ExecutionException e) {
-                        return;
-                    }
-                }
-            }
-        };
-        progressUpdaterThread.start();
-        Result result;
-        try {
-            result = performDownload(media, request);
-        } catch (Exception e) {
-            e.printStackTrace();
-            result = Result.failure();
-        }
-        if (result.equals(Result.failure()) && downloader != null) {
-            FileUtils.deleteQuietly(new File(downloader.getDownloadRequest().getDestination()));
-        }
-        progressUpdaterThread.interrupt();
-        try {
-            progressUpdaterThread.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        synchronized (notificationProgress) {
-            notificationProgress.remove(media.getEpisodeTitle());
-            if (notificationProgress.isEmpty()) {
-                NotificationManager nm = (NotificationManager) getApplicationContext()
-                        .getSystemService(Context.NOTIFICATION_SERVICE);
-                nm.cancel(R.id.notification_downloading);
+    public ListenableFuture<Result> startWork() {
+        prepareExecutor.execute(() -> {
+            try {
+                prepareDownload();
+            } catch (Exception e) {
+                e.printStackTrace();
+                finish(Result.failure());
             }
-        }
-        Log.d(TAG, "Worker for " + media.getDownloadUrl() + " returned.");
+        });
         return result;
     }
 
-    @Override
-    public void onStopped() {
-        super.onStopped();
-        if (downloader != null) {
-            downloader.cancel();
+    /**
+     * Hands the download to the scheduler, which runs it once there is a free connection.
+     * The worker does not block a thread while it waits.
+     */
+    private void prepareDownload() {
+        mediaId = getInputData().getLong(DownloadServiceInterface.WORK_DATA_MEDIA_ID, 0);
+        FeedMedia media = DBReader.getFeedMedia(mediaId);
+        if (media == null) {
+            result.set(Result.failure());
+            return;
         }
-    }
-
-    @NonNull
-    @Override
-    public ListenableFuture<ForegroundInfo> getForegroundInfoAsync() {
-        return Futures.immediateFuture(
-                new ForegroundInfo(R.id.notification_downloading, generateProgressNotification()));
-    }
 
-    private Result performDownload(FeedMedia media, DownloadRequest request) {
+        DownloadRequest request = DownloadRequestCreator.create(media).build();
+        DownloadProgressAggregator.getInstance().register(getApplicationContext(), mediaId,
+                media.getEpisodeTitle(), request, progressPercent -> setProgressAsync(new Data.Builder()
+                        .putInt(DownloadServiceInterface.WORK_DATA_PROGRESS, progressPercent)
+                        .build()));
         File dest = new File(request.getDestination());
         if (!dest.exists()) {
             try {
@@ -157,9 +117,70 @@ public class EpisodeDownloadWorker extends Worker {
         downloader = new DefaultDownloaderFactory().create(request);
         if (downloader == null) {
             Log.d(TAG, "Unable to create downloader");
-            return Result.failure();
+            finish(Result.failure());
+            return;
+        }
+
+        DownloadScheduler scheduler = DownloadScheduler.getInstance();
+        ticket = scheduler.newTicket(Uri.parse(request.getSource()).getHost(), media.getItemId());
+        if (isStopped()) {
+            finish(Result.retry());
+            return;
+        }
+        scheduler.enqueue(ticket, () -> runDownload(media, request));
+        if (isStopped() && scheduler.cancel(ticket)) {
+            // Stopped before onStopped could see the ticket
+            finish(Result.retry());
+        }
+    }
+
+    private void runDownload(FeedMedia media, DownloadRequest request) {
+        Result downloadResult;
+        try {
+            downloadResult = performScheduledDownload(media, request);
+        } catch (Exception e) {
+            e.printStackTrace();
+            downloadResult = Result.failure();
+        } finally {
+            DownloadScheduler.getInstance().release(ticket);
         }
+        finish(downloadResult);
+    }
 
+    private void finish(Result downloadResult) {
+        if (downloadResult.equals(Result.failure()) && downloader != null) {
+            HttpDownloader.deletePartialDownload(new File(downloader.getDownloadRequest().getDestination()));
+        }
+        DownloadProgressAggregator.getInstance().unregister(getApplicationContext(), mediaId);
+        Log.d(TAG, "Worker for media " + mediaId + " returned.");
+        result.set(downloadResult);
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        if (ticket != null && DownloadScheduler.getInstance().cancel(ticket)) {
+            // Stopped while waiting for a connection, so the download did not start.
+            // WorkManager runs the worker again, unless the work was cancelled.
+            finish(Result.retry());
+        }
+        if (downloader != null) {
+            downloader.cancel();
+        }
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<ForegroundInfo> getForegroundInfoAsync() {
+        return Futures.immediateFuture(
+                new ForegroundInfo(R.id.notification_downloading, generateProgressNotification(
+                        getApplicationContext(), DownloadProgressAggregator.getInstance().getProgress())));
+    }
+
+    private Result performScheduledDownload(FeedMedia media, DownloadRequest request) {
+        if (downloader instanceof HttpDownloader) {
+            ((HttpDownloader) downloader).setBandwidthLimiter(ticket);
+        }
         WifiManager wifiManager = (WifiManager) getApplicationContext().getSystemService(Context.WIFI_SERVICE);
         WifiManager.WifiLock wifiLock = null;
         if (wifiManager != null) {
@@ -198,7 +219,7 @@ public class EpisodeDownloadWorker extends Worker {
         if (status.getReason() == DownloadError.ERROR_HTTP_DATA_ERROR
                 && Integer.parseInt(status.getReasonDetailed()) == 416) {
             Log.d(TAG, "Requested invalid range, restarting download from the beginning");
-            FileUtils.deleteQuietly(new File(downloader.getDownloadRequest().getDestination()));
+            HttpDownloader.deletePartialDownload(new File(downloader.getDownloadRequest().getDestination()));
             sendMessage(request.getTitle(), false);
             return retry3times();
         }
@@ -248,7 +269,7 @@ public class EpisodeDownloadWorker extends Worker {
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
     }
 
-    private PendingIntent getDownloadsIntent(Context context) {
+    private static PendingIntent getDownloadsIntent(Context context) {
         Intent intent = new MainActivityStarter(context).withFragmentLoaded("DownloadsFragment").getIntent();
         return PendingIntent.getActivity(context, R.id.pending_intent_download_service_notification, intent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
@@ -277,30 +298,27 @@ public class EpisodeDownloadWorker extends Worker {
         }
     }
 
-    private Notification generateProgressNotification() {
+    static Notification generateProgressNotification(Context context,
+                                                     Map<Long, DownloadProgressAggregator.Progress> progress) {
         StringBuilder bigTextB = new StringBuilder();
-        Map<String, Integer> progressCopy;
-        synchronized (notificationProgress) {
-            progressCopy = new HashMap<>(notificationProgress);
-        }
-        for (Map.Entry<String, Integer> entry : progressCopy.entrySet()) {
-            bigTextB.append(String.format(Locale.getDefault(), "%s (%d%%)\n", entry.getKey(), entry.getValue()));
+        for (DownloadProgressAggregator.Progress entry : progress.values()) {
+            bigTextB.append(String.format(Locale.getDefault(), "%s (%d%%)\n", entry.title, entry.percent));
         }
         String bigText = bigTextB.toString().trim();
         String contentText;
-        if (progressCopy.size() == 1) {
+        if (progress.size() == 1) {
             contentText = bigText;
         } else {
-            contentText = getApplicationContext().getResources().getQuantityString(R.plurals.downloads_left,
-                    progressCopy.size(), progressCopy.size());
+            contentText = context.getResources().getQuantityString(R.plurals.downloads_left,
+                    progress.size(), progress.size());
         }
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(getApplicationContext(),
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context,
                 NotificationUtils.CHANNEL_ID_DOWNLOADING);
-        builder.setTicker(getApplicationContext().getString(R.string.download_notification_title_episodes))
-                .setContentTitle(getApplicationContext().getString(R.string.download_notification_title_episodes))
+        builder.setTicker(context.getString(R.string.download_notification_title_episodes))
+                .setContentTitle(context.getString(R.string.download_notification_title_episodes))
                 .setContentText(contentText)
                 .setStyle(new NotificationCompat.BigTextStyle().bigText(bigText))
-                .setContentIntent(getDownloadsIntent(getApplicationContext()))
+                .setContentIntent(getDownloadsIntent(context))
                 .setAutoCancel(false)
                 .setOngoing(true)
                 .setWhen(0)
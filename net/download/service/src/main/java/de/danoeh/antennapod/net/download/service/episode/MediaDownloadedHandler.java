@@ -1,22 +1,22 @@
 package de.danoeh.antennapod.net.download.service.episode;
 
 import android.content.Context;
-import android.media.MediaMetadataRetriever;
+import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import de.danoeh.antennapod.model.MediaMetadataRetrieverCompat;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.net.sync.serviceinterface.SynchronizationQueue;
+import de.danoeh.antennapod.parser.media.MediaFileAnalyzer;
 import de.danoeh.antennapod.ui.chapters.ChapterUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.greenrobot.eventbus.EventBus;
 
 import java.io.File;
 import java.io.InterruptedIOException;
 import java.util.concurrent.ExecutionException;
 
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.UnreadItemsUpdateEvent;
 import de.danoeh.antennapod.model.download.DownloadRequest;
 import de.danoeh.antennapod.model.download.DownloadResult;
@@ -56,12 +56,18 @@ public class MediaDownloadedHandler implements Runnable {
         media.setDownloaded(true, System.currentTimeMillis());
         media.setLocalFileUrl(request.getDestination());
         media.setSize(new File(request.getDestination()).length());
-        media.checkEmbeddedPicture(); // enforce check
 
         try {
+            MediaFileAnalyzer.Result analysis = MediaFileAnalyzer.analyze(context,
+                    Uri.fromFile(new File(request.getDestination())));
+            media.setHasEmbeddedPicture(analysis.hasEmbeddedPicture());
+            if (analysis.getDuration() > 0) {
+                media.setDuration(analysis.getDuration());
+                Log.d(TAG, "Duration of file is " + media.getDuration());
+            }
             // Cache chapters if file has them
             if (media.getItem() != null && !media.getItem().hasChapters()) {
-                media.setChapters(ChapterUtils.loadChaptersFromMediaFile(media, context));
+                media.setChapters(analysis.getChapters());
             }
             if (media.getItem() != null && media.getItem().getPodcastIndexChapterUrl() != null) {
                 ChapterUtils.loadChaptersFromUrl(media.getItem().getPodcastIndexChapterUrl(), false);
@@ -77,19 +83,6 @@ public class MediaDownloadedHandler implements Runnable {
             // Ignore
         }
 
-        // Get duration
-        String durationStr = null;
-        try (MediaMetadataRetrieverCompat mmr = new MediaMetadataRetrieverCompat()) {
-            mmr.setDataSource(media.getLocalFileUrl());
-            durationStr = mmr.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
-            media.setDuration(Integer.parseInt(durationStr));
-            Log.d(TAG, "Duration of file is " + media.getDuration());
-        } catch (NumberFormatException e) {
-            Log.d(TAG, "Invalid file duration: " + durationStr);
-        } catch (Exception e) {
-            Log.e(TAG, "Get duration failed", e);
-        }
-
         final FeedItem item = media.getItem();
 
         try {
@@ -103,7 +96,7 @@ public class MediaDownloadedHandler implements Runnable {
                 // to ensure subscribers will get the updated FeedMedia as well
                 DBWriter.setFeedItem(item).get();
                 if (broadcastUnreadStateUpdate) {
-                    EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+                    CoalescingEventDispatcher.getInstance().post(new UnreadItemsUpdateEvent());
                 }
             }
         } catch (InterruptedException e) {
@@ -0,0 +1,626 @@
+package de.danoeh.antennapod.net.download.service.feed;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import de.danoeh.antennapod.model.download.DownloadError;
+import de.danoeh.antennapod.model.download.DownloadRequest;
+import de.danoeh.antennapod.model.download.DownloadResult;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.net.download.service.feed.local.LocalFeedUpdater;
+import de.danoeh.antennapod.net.download.service.feed.remote.DefaultDownloaderFactory;
+import de.danoeh.antennapod.net.download.service.feed.remote.Downloader;
+import de.danoeh.antennapod.net.download.service.feed.remote.DownloaderFactory;
+import de.danoeh.antennapod.net.download.service.feed.remote.FeedParserTask;
+import de.danoeh.antennapod.net.download.service.feed.remote.HttpDownloader;
+import de.danoeh.antennapod.net.download.serviceinterface.DownloadRequestBuilder;
+import de.danoeh.antennapod.net.download.serviceinterface.DownloadRequestCreator;
+import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
+import de.danoeh.antennapod.parser.feed.KnownFeedItems;
+import de.danoeh.antennapod.storage.database.DBReader;
+import de.danoeh.antennapod.storage.database.DBWriter;
+import de.danoeh.antennapod.storage.database.FeedDatabaseWriter;
+import okhttp3.HttpUrl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refreshes feeds in three stages that run at the same time: downloading, parsing and storing.
+ * Downloads are limited globally and per host, parsing uses one thread per core and all database writes
+ * happen on a single thread that stores several feeds per transaction.
+ * A download only gets a thread once its host is below the limit, so feeds of a busy host do not keep
+ * the download threads from feeds of other hosts. The host is free again once the response is received.
+ * Local feeds are read and stored by {@link LocalFeedUpdater} on the download thread.
+ * In streaming mode, remote feeds are parsed on the download thread straight from the response body,
+ * so the parse stage is only used when streaming is turned off.
+ * The stages are connected by bounded queues, so a slow stage holds back the stages in front of it
+ * instead of piling up parsed feeds in memory.
+ */
+class FeedRefreshPipeline {
+    private static final String TAG = "FeedRefreshPipeline";
+    static final int DEFAULT_DOWNLOAD_THREADS = 4;
+    static final int DEFAULT_DOWNLOADS_PER_HOST = 2;
+    static final int DEFAULT_PERSIST_BATCH_SIZE = 8;
+    /**
+     * Number of consecutive known items after which an incremental parse stops.
+     * More than one, so that a single re-published old episode does not hide newer ones below it.
+     */
+    private static final int INCREMENTAL_PARSE_STOP_AFTER = 3;
+    /**
+     * Maximum time between two complete parses of a feed when parsing incrementally.
+     */
+    private static final long FULL_PARSE_INTERVAL = TimeUnit.DAYS.toMillis(7);
+    /**
+     * How often a stage that waits for space in the queue of the next stage checks whether that stage still runs.
+     */
+    private static final long HAND_OVER_CHECK_MILLIS = 1000;
+
+    interface Listener {
+        boolean isStopped();
+
+        /**
+         * Called once for every feed when it leaves the pipeline, no matter whether the refresh was successful.
+         *
+         * @param savedFeed The feed as stored in the database, or null if the refresh failed or was skipped.
+         */
+        void onFeedRefreshed(@NonNull Feed feed, @Nullable Feed savedFeed);
+    }
+
+    private static class DownloadedFeed {
+        final Feed feed;
+        final DownloadRequest request;
+        final Downloader downloader;
+
+        DownloadedFeed(Feed feed, DownloadRequest request, Downloader downloader) {
+            this.feed = feed;
+            this.request = request;
+            this.downloader = downloader;
+        }
+    }
+
+    private static class ParsedFeed {
+        final DownloadedFeed downloaded;
+        final FeedParserTask parserTask;
+        final FeedHandlerResult result;
+
+        ParsedFeed(DownloadedFeed downloaded, FeedParserTask parserTask, FeedHandlerResult result) {
+            this.downloaded = downloaded;
+            this.parserTask = parserTask;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Throughput and queue depth of a single stage.
+     */
+    static class StageStatistics {
+        private final String name;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private volatile long startTime = 0;
+        private volatile long endTime = 0;
+
+        StageStatistics(String name) {
+            this.name = name;
+        }
+
+        void onQueued(int queueDepth) {
+            maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+        }
+
+        synchronized void onProcessed() {
+            if (startTime == 0) {
+                startTime = System.currentTimeMillis();
+            }
+            processed.incrementAndGet();
+            endTime = System.currentTimeMillis();
+        }
+
+        public int getProcessed() {
+            return processed.get();
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        /**
+         * Feeds per second between the first and the last feed that went through this stage.
+         */
+        public double getThroughput() {
+            long duration = endTime - startTime;
+            if (duration <= 0) {
+                return processed.get();
+            }
+            return processed.get() * 1000.0 / duration;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name + ": " + getProcessed() + " feeds, "
+                    + String.format(Locale.US, "%.2f", getThroughput()) + " feeds/s, "
+                    + "max queue depth " + getMaxQueueDepth();
+        }
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final boolean force;
+    private final boolean nextPage;
+    private boolean streamingParse = true;
+    private int downloadThreads = DEFAULT_DOWNLOAD_THREADS;
+    private int downloadsPerHost = DEFAULT_DOWNLOADS_PER_HOST;
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private int persistBatchSize = DEFAULT_PERSIST_BATCH_SIZE;
+    private boolean incrementalParse = false;
+    private DownloaderFactory downloaderFactory = new DefaultDownloaderFactory();
+
+    private BlockingQueue<DownloadedFeed> parseQueue;
+    private BlockingQueue<ParsedFeed> persistQueue;
+    private final AtomicInteger runningParseThreads = new AtomicInteger();
+    private final AtomicInteger runningPersistThreads = new AtomicInteger();
+    private final StageStatistics downloadStatistics = new StageStatistics("download");
+    private final StageStatistics parseStatistics = new StageStatistics("parse");
+    private final StageStatistics persistStatistics = new StageStatistics("persist");
+
+    private ExecutorService downloadExecutor;
+    private CountDownLatch downloadsFinished;
+    private final Object downloadLock = new Object();
+    private final List<Feed> waitingDownloads = new LinkedList<>();
+    private final Map<String, Integer> runningDownloadsPerHost = new HashMap<>();
+    private int runningDownloads = 0;
+
+    private static final DownloadedFeed END_OF_DOWNLOADS = new DownloadedFeed(null, null, null);
+    private static final ParsedFeed END_OF_PARSING = new ParsedFeed(null, null, null);
+
+    FeedRefreshPipeline(Context context, Listener listener, boolean force, boolean nextPage) {
+        this.context = context;
+        this.listener = listener;
+        this.force = force;
+        this.nextPage = nextPage;
+    }
+
+    /**
+     * @param downloadThreads  Number of feeds that are downloaded at the same time.
+     * @param downloadsPerHost Number of feeds that are downloaded from the same host at the same time.
+     */
+    void setDownloadConcurrency(int downloadThreads, int downloadsPerHost) {
+        this.downloadThreads = Math.max(1, downloadThreads);
+        this.downloadsPerHost = Math.max(1, downloadsPerHost);
+    }
+
+    void setParseThreads(int parseThreads) {
+        this.parseThreads = Math.max(1, parseThreads);
+    }
+
+    /**
+     * @param persistBatchSize Maximum number of feeds that are stored in one transaction.
+     */
+    void setPersistBatchSize(int persistBatchSize) {
+        this.persistBatchSize = Math.max(1, persistBatchSize);
+    }
+
+    /**
+     * @param streamingParse Parse remote feeds on the download thread while they are being received,
+     *                       instead of writing them to a file that is parsed by the parse stage.
+     */
+    void setStreamingParse(boolean streamingParse) {
+        this.streamingParse = streamingParse;
+    }
+
+    @VisibleForTesting
+    void setDownloaderFactory(@NonNull DownloaderFactory downloaderFactory) {
+        this.downloaderFactory = downloaderFactory;
+    }
+
+    /**
+     * Lets streaming parses stop at the first items that are already stored.
+     * Unlisted items are never removed during a refresh, so the missing older items are kept.
+     */
+    void setIncrementalParse(boolean incrementalParse) {
+        this.incrementalParse = incrementalParse;
+    }
+
+    /**
+     * Refreshes the given feeds and blocks until all of them went through the pipeline.
+     */
+    void run(List<Feed> feeds) {
+        parseQueue = new ArrayBlockingQueue<>(2 * parseThreads);
+        persistQueue = new ArrayBlockingQueue<>(2 * persistBatchSize);
+        downloadExecutor = Executors.newFixedThreadPool(downloadThreads);
+        ExecutorService parseExecutor = Executors.newFixedThreadPool(parseThreads);
+        ExecutorService persistExecutor = Executors.newSingleThreadExecutor();
+
+        runningParseThreads.set(parseThreads);
+        for (int i = 0; i < parseThreads; i++) {
+            parseExecutor.submit(this::parseLoop);
+        }
+        runningPersistThreads.set(1);
+        persistExecutor.submit(this::persistLoop);
+        downloadsFinished = new CountDownLatch(feeds.size());
+        synchronized (downloadLock) {
+            waitingDownloads.addAll(feeds);
+        }
+        startDownloads();
+
+        try {
+            downloadsFinished.await();
+            awaitTermination(downloadExecutor);
+            for (int i = 0; i < parseThreads; i++) {
+                handOver(parseQueue, END_OF_DOWNLOADS, runningParseThreads);
+            }
+            awaitTermination(parseExecutor);
+            handOver(persistQueue, END_OF_PARSING, runningPersistThreads);
+            awaitTermination(persistExecutor);
+        } catch (InterruptedException e) {
+            downloadExecutor.shutdownNow();
+            parseExecutor.shutdownNow();
+            persistExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        Log.d(TAG, "Refresh finished. " + downloadStatistics + "; " + parseStatistics + "; " + persistStatistics);
+    }
+
+    /**
+     * Starts waiting downloads while there are free threads, skipping feeds whose host is at its limit.
+     */
+    private void startDownloads() {
+        synchronized (downloadLock) {
+            Iterator<Feed> iterator = waitingDownloads.iterator();
+            while (runningDownloads < downloadThreads && iterator.hasNext()) {
+                Feed feed = iterator.next();
+                String host = getHost(feed);
+                Integer runningOnHost = host != null ? runningDownloadsPerHost.get(host) : null;
+                if (runningOnHost != null && runningOnHost >= downloadsPerHost) {
+                    continue;
+                }
+                iterator.remove();
+                runningDownloads++;
+                if (host != null) {
+                    runningDownloadsPerHost.put(host, runningOnHost == null ? 1 : runningOnHost + 1);
+                }
+                HostSlot hostSlot = new HostSlot(host);
+                downloadExecutor.execute(() -> {
+                    try {
+                        download(feed, hostSlot);
+                    } finally {
+                        hostSlot.release();
+                        onDownloadFinished();
+                    }
+                });
+            }
+        }
+    }
+
+    private void onDownloadFinished() {
+        synchronized (downloadLock) {
+            runningDownloads--;
+        }
+        downloadsFinished.countDown();
+        startDownloads();
+    }
+
+    /**
+     * The share of a download in the limit of its host.
+     */
+    private class HostSlot {
+        @Nullable
+        private final String host;
+        private boolean released = false;
+
+        HostSlot(@Nullable String host) {
+            this.host = host;
+        }
+
+        /**
+         * Lets the next download of the host start. Does nothing if the slot was released already.
+         */
+        void release() {
+            synchronized (downloadLock) {
+                if (released || host == null) {
+                    released = true;
+                    return;
+                }
+                released = true;
+                int runningOnHost = runningDownloadsPerHost.get(host) - 1;
+                if (runningOnHost == 0) {
+                    runningDownloadsPerHost.remove(host);
+                } else {
+                    runningDownloadsPerHost.put(host, runningOnHost);
+                }
+            }
+            startDownloads();
+        }
+    }
+
+    /**
+     * Puts the element into the queue of the next stage, waiting for space if needed.
+     *
+     * @return false if the threads of the next stage are not running anymore, so nobody would take it
+     */
+    private static <T> boolean handOver(BlockingQueue<T> queue, T element, AtomicInteger runningConsumers)
+            throws InterruptedException {
+        while (!queue.offer(element, HAND_OVER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (runningConsumers.get() <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void awaitTermination(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    StageStatistics getDownloadStatistics() {
+        return downloadStatistics;
+    }
+
+    StageStatistics getParseStatistics() {
+        return parseStatistics;
+    }
+
+    StageStatistics getPersistStatistics() {
+        return persistStatistics;
+    }
+
+    private void download(Feed feed, HostSlot hostSlot) {
+        if (listener.isStopped()) {
+            return;
+        }
+        try {
+            if (feed.isLocalFeed()) {
+                // Local feeds are read and stored in one go
+                Feed savedFeed = LocalFeedUpdater.updateFeed(feed, context, null);
+                downloadStatistics.onProcessed();
+                listener.onFeedRefreshed(feed, savedFeed);
+                return;
+            }
+
+            if (nextPage && feed.getNextPageLink() != null) {
+                feed.setPageNr(feed.getPageNr() + 1);
+            }
+            DownloadRequestBuilder builder = DownloadRequestCreator.create(feed);
+            builder.setForce(force || feed.hasLastUpdateFailed());
+            builder.setSource(getSource(feed));
+            DownloadRequest request = builder.build();
+
+            Downloader downloader = downloaderFactory.create(request);
+            if (downloader == null) {
+                throw new Exception("Unable to create downloader");
+            }
+            FeedParserTask streamParserTask = null;
+            if (streamingParse && downloader instanceof HttpDownloader) {
+                FeedParserTask parserTask = new FeedParserTask(request);
+                boolean incremental = canParseIncrementally(feed);
+                ((HttpDownloader) downloader).setBodyConsumer(body -> {
+                    if (incremental) {
+                        // Only loaded when the feed was actually modified
+                        parserTask.setKnownItems(new KnownFeedItems(DBReader.getFeedItemIdentifiers(feed.getId()),
+                                DBReader.getFeedMediaDownloadUrls(feed.getId()), INCREMENTAL_PARSE_STOP_AFTER));
+                    }
+                    parserTask.parseStream(body);
+                });
+                streamParserTask = parserTask;
+            }
+
+            downloader.call();
+            // Parsed feeds can wait for the persist stage without keeping the next download of the host
+            hostSlot.release();
+            downloadStatistics.onProcessed();
+
+            if (downloader.notModified) {
+                if (request.getFeedfileId() != 0) {
+                    DBWriter.addFeedNotModified(request.getFeedfileId());
+                }
+                listener.onFeedRefreshed(feed, null);
+                return;
+            } else if (!downloader.getResult().isSuccessful()) {
+                if (!downloader.cancelled
+                        && downloader.getResult().getReason() != DownloadError.ERROR_DOWNLOAD_CANCELLED) {
+                    DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
+                    DBWriter.addDownloadStatus(downloader.getResult());
+                }
+                listener.onFeedRefreshed(feed, null);
+                return;
+            }
+            DownloadedFeed downloaded = new DownloadedFeed(feed, request, downloader);
+            if (streamParserTask != null) {
+                // Already parsed while downloading
+                onParsed(downloaded, streamParserTask);
+            } else if (handOver(parseQueue, downloaded, runningParseThreads)) {
+                parseStatistics.onQueued(parseQueue.size());
+            } else {
+                throw new IllegalStateException("Feed parsing stopped");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            onFailed(feed, e);
+        }
+    }
+
+    private boolean canParseIncrementally(Feed feed) {
+        return incrementalParse && !force && !nextPage && feed.getId() != 0 && !feed.hasLastUpdateFailed()
+                && System.currentTimeMillis() - feed.getLastFullParse() < FULL_PARSE_INTERVAL;
+    }
+
+    private String getSource(Feed feed) {
+        if (nextPage && feed.getNextPageLink() != null) {
+            return feed.getNextPageLink();
+        }
+        return feed.getDownloadUrl();
+    }
+
+    /**
+     * The host that the feed is downloaded from, or null if downloading it does not count against a host.
+     */
+    @Nullable
+    private String getHost(Feed feed) {
+        if (feed.isLocalFeed()) {
+            return null;
+        }
+        HttpUrl httpUrl = HttpUrl.parse(getSource(feed));
+        return httpUrl != null ? httpUrl.host() : null;
+    }
+
+    private void parseLoop() {
+        try {
+            while (true) {
+                DownloadedFeed downloaded = parseQueue.take();
+                if (downloaded == END_OF_DOWNLOADS) {
+                    return;
+                }
+                if (listener.isStopped()) {
+                    continue;
+                }
+                try {
+                    FeedParserTask parserTask = new FeedParserTask(downloaded.request);
+                    parserTask.call();
+                    onParsed(downloaded, parserTask);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    onFailed(downloaded.feed, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runningParseThreads.decrementAndGet();
+        }
+    }
+
+    private void onParsed(DownloadedFeed downloaded, FeedParserTask parserTask) throws InterruptedException {
+        parseStatistics.onProcessed();
+        if (!parserTask.isSuccessful()) {
+            DBWriter.setFeedLastUpdateFailed(downloaded.request.getFeedfileId(), true);
+            DBWriter.addDownloadStatus(parserTask.getDownloadStatus());
+            listener.onFeedRefreshed(downloaded.feed, null);
+            return;
+        }
+        FeedHandlerResult result = parserTask.getResult();
+        result.feed.setLastRefreshAttempt(System.currentTimeMillis());
+        if (!handOver(persistQueue, new ParsedFeed(downloaded, parserTask, result), runningPersistThreads)) {
+            throw new IllegalStateException("Storing feeds stopped");
+        }
+        persistStatistics.onQueued(persistQueue.size());
+    }
+
+    private void persistLoop() {
+        try {
+            boolean finished = false;
+            List<ParsedFeed> batch = new ArrayList<>();
+            while (!finished) {
+                batch.clear();
+                batch.add(persistQueue.take());
+                persistQueue.drainTo(batch, persistBatchSize - 1);
+                if (batch.get(batch.size() - 1) == END_OF_PARSING) {
+                    // The end marker is always the last element that gets queued
+                    batch.remove(batch.size() - 1);
+                    finished = true;
+                }
+                if (!batch.isEmpty() && !listener.isStopped()) {
+                    persist(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runningPersistThreads.decrementAndGet();
+            // Parsed feeds that were still waiting are not stored anymore
+            List<ParsedFeed> remaining = new ArrayList<>();
+            persistQueue.drainTo(remaining);
+            for (ParsedFeed parsed : remaining) {
+                if (parsed != END_OF_PARSING) {
+                    listener.onFeedRefreshed(parsed.downloaded.feed, null);
+                }
+            }
+        }
+    }
+
+    private void persist(List<ParsedFeed> batch) {
+        List<Feed> parsedFeeds = new ArrayList<>();
+        for (ParsedFeed parsed : batch) {
+            parsedFeeds.add(parsed.result.feed);
+        }
+        List<FeedDatabaseWriter.MergeResult> savedFeeds;
+        try {
+            savedFeeds = FeedDatabaseWriter.updateFeeds(context, parsedFeeds, false);
+        } catch (Exception e) {
+            for (ParsedFeed parsed : batch) {
+                onFailed(parsed.downloaded.feed, e);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            ParsedFeed parsed = batch.get(i);
+            persistStatistics.onProcessed();
+            try {
+                afterPersist(parsed);
+                listener.onFeedRefreshed(parsed.downloaded.feed, savedFeeds.get(i).getFeed());
+            } catch (Exception e) {
+                onFailed(parsed.downloaded.feed, e);
+            }
+        }
+    }
+
+    private void afterPersist(ParsedFeed parsed) {
+        DownloadRequest request = parsed.downloaded.request;
+        if (request.getFeedfileId() == 0) {
+            return; // No download logs for new subscriptions
+        }
+        if (isCompleteDownload(parsed)) {
+            DBWriter.setFeedLastDownloadSize(request.getFeedfileId(), request.getSoFar());
+        }
+        // we create a 'successful' download log if the feed's last refresh failed
+        List<DownloadResult> log = DBReader.getFeedDownloadLog(request.getFeedfileId(), 1);
+        if (!log.isEmpty() && !log.get(0).isSuccessful()) {
+            DBWriter.addDownloadStatus(parsed.parserTask.getDownloadStatus());
+        }
+        Downloader downloader = parsed.downloaded.downloader;
+        if (downloader.permanentRedirectUrl != null) {
+            DBWriter.updateFeedDownloadURL(request.getSource(), downloader.permanentRedirectUrl);
+        } else if (parsed.result.redirectUrl != null
+                && !parsed.result.redirectUrl.equals(request.getSource())) {
+            DBWriter.updateFeedDownloadURL(request.getSource(), parsed.result.redirectUrl);
+        }
+    }
+
+    /**
+     * Whether the whole response body was received and parsed. When an incremental parse stopped early,
+     * the number of bytes read is not the size of the feed and must not be used to detect changes.
+     */
+    private static boolean isCompleteDownload(ParsedFeed parsed) {
+        DownloadRequest request = parsed.downloaded.request;
+        return parsed.result.complete && (request.getSize() <= 0 || request.getSoFar() >= request.getSize());
+    }
+
+    private void onFailed(Feed feed, Exception e) {
+        e.printStackTrace();
+        DBWriter.setFeedLastUpdateFailed(feed.getId(), true);
+        DownloadResult status = new DownloadResult(feed.getTitle(),
+                feed.getId(), Feed.FEEDFILETYPE_FEED, false,
+                DownloadError.ERROR_IO_ERROR, e.getMessage());
+        DBWriter.addDownloadStatus(status);
+        listener.onFeedRefreshed(feed, null);
+    }
+}
@@ -18,24 +18,12 @@ import androidx.work.WorkerParameters;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import de.danoeh.antennapod.net.download.service.R;
-import de.danoeh.antennapod.net.download.service.feed.local.LocalFeedUpdater;
-import de.danoeh.antennapod.net.download.service.feed.remote.DefaultDownloaderFactory;
-import de.danoeh.antennapod.net.download.service.feed.remote.Downloader;
-import de.danoeh.antennapod.net.download.service.feed.remote.FeedParserTask;
 import de.danoeh.antennapod.net.download.serviceinterface.AutoDownloadManager;
-import de.danoeh.antennapod.net.download.serviceinterface.DownloadRequestCreator;
 import de.danoeh.antennapod.net.sync.serviceinterface.SynchronizationQueue;
 import de.danoeh.antennapod.storage.database.DBReader;
-import de.danoeh.antennapod.storage.database.FeedDatabaseWriter;
-import de.danoeh.antennapod.storage.database.DBWriter;
 import de.danoeh.antennapod.net.common.NetworkUtils;
-import de.danoeh.antennapod.model.download.DownloadError;
-import de.danoeh.antennapod.model.download.DownloadResult;
 import de.danoeh.antennapod.model.feed.Feed;
-import de.danoeh.antennapod.model.download.DownloadRequest;
 
-import de.danoeh.antennapod.net.download.serviceinterface.DownloadRequestBuilder;
-import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
 import de.danoeh.antennapod.storage.database.NonSubscribedFeedsCleaner;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
 import de.danoeh.antennapod.ui.notifications.NotificationUtils;
@@ -43,8 +31,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class FeedUpdateWorker extends Worker {
     private static final String TAG = "FeedUpdateWorker";
@@ -110,7 +96,9 @@ public class FeedUpdateWorker extends Worker {
                 return Result.retry();
             }
         }
-        refreshFeeds(toUpdate,  force);
+        // Manual refreshes always read the whole feed, so that changes to older episodes can be picked up
+        boolean incrementalParse = isAutomaticRefresh && UserPreferences.isIncrementalFeedParse();
+        refreshFeeds(toUpdate, force, incrementalParse);
 
         NonSubscribedFeedsCleaner.deleteOldNonSubscribedFeeds(getApplicationContext());
         AutoDownloadManager.getInstance().autodownloadUndownloadedItems(getApplicationContext());
@@ -158,102 +146,35 @@ public class FeedUpdateWorker extends Worker {
         return Futures.immediateFuture(new ForegroundInfo(R.id.notification_updating_feeds, createNotification(null)));
     }
 
-    private void refreshFeeds(List<Feed> toUpdate, boolean force) {
+    private void refreshFeeds(List<Feed> toUpdate, boolean force, boolean incrementalParse) {
         List<Feed> notificationRemainingFeeds = new ArrayList<>(toUpdate);
         updateNotification(notificationRemainingFeeds);
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-        for (Feed feed : toUpdate) {
-            executor.submit(() -> {
-                if (isStopped()) {
-                    return;
-                }
-                try {
-                    Feed savedFeed;
-                    if (feed.isLocalFeed()) {
-                        savedFeed = LocalFeedUpdater.updateFeed(feed, getApplicationContext(), null);
-                    } else {
-                        savedFeed = refreshFeed(feed, force);
-                    }
-                    if (savedFeed != null) {
-                        newEpisodesNotification.showIfNeeded(getApplicationContext(), savedFeed);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    DBWriter.setFeedLastUpdateFailed(feed.getId(), true);
-                    DownloadResult status = new DownloadResult(feed.getTitle(),
-                            feed.getId(), Feed.FEEDFILETYPE_FEED, false,
-                            DownloadError.ERROR_IO_ERROR, e.getMessage());
-                    DBWriter.addDownloadStatus(status);
-                }
-                synchronized (notificationRemainingFeeds) {
-                    notificationRemainingFeeds.remove(feed);
-                    if (!notificationRemainingFeeds.isEmpty()) {
-                        updateNotification(notificationRemainingFeeds);
+        boolean nextPage = getInputData().getBoolean(FeedUpdateManagerImpl.EXTRA_NEXT_PAGE, false);
+        FeedRefreshPipeline pipeline = new FeedRefreshPipeline(getApplicationContext(),
+                new FeedRefreshPipeline.Listener() {
+                    @Override
+                    public boolean isStopped() {
+                        return FeedUpdateWorker.this.isStopped();
                     }
-                }
-            });
-        }
-        executor.shutdown();
-        try {
-            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            //~300 years have elapsed
-        }
-    }
-
-    Feed refreshFeed(Feed feed, boolean force) throws Exception {
-        boolean nextPage = getInputData().getBoolean(FeedUpdateManagerImpl.EXTRA_NEXT_PAGE, false)
-                && feed.getNextPageLink() != null;
-        if (nextPage) {
-            feed.setPageNr(feed.getPageNr() + 1);
-        }
-        DownloadRequestBuilder builder = DownloadRequestCreator.create(feed);
-        builder.setForce(force || feed.hasLastUpdateFailed());
-        if (nextPage) {
-            builder.setSource(feed.getNextPageLink());
-        }
-        DownloadRequest request = builder.build();
 
-        Downloader downloader = new DefaultDownloaderFactory().create(request);
-        if (downloader == null) {
-            throw new Exception("Unable to create downloader");
-        }
-
-        downloader.call();
-
-        if (!downloader.getResult().isSuccessful()) {
-            if (downloader.cancelled || downloader.getResult().getReason() == DownloadError.ERROR_DOWNLOAD_CANCELLED) {
-                return null;
-            }
-            DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
-            DBWriter.addDownloadStatus(downloader.getResult());
-            return null;
-        }
-
-        FeedParserTask parserTask = new FeedParserTask(request);
-        FeedHandlerResult feedHandlerResult = parserTask.call();
-        if (!parserTask.isSuccessful()) {
-            DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
-            DBWriter.addDownloadStatus(parserTask.getDownloadStatus());
-            return null;
-        }
-        feedHandlerResult.feed.setLastRefreshAttempt(System.currentTimeMillis());
-        Feed savedFeed = FeedDatabaseWriter.updateFeed(getApplicationContext(), feedHandlerResult.feed, false);
-
-        if (request.getFeedfileId() == 0) {
-            return savedFeed; // No download logs for new subscriptions
-        }
-        // we create a 'successful' download log if the feed's last refresh failed
-        List<DownloadResult> log = DBReader.getFeedDownloadLog(request.getFeedfileId(), 1);
-        if (!log.isEmpty() && !log.get(0).isSuccessful()) {
-            DBWriter.addDownloadStatus(parserTask.getDownloadStatus());
-        }
-        if (downloader.permanentRedirectUrl != null) {
-            DBWriter.updateFeedDownloadURL(request.getSource(), downloader.permanentRedirectUrl);
-        } else if (feedHandlerResult.redirectUrl != null
-                && !feedHandlerResult.redirectUrl.equals(request.getSource())) {
-            DBWriter.updateFeedDownloadURL(request.getSource(), feedHandlerResult.redirectUrl);
+                    @Override
+                    public void onFeedRefreshed(@NonNull Feed feed, @Nullable Feed savedFeed) {
+                        if (savedFeed != null) {
+                            newEpisodesNotification.showIfNeeded(getApplicationContext(), savedFeed);
+                        }
+                        synchronized (notificationRemainingFeeds) {
+                            notificationRemainingFeeds.remove(feed);
+                            if (!notificationRemainingFeeds.isEmpty()) {
+                                updateNotification(notificationRemainingFeeds);
+                            }
+                        }
+                    }
+                }, force, nextPage);
+        pipeline.setIncrementalParse(incrementalParse);
+        if (toUpdate.size() == 1) {
+            pipeline.setDownloadConcurrency(1, 1);
+            pipeline.setParseThreads(1);
         }
-        return savedFeed;
+        pipeline.run(toUpdate);
     }
 }
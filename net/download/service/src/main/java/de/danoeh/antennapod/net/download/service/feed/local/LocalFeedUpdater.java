@@ -1,20 +1,16 @@
 package de.danoeh.antennapod.net.download.service.feed.local;
 
 import android.content.Context;
-import android.media.MediaMetadataRetriever;
 import android.net.Uri;
 import android.text.TextUtils;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.input.CountingInputStream;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -28,7 +24,6 @@ import java.util.UUID;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.documentfile.provider.DocumentFile;
-import de.danoeh.antennapod.model.MediaMetadataRetrieverCompat;
 import de.danoeh.antennapod.model.download.DownloadResult;
 import de.danoeh.antennapod.model.feed.FeedPreferences;
 import de.danoeh.antennapod.net.download.service.R;
@@ -42,10 +37,7 @@ import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.model.playback.MediaType;
 import de.danoeh.antennapod.parser.feed.util.MimeTypeUtils;
-import de.danoeh.antennapod.parser.media.id3.ID3ReaderException;
-import de.danoeh.antennapod.parser.media.id3.Id3MetadataReader;
-import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentMetadataReader;
-import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentReaderException;
+import de.danoeh.antennapod.parser.media.MediaFileAnalyzer;
 
 public class LocalFeedUpdater {
     private static final String TAG = "LocalFeedUpdater";
@@ -204,52 +196,34 @@ public class LocalFeedUpdater {
         return item;
     }
 
-    private static void loadMetadata(FeedItem item, FastDocumentFile file, Context context) {
-        try (MediaMetadataRetrieverCompat mediaMetadataRetriever = new MediaMetadataRetrieverCompat()) {
-            mediaMetadataRetriever.setDataSource(context, file.getUri());
-
-            String dateStr = mediaMetadataRetriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DATE);
-            if (!TextUtils.isEmpty(dateStr) && !"19040101T000000.000Z".equals(dateStr)) {
-                try {
-                    SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss", Locale.getDefault());
-                    item.setPubDate(simpleDateFormat.parse(dateStr));
-                } catch (ParseException parseException) {
-                    Date date = DateUtils.parse(dateStr);
-                    if (date != null) {
-                        item.setPubDate(date);
-                    }
+    private static void loadMetadata(FeedItem item, FastDocumentFile file, Context context)
+            throws InterruptedIOException {
+        MediaFileAnalyzer.Result analysis = MediaFileAnalyzer.analyze(context, file.getUri());
+
+        String dateStr = analysis.getDate();
+        if (!TextUtils.isEmpty(dateStr) && !"19040101T000000.000Z".equals(dateStr)) {
+            try {
+                SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss", Locale.getDefault());
+                item.setPubDate(simpleDateFormat.parse(dateStr));
+            } catch (ParseException parseException) {
+                Date date = DateUtils.parse(dateStr);
+                if (date != null) {
+                    item.setPubDate(date);
                 }
             }
+        }
 
-            String title = mediaMetadataRetriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE);
-            if (!TextUtils.isEmpty(title)) {
-                item.setTitle(title);
-            }
-
-            String durationStr = mediaMetadataRetriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
-            if (durationStr != null && !durationStr.equals("null")) {
-                item.getMedia().setDuration((int) Long.parseLong(durationStr));
-            }
+        String title = analysis.getTitle();
+        if (!TextUtils.isEmpty(title)) {
+            item.setTitle(title);
+        }
 
-            item.getMedia().setHasEmbeddedPicture(mediaMetadataRetriever.getEmbeddedPicture() != null);
-
-            try (InputStream inputStream = context.getContentResolver().openInputStream(file.getUri())) {
-                Id3MetadataReader reader = new Id3MetadataReader(
-                        new CountingInputStream(new BufferedInputStream(inputStream)));
-                reader.readInputStream();
-                item.setDescriptionIfLonger(reader.getComment());
-            } catch (IOException | ID3ReaderException e) {
-                Log.d(TAG, "Unable to parse ID3 of " + file.getUri() + ": " + e.getMessage());
-
-                try (InputStream inputStream = context.getContentResolver().openInputStream(file.getUri())) {
-                    VorbisCommentMetadataReader reader = new VorbisCommentMetadataReader(inputStream);
-                    reader.readInputStream();
-                    item.setDescriptionIfLonger(reader.getDescription());
-                } catch (IOException | VorbisCommentReaderException e2) {
-                    Log.d(TAG, "Unable to parse vorbis comments of " + file.getUri() + ": " + e2.getMessage());
-                }
-            }
+        if (analysis.getDuration() > 0) {
+            item.getMedia().setDuration(analysis.getDuration());
         }
+
+        item.getMedia().setHasEmbeddedPicture(analysis.hasEmbeddedPicture());
+        item.setDescriptionIfLonger(analysis.getDescription());
     }
 
     private static void reportError(Feed feed, String reasonDetailed) {
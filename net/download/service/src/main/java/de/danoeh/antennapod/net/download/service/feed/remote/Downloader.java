@@ -18,13 +18,17 @@ public abstract class Downloader implements Callable<Downloader> {
     private volatile boolean finished;
     public volatile boolean cancelled;
     public String permanentRedirectUrl = null;
+    /**
+     * The server responded with 304 Not Modified, so nothing was downloaded.
+     */
+    public volatile boolean notModified = false;
 
     @NonNull
     final DownloadRequest request;
     @NonNull
     final DownloadResult result;
 
-    Downloader(@NonNull DownloadRequest request) {
+    protected Downloader(@NonNull DownloadRequest request) {
         super();
         this.request = request;
         this.request.setStatusMsg(R.string.download_pending);
@@ -3,6 +3,7 @@ package de.danoeh.antennapod.net.download.service.feed.remote;
 import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedPreferences;
@@ -11,6 +12,7 @@ import de.danoeh.antennapod.model.download.DownloadRequest;
 import de.danoeh.antennapod.model.download.DownloadResult;
 import de.danoeh.antennapod.parser.feed.FeedHandler;
 import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
+import de.danoeh.antennapod.parser.feed.KnownFeedItems;
 import de.danoeh.antennapod.parser.feed.UnsupportedFeedtypeException;
 import de.danoeh.antennapod.model.download.DownloadError;
 import org.xml.sax.SAXException;
@@ -18,6 +20,7 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.concurrent.Callable;
 
@@ -26,6 +29,8 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
     private final DownloadRequest request;
     private DownloadResult downloadResult;
     private boolean successful = true;
+    private FeedHandlerResult result = null;
+    private KnownFeedItems knownItems = null;
 
     public FeedParserTask(DownloadRequest request) {
         this.request = request;
@@ -35,9 +40,36 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
                 "Unknown error: Status not set");
     }
 
+    /**
+     * Lets {@link #parseStream(InputStream)} stop reading once the rest of the feed is known.
+     * Feeds that are parsed from the destination file are always parsed completely.
+     */
+    public void setKnownItems(@Nullable KnownFeedItems knownItems) {
+        this.knownItems = knownItems;
+    }
+
     @Override
     public FeedHandlerResult call() {
+        try {
+            return parse(null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Only thrown when parsing from a stream
+        }
+    }
+
+    /**
+     * Parses the feed while it is being downloaded, without writing it to the destination file first.
+     * I/O errors are passed on, so that the downloader can report them as download errors.
+     *
+     * @return The parsed feed, or null if parsing failed. It is also returned by {@link #getResult()} later.
+     */
+    public FeedHandlerResult parseStream(@NonNull InputStream inputStream) throws IOException {
+        return parse(inputStream);
+    }
+
+    private FeedHandlerResult parse(@Nullable InputStream inputStream) throws IOException {
         Feed feed = new Feed(request.getSource(), request.getLastModified());
+        feed.setEtag(request.getEtag());
         feed.setLocalFileUrl(request.getDestination());
         feed.setId(request.getFeedfileId());
         feed.setPreferences(new FeedPreferences(0, FeedPreferences.AutoDownloadSetting.GLOBAL,
@@ -49,15 +81,30 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         String reasonDetailed = null;
         FeedHandler feedHandler = new FeedHandler();
 
-        FeedHandlerResult result = null;
         try {
-            result = feedHandler.parseFeed(feed);
+            if (inputStream != null) {
+                result = feedHandler.parseFeed(feed, inputStream, knownItems);
+            } else {
+                result = feedHandler.parseFeed(feed);
+            }
             Log.d(TAG, feed.getTitle() + " parsed");
             checkFeedData(feed);
-            if (TextUtils.isEmpty(feed.getImageUrl())) {
+            if (result.complete) {
+                feed.setLastFullParse(System.currentTimeMillis());
+            }
+            // Elements after the items are missing if parsing stopped early, keep the stored image then
+            if (TextUtils.isEmpty(feed.getImageUrl()) && result.complete) {
                 feed.setImageUrl(Feed.PREFIX_GENERATIVE_COVER + feed.getDownloadUrl());
             }
-        } catch (SAXException | IOException | ParserConfigurationException e) {
+        } catch (IOException e) {
+            if (inputStream != null) {
+                throw e;
+            }
+            successful = false;
+            e.printStackTrace();
+            reason = DownloadError.ERROR_PARSER_EXCEPTION;
+            reasonDetailed = e.getMessage();
+        } catch (SAXException | ParserConfigurationException e) {
             successful = false;
             e.printStackTrace();
             reason = DownloadError.ERROR_PARSER_EXCEPTION;
@@ -91,10 +138,16 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         } else {
             downloadResult = new DownloadResult(feed.getHumanReadableIdentifier(), feed.getId(),
                     Feed.FEEDFILETYPE_FEED, false, reason, reasonDetailed);
+            result = null;
             return null;
         }
     }
 
+    @Nullable
+    public FeedHandlerResult getResult() {
+        return result;
+    }
+
     public boolean isSuccessful() {
         return successful;
     }
@@ -2,6 +2,7 @@ package de.danoeh.antennapod.net.download.service.feed.remote;
 
 import android.os.StatFs;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -14,19 +15,30 @@ import de.danoeh.antennapod.net.download.service.R;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
 import okhttp3.CacheControl;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.parser.feed.util.DateUtils;
@@ -41,11 +53,84 @@ import okhttp3.ResponseBody;
 public class HttpDownloader extends Downloader {
     private static final String TAG = "HttpDownloader";
     private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int SEGMENT_COUNT = 4;
+    private static final long MIN_SEGMENTED_SIZE = 16 * 1024 * 1024;
+    private static final long SEGMENT_MAP_SAVE_INTERVAL = 1024 * 1024;
+
+    /**
+     * Receives the response body instead of the destination file.
+     */
+    public interface BodyConsumer {
+        /**
+         * Reads the body. The validators of the response are set on the request already.
+         * I/O errors are reported as download errors.
+         */
+        void consume(InputStream body) throws IOException;
+    }
+
+    /**
+     * Limits the speed of the download and how many connections it opens.
+     */
+    public interface BandwidthLimiter {
+        /**
+         * Called after each read from the connection. Blocks as long as needed to keep the bandwidth.
+         */
+        void onBytesReceived(int count) throws InterruptedIOException;
+
+        /**
+         * Asks for connections in addition to the one that the download uses already. Does not wait.
+         *
+         * @return How many of the connections may be opened, between 0 and count
+         */
+        int acquireExtraConnections(int count);
+
+        /**
+         * Frees connections that were granted by {@link #acquireExtraConnections}.
+         */
+        void releaseExtraConnections(int count);
+    }
+
+    /**
+     * Thrown when the server answers a segment request with the whole file instead of the requested range.
+     */
+    private static class RangeNotSupportedException extends IOException {
+        RangeNotSupportedException() {
+            super("Server does not support range requests");
+        }
+    }
+
+    @Nullable
+    private BodyConsumer bodyConsumer = null;
+    @Nullable
+    private BandwidthLimiter bandwidthLimiter = null;
+    private boolean segmentsSupported = true;
 
     public HttpDownloader(@NonNull DownloadRequest request) {
         super(request);
     }
 
+    /**
+     * Passes the response body to the consumer while it is being received, instead of writing it
+     * to the destination file.
+     */
+    public void setBodyConsumer(@Nullable BodyConsumer bodyConsumer) {
+        this.bodyConsumer = bodyConsumer;
+    }
+
+    /**
+     * Deletes a partially downloaded file, including the progress of its segments.
+     */
+    public static void deletePartialDownload(@NonNull File destination) {
+        SegmentMap.delete(destination);
+        if (destination.exists()) {
+            destination.delete();
+        }
+    }
+
+    public void setBandwidthLimiter(@Nullable BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
     @Override
     protected void download() {
         File destination = new File(request.getDestination());
@@ -57,38 +142,30 @@ public class HttpDownloader extends Downloader {
 
         try {
             final URI uri = UriUtil.getURIFromRequestUrl(request.getSource());
-            Request.Builder httpReq = new Request.Builder().url(uri.toURL());
-            httpReq.tag(request);
-            httpReq.cacheControl(new CacheControl.Builder().noStore().build());
-
-            if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
-                // set header explicitly so that okhttp doesn't do transparent gzip
-                Log.d(TAG, "addHeader(\"Accept-Encoding\", \"identity\")");
-                httpReq.addHeader("Accept-Encoding", "identity");
-                httpReq.cacheControl(new CacheControl.Builder().noCache().build()); // noStore breaks CDNs
+            if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA && bodyConsumer == null) {
+                SegmentMap segments = SegmentMap.load(destination);
+                if (segments != null) {
+                    downloadSegments(uri, destination, segments, null,
+                            acquireExtraConnections(segments.getSegmentCount() - 1));
+                    return;
+                }
+                SegmentMap.delete(destination);
             }
+            Request.Builder httpReq = newRequestBuilder(uri);
 
-            if (uri.getScheme().equals("http")) {
-                httpReq.addHeader("Upgrade-Insecure-Requests", "1");
+            // Send both validators. Servers must prefer If-None-Match, but some only support one of them.
+            String lastModified = request.getLastModified();
+            if (!TextUtils.isEmpty(lastModified) && DateUtils.parse(lastModified) != null) {
+                Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
+                httpReq.addHeader("If-Modified-Since", lastModified);
             }
-
-            if (!TextUtils.isEmpty(request.getLastModified())) {
-                String lastModified = request.getLastModified();
-                Date lastModifiedDate = DateUtils.parse(lastModified);
-                if (lastModifiedDate != null) {
-                    long threeDaysAgo = System.currentTimeMillis() - 1000 * 60 * 60 * 24 * 3;
-                    if (lastModifiedDate.getTime() > threeDaysAgo) {
-                        Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
-                        httpReq.addHeader("If-Modified-Since", lastModified);
-                    }
-                } else {
-                    Log.d(TAG, "addHeader(\"If-None-Match\", \"" + lastModified + "\")");
-                    httpReq.addHeader("If-None-Match", lastModified);
-                }
+            if (!TextUtils.isEmpty(request.getEtag())) {
+                Log.d(TAG, "addHeader(\"If-None-Match\", \"" + request.getEtag() + "\")");
+                httpReq.addHeader("If-None-Match", request.getEtag());
             }
 
             // add range header if necessary
-            if (fileExists && destination.length() > 0) {
+            if (bodyConsumer == null && fileExists && destination.length() > 0) {
                 request.setSoFar(destination.length());
                 httpReq.addHeader("Range", "bytes=" + request.getSoFar() + "-");
                 Log.d(TAG, "Adding range header: " + request.getSoFar());
@@ -105,6 +182,7 @@ public class HttpDownloader extends Downloader {
             Log.d(TAG, "Response code is " + response.code());
             if (!response.isSuccessful() && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
                 Log.d(TAG, "Feed '" + request.getSource() + "' not modified since last update, Download canceled");
+                notModified = true;
                 onCancelled();
                 return;
             } else if (!response.isSuccessful() || response.body() == null) {
@@ -120,6 +198,26 @@ public class HttpDownloader extends Downloader {
                 permanentRedirectUrl = redirect;
             }
 
+            if (bodyConsumer != null) {
+                consumeBody(response, responseBody);
+                return;
+            }
+
+            if (canDownloadInSegments(response, isGzip)) {
+                long size = responseBody.contentLength();
+                if (size > getFreeSpaceAvailable()) {
+                    onFail(DownloadError.ERROR_NOT_ENOUGH_SPACE, null);
+                    return;
+                }
+                int extraConnections = acquireExtraConnections(SEGMENT_COUNT - 1);
+                if (extraConnections > 0) {
+                    SegmentMap segments = SegmentMap.create(size, response.header("ETag"),
+                            response.header("Last-Modified"), 1 + extraConnections);
+                    downloadSegments(uri, destination, segments, responseBody, extraConnections);
+                    return;
+                }
+            }
+
             connection = new BufferedInputStream(responseBody.byteStream());
 
             String contentRangeHeader = (fileExists) ? response.header("Content-Range") : null;
@@ -162,6 +260,9 @@ public class HttpDownloader extends Downloader {
             try {
                 while (!cancelled && (count = connection.read(buffer)) != -1) {
                     out.write(buffer, 0, count);
+                    if (bandwidthLimiter != null) {
+                        bandwidthLimiter.onBytesReceived(count);
+                    }
                     request.setSoFar(request.getSoFar() + count);
                     int progressPercent = (int) (100.0 * request.getSoFar() / request.getSize());
                     request.setProgressPercent(progressPercent);
@@ -183,12 +284,8 @@ public class HttpDownloader extends Downloader {
                     onFail(DownloadError.ERROR_IO_ERROR, "Download completed, but nothing was read");
                     return;
                 }
-                String lastModified = response.header("Last-Modified");
-                if (lastModified != null) {
-                    request.setLastModified(lastModified);
-                } else {
-                    request.setLastModified(response.header("ETag"));
-                }
+                request.setLastModified(response.header("Last-Modified"));
+                request.setEtag(response.header("ETag"));
                 onSuccess();
             }
 
@@ -223,6 +320,220 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    private Request.Builder newRequestBuilder(URI uri) throws MalformedURLException {
+        Request.Builder httpReq = new Request.Builder().url(uri.toURL());
+        httpReq.tag(request);
+        httpReq.cacheControl(new CacheControl.Builder().noStore().build());
+
+        if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
+            // set header explicitly so that okhttp doesn't do transparent gzip
+            Log.d(TAG, "addHeader(\"Accept-Encoding\", \"identity\")");
+            httpReq.addHeader("Accept-Encoding", "identity");
+            httpReq.cacheControl(new CacheControl.Builder().noCache().build()); // noStore breaks CDNs
+        }
+
+        if (uri.getScheme().equals("http")) {
+            httpReq.addHeader("Upgrade-Insecure-Requests", "1");
+        }
+        return httpReq;
+    }
+
+    /**
+     * Large episodes are downloaded over several connections if the user enabled it and the server
+     * supports range requests. A validator is needed to make sure that resumed segments belong to the same file.
+     * A weak ETag does not guarantee identical bytes, so it cannot be used for range requests.
+     */
+    private boolean canDownloadInSegments(Response response, boolean isGzip) {
+        return segmentsSupported
+                && request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA
+                && UserPreferences.isSegmentedEpisodeDownload()
+                && response.code() == HttpURLConnection.HTTP_OK
+                && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+                && !isGzip
+                && response.body().contentLength() >= MIN_SEGMENTED_SIZE
+                && (getStrongEtag(response.header("ETag")) != null || response.header("Last-Modified") != null);
+    }
+
+    @Nullable
+    private static String getStrongEtag(@Nullable String etag) {
+        if (etag == null || etag.startsWith("W/")) {
+            return null;
+        }
+        return etag;
+    }
+
+    /**
+     * Downloads the missing parts of all segments in parallel. Each segment is written to its own position
+     * of the preallocated destination file. Falls back to a single connection if the server does not return
+     * the requested ranges.
+     *
+     * @param firstBody Body of a response that starts at the beginning of the file. Used for the first segment.
+     * @param extraConnections Connections that were acquired in addition to the one of the download.
+     *                         Released when this method returns.
+     */
+    private void downloadSegments(URI uri, File destination, SegmentMap segments,
+                                  @Nullable ResponseBody firstBody, int extraConnections) throws IOException {
+        request.setStatusMsg(R.string.download_running);
+        request.setSize(segments.getSize());
+        request.setSoFar(segments.getTotalDone());
+        Log.d(TAG, "Downloading in " + segments.getSegmentCount() + " segments, "
+                + request.getSoFar() + " of " + request.getSize() + " bytes done");
+
+        // Segments that do not get a connection of their own wait for another segment to finish
+        ExecutorService executor = Executors.newFixedThreadPool(1 + extraConnections);
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        boolean rangeNotSupported = false;
+        try (RandomAccessFile file = new RandomAccessFile(destination, "rw")) {
+            if (file.length() != segments.getSize()) {
+                file.setLength(segments.getSize());
+            }
+            segments.save(destination);
+            FileChannel channel = file.getChannel();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < segments.getSegmentCount(); i++) {
+                if (segments.isComplete(i)) {
+                    continue;
+                }
+                final int segment = i;
+                final ResponseBody body = (i == 0) ? firstBody : null;
+                futures.add(executor.submit(() -> {
+                    downloadSegment(uri, destination, segments, segment, body, channel, aborted);
+                    return null;
+                }));
+            }
+
+            IOException error = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    aborted.set(true);
+                    if (error == null) {
+                        error = (e.getCause() instanceof IOException)
+                                ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    aborted.set(true);
+                    error = new InterruptedIOException();
+                }
+            }
+            // The data needs to be on disk before the map says that it was downloaded
+            channel.force(false);
+            segments.save(destination);
+            if (error != null) {
+                throw error;
+            }
+        } catch (RangeNotSupportedException e) {
+            rangeNotSupported = true;
+        } finally {
+            executor.shutdownNow();
+            if (bandwidthLimiter != null) {
+                bandwidthLimiter.releaseExtraConnections(extraConnections);
+            }
+        }
+
+        if (rangeNotSupported) {
+            Log.d(TAG, "Server ignored the range request, downloading in a single stream");
+            IOUtils.closeQuietly(firstBody);
+            deletePartialDownload(destination);
+            request.setSoFar(0);
+            segmentsSupported = false;
+            download();
+        } else if (cancelled) {
+            onCancelled();
+        } else if (!segments.isComplete()) {
+            onFail(DownloadError.ERROR_IO_WRONG_SIZE, "Download completed but size: "
+                    + segments.getTotalDone() + " does not equal expected size " + segments.getSize());
+        } else {
+            SegmentMap.delete(destination);
+            request.setLastModified(segments.getLastModified());
+            request.setEtag(segments.getEtag());
+            onSuccess();
+        }
+    }
+
+    private int acquireExtraConnections(int count) {
+        return bandwidthLimiter != null ? bandwidthLimiter.acquireExtraConnections(count) : count;
+    }
+
+    private void downloadSegment(URI uri, File destination, SegmentMap segments, int segment,
+                                 @Nullable ResponseBody body, FileChannel channel,
+                                 AtomicBoolean aborted) throws IOException {
+        ResponseBody segmentBody = body;
+        try {
+            if (segmentBody == null) {
+                Request.Builder httpReq = newRequestBuilder(uri);
+                httpReq.addHeader("Range", "bytes=" + segments.getPosition(segment) + "-" + segments.getEnd(segment));
+                // Returns the whole file instead of the range if it changed in the meantime
+                String validator = getStrongEtag(segments.getEtag()) != null
+                        ? segments.getEtag() : segments.getLastModified();
+                if (validator != null) {
+                    httpReq.addHeader("If-Range", validator);
+                }
+                Response response = newCall(httpReq);
+                segmentBody = response.body();
+                if (response.code() == HttpURLConnection.HTTP_OK) {
+                    throw new RangeNotSupportedException();
+                } else if (response.code() != HttpURLConnection.HTTP_PARTIAL || segmentBody == null) {
+                    throw new IOException("Unexpected response code for segment " + segment + ": " + response.code());
+                }
+            }
+
+            InputStream in = segmentBody.byteStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long unsavedBytes = 0;
+            while (!cancelled && !aborted.get() && !segments.isComplete(segment)) {
+                long remaining = segments.getEnd(segment) - segments.getPosition(segment) + 1;
+                int count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (count == -1) {
+                    throw new IOException("Segment " + segment + " ended early");
+                }
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, count);
+                long position = segments.getPosition(segment);
+                while (data.hasRemaining()) {
+                    position += channel.write(data, position);
+                }
+                segments.addDone(segment, count);
+                if (bandwidthLimiter != null) {
+                    bandwidthLimiter.onBytesReceived(count);
+                }
+
+                long soFar = segments.getTotalDone();
+                request.setSoFar(soFar);
+                request.setProgressPercent((int) (100.0 * soFar / segments.getSize()));
+                unsavedBytes += count;
+                if (unsavedBytes >= SEGMENT_MAP_SAVE_INTERVAL) {
+                    channel.force(false);
+                    segments.save(destination);
+                    unsavedBytes = 0;
+                }
+            }
+        } finally {
+            if (segmentBody != body) {
+                IOUtils.closeQuietly(segmentBody);
+            }
+        }
+    }
+
+    private void consumeBody(Response response, ResponseBody responseBody) throws IOException {
+        request.setStatusMsg(R.string.download_running);
+        request.setSize(responseBody.contentLength());
+        if (request.getSize() < 0) {
+            request.setSize(DownloadResult.SIZE_UNKNOWN);
+        }
+        // The consumer creates the feed from the request, so it needs the validators of this response
+        request.setLastModified(response.header("Last-Modified"));
+        request.setEtag(response.header("ETag"));
+        CountingInputStream body = new CountingInputStream(responseBody.byteStream());
+        bodyConsumer.consume(body);
+        request.setSoFar(body.getByteCount());
+        if (cancelled) {
+            onCancelled();
+            return;
+        }
+        onSuccess();
+    }
+
     private Response newCall(Request.Builder httpReq) throws IOException {
         OkHttpClient httpClient = AntennapodHttpClient.getHttpClient();
         try {
@@ -0,0 +1,183 @@
+package de.danoeh.antennapod.net.download.service.feed.remote;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte ranges of a segmented download and how much of each range is already written.
+ * Stored next to the downloaded file, so that an interrupted download can continue every segment.
+ */
+class SegmentMap {
+    private static final String FILE_SUFFIX = ".segments";
+    private static final String VERSION = "1";
+    private static final String NONE = "-";
+
+    private final long size;
+    @Nullable
+    private final String etag;
+    @Nullable
+    private final String lastModified;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] done;
+
+    private SegmentMap(long size, @Nullable String etag, @Nullable String lastModified, int segmentCount) {
+        this.size = size;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.starts = new long[segmentCount];
+        this.ends = new long[segmentCount];
+        this.done = new long[segmentCount];
+    }
+
+    /**
+     * Splits a file of the given size into segments of about the same size.
+     */
+    @NonNull
+    static SegmentMap create(long size, @Nullable String etag, @Nullable String lastModified, int segmentCount) {
+        SegmentMap map = new SegmentMap(size, etag, lastModified, segmentCount);
+        long segmentSize = size / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            map.starts[i] = i * segmentSize;
+            map.ends[i] = (i == segmentCount - 1) ? size - 1 : (i + 1) * segmentSize - 1;
+        }
+        return map;
+    }
+
+    @NonNull
+    static File getFile(@NonNull File destination) {
+        return new File(destination.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Loads the segment map of the destination file.
+     *
+     * @return The map, or null if there is none or it does not match the destination file
+     */
+    @Nullable
+    static SegmentMap load(@NonNull File destination) {
+        File file = getFile(destination);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!VERSION.equals(reader.readLine())) {
+                return null;
+            }
+            long size = Long.parseLong(reader.readLine());
+            String etag = fromLine(reader.readLine());
+            String lastModified = fromLine(reader.readLine());
+            int segmentCount = Integer.parseInt(reader.readLine());
+            SegmentMap map = new SegmentMap(size, etag, lastModified, segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                String[] parts = reader.readLine().split(" ");
+                map.starts[i] = Long.parseLong(parts[0]);
+                map.ends[i] = Long.parseLong(parts[1]);
+                map.done[i] = Long.parseLong(parts[2]);
+            }
+            if (destination.length() != size) {
+                return null;
+            }
+            return map;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    synchronized void save(@NonNull File destination) throws IOException {
+        File file = getFile(destination);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            writer.write(VERSION + "\n");
+            writer.write(size + "\n");
+            writer.write(toLine(etag) + "\n");
+            writer.write(toLine(lastModified) + "\n");
+            writer.write(starts.length + "\n");
+            for (int i = 0; i < starts.length; i++) {
+                writer.write(starts[i] + " " + ends[i] + " " + done[i] + "\n");
+            }
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Unable to write " + file);
+        }
+    }
+
+    static void delete(@NonNull File destination) {
+        File file = getFile(destination);
+        if (file.exists()) {
+            file.delete();
+        }
+    }
+
+    private static String toLine(@Nullable String value) {
+        return value == null ? NONE : value.replace('\n', ' ');
+    }
+
+    @Nullable
+    private static String fromLine(String line) {
+        return NONE.equals(line) ? null : line;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    @Nullable
+    String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    String getLastModified() {
+        return lastModified;
+    }
+
+    int getSegmentCount() {
+        return starts.length;
+    }
+
+    /**
+     * Position of the next byte that needs to be downloaded for the segment.
+     */
+    synchronized long getPosition(int segment) {
+        return starts[segment] + done[segment];
+    }
+
+    /**
+     * Position of the last byte of the segment.
+     */
+    long getEnd(int segment) {
+        return ends[segment];
+    }
+
+    synchronized boolean isComplete(int segment) {
+        return getPosition(segment) > ends[segment];
+    }
+
+    synchronized void addDone(int segment, long bytes) {
+        done[segment] += bytes;
+    }
+
+    synchronized long getTotalDone() {
+        long total = 0;
+        for (long segmentDone : done) {
+            total += segmentDone;
+        }
+        return total;
+    }
+
+    synchronized boolean isComplete() {
+        return getTotalDone() == size;
+    }
+}
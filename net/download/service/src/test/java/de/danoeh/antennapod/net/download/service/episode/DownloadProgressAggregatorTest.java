@@ -0,0 +1,98 @@
+package de.danoeh.antennapod.net.download.service.episode;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.danoeh.antennapod.model.download.DownloadRequest;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class DownloadProgressAggregatorTest {
+    /**
+     * Only the first tick runs on its own, the test publishes the others.
+     */
+    private static final long TICK_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private Context context;
+    private DownloadProgressAggregator aggregator;
+    private final List<Integer> published = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        aggregator = new DownloadProgressAggregator(TICK_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        aggregator.unregister(context, 1);
+        aggregator.unregister(context, 2);
+    }
+
+    @Test
+    public void testPublishesOnlyChanges() {
+        DownloadRequest request = createRequest("Episode");
+        aggregator.register(context, 1, "Episode", request, published::add);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> published.size() == 1);
+        assertFalse(aggregator.publishProgress());
+
+        request.setProgressPercent(10);
+        assertTrue(aggregator.publishProgress());
+        assertEquals(2, published.size());
+        assertEquals(10, (int) published.get(1));
+
+        // The same percentage again
+        request.setSoFar(request.getSoFar() + 1);
+        assertFalse(aggregator.publishProgress());
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    public void testNewDownloadUpdatesNotification() {
+        aggregator.register(context, 1, "Episode", createRequest("Episode"), published::add);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> published.size() == 1);
+        assertFalse(aggregator.publishProgress());
+
+        aggregator.register(context, 2, "Other episode", createRequest("Other episode"), published::add);
+        assertTrue(aggregator.publishProgress());
+        assertFalse(aggregator.publishProgress());
+        aggregator.unregister(context, 2);
+        assertTrue(aggregator.publishProgress());
+    }
+
+    @Test
+    public void testEpisodesWithSameTitle() {
+        DownloadRequest first = createRequest("Episode");
+        DownloadRequest second = createRequest("Episode");
+        aggregator.register(context, 1, "Episode", first, published::add);
+        aggregator.register(context, 2, "Episode", second, published::add);
+        first.setProgressPercent(10);
+        second.setProgressPercent(20);
+
+        Map<Long, DownloadProgressAggregator.Progress> progress = aggregator.getProgress();
+        assertEquals(2, progress.size());
+        assertEquals(10, progress.get(1L).percent);
+        assertEquals(20, progress.get(2L).percent);
+    }
+
+    private static DownloadRequest createRequest(String title) {
+        return new DownloadRequest("/episode.mp3", "http://example.com/episode.mp3", title, 0,
+                FeedMedia.FEEDFILETYPE_FEEDMEDIA, null, null, null, false);
+    }
+}
@@ -0,0 +1,240 @@
+package de.danoeh.antennapod.net.download.service.episode;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.danoeh.antennapod.event.QueueEvent;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import de.danoeh.antennapod.storage.database.PodDBAdapter;
+import de.danoeh.antennapod.storage.preferences.PlaybackPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class DownloadSchedulerTest {
+    private static final long BLOCKED_CHECK_MILLIS = 200;
+
+    private final List<DownloadScheduler.Ticket> started = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PlaybackPreferences.init(context);
+        PlaybackPreferences.writeNoMediaPlaying();
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testLimitsConnections() throws InterruptedException {
+        DownloadScheduler scheduler = createScheduler(2, 2);
+        DownloadScheduler.Ticket first = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, first);
+        enqueue(scheduler, scheduler.createTicket("b.example.com", Integer.MAX_VALUE));
+        DownloadScheduler.Ticket third = scheduler.createTicket("c.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, third);
+        awaitStarted(first);
+        assertNotStarted(third);
+
+        scheduler.release(first);
+        awaitStarted(third);
+    }
+
+    @Test
+    public void testLimitsConnectionsPerHost() throws InterruptedException {
+        DownloadScheduler scheduler = createScheduler(3, 1);
+        enqueue(scheduler, scheduler.createTicket("a.example.com", Integer.MAX_VALUE));
+        DownloadScheduler.Ticket sameHost = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, sameHost);
+        assertNotStarted(sameHost);
+
+        // Another host is not held up by the waiting download
+        DownloadScheduler.Ticket otherHost = scheduler.createTicket("b.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, otherHost);
+        awaitStarted(otherHost);
+        assertEquals(2, scheduler.getRunningDownloads());
+        assertEquals(1, scheduler.getWaitingDownloads());
+    }
+
+    @Test
+    public void testQueuedEpisodesStartFirst() {
+        DownloadScheduler scheduler = createScheduler(1, 1);
+        DownloadScheduler.Ticket running = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, running);
+
+        DownloadScheduler.Ticket notQueued = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        DownloadScheduler.Ticket secondInQueue = scheduler.createTicket("a.example.com", 1);
+        DownloadScheduler.Ticket firstInQueue = scheduler.createTicket("a.example.com", 0);
+        enqueue(scheduler, notQueued);
+        enqueue(scheduler, secondInQueue);
+        enqueue(scheduler, firstInQueue);
+        assertEquals(3, scheduler.getWaitingDownloads());
+
+        scheduler.release(running);
+        awaitStarted(firstInQueue);
+        scheduler.release(firstInQueue);
+        awaitStarted(secondInQueue);
+        scheduler.release(secondInQueue);
+        awaitStarted(notQueued);
+    }
+
+    @Test
+    public void testQueuePositionFollowsQueueChanges() {
+        DownloadScheduler scheduler = createScheduler(1, 1);
+        FeedMedia media = saveStreamedMedia();
+        long itemId = media.getItem().getId();
+        DownloadScheduler.Ticket notQueued = scheduler.newTicket("a.example.com", itemId);
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setQueue(Collections.singletonList(media.getItem()));
+        adapter.close();
+        DownloadScheduler.Ticket stillCached = scheduler.newTicket("a.example.com", itemId);
+        scheduler.onQueueChanged(QueueEvent.setQueue(Collections.singletonList(media.getItem())));
+        DownloadScheduler.Ticket queued = scheduler.newTicket("a.example.com", itemId);
+        assertTrue(queued.compareTo(notQueued) < 0);
+        assertTrue(stillCached.compareTo(notQueued) > 0);
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws InterruptedException {
+        DownloadScheduler scheduler = createScheduler(1, 1);
+        DownloadScheduler.Ticket running = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, running);
+        DownloadScheduler.Ticket waiting = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, waiting);
+        assertTrue(scheduler.cancel(waiting));
+        assertFalse(scheduler.cancel(running));
+
+        scheduler.release(running);
+        assertNotStarted(waiting);
+        assertEquals(0, scheduler.getConnections());
+    }
+
+    @Test
+    public void testExtraConnectionsCountAgainstLimits() throws InterruptedException {
+        DownloadScheduler scheduler = createScheduler(3, 2);
+        DownloadScheduler.Ticket segmented = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, segmented);
+        assertEquals(1, segmented.acquireExtraConnections(3)); // Limited by the host
+        assertEquals(2, scheduler.getConnections());
+
+        enqueue(scheduler, scheduler.createTicket("b.example.com", Integer.MAX_VALUE));
+        assertEquals(0, segmented.acquireExtraConnections(1));
+        DownloadScheduler.Ticket waiting = scheduler.createTicket("c.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, waiting);
+        assertNotStarted(waiting);
+
+        segmented.releaseExtraConnections(1);
+        awaitStarted(waiting);
+        assertEquals(3, scheduler.getConnections());
+        assertEquals(3, scheduler.getRunningDownloads());
+    }
+
+    @Test
+    public void testReleaseFreesExtraConnections() {
+        DownloadScheduler scheduler = createScheduler(4, 4);
+        DownloadScheduler.Ticket segmented = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, segmented);
+        assertEquals(3, segmented.acquireExtraConnections(3));
+        assertEquals(4, scheduler.getConnections());
+        scheduler.release(segmented);
+        assertEquals(0, scheduler.getConnections());
+        assertEquals(0, scheduler.getRunningDownloads());
+    }
+
+    @Test
+    public void testNoExtraConnectionsWhileDownloadsWait() {
+        DownloadScheduler scheduler = createScheduler(4, 2);
+        enqueue(scheduler, scheduler.createTicket("a.example.com", Integer.MAX_VALUE));
+        enqueue(scheduler, scheduler.createTicket("a.example.com", Integer.MAX_VALUE));
+        enqueue(scheduler, scheduler.createTicket("a.example.com", Integer.MAX_VALUE));
+        assertEquals(1, scheduler.getWaitingDownloads());
+
+        DownloadScheduler.Ticket segmented = scheduler.createTicket("b.example.com", Integer.MAX_VALUE);
+        enqueue(scheduler, segmented);
+        awaitStarted(segmented);
+        assertEquals(0, segmented.acquireExtraConnections(1));
+    }
+
+    @Test
+    public void testNoThrottlingWithoutStreaming() throws Exception {
+        DownloadScheduler scheduler = new DownloadScheduler(1, 1, 1000);
+        DownloadScheduler.Ticket ticket = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        long start = System.nanoTime();
+        ticket.onBytesReceived(1000);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertFalse(scheduler.isThrottled());
+    }
+
+    @Test
+    public void testThrottlingWhileStreaming() throws Exception {
+        FeedMedia media = saveStreamedMedia();
+        PlaybackPreferences.writeMediaPlaying(media);
+        PlaybackPreferences.setCurrentPlayerStatus(PlaybackPreferences.PLAYER_STATUS_PLAYING);
+
+        DownloadScheduler scheduler = new DownloadScheduler(1, 1, 1000);
+        DownloadScheduler.Ticket ticket = scheduler.createTicket("a.example.com", Integer.MAX_VALUE);
+        long start = System.nanoTime();
+        ticket.onBytesReceived(300);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+        assertTrue(scheduler.isThrottled());
+    }
+
+    private static DownloadScheduler createScheduler(int maxDownloads, int maxDownloadsPerHost) {
+        return new DownloadScheduler(maxDownloads, maxDownloadsPerHost, DownloadScheduler.DEFAULT_STREAMING_BANDWIDTH);
+    }
+
+    private FeedMedia saveStreamedMedia() {
+        Feed feed = new Feed("url", null, "Feed");
+        feed.setItems(new ArrayList<>());
+        FeedItem item = new FeedItem(0, "Item", "id", "link", new Date(), FeedItem.UNPLAYED, feed);
+        FeedMedia media = new FeedMedia(item, "http://example.com/episode.mp3", 1, "audio/mp3");
+        item.setMedia(media);
+        feed.getItems().add(item);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+        return media;
+    }
+
+    private void enqueue(DownloadScheduler scheduler, DownloadScheduler.Ticket ticket) {
+        scheduler.enqueue(ticket, () -> started.add(ticket));
+    }
+
+    private void assertNotStarted(DownloadScheduler.Ticket ticket) throws InterruptedException {
+        Thread.sleep(BLOCKED_CHECK_MILLIS);
+        assertFalse(started.contains(ticket));
+    }
+
+    private void awaitStarted(DownloadScheduler.Ticket ticket) {
+        await().atMost(5, TimeUnit.SECONDS).until(() -> started.contains(ticket));
+    }
+}
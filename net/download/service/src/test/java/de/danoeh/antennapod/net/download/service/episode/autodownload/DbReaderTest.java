@@ -7,8 +7,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import androidx.test.platform.app.InstrumentationRegistry;
 
@@ -166,6 +168,49 @@ public class DbReaderTest {
             }
         }
 
+        @Test
+        public void testGetEpisodesAfterItem() {
+            // Items of different feeds share titles and durations, so the pages need to handle ties
+            List<Feed> feeds = saveFeedlist(3, 10, true);
+            Set<Long> allIds = new HashSet<>();
+            for (Feed feed : feeds) {
+                for (FeedItem item : feed.getItems()) {
+                    allIds.add(item.getId());
+                }
+            }
+            for (SortOrder sortOrder : new SortOrder[] {SortOrder.DATE_NEW_OLD, SortOrder.EPISODE_TITLE_A_Z,
+                    SortOrder.EPISODE_TITLE_Z_A, SortOrder.DURATION_SHORT_LONG, SortOrder.COMPLETION_DATE_NEW_OLD}) {
+                List<FeedItem> loaded = new ArrayList<>(DBReader.getEpisodes(0, 4,
+                        FeedItemFilter.unfiltered(), sortOrder));
+                List<FeedItem> page;
+                do {
+                    page = DBReader.getEpisodes(loaded.get(loaded.size() - 1), 4,
+                            FeedItemFilter.unfiltered(), sortOrder);
+                    loaded.addAll(page);
+                } while (page.size() == 4);
+
+                Set<Long> loadedIds = new HashSet<>();
+                for (FeedItem item : loaded) {
+                    assertTrue(loadedIds.add(item.getId()));
+                }
+                assertEquals(allIds, loadedIds);
+            }
+        }
+
+        @Test
+        public void testGetEpisodesAfterOutdatedItem() {
+            saveFeedlist(1, 10, false);
+            List<FeedItem> firstPage = DBReader.getEpisodes(0, 4, FeedItemFilter.unfiltered(), SortOrder.DATE_NEW_OLD);
+            List<FeedItem> expected = DBReader.getEpisodes(4, 4, FeedItemFilter.unfiltered(), SortOrder.DATE_NEW_OLD);
+
+            // The loaded episode does not match the database anymore
+            FeedItem lastItem = firstPage.get(3);
+            lastItem.setPubDate(new Date(0));
+            List<FeedItem> page = DBReader.getEpisodes(lastItem, 4, FeedItemFilter.unfiltered(),
+                    SortOrder.DATE_NEW_OLD);
+            assertEquals(expected, page);
+        }
+
         @SuppressWarnings("SameParameterValue")
         private List<FeedItem> saveQueue(int numItems) {
             if (numItems <= 0) {
@@ -753,6 +753,23 @@ public class DbWriterTest {
         }
     }
 
+    @Test
+    public void testMoveQueueItemUntilNoGapIsLeft() throws Exception {
+        Feed feed = queueTestSetupMultipleItems(4);
+        long id0 = feed.getItems().get(0).getId();
+        long id1 = feed.getItems().get(1).getId();
+        long id2 = feed.getItems().get(2).getId();
+        long id3 = feed.getItems().get(3).getId();
+
+        // Every move takes half of the remaining gap between the first two items
+        for (int i = 0; i < 40; i++) {
+            DBWriter.moveQueueItem(2, 1, false).get(TIMEOUT, TimeUnit.SECONDS);
+        }
+        assertQueueByItemIds("Even number of swaps keeps the order", id0, id1, id2, id3);
+        DBWriter.moveQueueItem(3, 0, false).get(TIMEOUT, TimeUnit.SECONDS);
+        assertQueueByItemIds("Last item moved to the front", id3, id0, id1, id2);
+    }
+
     @Test
     public void testRemoveAllNewFlags() throws Exception {
         final int numItems = 10;
@@ -0,0 +1,334 @@
+package de.danoeh.antennapod.net.download.service.feed;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import de.danoeh.antennapod.model.download.DownloadError;
+import de.danoeh.antennapod.model.download.DownloadRequest;
+import de.danoeh.antennapod.model.download.DownloadResult;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.net.common.AntennapodHttpClient;
+import de.danoeh.antennapod.net.download.service.feed.remote.Downloader;
+import de.danoeh.antennapod.storage.database.DBReader;
+import de.danoeh.antennapod.storage.database.DBWriter;
+import de.danoeh.antennapod.storage.database.PodDBAdapter;
+import de.danoeh.antennapod.storage.preferences.PlaybackPreferences;
+import de.danoeh.antennapod.storage.preferences.UserPreferences;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FeedRefreshPipelineTest {
+    private static final String VALID_FEED = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<rss version=\"2.0\"><channel><title>%s</title><link>http://example.com</link>"
+            + "<item><title>Episode</title><guid>%s-episode</guid>"
+            + "<enclosure url=\"http://example.com/%s.mp3\" length=\"1\" type=\"audio/mpeg\"/></item>"
+            + "</channel></rss>";
+
+    private Context context;
+    private final Map<Feed, Feed> refreshed = new ConcurrentHashMap<>();
+    private final List<Feed> failed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger reportCount = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+        PlaybackPreferences.init(context);
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+    }
+
+    @After
+    public void tearDown() {
+        DBWriter.tearDownTests();
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testAllFeedsAreStoredAndReportedOnce() {
+        List<Feed> feeds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            feeds.add(saveFeed("http://host" + (i % 3) + ".example.com/feed" + i));
+        }
+        FeedRefreshPipeline pipeline = createPipeline(new FakeDownloader.Behavior());
+        pipeline.setPersistBatchSize(3);
+        pipeline.run(feeds);
+
+        assertEquals(feeds.size(), reportCount.get());
+        for (Feed feed : feeds) {
+            Feed savedFeed = refreshed.get(feed);
+            assertNotNull(savedFeed);
+            assertEquals(feed.getId(), savedFeed.getId());
+        }
+        DBWriter.tearDownTests();
+        for (Feed feed : DBReader.getFeedList()) {
+            assertEquals(getTitle(feed.getDownloadUrl()), feed.getTitle());
+            assertFalse(feed.hasLastUpdateFailed());
+        }
+    }
+
+    @Test
+    public void testLimitsDownloadsPerHost() {
+        List<Feed> feeds = Arrays.asList(saveFeed("http://a.example.com/1"), saveFeed("http://a.example.com/2"),
+                saveFeed("http://a.example.com/3"), saveFeed("http://b.example.com/1"));
+        FakeDownloader.Behavior behavior = new FakeDownloader.Behavior();
+        behavior.delayMillis = 100;
+        FeedRefreshPipeline pipeline = createPipeline(behavior);
+        pipeline.setDownloadConcurrency(4, 1);
+        pipeline.run(feeds);
+
+        assertEquals(feeds.size(), reportCount.get());
+        assertEquals(1, behavior.getMaxRunning("a.example.com"));
+        assertEquals(1, behavior.getMaxRunning("b.example.com"));
+    }
+
+    @Test
+    public void testBusyHostDoesNotBlockOtherHosts() {
+        Feed first = saveFeed("http://a.example.com/1");
+        List<Feed> feeds = Arrays.asList(first, saveFeed("http://a.example.com/2"), saveFeed("http://b.example.com/1"));
+        FakeDownloader.Behavior behavior = new FakeDownloader.Behavior();
+        CountDownLatch otherHostStarted = new CountDownLatch(1);
+        AtomicInteger otherHostStartedFirst = new AtomicInteger();
+        behavior.onStart = url -> {
+            if (url.equals(first.getDownloadUrl())) {
+                // Only finishes once the other host got a thread, even though a feed of this host waits
+                if (otherHostStarted.await(10, TimeUnit.SECONDS)) {
+                    otherHostStartedFirst.incrementAndGet();
+                }
+            } else if (url.startsWith("http://b.example.com")) {
+                otherHostStarted.countDown();
+            }
+        };
+        FeedRefreshPipeline pipeline = createPipeline(behavior);
+        pipeline.setDownloadConcurrency(2, 1);
+        pipeline.run(feeds);
+
+        assertEquals(1, otherHostStartedFirst.get());
+        assertEquals(feeds.size(), reportCount.get());
+    }
+
+    @Test
+    public void testFailedDownloadIsReported() {
+        Feed failing = saveFeed("http://a.example.com/failing");
+        Feed working = saveFeed("http://a.example.com/working");
+        FakeDownloader.Behavior behavior = new FakeDownloader.Behavior();
+        behavior.failingUrls.add(failing.getDownloadUrl());
+        createPipeline(behavior).run(Arrays.asList(failing, working));
+
+        assertEquals(2, reportCount.get());
+        assertEquals(Collections.singletonList(failing), failed);
+        assertNotNull(refreshed.get(working));
+        DBWriter.tearDownTests();
+        List<DownloadResult> log = DBReader.getFeedDownloadLog(failing.getId(), 1);
+        assertEquals(1, log.size());
+        assertEquals(DownloadError.ERROR_HTTP_DATA_ERROR, log.get(0).getReason());
+        assertTrue(DBReader.getFeed(failing.getId(), false, 0, 0).hasLastUpdateFailed());
+        assertFalse(DBReader.getFeed(working.getId(), false, 0, 0).hasLastUpdateFailed());
+    }
+
+    @Test
+    public void testParseErrorIsReported() {
+        Feed broken = saveFeed("http://a.example.com/broken");
+        FakeDownloader.Behavior behavior = new FakeDownloader.Behavior();
+        behavior.brokenUrls.add(broken.getDownloadUrl());
+        createPipeline(behavior).run(Collections.singletonList(broken));
+
+        assertEquals(1, reportCount.get());
+        assertEquals(Collections.singletonList(broken), failed);
+        DBWriter.tearDownTests();
+        List<DownloadResult> log = DBReader.getFeedDownloadLog(broken.getId(), 1);
+        assertEquals(1, log.size());
+        assertFalse(log.get(0).isSuccessful());
+        assertTrue(DBReader.getFeed(broken.getId(), false, 0, 0).hasLastUpdateFailed());
+    }
+
+    @Test
+    public void testExceptionInDownloadIsReported() {
+        Feed crashing = saveFeed("http://a.example.com/crashing");
+        FakeDownloader.Behavior behavior = new FakeDownloader.Behavior();
+        behavior.onStart = url -> {
+            throw new IllegalStateException("Crash");
+        };
+        createPipeline(behavior).run(Collections.singletonList(crashing));
+
+        assertEquals(1, reportCount.get());
+        assertEquals(Collections.singletonList(crashing), failed);
+        DBWriter.tearDownTests();
+        List<DownloadResult> log = DBReader.getFeedDownloadLog(crashing.getId(), 1);
+        assertEquals(1, log.size());
+        assertEquals("Crash", log.get(0).getReasonDetailed());
+    }
+
+    @Test
+    public void testStreamedFeedStoresNewValidators() throws Exception {
+        AntennapodHttpClient.setCacheDirectory(new File(context.getCacheDir(), "okhttp"));
+        try (MockWebServer server = new MockWebServer()) {
+            String url = server.url("/feed").toString();
+            server.enqueue(new MockResponse()
+                    .setHeader("Last-Modified", "Wed, 14 Oct 2026 07:28:00 GMT")
+                    .setHeader("ETag", "\"new\"")
+                    .setBody(String.format(VALID_FEED, getTitle(url), url, url.hashCode())));
+            Feed feed = new Feed(url, "Mon, 12 Oct 2026 07:28:00 GMT", "Old title");
+            feed.setEtag("\"old\"");
+            feed.setItems(new ArrayList<>());
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setCompleteFeed(feed);
+            adapter.close();
+
+            FeedRefreshPipeline pipeline = new FeedRefreshPipeline(context, new FeedRefreshPipeline.Listener() {
+                @Override
+                public boolean isStopped() {
+                    return false;
+                }
+
+                @Override
+                public void onFeedRefreshed(@NonNull Feed feed, @Nullable Feed savedFeed) {
+                    reportCount.incrementAndGet();
+                }
+            }, false, false);
+            pipeline.run(Collections.singletonList(feed));
+
+            assertEquals(1, reportCount.get());
+            assertEquals("\"old\"", server.takeRequest().getHeader("If-None-Match"));
+            Feed savedFeed = DBReader.getFeed(feed.getId(), false, 0, 0);
+            assertEquals(getTitle(url), savedFeed.getTitle());
+            assertEquals("Wed, 14 Oct 2026 07:28:00 GMT", savedFeed.getLastModified());
+            assertEquals("\"new\"", savedFeed.getEtag());
+        }
+    }
+
+    private FeedRefreshPipeline createPipeline(FakeDownloader.Behavior behavior) {
+        FeedRefreshPipeline pipeline = new FeedRefreshPipeline(context, new FeedRefreshPipeline.Listener() {
+            @Override
+            public boolean isStopped() {
+                return false;
+            }
+
+            @Override
+            public void onFeedRefreshed(@NonNull Feed feed, @Nullable Feed savedFeed) {
+                reportCount.incrementAndGet();
+                if (savedFeed != null) {
+                    refreshed.put(feed, savedFeed);
+                } else {
+                    failed.add(feed);
+                }
+            }
+        }, false, false);
+        pipeline.setStreamingParse(false);
+        pipeline.setDownloaderFactory(request -> new FakeDownloader(request, behavior));
+        return pipeline;
+    }
+
+    private Feed saveFeed(String downloadUrl) {
+        Feed feed = new Feed(downloadUrl, null, "Old title");
+        feed.setItems(new ArrayList<>());
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+        return feed;
+    }
+
+    private static String getTitle(String downloadUrl) {
+        return "Feed at " + downloadUrl;
+    }
+
+    private static class FakeDownloader extends Downloader {
+        private final Behavior behavior;
+
+        FakeDownloader(@NonNull DownloadRequest request, Behavior behavior) {
+            super(request);
+            this.behavior = behavior;
+        }
+
+        @Override
+        protected void download() {
+            String url = getDownloadRequest().getSource();
+            String host = HttpUrl.parse(url).host();
+            behavior.onStarted(host);
+            try {
+                behavior.onStart.run(url);
+                Thread.sleep(behavior.delayMillis);
+                if (behavior.failingUrls.contains(url)) {
+                    getResult().setFailed(DownloadError.ERROR_HTTP_DATA_ERROR, "Failed");
+                    return;
+                }
+                String content = behavior.brokenUrls.contains(url)
+                        ? "Not a feed" : String.format(VALID_FEED, getTitle(url), url, url.hashCode());
+                FileUtils.writeStringToFile(new File(getDownloadRequest().getDestination()),
+                        content, StandardCharsets.UTF_8);
+                getResult().setSuccessful();
+            } catch (InterruptedException | IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                behavior.onFinished(host);
+            }
+        }
+
+        interface StartCallback {
+            void run(String url) throws InterruptedException;
+        }
+
+        static class Behavior {
+            final List<String> failingUrls = new ArrayList<>();
+            final List<String> brokenUrls = new ArrayList<>();
+            StartCallback onStart = url -> { };
+            long delayMillis = 0;
+            private final Map<String, Integer> running = new HashMap<>();
+            private final Map<String, Integer> maxRunning = new HashMap<>();
+
+            synchronized void onStarted(String host) {
+                Integer count = running.get(host);
+                count = count == null ? 1 : count + 1;
+                running.put(host, count);
+                Integer max = maxRunning.get(host);
+                if (max == null || count > max) {
+                    maxRunning.put(host, count);
+                }
+            }
+
+            synchronized void onFinished(String host) {
+                running.put(host, running.get(host) - 1);
+            }
+
+            synchronized int getMaxRunning(String host) {
+                return maxRunning.get(host);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.danoeh.antennapod.net.download.service.feed.remote;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentMapTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreateCoversWholeFile() {
+        SegmentMap segments = SegmentMap.create(1003, "etag", null, 4);
+        assertEquals(0, segments.getPosition(0));
+        for (int i = 1; i < 4; i++) {
+            assertEquals(segments.getEnd(i - 1) + 1, segments.getPosition(i));
+        }
+        assertEquals(1002, segments.getEnd(3));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File destination = createFile(1000);
+        SegmentMap segments = SegmentMap.create(1000, "\"abc\"", "Mon, 01 Jan 2024 00:00:00 GMT", 4);
+        segments.addDone(0, 250);
+        segments.addDone(2, 10);
+        segments.save(destination);
+
+        SegmentMap loaded = SegmentMap.load(destination);
+        assertNotNull(loaded);
+        assertEquals("\"abc\"", loaded.getEtag());
+        assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", loaded.getLastModified());
+        assertEquals(4, loaded.getSegmentCount());
+        assertTrue(loaded.isComplete(0));
+        assertFalse(loaded.isComplete(1));
+        assertEquals(510, loaded.getPosition(2));
+        assertEquals(260, loaded.getTotalDone());
+    }
+
+    @Test
+    public void testLoadIgnoresMapOfOtherFile() throws IOException {
+        File destination = createFile(1000);
+        SegmentMap.create(2000, "etag", null, 4).save(destination);
+        assertNull(SegmentMap.load(destination));
+    }
+
+    @Test
+    public void testLoadWithoutMap() throws IOException {
+        assertNull(SegmentMap.load(createFile(1000)));
+    }
+
+    private File createFile(long size) throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(size);
+        }
+        return file;
+    }
+}
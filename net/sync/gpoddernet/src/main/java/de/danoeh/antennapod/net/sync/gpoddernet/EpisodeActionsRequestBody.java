@@ -0,0 +1,57 @@
+package de.danoeh.antennapod.net.sync.gpoddernet;
+
+import androidx.annotation.NonNull;
+
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a JSON array of episode actions directly to the connection,
+ * instead of building the whole array as a string first.
+ */
+class EpisodeActionsRequestBody extends RequestBody {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final List<EpisodeAction> episodeActions;
+    private final String deviceId;
+
+    EpisodeActionsRequestBody(List<EpisodeAction> episodeActions, String deviceId) {
+        this.episodeActions = episodeActions;
+        this.deviceId = deviceId;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        sink.writeUtf8("[");
+        boolean first = true;
+        for (EpisodeAction episodeAction : episodeActions) {
+            JSONObject obj = episodeAction.writeToJsonObject();
+            if (obj == null) {
+                continue;
+            }
+            try {
+                obj.put("device", deviceId);
+            } catch (JSONException e) {
+                throw new IOException(e);
+            }
+            if (!first) {
+                sink.writeUtf8(",");
+            }
+            sink.writeUtf8(obj.toString());
+            first = false;
+        }
+        sink.writeUtf8("]");
+    }
+}
@@ -7,6 +7,7 @@ import androidx.annotation.NonNull;
 import de.danoeh.antennapod.net.sync.HostnameParser;
 import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
 import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeActionChanges;
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeActionUploadListener;
 import de.danoeh.antennapod.net.sync.serviceinterface.ISyncService;
 import de.danoeh.antennapod.net.sync.serviceinterface.SubscriptionChanges;
 import de.danoeh.antennapod.net.sync.serviceinterface.SyncServiceException;
@@ -27,6 +28,10 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import de.danoeh.antennapod.net.sync.gpoddernet.mapper.ResponseMapper;
 import de.danoeh.antennapod.net.sync.gpoddernet.model.GpodnetDevice;
@@ -47,6 +52,7 @@ public class GpodnetService implements ISyncService {
     public static final String TAG = "GpodnetService";
     private static final String DEFAULT_BASE_HOST = "gpodder.net";
     private static final int UPLOAD_BULK_SIZE = 30;
+    private static final int DEFAULT_MAX_PARALLEL_UPLOADS = 3;
     private static final MediaType TEXT = MediaType.parse("plain/text; charset=utf-8");
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     private String baseScheme;
@@ -57,6 +63,7 @@ public class GpodnetService implements ISyncService {
     private String username;
     private String password;
     private boolean loggedIn = false;
+    private int maxParallelUploads = DEFAULT_MAX_PARALLEL_UPLOADS;
 
     private final OkHttpClient httpClient;
 
@@ -211,45 +218,79 @@ public class GpodnetService implements ISyncService {
      * This method requires authentication.
      *
      * @param episodeActions Collection of episode actions.
+     * @param listener       Notified whenever the actions from the beginning of the list up to some
+     *                       point are uploaded. Chunks of the list are uploaded in parallel, but only
+     *                       chunks that come before any failed or unfinished chunk are reported.
      * @return a GpodnetUploadChangesResponse. See {@link GpodnetUploadChangesResponse}
      * for details.
      * @throws GpodnetServiceException            if added or removed contain duplicates or if there
      *                                            is an authentication error.
      */
     @Override
-    public UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> episodeActions) throws SyncServiceException {
-        requireLoggedIn();
-        UploadChangesResponse response = null;
-        for (int i = 0; i < episodeActions.size(); i += UPLOAD_BULK_SIZE) {
-            response = uploadEpisodeActionsPartial(episodeActions,
-                    i, Math.min(episodeActions.size(), i + UPLOAD_BULK_SIZE));
-        }
-        return response;
-    }
-
-    private UploadChangesResponse uploadEpisodeActionsPartial(List<EpisodeAction> episodeActions, int from, int to)
+    public UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> episodeActions,
+                                                      EpisodeActionUploadListener listener)
             throws SyncServiceException {
+        requireLoggedIn();
+        final URL url;
         try {
-            Log.d(TAG, "Uploading partial actions " + from + " to " + to + " of " + episodeActions.size());
-            URL url = new URI(baseScheme, null, baseHost, basePort,
+            url = new URI(baseScheme, null, baseHost, basePort,
                     String.format("%s/api/2/episodes/%s.json", baseFolder, username), null, null).toURL();
+        } catch (MalformedURLException | URISyntaxException e) {
+            e.printStackTrace();
+            throw new SyncServiceException(e);
+        }
 
-            final JSONArray list = new JSONArray();
-            for (int i = from; i < to; i++) {
-                EpisodeAction episodeAction = episodeActions.get(i);
-                JSONObject obj = episodeAction.writeToJsonObject();
-                if (obj != null) {
-                    obj.put("device", deviceId);
-                    list.put(obj);
+        List<Future<UploadChangesResponse>> futures = new ArrayList<>();
+        List<Integer> chunkEnds = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(maxParallelUploads);
+        try {
+            for (int i = 0; i < episodeActions.size(); i += UPLOAD_BULK_SIZE) {
+                final int from = i;
+                final int to = Math.min(episodeActions.size(), i + UPLOAD_BULK_SIZE);
+                futures.add(executor.submit(() -> uploadEpisodeActionsPartial(episodeActions, from, to, url)));
+                chunkEnds.add(to);
+            }
+            // Wait for the chunks in order. Chunks after a failed one are not reported, even if they finished
+            // already, so that the reported count always covers complete chunks from the beginning of the list.
+            UploadChangesResponse response = null;
+            for (int i = 0; i < futures.size(); i++) {
+                UploadChangesResponse chunkResponse = futures.get(i).get();
+                if (response == null || chunkResponse.timestamp > response.timestamp) {
+                    response = chunkResponse;
                 }
+                listener.onUploaded(chunkEnds.get(i));
             }
+            return response;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SyncServiceException) {
+                throw (SyncServiceException) e.getCause();
+            }
+            throw new SyncServiceException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new SyncServiceException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            RequestBody body = RequestBody.create(list.toString(), JSON);
+    /**
+     * Sets how many chunks of episode actions may be uploaded at the same time.
+     */
+    public void setMaxParallelUploads(int maxParallelUploads) {
+        this.maxParallelUploads = Math.max(1, maxParallelUploads);
+    }
+
+    private UploadChangesResponse uploadEpisodeActionsPartial(List<EpisodeAction> episodeActions,
+                                                              int from, int to, URL url)
+            throws SyncServiceException {
+        try {
+            Log.d(TAG, "Uploading partial actions " + from + " to " + to + " of " + episodeActions.size());
+            RequestBody body = new EpisodeActionsRequestBody(episodeActions.subList(from, to), deviceId);
             Request.Builder request = new Request.Builder().post(body).url(url);
 
             final String response = executeRequest(request);
             return GpodnetEpisodeActionPostResponse.fromJSONObject(response);
-        } catch (JSONException | MalformedURLException | URISyntaxException e) {
+        } catch (JSONException e) {
             e.printStackTrace();
             throw new SyncServiceException(e);
         }
@@ -5,6 +5,7 @@ import de.danoeh.antennapod.net.sync.gpoddernet.mapper.ResponseMapper;
 import de.danoeh.antennapod.net.sync.gpoddernet.model.GpodnetUploadChangesResponse;
 import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
 import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeActionChanges;
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeActionUploadListener;
 import de.danoeh.antennapod.net.sync.serviceinterface.ISyncService;
 import de.danoeh.antennapod.net.sync.serviceinterface.SubscriptionChanges;
 import de.danoeh.antennapod.net.sync.serviceinterface.SyncServiceException;
@@ -101,11 +102,13 @@ public class NextcloudSyncService implements ISyncService {
     }
 
     @Override
-    public UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> queuedEpisodeActions)
+    public UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> queuedEpisodeActions,
+                                                      EpisodeActionUploadListener listener)
             throws NextcloudSynchronizationServiceException {
         for (int i = 0; i < queuedEpisodeActions.size(); i += UPLOAD_BULK_SIZE) {
-            uploadEpisodeActionsPartial(queuedEpisodeActions,
-                    i, Math.min(queuedEpisodeActions.size(), i + UPLOAD_BULK_SIZE));
+            int to = Math.min(queuedEpisodeActions.size(), i + UPLOAD_BULK_SIZE);
+            uploadEpisodeActionsPartial(queuedEpisodeActions, i, to);
+            listener.onUploaded(to);
         }
         return new NextcloudGpodderEpisodeActionPostResponse(System.currentTimeMillis() / 1000);
     }
@@ -0,0 +1,148 @@
+package de.danoeh.antennapod.net.sync.gpoddernet;
+
+import androidx.annotation.NonNull;
+
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
+import de.danoeh.antennapod.net.sync.serviceinterface.SyncServiceException;
+import de.danoeh.antennapod.net.sync.serviceinterface.UploadChangesResponse;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class GpodnetServiceTest {
+    private static final int CHUNK_SIZE = 30;
+
+    private MockWebServer server;
+    private final List<List<String>> uploadedChunks = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> reportedCounts = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testUploadEpisodeActionsInChunks() throws Exception {
+        GpodnetService service = createService(new ChunkDispatcher(-1, -1));
+        UploadChangesResponse response = service.uploadEpisodeActions(createActions(70), reportedCounts::add);
+
+        assertEquals(Arrays.asList(30, 60, 70), reportedCounts);
+        assertEquals(1002, response.timestamp);
+        assertEquals(3, uploadedChunks.size());
+        for (List<String> chunk : uploadedChunks) {
+            int firstEpisode = Integer.parseInt(chunk.get(0).substring("episode.".length()));
+            for (int i = 0; i < chunk.size(); i++) {
+                assertEquals("episode." + (firstEpisode + i), chunk.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testPartialFailureReportsOnlyFinishedPrefix() throws Exception {
+        // The first chunk finishes last, the third one before the second one fails
+        GpodnetService service = createService(new ChunkDispatcher(1, 0));
+        try {
+            service.uploadEpisodeActions(createActions(90), reportedCounts::add);
+            fail("Expected SyncServiceException");
+        } catch (SyncServiceException e) {
+            // expected
+        }
+        assertEquals(Collections.singletonList(30), reportedCounts);
+    }
+
+    @Test
+    public void testFailedFirstChunkReportsNothing() throws Exception {
+        GpodnetService service = createService(new ChunkDispatcher(0, 0));
+        try {
+            service.uploadEpisodeActions(createActions(90), reportedCounts::add);
+            fail("Expected SyncServiceException");
+        } catch (SyncServiceException e) {
+            // expected
+        }
+        assertEquals(Collections.emptyList(), reportedCounts);
+    }
+
+    private GpodnetService createService(Dispatcher dispatcher) throws GpodnetServiceException {
+        server.setDispatcher(dispatcher);
+        GpodnetService service = new GpodnetService(new OkHttpClient(),
+                "http://" + server.getHostName() + ":" + server.getPort(), "device", "user", "password");
+        service.login();
+        return service;
+    }
+
+    private static List<EpisodeAction> createActions(int count) {
+        List<EpisodeAction> actions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            actions.add(new EpisodeAction.Builder("podcast.a", "episode." + i, EpisodeAction.Action.PLAY)
+                    .currentTimestamp()
+                    .position(i)
+                    .build());
+        }
+        return actions;
+    }
+
+    /**
+     * Answers each chunk with a timestamp of 1000 plus the chunk number.
+     */
+    private class ChunkDispatcher extends Dispatcher {
+        private final int failingChunk;
+        private final int slowChunk;
+
+        ChunkDispatcher(int failingChunk, int slowChunk) {
+            this.failingChunk = failingChunk;
+            this.slowChunk = slowChunk;
+        }
+
+        @NonNull
+        @Override
+        public MockResponse dispatch(@NonNull RecordedRequest request) {
+            if (request.getPath().endsWith("/login.json")) {
+                return new MockResponse();
+            }
+            List<String> episodes = new ArrayList<>();
+            try {
+                JSONArray array = new JSONArray(request.getBody().readUtf8());
+                for (int i = 0; i < array.length(); i++) {
+                    episodes.add(array.getJSONObject(i).getString("episode"));
+                }
+            } catch (JSONException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+            uploadedChunks.add(episodes);
+            int chunk = Integer.parseInt(episodes.get(0).substring("episode.".length())) / CHUNK_SIZE;
+            MockResponse response = chunk == failingChunk
+                    ? new MockResponse().setResponseCode(500)
+                    : new MockResponse().setBody("{\"timestamp\": " + (1000 + chunk) + ", \"update_urls\": []}");
+            if (chunk == slowChunk) {
+                response.setHeadersDelay(500, TimeUnit.MILLISECONDS);
+            }
+            return response;
+        }
+    }
+}
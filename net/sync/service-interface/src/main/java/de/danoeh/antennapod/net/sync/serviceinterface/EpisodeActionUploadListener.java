@@ -0,0 +1,14 @@
+package de.danoeh.antennapod.net.sync.serviceinterface;
+
+/**
+ * Reports how far an upload of episode actions got, so that a failed upload can be resumed
+ * without sending the same actions again.
+ */
+public interface EpisodeActionUploadListener {
+    /**
+     * Called on the uploading thread whenever more actions were accepted by the server.
+     *
+     * @param uploadedCount Number of actions from the beginning of the list that are uploaded
+     */
+    void onUploaded(int uploadedCount);
+}
@@ -13,8 +13,8 @@ public interface ISyncService {
 
     EpisodeActionChanges getEpisodeActionChanges(long lastSync) throws SyncServiceException;
 
-    UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> queuedEpisodeActions)
-            throws SyncServiceException;
+    UploadChangesResponse uploadEpisodeActions(List<EpisodeAction> queuedEpisodeActions,
+                                               EpisodeActionUploadListener listener) throws SyncServiceException;
 
     void logout() throws SyncServiceException;
 }
@@ -2,9 +2,9 @@ package de.danoeh.antennapod.net.sync.service;
 
 import android.util.Log;
 
-import androidx.collection.ArrayMap;
 import androidx.core.util.Pair;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,21 +13,41 @@ import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
 public class EpisodeActionFilter {
 
     public static final String TAG = "EpisodeActionFilter";
+    private static final int QUEUE_CHUNK_SIZE = 1000;
 
     public static Map<Pair<String, String>, EpisodeAction> getRemoteActionsOverridingLocalActions(
             List<EpisodeAction> remoteActions,
             List<EpisodeAction> queuedEpisodeActions) {
+        Map<EpisodeKey, EpisodeAction> localMostRecentPlayActions = new HashMap<>();
+        addMostRecentPlayActions(localMostRecentPlayActions, queuedEpisodeActions);
+        return getRemoteActionsOverridingLocalActions(remoteActions, localMostRecentPlayActions);
+    }
+
+    /**
+     * Same as {@link #getRemoteActionsOverridingLocalActions(List, List)}, but reads the queued actions chunk
+     * by chunk. Only the most recent action of each episode is kept in memory, not the whole queue.
+     */
+    public static Map<Pair<String, String>, EpisodeAction> getRemoteActionsOverridingQueuedActions(
+            List<EpisodeAction> remoteActions,
+            SynchronizationQueueStorage queueStorage) {
+        final Map<EpisodeKey, EpisodeAction> localMostRecentPlayActions = new HashMap<>();
+        queueStorage.getQueuedEpisodeActions(QUEUE_CHUNK_SIZE,
+                chunk -> addMostRecentPlayActions(localMostRecentPlayActions, chunk));
+        return getRemoteActionsOverridingLocalActions(remoteActions, localMostRecentPlayActions);
+    }
+
+    private static Map<Pair<String, String>, EpisodeAction> getRemoteActionsOverridingLocalActions(
+            List<EpisodeAction> remoteActions,
+            Map<EpisodeKey, EpisodeAction> localMostRecentPlayActions) {
         // make sure more recent local actions are not overwritten by older remote actions
-        Map<Pair<String, String>, EpisodeAction> remoteActionsThatOverrideLocalActions = new ArrayMap<>();
-        Map<Pair<String, String>, EpisodeAction> localMostRecentPlayActions =
-                createUniqueLocalMostRecentPlayActions(queuedEpisodeActions);
+        Map<EpisodeKey, EpisodeAction> remoteActionsThatOverrideLocalActions = new HashMap<>();
         for (EpisodeAction remoteAction : remoteActions) {
-            Pair<String, String> key = new Pair<>(remoteAction.getPodcast(), remoteAction.getEpisode());
             switch (remoteAction.getAction()) {
                 case NEW:
                 case DOWNLOAD:
                     break;
                 case PLAY:
+                    EpisodeKey key = new EpisodeKey(remoteAction);
                     EpisodeAction localMostRecent = localMostRecentPlayActions.get(key);
                     if (secondActionOverridesFirstAction(remoteAction, localMostRecent)) {
                         break;
@@ -47,15 +67,17 @@ public class EpisodeActionFilter {
             }
         }
 
-        return remoteActionsThatOverrideLocalActions;
+        Map<Pair<String, String>, EpisodeAction> result = new HashMap<>(remoteActionsThatOverrideLocalActions.size());
+        for (EpisodeAction action : remoteActionsThatOverrideLocalActions.values()) {
+            result.put(new Pair<>(action.getPodcast(), action.getEpisode()), action);
+        }
+        return result;
     }
 
-    private static Map<Pair<String, String>, EpisodeAction> createUniqueLocalMostRecentPlayActions(
-            List<EpisodeAction> queuedEpisodeActions) {
-        Map<Pair<String, String>, EpisodeAction> localMostRecentPlayAction;
-        localMostRecentPlayAction = new ArrayMap<>();
+    private static void addMostRecentPlayActions(Map<EpisodeKey, EpisodeAction> localMostRecentPlayAction,
+                                                 List<EpisodeAction> queuedEpisodeActions) {
         for (EpisodeAction action : queuedEpisodeActions) {
-            Pair<String, String> key = new Pair<>(action.getPodcast(), action.getEpisode());
+            EpisodeKey key = new EpisodeKey(action);
             EpisodeAction mostRecent = localMostRecentPlayAction.get(key);
             if (mostRecent == null || mostRecent.getTimestamp() == null) {
                 localMostRecentPlayAction.put(key, action);
@@ -63,7 +85,6 @@ public class EpisodeActionFilter {
                 localMostRecentPlayAction.put(key, action);
             }
         }
-        return localMostRecentPlayAction;
     }
 
     private static boolean secondActionOverridesFirstAction(EpisodeAction firstAction,
@@ -74,4 +95,39 @@ public class EpisodeActionFilter {
                         || secondAction.getTimestamp().after(firstAction.getTimestamp()));
     }
 
+    /**
+     * Podcast and episode URL of an action. The hash code is computed once and compared before the URLs,
+     * so looking up the same key in both maps is cheap even with many actions from the same podcast.
+     */
+    private static final class EpisodeKey {
+        private final String podcast;
+        private final String episode;
+        private final int hashCode;
+
+        EpisodeKey(EpisodeAction action) {
+            this.podcast = action.getPodcast();
+            this.episode = action.getEpisode();
+            this.hashCode = 31 * (podcast == null ? 0 : podcast.hashCode())
+                    + (episode == null ? 0 : episode.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EpisodeKey)) {
+                return false;
+            }
+            EpisodeKey other = (EpisodeKey) o;
+            return hashCode == other.hashCode
+                    && (podcast == null ? other.podcast == null : podcast.equals(other.podcast))
+                    && (episode == null ? other.episode == null : episode.equals(other.episode));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
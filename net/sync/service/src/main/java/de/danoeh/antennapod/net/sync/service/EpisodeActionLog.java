@@ -0,0 +1,248 @@
+package de.danoeh.antennapod.net.sync.service;
+
+import android.util.Log;
+
+import androidx.core.util.Pair;
+
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file with the episode actions that still need to be uploaded, one JSON object per line.
+ * Enqueueing an action only appends a line instead of rewriting the whole queue.
+ * Lines that cannot be parsed, for example because the app was killed while writing them, are skipped.
+ * While an upload is running, the log is not compacted, so that the uploaded actions stay the first ones.
+ */
+public class EpisodeActionLog {
+    private static final String TAG = "EpisodeActionLog";
+
+    /**
+     * The log is compacted when it gets larger than this and twice as large as after the last compaction.
+     */
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private final File file;
+    private long sizeAfterCompaction = 0;
+    private boolean uploadInProgress = false;
+
+    public interface ChunkCallback {
+        void onChunk(List<EpisodeAction> actions);
+    }
+
+    public EpisodeActionLog(File file) {
+        this.file = file;
+    }
+
+    public void append(EpisodeAction action) {
+        List<EpisodeAction> actions = new ArrayList<>();
+        actions.add(action);
+        appendAll(actions);
+    }
+
+    public synchronized void appendAll(Collection<EpisodeAction> actions) {
+        try {
+            write(file, actions, true);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to append episode actions", e);
+        }
+        long size = file.length();
+        if (!uploadInProgress && size > MIN_COMPACTION_SIZE && size > 2 * sizeAfterCompaction) {
+            compact();
+        }
+    }
+
+    /**
+     * Reads the actions in the order in which they were appended,
+     * without holding more than {@code chunkSize} of them in memory.
+     */
+    public synchronized void readChunks(int chunkSize, ChunkCallback callback) {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<EpisodeAction> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                EpisodeAction action = parseLine(line);
+                if (action == null) {
+                    continue;
+                }
+                chunk.add(action);
+                if (chunk.size() == chunkSize) {
+                    callback.onChunk(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                callback.onChunk(chunk);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read episode actions", e);
+        }
+    }
+
+    public synchronized List<EpisodeAction> readAll() {
+        List<EpisodeAction> actions = new ArrayList<>();
+        readChunks(1000, actions::addAll);
+        return actions;
+    }
+
+    /**
+     * Deletes all actions. An upload that is running does not remove any actions when it finishes.
+     */
+    public synchronized void clear() {
+        if (file.exists() && !file.delete()) {
+            Log.e(TAG, "Unable to delete " + file);
+        }
+        sizeAfterCompaction = 0;
+        uploadInProgress = false;
+    }
+
+    /**
+     * Rewrites the log so that it only keeps the last play action of each episode.
+     * The new log is written to a temporary file first, so the old one stays intact if writing fails.
+     * Does nothing while an upload is running.
+     */
+    public synchronized void compact() {
+        if (uploadInProgress) {
+            return;
+        }
+        replaceWith(compact(readAll()));
+    }
+
+    /**
+     * Reads the actions that are going to be uploaded. Until {@link #finishUpload} is called, the log is
+     * not compacted. Actions that are appended in the meantime come after the returned ones.
+     */
+    public synchronized List<EpisodeAction> startUpload() {
+        uploadInProgress = true;
+        return readAll();
+    }
+
+    /**
+     * Removes the actions that the server received.
+     *
+     * @param uploadedCount Number of actions, from the beginning of the list returned by {@link #startUpload()},
+     *                      that were uploaded.
+     */
+    public synchronized void finishUpload(int uploadedCount) {
+        if (!uploadInProgress) {
+            return; // Cleared in the meantime
+        }
+        uploadInProgress = false;
+        if (uploadedCount > 0) {
+            removeFirst(uploadedCount);
+        }
+    }
+
+    /**
+     * Removes the given number of actions from the beginning of the log.
+     */
+    private void removeFirst(int count) {
+        List<EpisodeAction> actions = readAll();
+        if (count >= actions.size()) {
+            clear();
+            return;
+        }
+        replaceWith(actions.subList(count, actions.size()));
+    }
+
+    private void replaceWith(List<EpisodeAction> actions) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            write(tempFile, actions, false);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write episode actions", e);
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Log.e(TAG, "Unable to replace " + file);
+            tempFile.delete();
+            return;
+        }
+        sizeAfterCompaction = file.length();
+    }
+
+    /**
+     * Removes all play actions that are followed by another play action of the same episode.
+     * Other actions are kept. The order of the remaining actions does not change.
+     */
+    static List<EpisodeAction> compact(List<EpisodeAction> actions) {
+        Map<Pair<String, String>, Integer> lastPlayAction = new HashMap<>();
+        for (int i = 0; i < actions.size(); i++) {
+            EpisodeAction action = actions.get(i);
+            if (action.getAction() == EpisodeAction.PLAY) {
+                lastPlayAction.put(new Pair<>(action.getPodcast(), action.getEpisode()), i);
+            }
+        }
+        List<EpisodeAction> result = new ArrayList<>();
+        for (int i = 0; i < actions.size(); i++) {
+            EpisodeAction action = actions.get(i);
+            if (action.getAction() != EpisodeAction.PLAY
+                    || lastPlayAction.get(new Pair<>(action.getPodcast(), action.getEpisode())) == i) {
+                result.add(action);
+            }
+        }
+        return result;
+    }
+
+    private static void write(File file, Collection<EpisodeAction> actions, boolean append) throws IOException {
+        boolean startNewLine = append && !endsWithNewLine(file);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, append), StandardCharsets.UTF_8))) {
+            if (startNewLine) {
+                // The last line was not written completely. Keep the next action out of it.
+                writer.write('\n');
+            }
+            for (EpisodeAction action : actions) {
+                JSONObject object = action.writeToJsonObject();
+                if (object != null) {
+                    writer.write(object.toString());
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    private static boolean endsWithNewLine(File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return true;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            return randomAccessFile.read() == '\n';
+        }
+    }
+
+    private static EpisodeAction parseLine(String line) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return EpisodeAction.readFromJsonObject(new JSONObject(line));
+        } catch (JSONException e) {
+            Log.w(TAG, "Skipping damaged line: " + line);
+            return null;
+        }
+    }
+}
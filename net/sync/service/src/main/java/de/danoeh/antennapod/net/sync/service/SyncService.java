@@ -50,9 +50,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SyncService extends Worker {
     public static final String TAG = "SyncService";
+    private static final int EPISODE_ACTION_BATCH_SIZE = 500;
 
     private static boolean currentlyActive = false;
     private final SynchronizationQueueStorage synchronizationQueueStorage;
@@ -216,12 +218,14 @@ public class SyncService extends Worker {
         EpisodeActionChanges getResponse = syncServiceImpl.getEpisodeActionChanges(lastSync);
         long newTimeStamp = getResponse.getTimestamp();
         List<EpisodeAction> remoteActions = getResponse.getEpisodeActions();
+        synchronizationQueueStorage.compactEpisodeActionQueue();
         processEpisodeActions(remoteActions);
 
         // upload local actions
         EventBus.getDefault().postSticky(new SyncServiceEvent(R.string.sync_status_episodes_upload));
-        List<EpisodeAction> queuedEpisodeActions = synchronizationQueueStorage.getQueuedEpisodeActions();
+        List<EpisodeAction> playedActions = new ArrayList<>();
         if (lastSync == 0) {
+            // Read outside of the lock, so that enqueueing actions does not wait for this
             EventBus.getDefault().postSticky(new SyncServiceEvent(R.string.sync_status_upload_played));
             List<FeedItem> readItems = DBReader.getEpisodes(0, Integer.MAX_VALUE,
                     new FeedItemFilter(FeedItemFilter.PLAYED), SortOrder.DATE_NEW_OLD);
@@ -237,21 +241,37 @@ public class SyncService extends Worker {
                         .position(media.getDuration() / 1000)
                         .total(media.getDuration() / 1000)
                         .build();
-                queuedEpisodeActions.add(played);
+                playedActions.add(played);
             }
         }
-        if (!queuedEpisodeActions.isEmpty()) {
-            LockingAsyncExecutor.lock();
-            try {
-                Log.d(TAG, "Uploading " + queuedEpisodeActions.size() + " actions: "
-                        + StringUtils.join(queuedEpisodeActions, ", "));
-                UploadChangesResponse postResponse = syncServiceImpl.uploadEpisodeActions(queuedEpisodeActions);
-                newTimeStamp = postResponse.timestamp;
-                Log.d(TAG, "Upload episode response: " + postResponse);
-                synchronizationQueueStorage.clearEpisodeActionQueue();
-            } finally {
-                LockingAsyncExecutor.unlock();
+        // The queue is read and shortened under the same lock, so no action is enqueued in between
+        LockingAsyncExecutor.lock();
+        int uploadedQueuedCount = 0;
+        try {
+            List<EpisodeAction> queuedEpisodeActions = synchronizationQueueStorage.startEpisodeActionUpload();
+            final int queuedCount = queuedEpisodeActions.size();
+            queuedEpisodeActions.addAll(playedActions);
+            if (!queuedEpisodeActions.isEmpty()) {
+                AtomicInteger uploadedCount = new AtomicInteger(0);
+                try {
+                    Log.d(TAG, "Uploading " + queuedEpisodeActions.size() + " actions: "
+                            + StringUtils.join(queuedEpisodeActions, ", "));
+                    UploadChangesResponse postResponse = syncServiceImpl.uploadEpisodeActions(
+                            queuedEpisodeActions, uploadedCount::set);
+                    newTimeStamp = postResponse.timestamp;
+                    Log.d(TAG, "Upload episode response: " + postResponse);
+                    uploadedQueuedCount = queuedCount;
+                } catch (SyncServiceException e) {
+                    // Do not upload the same actions again when retrying. The played episodes that are added
+                    // on the first sync come after the queued actions and are not part of the queue.
+                    Log.d(TAG, "Upload failed after " + uploadedCount.get() + " actions");
+                    uploadedQueuedCount = Math.min(uploadedCount.get(), queuedCount);
+                    throw e;
+                }
             }
+        } finally {
+            synchronizationQueueStorage.finishEpisodeActionUpload(uploadedQueuedCount);
+            LockingAsyncExecutor.unlock();
         }
         SynchronizationSettings.setLastEpisodeActionSynchronizationAttemptTimestamp(newTimeStamp);
     }
@@ -263,13 +283,34 @@ public class SyncService extends Worker {
         }
 
         Map<Pair<String, String>, EpisodeAction> playActionsToUpdate = EpisodeActionFilter
-                .getRemoteActionsOverridingLocalActions(remoteActions,
-                        synchronizationQueueStorage.getQueuedEpisodeActions());
+                .getRemoteActionsOverridingQueuedActions(remoteActions, synchronizationQueueStorage);
+        List<EpisodeAction> actions = new ArrayList<>(playActionsToUpdate.values());
+        for (int start = 0; start < actions.size(); start += EPISODE_ACTION_BATCH_SIZE) {
+            EventBus.getDefault().postSticky(new SyncServiceEvent(
+                    R.string.sync_status_episodes_apply, start, actions.size()));
+            int end = Math.min(start + EPISODE_ACTION_BATCH_SIZE, actions.size());
+            applyEpisodeActions(actions.subList(start, end));
+        }
+    }
+
+    /**
+     * Looks up the episodes of all actions at once and stores their new state in a single transaction.
+     */
+    private void applyEpisodeActions(List<EpisodeAction> actions) {
+        List<String> guids = new ArrayList<>(actions.size());
+        List<String> episodeUrls = new ArrayList<>(actions.size());
+        for (EpisodeAction action : actions) {
+            guids.add(GuidValidator.isValidGuid(action.getGuid()) ? action.getGuid() : null);
+            episodeUrls.add(action.getEpisode());
+        }
+        List<FeedItem> feedItems = DBReader.getFeedItemsByGuidOrEpisodeUrl(guids, episodeUrls);
+
         LongList queueToBeRemoved = new LongList();
         List<FeedItem> updatedItems = new ArrayList<>();
-        for (EpisodeAction action : playActionsToUpdate.values()) {
-            String guid = GuidValidator.isValidGuid(action.getGuid()) ? action.getGuid() : null;
-            FeedItem feedItem = DBReader.getFeedItemByGuidOrEpisodeUrl(guid, action.getEpisode());
+        int smartMarkAsPlayedSecs = UserPreferences.getSmartMarkAsPlayedSecs();
+        for (int i = 0; i < actions.size(); i++) {
+            EpisodeAction action = actions.get(i);
+            FeedItem feedItem = feedItems.get(i);
             if (feedItem == null) {
                 Log.i(TAG, "Unknown feed item: " + action);
                 continue;
@@ -280,7 +321,6 @@ public class SyncService extends Worker {
             }
             FeedMedia media = feedItem.getMedia();
             media.setPosition(action.getPosition() * 1000);
-            int smartMarkAsPlayedSecs = UserPreferences.getSmartMarkAsPlayedSecs();
             boolean almostEnded = media.getDuration() > 0
                     && media.getPosition() >= media.getDuration() - smartMarkAsPlayedSecs * 1000;
             if (almostEnded) {
@@ -293,7 +333,9 @@ public class SyncService extends Worker {
             }
             updatedItems.add(feedItem);
         }
-        DBWriter.removeQueueItem(getApplicationContext(), false, queueToBeRemoved.toArray());
+        if (queueToBeRemoved.size() > 0) {
+            DBWriter.removeQueueItem(getApplicationContext(), false, queueToBeRemoved.toArray());
+        }
         DBReader.loadAdditionalFeedItemListData(updatedItems);
         DBWriter.setItemList(updatedItems);
     }
@@ -7,6 +7,7 @@ import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
 import org.json.JSONArray;
 import org.json.JSONException;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -16,28 +17,63 @@ import de.danoeh.antennapod.storage.preferences.SynchronizationSettings;
 public class SynchronizationQueueStorage {
 
     private static final String NAME = "synchronization";
+    private static final String EPISODE_ACTION_LOG_FILE = "sync_episode_actions.log";
+    /**
+     * Episode actions used to be stored as a JSON array in the preferences.
+     */
     private static final String QUEUED_EPISODE_ACTIONS = "sync_queued_episode_actions";
     private static final String QUEUED_FEEDS_REMOVED = "sync_removed";
     private static final String QUEUED_FEEDS_ADDED = "sync_added";
+    private static EpisodeActionLog episodeActionLog;
     private final SharedPreferences sharedPreferences;
 
     public SynchronizationQueueStorage(Context context) {
         this.sharedPreferences = context.getSharedPreferences(NAME, Context.MODE_PRIVATE);
+        initEpisodeActionLog(context);
     }
 
-    public ArrayList<EpisodeAction> getQueuedEpisodeActions() {
-        ArrayList<EpisodeAction> actions = new ArrayList<>();
-        try {
-            String json = getSharedPreferences()
-                    .getString(QUEUED_EPISODE_ACTIONS, "[]");
-            JSONArray queue = new JSONArray(json);
-            for (int i = 0; i < queue.length(); i++) {
-                actions.add(EpisodeAction.readFromJsonObject(queue.getJSONObject(i)));
+    private void initEpisodeActionLog(Context context) {
+        synchronized (SynchronizationQueueStorage.class) {
+            if (episodeActionLog != null) {
+                return;
             }
-        } catch (JSONException e) {
-            e.printStackTrace();
+            episodeActionLog = new EpisodeActionLog(new File(context.getFilesDir(), EPISODE_ACTION_LOG_FILE));
+            if (!sharedPreferences.contains(QUEUED_EPISODE_ACTIONS)) {
+                return;
+            }
+            ArrayList<EpisodeAction> actions = new ArrayList<>();
+            try {
+                JSONArray queue = new JSONArray(sharedPreferences.getString(QUEUED_EPISODE_ACTIONS, "[]"));
+                for (int i = 0; i < queue.length(); i++) {
+                    EpisodeAction action = EpisodeAction.readFromJsonObject(queue.getJSONObject(i));
+                    if (action != null) {
+                        actions.add(action);
+                    }
+                }
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+            episodeActionLog.appendAll(actions);
+            sharedPreferences.edit().remove(QUEUED_EPISODE_ACTIONS).commit();
         }
-        return actions;
+    }
+
+    /**
+     * Drops the play actions that are superseded by a later play action of the same episode.
+     */
+    public void compactEpisodeActionQueue() {
+        episodeActionLog.compact();
+    }
+
+    public ArrayList<EpisodeAction> getQueuedEpisodeActions() {
+        return new ArrayList<>(episodeActionLog.readAll());
+    }
+
+    /**
+     * Reads the queued episode actions without loading all of them into memory at once.
+     */
+    public void getQueuedEpisodeActions(int chunkSize, EpisodeActionLog.ChunkCallback callback) {
+        episodeActionLog.readChunks(chunkSize, callback);
     }
 
     public ArrayList<String> getQueuedRemovedFeeds() {
@@ -72,9 +108,23 @@ public class SynchronizationQueueStorage {
     }
 
     public void clearEpisodeActionQueue() {
-        getSharedPreferences().edit()
-                .putString(QUEUED_EPISODE_ACTIONS, "[]").apply();
+        episodeActionLog.clear();
+    }
+
+    /**
+     * Reads the queued episode actions for an upload. The queue is not compacted until
+     * {@link #finishEpisodeActionUpload} is called.
+     */
+    public List<EpisodeAction> startEpisodeActionUpload() {
+        return episodeActionLog.startUpload();
+    }
 
+    /**
+     * Removes the given number of actions, from the beginning of the list returned by
+     * {@link #startEpisodeActionUpload()}, that were uploaded.
+     */
+    public void finishEpisodeActionUpload(int uploadedCount) {
+        episodeActionLog.finishUpload(uploadedCount);
     }
 
     public void clearFeedQueues() {
@@ -86,8 +136,8 @@ public class SynchronizationQueueStorage {
 
     protected void clearQueue() {
         SynchronizationSettings.resetTimestamps();
+        episodeActionLog.clear();
         getSharedPreferences().edit()
-                .putString(QUEUED_EPISODE_ACTIONS, "[]")
                 .putString(QUEUED_FEEDS_ADDED, "[]")
                 .putString(QUEUED_FEEDS_REMOVED, "[]")
                 .apply();
@@ -157,17 +207,7 @@ public class SynchronizationQueueStorage {
     }
 
     protected void enqueueEpisodeAction(EpisodeAction action) {
-        SharedPreferences sharedPreferences = getSharedPreferences();
-        String json = sharedPreferences.getString(QUEUED_EPISODE_ACTIONS, "[]");
-        try {
-            JSONArray queue = new JSONArray(json);
-            queue.put(action.writeToJsonObject());
-            sharedPreferences.edit().putString(
-                    QUEUED_EPISODE_ACTIONS, queue.toString()
-            ).apply();
-        } catch (JSONException jsonException) {
-            jsonException.printStackTrace();
-        }
+        episodeActionLog.append(action);
     }
 
     private SharedPreferences getSharedPreferences() {
@@ -0,0 +1,61 @@
+package de.danoeh.antennapod.net.sync.service;
+
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Filters a synthetic dump of remote actions, like after a first sync with a large gpodder account.
+ * Not run with the other tests. Remove the Ignore annotation to run it.
+ */
+public class EpisodeActionFilterBenchmark {
+    private static final int REMOTE_ACTIONS = 100000;
+    private static final int LOCAL_ACTIONS = 2000;
+    private static final int PODCASTS = 200;
+    private static final int EPISODES_PER_PODCAST = 250;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkFilter() {
+        Random random = new Random(1);
+        List<EpisodeAction> remoteActions = createActions(random, REMOTE_ACTIONS);
+        List<EpisodeAction> localActions = createActions(random, LOCAL_ACTIONS);
+
+        long bestNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            found += EpisodeActionFilter.getRemoteActionsOverridingLocalActions(remoteActions, localActions).size();
+            long nanos = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                bestNanos = Math.min(bestNanos, nanos);
+            }
+        }
+        System.out.println(String.format(Locale.US, "%d remote actions against %d local actions in %d ms (%d found)",
+                REMOTE_ACTIONS, LOCAL_ACTIONS, bestNanos / 1000000, found / (WARMUP_ROUNDS + ROUNDS)));
+    }
+
+    private static List<EpisodeAction> createActions(Random random, int count) {
+        List<EpisodeAction> actions = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            String podcast = "https://example.com/podcast/" + random.nextInt(PODCASTS) + "/feed.xml";
+            String episode = podcast + "/episode/" + random.nextInt(EPISODES_PER_PODCAST) + ".mp3";
+            actions.add(new EpisodeAction.Builder(podcast, episode, EpisodeAction.Action.PLAY)
+                    .timestamp(new Date(now - random.nextInt(1000000) * 1000L))
+                    .started(0)
+                    .position(random.nextInt(3600))
+                    .total(3600)
+                    .build());
+        }
+        return actions;
+    }
+}
@@ -209,4 +209,129 @@ public class EpisodeActionFilterTest extends TestCase {
                 .getRemoteActionsOverridingLocalActions(remoteActions, episodeActions);
         assertSame(1, uniqueList.size());
     }
+
+    public void testSameEpisodeUrlInDifferentPodcasts() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date morning = format.parse("2021-01-01 08:00:00");
+        Date lateMorning = format.parse("2021-01-01 09:00:00");
+
+        List<EpisodeAction> episodeActions = new ArrayList<>();
+        episodeActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .timestamp(lateMorning)
+                .position(20)
+                .build()
+        );
+
+        List<EpisodeAction> remoteActions = new ArrayList<>();
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.b", "episode.1", EpisodeAction.Action.PLAY)
+                .timestamp(morning)
+                .position(10)
+                .build()
+        );
+
+        Map<Pair<String, String>, EpisodeAction> uniqueList = episodeActionFilter
+                .getRemoteActionsOverridingLocalActions(remoteActions, episodeActions);
+        assertEquals(1, uniqueList.size());
+        assertSame(remoteActions.get(0), uniqueList.get(new Pair<>("podcast.b", "episode.1")));
+    }
+
+    public void testMostRecentRemoteActionWins() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date morning = format.parse("2021-01-01 08:00:00");
+        Date lateMorning = format.parse("2021-01-01 09:00:00");
+
+        List<EpisodeAction> remoteActions = new ArrayList<>();
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .timestamp(lateMorning)
+                .position(20)
+                .build()
+        );
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .timestamp(morning)
+                .position(10)
+                .build()
+        );
+
+        Map<Pair<String, String>, EpisodeAction> uniqueList = episodeActionFilter
+                .getRemoteActionsOverridingLocalActions(remoteActions, new ArrayList<>());
+        assertEquals(1, uniqueList.size());
+        assertEquals(20, uniqueList.get(new Pair<>("podcast.a", "episode.1")).getPosition());
+    }
+
+    public void testOnlyPlayActionsOverrideLocalActions() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date morning = format.parse("2021-01-01 08:00:00");
+
+        List<EpisodeAction> remoteActions = new ArrayList<>();
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.NEW)
+                .timestamp(morning)
+                .build()
+        );
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.DOWNLOAD)
+                .timestamp(morning)
+                .build()
+        );
+        remoteActions.add(new EpisodeAction
+                .Builder("podcast.a", "episode.1", EpisodeAction.Action.DELETE)
+                .timestamp(morning)
+                .build()
+        );
+
+        Map<Pair<String, String>, EpisodeAction> uniqueList = episodeActionFilter
+                .getRemoteActionsOverridingLocalActions(remoteActions, new ArrayList<>());
+        assertEquals(0, uniqueList.size());
+    }
+
+    public void testManyActionsOfManyPodcasts() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date morning = format.parse("2021-01-01 08:00:00");
+        Date noon = format.parse("2021-01-01 12:00:00");
+        final int podcasts = 50;
+        final int episodes = 40;
+
+        List<EpisodeAction> episodeActions = new ArrayList<>();
+        List<EpisodeAction> remoteActions = new ArrayList<>();
+        for (int podcast = 0; podcast < podcasts; podcast++) {
+            for (int episode = 0; episode < episodes; episode++) {
+                String podcastUrl = "podcast." + podcast;
+                String episodeUrl = "episode." + episode;
+                for (int minute = 0; minute < 3; minute++) {
+                    remoteActions.add(new EpisodeAction
+                            .Builder(podcastUrl, episodeUrl, EpisodeAction.Action.PLAY)
+                            .timestamp(new Date(morning.getTime() + minute * 60000L))
+                            .position(minute)
+                            .build()
+                    );
+                }
+                if (episode % 2 == 0) {
+                    episodeActions.add(new EpisodeAction
+                            .Builder(podcastUrl, episodeUrl, EpisodeAction.Action.PLAY)
+                            .timestamp(noon)
+                            .position(100)
+                            .build()
+                    );
+                }
+            }
+        }
+
+        Map<Pair<String, String>, EpisodeAction> uniqueList = episodeActionFilter
+                .getRemoteActionsOverridingLocalActions(remoteActions, episodeActions);
+        assertEquals(podcasts * episodes / 2, uniqueList.size());
+        for (int podcast = 0; podcast < podcasts; podcast++) {
+            for (int episode = 0; episode < episodes; episode++) {
+                EpisodeAction action = uniqueList.get(new Pair<>("podcast." + podcast, "episode." + episode));
+                if (episode % 2 == 0) {
+                    assertNull(action);
+                } else {
+                    assertEquals(2, action.getPosition());
+                }
+            }
+        }
+    }
 }
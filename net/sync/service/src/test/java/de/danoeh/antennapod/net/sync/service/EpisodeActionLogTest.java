@@ -0,0 +1,143 @@
+package de.danoeh.antennapod.net.sync.service;
+
+import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class EpisodeActionLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCompactKeepsLastPlayActionOfEachEpisode() {
+        EpisodeAction download = new EpisodeAction.Builder("podcast.a", "episode.1", EpisodeAction.Action.DOWNLOAD)
+                .build();
+        EpisodeAction firstPlay = new EpisodeAction.Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .position(10)
+                .build();
+        EpisodeAction otherEpisodePlay = new EpisodeAction.Builder("podcast.a", "episode.2", EpisodeAction.Action.PLAY)
+                .position(5)
+                .build();
+        EpisodeAction lastPlay = new EpisodeAction.Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .position(20)
+                .build();
+        EpisodeAction delete = new EpisodeAction.Builder("podcast.a", "episode.1", EpisodeAction.Action.DELETE)
+                .build();
+
+        List<EpisodeAction> actions = new ArrayList<>();
+        actions.add(download);
+        actions.add(firstPlay);
+        actions.add(otherEpisodePlay);
+        actions.add(lastPlay);
+        actions.add(delete);
+
+        List<EpisodeAction> compacted = EpisodeActionLog.compact(actions);
+        assertEquals(4, compacted.size());
+        assertSame(download, compacted.get(0));
+        assertSame(otherEpisodePlay, compacted.get(1));
+        assertSame(lastPlay, compacted.get(2));
+        assertSame(delete, compacted.get(3));
+    }
+
+    @Test
+    public void testCompactDistinguishesPodcasts() {
+        List<EpisodeAction> actions = new ArrayList<>();
+        actions.add(new EpisodeAction.Builder("podcast.a", "episode.1", EpisodeAction.Action.PLAY)
+                .position(10)
+                .build());
+        actions.add(new EpisodeAction.Builder("podcast.b", "episode.1", EpisodeAction.Action.PLAY)
+                .position(20)
+                .build());
+        assertEquals(2, EpisodeActionLog.compact(actions).size());
+    }
+
+    @Test
+    public void testNoCompactionWhileUploading() throws IOException {
+        File file = folder.newFile();
+        EpisodeActionLog log = new EpisodeActionLog(file);
+        log.append(play("episode.1", 1));
+        List<EpisodeAction> uploading = log.startUpload();
+        assertEquals(1, uploading.size());
+
+        // Large enough to be compacted if no upload was running
+        int count = 0;
+        while (file.length() < 256 * 1024) {
+            count++;
+            log.append(play("episode.1", count + 1));
+        }
+        log.compact();
+        assertEquals(count + 1, log.readAll().size());
+
+        log.finishUpload(uploading.size());
+        List<EpisodeAction> remaining = log.readAll();
+        assertEquals(count, remaining.size());
+        assertEquals(2, remaining.get(0).getPosition());
+
+        log.compact();
+        assertEquals(1, log.readAll().size());
+    }
+
+    @Test
+    public void testFinishUploadKeepsActionsAppendedMeanwhile() throws IOException {
+        EpisodeActionLog log = new EpisodeActionLog(folder.newFile());
+        log.append(play("episode.1", 1));
+        log.append(play("episode.2", 2));
+        List<EpisodeAction> uploading = log.startUpload();
+        log.append(play("episode.3", 3));
+
+        log.finishUpload(1); // Second action failed
+        List<EpisodeAction> remaining = log.readAll();
+        assertEquals(2, remaining.size());
+        assertEquals("episode.2", remaining.get(0).getEpisode());
+        assertEquals("episode.3", remaining.get(1).getEpisode());
+        assertEquals(2, uploading.size());
+    }
+
+    @Test
+    public void testFinishUploadAfterClear() throws IOException {
+        EpisodeActionLog log = new EpisodeActionLog(folder.newFile());
+        log.append(play("episode.1", 1));
+        log.startUpload();
+        log.clear();
+        log.append(play("episode.2", 2));
+
+        log.finishUpload(1);
+        assertEquals(1, log.readAll().size());
+    }
+
+    @Test
+    public void testAppendAfterIncompleteLine() throws IOException {
+        File file = folder.newFile();
+        EpisodeActionLog log = new EpisodeActionLog(file);
+        log.append(play("episode.1", 1));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"podcast\":\"podc".getBytes(StandardCharsets.UTF_8)); // App killed while writing
+        }
+
+        log.append(play("episode.2", 2));
+        List<EpisodeAction> actions = log.readAll();
+        assertEquals(2, actions.size());
+        assertEquals("episode.1", actions.get(0).getEpisode());
+        assertEquals("episode.2", actions.get(1).getEpisode());
+    }
+
+    private static EpisodeAction play(String episode, int position) {
+        return new EpisodeAction.Builder("podcast.a", episode, EpisodeAction.Action.PLAY)
+                .position(position)
+                .build();
+    }
+}
@@ -1,13 +1,17 @@
 package de.danoeh.antennapod.parser.feed;
 
+import android.util.Log;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.parser.feed.util.TypeGetter;
 import org.apache.commons.io.input.XmlStreamReader;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.io.PushbackReader;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -16,21 +20,66 @@ import javax.xml.parsers.SAXParserFactory;
 import de.danoeh.antennapod.model.feed.Feed;
 
 public class FeedHandler {
+    private static final String TAG = "FeedHandler";
+    /**
+     * Number of characters at the start of the document that are used to detect the feed type.
+     */
+    private static final int PEEK_SIZE = 16 * 1024;
+
     public FeedHandlerResult parseFeed(Feed feed) throws SAXException, IOException,
             ParserConfigurationException, UnsupportedFeedtypeException {
-        TypeGetter tg = new TypeGetter();
-        TypeGetter.Type type = tg.getType(feed);
-        SyndHandler handler = new SyndHandler(feed, type);
-
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true);
-        SAXParser saxParser = factory.newSAXParser();
-        File file = new File(feed.getLocalFileUrl());
-        Reader inputStreamReader = new XmlStreamReader(file);
-        InputSource inputSource = new InputSource(inputStreamReader);
-
-        saxParser.parse(inputSource, handler);
-        inputStreamReader.close();
-        return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls, handler.state.redirectUrl);
+        try (InputStream inputStream = new FileInputStream(new File(feed.getLocalFileUrl()))) {
+            return parseFeed(feed, inputStream);
+        }
+    }
+
+    /**
+     * Parses a feed while it is being read from the stream, without storing it first.
+     * The feed type is detected from the first characters of the document, so the stream is only read once.
+     */
+    public FeedHandlerResult parseFeed(Feed feed, InputStream inputStream) throws SAXException, IOException,
+            ParserConfigurationException, UnsupportedFeedtypeException {
+        return parseFeed(feed, inputStream, null);
+    }
+
+    /**
+     * Same as {@link #parseFeed(Feed, InputStream)}, but stops reading once the given number of consecutive
+     * known items was found. Check {@link FeedHandlerResult#complete} to find out if parsing stopped early.
+     *
+     * @param knownItems Items that are already stored, or null to parse the whole feed.
+     */
+    public FeedHandlerResult parseFeed(Feed feed, InputStream inputStream, @Nullable KnownFeedItems knownItems)
+            throws SAXException, IOException, ParserConfigurationException, UnsupportedFeedtypeException {
+        try (PushbackReader reader = new PushbackReader(new XmlStreamReader(inputStream), PEEK_SIZE)) {
+            String head = peek(reader);
+            TypeGetter tg = new TypeGetter();
+            TypeGetter.Type type = tg.getType(feed, head);
+            SyndHandler handler = new SyndHandler(feed, type, knownItems);
+
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            SAXParser saxParser = factory.newSAXParser();
+            boolean complete = true;
+            try {
+                saxParser.parse(new InputSource(reader), handler);
+            } catch (IncrementalParseStoppedException e) {
+                Log.d(TAG, "Stopped parsing after " + handler.state.getItems().size() + " items");
+                handler.state.getFeed().setItems(handler.state.getItems());
+                complete = false;
+            }
+            return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls,
+                    handler.state.redirectUrl, complete);
+        }
+    }
+
+    private static String peek(PushbackReader reader) throws IOException {
+        char[] buffer = new char[PEEK_SIZE];
+        int length = 0;
+        int count;
+        while (length < buffer.length && (count = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += count;
+        }
+        reader.unread(buffer, 0, length);
+        return new String(buffer, 0, length);
     }
 }
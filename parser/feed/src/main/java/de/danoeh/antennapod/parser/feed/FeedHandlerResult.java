@@ -12,10 +12,21 @@ public class FeedHandlerResult {
     public final Feed feed;
     public final Map<String, String> alternateFeedUrls;
     public final String redirectUrl;
+    /**
+     * False if an incremental parse stopped before the end of the document.
+     * The item list then only contains the newest items and elements after them are missing.
+     */
+    public final boolean complete;
 
     public FeedHandlerResult(Feed feed, Map<String, String> alternateFeedUrls, String redirectUrl) {
+        this(feed, alternateFeedUrls, redirectUrl, true);
+    }
+
+    public FeedHandlerResult(Feed feed, Map<String, String> alternateFeedUrls, String redirectUrl,
+                             boolean complete) {
         this.feed = feed;
         this.alternateFeedUrls = alternateFeedUrls;
         this.redirectUrl = redirectUrl;
+        this.complete = complete;
     }
 }
@@ -0,0 +1,12 @@
+package de.danoeh.antennapod.parser.feed;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Thrown by the {@link SyndHandler} to stop parsing once the remaining items are known.
+ */
+class IncrementalParseStoppedException extends SAXException {
+    IncrementalParseStoppedException() {
+        super("Remaining items are already known");
+    }
+}
@@ -0,0 +1,37 @@
+package de.danoeh.antennapod.parser.feed;
+
+import java.util.Set;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+/**
+ * Items of a feed that are already stored. Used for incremental parsing: once the parser has seen
+ * a number of known items in a row, the rest of the feed is assumed to be known as well.
+ */
+public class KnownFeedItems {
+    private final Set<String> itemIdentifiers;
+    private final Set<String> mediaUrls;
+    private final int stopAfter;
+
+    /**
+     * @param itemIdentifiers Identifiers (guid/id) of the known items.
+     * @param mediaUrls       Download URLs of the known items' media.
+     * @param stopAfter       Number of consecutive known items after which parsing stops.
+     */
+    public KnownFeedItems(Set<String> itemIdentifiers, Set<String> mediaUrls, int stopAfter) {
+        this.itemIdentifiers = itemIdentifiers;
+        this.mediaUrls = mediaUrls;
+        this.stopAfter = stopAfter;
+    }
+
+    public boolean contains(FeedItem item) {
+        if (item.getItemIdentifier() != null) {
+            return itemIdentifiers.contains(item.getItemIdentifier());
+        }
+        return item.getMedia() != null && mediaUrls.contains(item.getMedia().getDownloadUrl());
+    }
+
+    public int getStopAfter() {
+        return stopAfter;
+    }
+}
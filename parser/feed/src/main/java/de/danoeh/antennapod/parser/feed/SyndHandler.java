@@ -2,12 +2,16 @@ package de.danoeh.antennapod.parser.feed;
 
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.parser.feed.util.TypeGetter;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import java.util.Date;
+
 import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.parser.feed.namespace.Content;
 import de.danoeh.antennapod.parser.feed.namespace.DublinCore;
 import de.danoeh.antennapod.parser.feed.namespace.Itunes;
@@ -24,9 +28,23 @@ public class SyndHandler extends DefaultHandler {
     private static final String TAG = "SyndHandler";
     private static final String DEFAULT_PREFIX = "";
     public final HandlerState state;
+    @Nullable
+    private final KnownFeedItems knownItems;
+    private int consecutiveKnownItems = 0;
+    private Date previousPubDate = null;
+    private boolean looksReordered = false;
 
     public SyndHandler(Feed feed, TypeGetter.Type type) {
+        this(feed, type, null);
+    }
+
+    /**
+     * @param knownItems If not null, parsing stops with an {@link IncrementalParseStoppedException}
+     *                   after the configured number of consecutive known items.
+     */
+    public SyndHandler(Feed feed, TypeGetter.Type type, @Nullable KnownFeedItems knownItems) {
         state = new HandlerState(feed);
+        this.knownItems = knownItems;
         if (type == TypeGetter.Type.RSS20 || type == TypeGetter.Type.RSS091) {
             state.defaultNamespaces.push(new Rss20());
         }
@@ -61,13 +79,39 @@ public class SyndHandler extends DefaultHandler {
     public void endElement(String uri, String localName, String qualifiedName)
             throws SAXException {
         Namespace handler = getHandlingNamespace(uri, qualifiedName);
+        FeedItem itemBefore = state.getCurrentItem();
         if (handler != null) {
             handler.handleElementEnd(localName, state);
             state.tagstack.pop();
 
         }
         state.contentBuf = null;
+        if (itemBefore != null && state.getCurrentItem() == null) {
+            onItemFinished(itemBefore);
+        }
+    }
 
+    private void onItemFinished(FeedItem item) throws SAXException {
+        if (knownItems == null || looksReordered) {
+            return;
+        }
+        // Stopping early is only safe if the newest items come first
+        Date pubDate = item.getPubDate();
+        if (pubDate == null || (previousPubDate != null && pubDate.after(previousPubDate))) {
+            Log.d(TAG, "Items are not sorted by date, parsing the whole feed");
+            looksReordered = true;
+            return;
+        }
+        previousPubDate = pubDate;
+
+        if (knownItems.contains(item)) {
+            consecutiveKnownItems++;
+            if (consecutiveKnownItems >= knownItems.getStopAfter()) {
+                throw new IncrementalParseStoppedException();
+            }
+        } else {
+            consecutiveKnownItems = 0;
+        }
     }
 
     @Override
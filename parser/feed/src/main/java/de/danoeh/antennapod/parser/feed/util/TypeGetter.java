@@ -3,7 +3,6 @@ package de.danoeh.antennapod.parser.feed.util;
 import android.util.Log;
 
 import de.danoeh.antennapod.parser.feed.UnsupportedFeedtypeException;
-import org.apache.commons.io.input.XmlStreamReader;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -11,9 +10,8 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlPullParserFactory;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.StringReader;
 
 import de.danoeh.antennapod.model.feed.Feed;
 
@@ -28,16 +26,19 @@ public class TypeGetter {
     private static final String ATOM_ROOT = "feed";
     private static final String RSS_ROOT = "rss";
 
-    public Type getType(Feed feed) throws UnsupportedFeedtypeException {
+    /**
+     * Detects the type of a feed.
+     *
+     * @param head The beginning of the document. It needs to contain at least the root element.
+     */
+    public Type getType(Feed feed, String head) throws UnsupportedFeedtypeException {
         XmlPullParserFactory factory;
-        if (feed.getLocalFileUrl() != null) {
-            Reader reader = null;
+        if (head != null) {
             try {
                 factory = XmlPullParserFactory.newInstance();
                 factory.setNamespaceAware(true);
                 XmlPullParser xpp = factory.newPullParser();
-                reader = createReader(feed);
-                xpp.setInput(reader);
+                xpp.setInput(new StringReader(head));
                 int eventType = xpp.getEventType();
 
                 while (eventType != XmlPullParser.END_DOCUMENT) {
@@ -71,7 +72,7 @@ public class TypeGetter {
                                 throw new UnsupportedFeedtypeException("Unsupported rss version");
                             default:
                                 Log.d(TAG, "Type is invalid: " + tag);
-                                throwExceptionIfWebsite(feed);
+                                throwExceptionIfWebsite(head);
                                 throw new UnsupportedFeedtypeException(tag, null);
                         }
                     } else {
@@ -85,47 +86,24 @@ public class TypeGetter {
                 }
             } catch (XmlPullParserException e) {
                 e.printStackTrace();
-                throwExceptionIfWebsite(feed);
+                throwExceptionIfWebsite(head);
                 throw new UnsupportedFeedtypeException(e.getMessage());
 
             } catch (IOException e) {
                 e.printStackTrace();
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
             }
         }
         Log.d(TAG, "Type is invalid");
         throw new UnsupportedFeedtypeException("Unknown problem when trying to determine feed type");
     }
 
-    private Reader createReader(Feed feed) {
-        Reader reader;
-        try {
-            reader = new XmlStreamReader(new File(feed.getLocalFileUrl()));
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-        return reader;
-    }
-
-    private void throwExceptionIfWebsite(Feed feed) throws UnsupportedFeedtypeException {
-        try {
-            Document document = Jsoup.parse(new File(feed.getLocalFileUrl()));
-            Element titleElement = document.head().getElementsByTag("title").first();
-            if (titleElement != null) {
-                throw new UnsupportedFeedtypeException("html", "Website title: \"" + titleElement.text() + "\"");
-            }
-            Element firstChild = document.children().first();
-            throw new UnsupportedFeedtypeException(firstChild != null ? firstChild.tagName() : "?", null);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void throwExceptionIfWebsite(String head) throws UnsupportedFeedtypeException {
+        Document document = Jsoup.parse(head);
+        Element titleElement = document.head().getElementsByTag("title").first();
+        if (titleElement != null) {
+            throw new UnsupportedFeedtypeException("html", "Website title: \"" + titleElement.text() + "\"");
         }
+        Element firstChild = document.children().first();
+        throw new UnsupportedFeedtypeException(firstChild != null ? firstChild.tagName() : "?", null);
     }
 }
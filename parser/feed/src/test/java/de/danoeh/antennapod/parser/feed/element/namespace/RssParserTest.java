@@ -5,15 +5,27 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.model.playback.MediaType;
+import de.danoeh.antennapod.parser.feed.FeedHandler;
+import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
+import de.danoeh.antennapod.parser.feed.KnownFeedItems;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -56,6 +68,72 @@ public class RssParserTest {
         }
     }
 
+    @Test
+    public void testParseFromStream() throws Exception {
+        // Larger than the part that is used to detect the feed type
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<rss version=\"2.0\"><channel><title>title</title>");
+        for (int i = 0; i < 1000; i++) {
+            xml.append("<item><title>item-").append(i).append("</title><guid>id-").append(i).append("</guid></item>");
+        }
+        xml.append("</channel></rss>");
+
+        Feed feed = new Feed("http://example.com/feed", null);
+        new FeedHandler().parseFeed(feed, new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Feed.TYPE_RSS2, feed.getType());
+        assertEquals("title", feed.getTitle());
+        assertEquals(1000, feed.getItems().size());
+        assertEquals("item-999", feed.getItems().get(999).getTitle());
+    }
+
+    @Test
+    public void testIncrementalParseStopsAtKnownItems() throws Exception {
+        Feed feed = new Feed("http://example.com/feed", null);
+        FeedHandlerResult result = new FeedHandler().parseFeed(feed, createFeedWithDates(true),
+                new KnownFeedItems(createKnownIdentifiers(90), Collections.emptySet(), 3));
+        assertFalse(result.complete);
+        assertEquals("title", feed.getTitle());
+        // 10 new items and the 3 known ones that stopped the parser
+        assertEquals(13, feed.getItems().size());
+        assertEquals("item-99", feed.getItems().get(0).getTitle());
+        assertEquals("item-87", feed.getItems().get(12).getTitle());
+    }
+
+    @Test
+    public void testIncrementalParseReadsUnsortedFeedCompletely() throws Exception {
+        Feed feed = new Feed("http://example.com/feed", null);
+        FeedHandlerResult result = new FeedHandler().parseFeed(feed, createFeedWithDates(false),
+                new KnownFeedItems(createKnownIdentifiers(90), Collections.emptySet(), 3));
+        assertTrue(result.complete);
+        assertEquals(100, feed.getItems().size());
+    }
+
+    private static Set<String> createKnownIdentifiers(int count) {
+        Set<String> identifiers = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            identifiers.add("id-" + i);
+        }
+        return identifiers;
+    }
+
+    /**
+     * Creates a feed with 100 items. Item i is published i days after item 0.
+     */
+    private static InputStream createFeedWithDates(boolean newestFirst) {
+        final long day = 24 * 60 * 60 * 1000L;
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.US);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<rss version=\"2.0\"><channel><title>title</title>");
+        for (int j = 0; j < 100; j++) {
+            int i = newestFirst ? 99 - j : j;
+            xml.append("<item><title>item-").append(i).append("</title><guid>id-").append(i).append("</guid>")
+                    .append("<pubDate>").append(format.format(new Date(1577836800000L + i * day)))
+                    .append("</pubDate></item>");
+        }
+        xml.append("</channel></rss>");
+        return new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testImageWithWhitespace() throws Exception {
         File feedFile = FeedParserTestHelper.getFeedFile("feed-rss-testImageWithWhitespace.xml");
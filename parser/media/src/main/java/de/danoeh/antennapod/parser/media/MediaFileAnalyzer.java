@@ -0,0 +1,201 @@
+package de.danoeh.antennapod.parser.media;
+
+import android.content.Context;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.danoeh.antennapod.model.MediaMetadataRetrieverCompat;
+import de.danoeh.antennapod.model.feed.Chapter;
+import de.danoeh.antennapod.parser.media.id3.ID3ReaderException;
+import de.danoeh.antennapod.parser.media.id3.Id3MetadataReader;
+import de.danoeh.antennapod.parser.media.m4a.M4AChapterReader;
+import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentMetadataReader;
+import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentReaderException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads everything that the app stores about a media file: duration, embedded picture, title, date,
+ * chapters and description. The container is read with a single MediaMetadataRetriever.
+ * The tags are read in a single pass, using only the reader that matches the signature of the file
+ * instead of trying the readers of all formats one after another.
+ */
+public class MediaFileAnalyzer {
+    private static final String TAG = "MediaFileAnalyzer";
+    private static final int SIGNATURE_LENGTH = 8;
+
+    private MediaFileAnalyzer() {
+    }
+
+    @NonNull
+    public static Result analyze(@NonNull Context context, @NonNull Uri uri) throws InterruptedIOException {
+        long start = SystemClock.elapsedRealtime();
+        Result result = new Result();
+        try (MediaMetadataRetrieverCompat mmr = new MediaMetadataRetrieverCompat()) {
+            mmr.setDataSource(context, uri);
+            String durationStr = mmr.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            if (durationStr != null && !durationStr.equals("null")) {
+                result.duration = (int) Long.parseLong(durationStr);
+            }
+            result.title = mmr.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE);
+            result.date = mmr.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DATE);
+            result.hasEmbeddedPicture = mmr.getEmbeddedPicture() != null;
+        } catch (NumberFormatException e) {
+            Log.d(TAG, "Invalid file duration: " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "Unable to read metadata of " + uri, e);
+        }
+
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Unable to open " + uri);
+            }
+            readTags(new BufferedInputStream(in), result);
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to read tags of " + uri + ": " + e.getMessage());
+        }
+        result.analysisMillis = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "Analyzed " + uri + " in " + result.analysisMillis + " ms");
+        return result;
+    }
+
+    /**
+     * Reads the chapters and the description from the ID3, Vorbis comment or M4A tags.
+     *
+     * @param in Stream of the file, positioned at its start. Needs to support mark and reset.
+     */
+    static void readTags(@NonNull InputStream in, @NonNull Result result) throws IOException {
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        in.mark(SIGNATURE_LENGTH);
+        int signatureLength = IOUtils.read(in, signature);
+        in.reset();
+
+        if (startsWith(signature, signatureLength, 0, "ID3")) {
+            Id3MetadataReader reader = new Id3MetadataReader(new CountingInputStream(in));
+            try {
+                reader.readInputStream();
+            } catch (ID3ReaderException e) {
+                Log.d(TAG, "Unable to parse ID3: " + e.getMessage());
+            }
+            result.description = reader.getComment();
+            result.chapters = cleanUpChapters(reader.getChapters());
+        } else if (startsWith(signature, signatureLength, 0, "OggS")) {
+            VorbisCommentMetadataReader reader = new VorbisCommentMetadataReader(in);
+            try {
+                reader.readInputStream();
+            } catch (VorbisCommentReaderException e) {
+                Log.d(TAG, "Unable to parse vorbis comments: " + e.getMessage());
+            }
+            result.description = reader.getDescription();
+            result.chapters = cleanUpChapters(reader.getChapters());
+        } else if (startsWith(signature, signatureLength, 4, "ftyp")) {
+            M4AChapterReader reader = new M4AChapterReader(in);
+            reader.readInputStream();
+            result.chapters = cleanUpChapters(reader.getChapters());
+        }
+    }
+
+    private static boolean startsWith(byte[] signature, int signatureLength, int offset, String expected) {
+        if (signatureLength < offset + expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (signature[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the chapters and gives a title to the ones without.
+     *
+     * @return The chapters, or null if there are none or they are invalid
+     */
+    @Nullable
+    private static List<Chapter> cleanUpChapters(@Nullable List<Chapter> chapters) {
+        if (chapters == null || chapters.isEmpty()) {
+            return null;
+        }
+        Collections.sort(chapters, (lhs, rhs) -> Long.compare(lhs.getStart(), rhs.getStart()));
+        for (int i = 0; i < chapters.size(); i++) {
+            Chapter chapter = chapters.get(i);
+            if (chapter.getTitle() == null) {
+                chapter.setTitle(Integer.toString(i));
+            }
+            if (chapter.getStart() < 0) {
+                Log.e(TAG, "Chapter data was invalid");
+                return null;
+            }
+        }
+        return chapters;
+    }
+
+    public static class Result {
+        private int duration = 0;
+        private boolean hasEmbeddedPicture = false;
+        private String title = null;
+        private String date = null;
+        private String description = null;
+        private List<Chapter> chapters = null;
+        private long analysisMillis = 0;
+
+        /**
+         * Duration in milliseconds, or 0 if unknown.
+         */
+        public int getDuration() {
+            return duration;
+        }
+
+        public boolean hasEmbeddedPicture() {
+            return hasEmbeddedPicture;
+        }
+
+        @Nullable
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * The date as returned by {@link MediaMetadataRetriever#METADATA_KEY_DATE}.
+         */
+        @Nullable
+        public String getDate() {
+            return date;
+        }
+
+        @Nullable
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Chapters embedded in the file, sorted by start time, or null if there are none.
+         */
+        @Nullable
+        public List<Chapter> getChapters() {
+            return chapters;
+        }
+
+        /**
+         * How long reading the file took.
+         */
+        public long getAnalysisMillis() {
+            return analysisMillis;
+        }
+    }
+}
@@ -8,8 +8,9 @@ import java.io.IOException;
 
 /**
  * Reads general ID3 metadata like comment, which Android's MediaMetadataReceiver does not support.
+ * Also collects the chapters, so that the tag only needs to be read once.
  */
-public class Id3MetadataReader extends ID3Reader {
+public class Id3MetadataReader extends ChapterReader {
     public static final String FRAME_ID_COMMENT = "COMM";
     public static final String FRAME_ID_CUSTOM_TEXT = "TXXX";
     public static final String CUSTOM_TEXT_COMMENT = "comment";
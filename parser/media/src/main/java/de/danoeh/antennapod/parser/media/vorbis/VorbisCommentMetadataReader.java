@@ -2,7 +2,10 @@ package de.danoeh.antennapod.parser.media.vorbis;
 
 import java.io.InputStream;
 
-public class VorbisCommentMetadataReader extends VorbisCommentReader {
+/**
+ * Reads the description. Also collects the chapters, so that the comments only need to be read once.
+ */
+public class VorbisCommentMetadataReader extends VorbisCommentChapterReader {
     private static final String KEY_DESCRIPTION = "description";
     private static final String KEY_COMMENT = "comment";
     private static final String KEY_SYNOPSIS = "synopsis";
@@ -15,15 +18,17 @@ public class VorbisCommentMetadataReader extends VorbisCommentReader {
 
     @Override
     public boolean handles(String key) {
-        return KEY_DESCRIPTION.equals(key) || KEY_COMMENT.equals(key);
+        return KEY_DESCRIPTION.equals(key) || KEY_COMMENT.equals(key) || super.handles(key);
     }
 
     @Override
-    public void onContentVectorValue(String key, String value) {
+    public void onContentVectorValue(String key, String value) throws VorbisCommentReaderException {
         if (KEY_DESCRIPTION.equals(key) || KEY_COMMENT.equals(key) || KEY_SYNOPSIS.equals(key)) {
             if (description == null || value.length() > description.length()) {
                 description = value;
             }
+        } else {
+            super.onContentVectorValue(key, value);
         }
     }
 
@@ -0,0 +1,47 @@
+package de.danoeh.antennapod.parser.media;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class MediaFileAnalyzerTest {
+
+    @Test
+    public void testReadTagsId3() throws IOException {
+        MediaFileAnalyzer.Result result = readTags("auphonic.mp3");
+        assertEquals("Summary", result.getDescription());
+        assertEquals(4, result.getChapters().size());
+        assertEquals(3000, result.getChapters().get(1).getStart());
+    }
+
+    @Test
+    public void testReadTagsVorbis() throws IOException {
+        MediaFileAnalyzer.Result result = readTags("auphonic.ogg");
+        assertEquals("Summary", result.getDescription());
+        assertEquals(4, result.getChapters().size());
+    }
+
+    @Test
+    public void testReadTagsM4a() throws IOException {
+        MediaFileAnalyzer.Result result = readTags("nero-chapters.m4a");
+        assertNull(result.getDescription());
+        assertEquals(4, result.getChapters().size());
+        assertEquals("Chapter 4", result.getChapters().get(3).getTitle());
+    }
+
+    private MediaFileAnalyzer.Result readTags(String filename) throws IOException {
+        MediaFileAnalyzer.Result result = new MediaFileAnalyzer.Result();
+        try (InputStream inputStream = getClass().getClassLoader().getResource(filename).openStream()) {
+            MediaFileAnalyzer.readTags(new BufferedInputStream(inputStream), result);
+        }
+        return result;
+    }
+}
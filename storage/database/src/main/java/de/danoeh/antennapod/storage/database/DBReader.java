@@ -5,16 +5,19 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.collection.ArrayMap;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.danoeh.antennapod.model.feed.Chapter;
+import de.danoeh.antennapod.model.feed.EpisodeListRow;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedCounter;
 import de.danoeh.antennapod.model.feed.FeedItem;
@@ -25,8 +28,10 @@ import de.danoeh.antennapod.model.feed.FeedPreferences;
 import de.danoeh.antennapod.model.feed.SortOrder;
 import de.danoeh.antennapod.model.feed.SubscriptionsFilter;
 import de.danoeh.antennapod.model.download.DownloadResult;
+import de.danoeh.antennapod.model.download.NotModifiedStatistics;
 import de.danoeh.antennapod.storage.database.mapper.ChapterCursor;
 import de.danoeh.antennapod.storage.database.mapper.DownloadResultCursor;
+import de.danoeh.antennapod.storage.database.mapper.EpisodeListRowCursor;
 import de.danoeh.antennapod.storage.database.mapper.FeedCursor;
 import de.danoeh.antennapod.storage.database.mapper.FeedItemCursor;
 
@@ -43,6 +48,23 @@ public final class DBReader {
      * Maximum size of the list returned by {@link #getDownloadLog()}.
      */
     private static final int DOWNLOAD_LOG_SIZE = 200;
+    /**
+     * Maximum number of podcast search results.
+     */
+    private static final int SEARCH_RESULT_LIMIT = 300;
+    /**
+     * Maximum number of episode matches that are ranked. Only the newest matches are considered,
+     * so that searching for a very common word does not score every episode in the database.
+     */
+    private static final int SEARCH_CANDIDATE_LIMIT = 1000;
+    /**
+     * Weights of hits in title and description. Matching the title is a much stronger signal.
+     */
+    private static final double[] ITEM_SEARCH_COLUMN_WEIGHTS = {4, 1};
+    /**
+     * Weights of hits in title, custom title, author and description.
+     */
+    private static final double[] FEED_SEARCH_COLUMN_WEIGHTS = {4, 4, 2, 1};
 
 
     private DBReader() {
@@ -57,19 +79,7 @@ public final class DBReader {
      */
     @NonNull
     public static List<Feed> getFeedList() {
-        Log.d(TAG, "Extracting Feedlist");
-
-        PodDBAdapter adapter = PodDBAdapter.getInstance();
-        adapter.open();
-        try (FeedCursor cursor = new FeedCursor(adapter.getAllFeedsCursor())) {
-            List<Feed> feeds = new ArrayList<>(cursor.getCount());
-            while (cursor.moveToNext()) {
-                feeds.add(cursor.getFeed());
-            }
-            return feeds;
-        } finally {
-            adapter.close();
-        }
+        return FeedCache.getInstance().getFeeds();
     }
 
     /**
@@ -105,8 +115,8 @@ public final class DBReader {
     }
 
     private static void loadTagsOfFeedItemList(List<FeedItem> items) {
-        LongList favoriteIds = getFavoriteIDList();
-        LongList queueIds = getQueueIDList();
+        LongHashSet favoriteIds = getFavoriteIDSet();
+        LongHashSet queueIds = getQueueIDSet();
 
         for (FeedItem item : items) {
             if (favoriteIds.contains(item.getId())) {
@@ -126,14 +136,14 @@ public final class DBReader {
      * @param items The FeedItems whose Feed-objects should be loaded.
      */
     private static void loadFeedDataOfFeedItemList(List<FeedItem> items) {
-        List<Feed> feeds = getFeedList();
-
-        Map<Long, Feed> feedIndex = new ArrayMap<>(feeds.size());
-        for (Feed feed : feeds) {
-            feedIndex.put(feed.getId(), feed);
-        }
+        FeedCache cache = FeedCache.getInstance();
+        Map<Long, Feed> feeds = new HashMap<>();
         for (FeedItem item : items) {
-            Feed feed = feedIndex.get(item.getFeedId());
+            Feed feed = feeds.get(item.getFeedId());
+            if (feed == null) {
+                feed = cache.getFeed(item.getFeedId());
+                feeds.put(item.getFeedId(), feed);
+            }
             if (feed == null) {
                 Log.w(TAG, "No match found for item with ID " + item.getId() + ". Feed ID was " + item.getFeedId());
                 feed = new Feed("", "", "Error: Item without feed");
@@ -157,17 +167,42 @@ public final class DBReader {
         adapter.open();
         try (FeedItemCursor cursor = new FeedItemCursor(adapter.getItemsOfFeedCursor(
                 feed, filter, sortOrder, offset, limit))) {
-            List<FeedItem> items = extractItemlistFromCursor(cursor);
-            feed.setItems(items);
-            for (FeedItem item : items) {
-                item.setFeed(feed);
-            }
-            return items;
+            return extractItemlistOfFeed(feed, cursor);
         } finally {
             adapter.close();
         }
     }
 
+    /**
+     * Same as {@link #getFeedItemList(Feed, FeedItemFilter, SortOrder, int, int)}, but loads the items
+     * that directly follow lastItem in the sort order. Loading a page costs the same, no matter how far
+     * down the list it is.
+     *
+     * @param lastItem The last item of the previous page
+     */
+    public static List<FeedItem> getFeedItemList(final Feed feed, final FeedItemFilter filter, SortOrder sortOrder,
+                                                 @NonNull FeedItem lastItem, int limit) {
+        Log.d(TAG, "getFeedItemList() called with: " + "feed = [" + feed + "], lastItem = [" + lastItem + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (FeedItemCursor cursor = new FeedItemCursor(adapter.getItemsOfFeedCursor(
+                feed, filter, sortOrder, lastItem, limit))) {
+            return extractItemlistOfFeed(feed, cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private static List<FeedItem> extractItemlistOfFeed(Feed feed, FeedItemCursor cursor) {
+        List<FeedItem> items = extractItemlistFromCursor(cursor);
+        feed.setItems(items);
+        for (FeedItem item : items) {
+            item.setFeed(feed);
+        }
+        return items;
+    }
+
     @NonNull
     private static List<FeedItem> extractItemlistFromCursor(FeedItemCursor cursor) {
         List<FeedItem> result = new ArrayList<>(cursor.getCount());
@@ -198,6 +233,81 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the IDs of the FeedItems in the queue, for checking whether items are queued.
+     */
+    public static LongHashSet getQueueIDSet() {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getQueueIDCursor()) {
+            LongHashSet queueIds = new LongHashSet(cursor.getCount());
+            while (cursor.moveToNext()) {
+                queueIds.add(cursor.getLong(0));
+            }
+            return queueIds;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the items of a feed with only the attributes that identify them: ID, item identifier, title, link,
+     * publication date, play state, and the ID, download URL, duration and MIME type of their media.
+     * This is enough to match the items of a refreshed feed against the stored ones without loading
+     * every stored item completely. The items do not have their feed set.
+     *
+     * @param contentHashes Receives the content hash of every item by item ID, see {@link FeedItemContentHash}.
+     */
+    @NonNull
+    static List<FeedItem> getFeedItemIdentities(long feedId, @NonNull Map<Long, Long> contentHashes) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedItemIdentitiesCursor(feedId)) {
+            List<FeedItem> items = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                FeedItem item = new FeedItem(cursor.getLong(0), cursor.getString(2), cursor.getString(1),
+                        cursor.getString(3), new Date(cursor.getLong(4)), cursor.getInt(5), null);
+                if (!cursor.isNull(7)) {
+                    FeedMedia media = new FeedMedia(item, cursor.getString(8), 0, cursor.getString(10));
+                    media.setId(cursor.getLong(7));
+                    media.setDuration(cursor.getInt(9));
+                    item.setMedia(media);
+                }
+                items.add(item);
+                contentHashes.put(item.getId(), cursor.getLong(6));
+            }
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the FeedItems with the given IDs, with a few queries instead of one per item.
+     * Does NOT load additional attributes like feed or queue state.
+     */
+    @NonNull
+    static List<FeedItem> getFeedItemsById(@NonNull LongList ids) {
+        List<FeedItem> items = new ArrayList<>(ids.size());
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            for (int from = 0; from < ids.size(); from += PodDBAdapter.IN_OPERATOR_MAXIMUM) {
+                int to = Math.min(ids.size(), from + PodDBAdapter.IN_OPERATOR_MAXIMUM);
+                String[] chunk = new String[to - from];
+                for (int i = from; i < to; i++) {
+                    chunk[i - from] = String.valueOf(ids.get(i));
+                }
+                try (FeedItemCursor cursor = new FeedItemCursor(adapter.getFeedItemCursor(chunk))) {
+                    items.addAll(extractItemlistFromCursor(cursor));
+                }
+            }
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Gets the remaining queue size, given a current item, including the current item.
      * If the current item is not found it will return 0.
@@ -236,13 +346,13 @@ public final class DBReader {
         }
     }
 
-    private static LongList getFavoriteIDList() {
-        Log.d(TAG, "getFavoriteIDList() called");
+    private static LongHashSet getFavoriteIDSet() {
+        Log.d(TAG, "getFavoriteIDSet() called");
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
         try (Cursor cursor = adapter.getFavoritesIdsCursor()) {
-            LongList favoriteIDs = new LongList(cursor.getCount());
+            LongHashSet favoriteIDs = new LongHashSet(cursor.getCount());
             while (cursor.moveToNext()) {
                 favoriteIDs.add(cursor.getLong(0));
             }
@@ -272,6 +382,60 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the episodes that directly follow lastItem in the sort order.
+     * Unlike {@link #getEpisodes(int, int, FeedItemFilter, SortOrder)}, loading a page costs the same,
+     * no matter how far down the list it is.
+     *
+     * @param lastItem The last episode of the previous page.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @param filter The filter describing which episodes to filter out.
+     */
+    @NonNull
+    public static List<FeedItem> getEpisodes(@NonNull FeedItem lastItem, int limit, FeedItemFilter filter,
+                                             SortOrder sortOrder) {
+        Log.d(TAG, "getEpisodes() called with: lastItem=" + lastItem.getId() + ", limit=" + limit);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (FeedItemCursor cursor = new FeedItemCursor(
+                adapter.getEpisodesCursor(lastItem, limit, filter, sortOrder))) {
+            List<FeedItem> items = extractItemlistFromCursor(cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the same episodes as {@link #getEpisodes(int, int, FeedItemFilter, SortOrder)}, but only
+     * with what a row of an episode list shows. Use {@link #getFeedItem(long)} to load the whole episode.
+     *
+     * @param offset The first episode that should be loaded.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @param filter The filter describing which episodes to filter out.
+     */
+    @NonNull
+    public static List<EpisodeListRow> getEpisodeListRows(int offset, int limit, FeedItemFilter filter,
+                                                          SortOrder sortOrder) {
+        Log.d(TAG, "getEpisodeListRows() called with: offset=" + offset + ", limit=" + limit);
+        LongHashSet favoriteIds = getFavoriteIDSet();
+        LongHashSet queueIds = getQueueIDSet();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (EpisodeListRowCursor cursor = new EpisodeListRowCursor(
+                adapter.getEpisodeListRowsCursor(offset, limit, filter, sortOrder))) {
+            List<EpisodeListRow> rows = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                long id = cursor.getItemId();
+                rows.add(cursor.getEpisodeListRow(queueIds.contains(id), favoriteIds.contains(id)));
+            }
+            return rows;
+        } finally {
+            adapter.close();
+        }
+    }
+
     public static int getTotalEpisodeCount(FeedItemFilter filter) {
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
@@ -356,6 +520,59 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads how often refreshing a feed was answered with 304 Not Modified and how much traffic that saved.
+     */
+    @NonNull
+    public static NotModifiedStatistics getFeedNotModifiedStatistics(long feedId) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedNotModifiedStatisticsCursor(feedId)) {
+            if (cursor.moveToFirst()) {
+                return new NotModifiedStatistics(cursor.getInt(0), cursor.getLong(1));
+            }
+            return new NotModifiedStatistics(0, 0);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the identifiers (guid/id) of all items of a feed.
+     */
+    @NonNull
+    public static Set<String> getFeedItemIdentifiers(long feedId) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedItemIdentifiersCursor(feedId)) {
+            return readStrings(cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the download URLs of the media of all items of a feed.
+     */
+    @NonNull
+    public static Set<String> getFeedMediaDownloadUrls(long feedId) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedMediaDownloadUrlsCursor(feedId)) {
+            return readStrings(cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private static Set<String> readStrings(Cursor cursor) {
+        Set<String> result = new HashSet<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            result.add(cursor.getString(0));
+        }
+        return result;
+    }
+
     /**
      * Loads a specific Feed from the database.
      *
@@ -366,6 +583,22 @@ public final class DBReader {
      */
     @Nullable
     public static Feed getFeed(final long feedId, boolean filtered, int offset, int limit) {
+        return getFeed(feedId, filtered, null, offset, limit);
+    }
+
+    /**
+     * Same as {@link #getFeed(long, boolean, int, int)}, but loads the items that directly follow lastItem.
+     *
+     * @param lastItem The last item of the previous page
+     */
+    @Nullable
+    public static Feed getFeed(final long feedId, boolean filtered, @NonNull FeedItem lastItem, int limit) {
+        return getFeed(feedId, filtered, lastItem, 0, limit);
+    }
+
+    @Nullable
+    private static Feed getFeed(final long feedId, boolean filtered, @Nullable FeedItem lastItem,
+                                int offset, int limit) {
         Log.d(TAG, "getFeed() called with: " + "feedId = [" + feedId + "]");
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
@@ -376,7 +609,9 @@ public final class DBReader {
                 FeedItemFilter filter = (filtered && feed.getItemFilter() != null)
                         ? feed.getItemFilter() : FeedItemFilter.unfiltered();
                 filter = new FeedItemFilter(filter, FeedItemFilter.INCLUDE_NOT_SUBSCRIBED);
-                List<FeedItem> items = getFeedItemList(feed, filter, feed.getSortOrder(), offset, limit);
+                List<FeedItem> items = lastItem != null
+                        ? getFeedItemList(feed, filter, feed.getSortOrder(), lastItem, limit)
+                        : getFeedItemList(feed, filter, feed.getSortOrder(), offset, limit);
                 for (FeedItem item : items) {
                     item.setFeed(feed);
                 }
@@ -478,6 +713,82 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the FeedItems of many GUIDs or episode URLs at once, with a few queries instead of one per item.
+     * Each item is matched like in {@link #getFeedItemByGuidOrEpisodeUrl(String, String)}.
+     *
+     * @param guids       feed item guids. An entry may be null to look up the item by its episode URL.
+     * @param episodeUrls the feed items' urls, in the same order as the guids
+     * @return The FeedItems in the same order as the parameters, or null if a FeedItem could not be found.
+     *          Does NOT load additional attributes like feed or queue state.
+     */
+    @NonNull
+    public static List<FeedItem> getFeedItemsByGuidOrEpisodeUrl(List<String> guids, List<String> episodeUrls) {
+        Set<String> guidsToLoad = new HashSet<>();
+        Set<String> episodeUrlsToLoad = new HashSet<>();
+        for (int i = 0; i < guids.size(); i++) {
+            if (guids.get(i) != null) {
+                guidsToLoad.add(guids.get(i));
+            } else if (episodeUrls.get(i) != null) {
+                episodeUrlsToLoad.add(episodeUrls.get(i));
+            }
+        }
+
+        Map<String, FeedItem> itemsByGuid = new HashMap<>();
+        Map<String, FeedItem> itemsByEpisodeUrl = new HashMap<>();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            for (List<String> chunk : splitIntoChunks(guidsToLoad)) {
+                try (FeedItemCursor cursor = new FeedItemCursor(adapter.getFeedItemCursorByGuids(chunk))) {
+                    for (FeedItem item : extractItemlistFromCursor(cursor)) {
+                        if (!itemsByGuid.containsKey(item.getItemIdentifier())) {
+                            itemsByGuid.put(item.getItemIdentifier(), item);
+                        }
+                    }
+                }
+            }
+            for (List<String> chunk : splitIntoChunks(episodeUrlsToLoad)) {
+                try (FeedItemCursor cursor = new FeedItemCursor(adapter.getFeedItemCursorByEpisodeUrls(chunk))) {
+                    for (FeedItem item : extractItemlistFromCursor(cursor)) {
+                        String episodeUrl = item.getMedia() != null ? item.getMedia().getDownloadUrl() : null;
+                        if (episodeUrl != null && !itemsByEpisodeUrl.containsKey(episodeUrl)) {
+                            itemsByEpisodeUrl.put(episodeUrl, item);
+                        }
+                    }
+                }
+            }
+        } finally {
+            adapter.close();
+        }
+
+        List<FeedItem> result = new ArrayList<>(guids.size());
+        for (int i = 0; i < guids.size(); i++) {
+            if (guids.get(i) != null) {
+                result.add(itemsByGuid.get(guids.get(i)));
+            } else {
+                result.add(itemsByEpisodeUrl.get(episodeUrls.get(i)));
+            }
+        }
+        return result;
+    }
+
+    private static List<List<String>> splitIntoChunks(Set<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        for (String value : values) {
+            if (chunk.size() == PodDBAdapter.IN_OPERATOR_MAXIMUM) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunk.add(value);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
     /**
      * Loads shownotes information about a FeedItem.
      *
@@ -490,7 +801,7 @@ public final class DBReader {
         try (Cursor cursor = adapter.getDescriptionOfItem(item)) {
             if (cursor.moveToFirst()) {
                 int indexDescription = cursor.getColumnIndex(PodDBAdapter.KEY_DESCRIPTION);
-                String description = cursor.getString(indexDescription);
+                String description = FeedItemDescriptionTable.decompress(cursor.getBlob(indexDescription));
                 item.setDescriptionIfLonger(description);
             }
         } finally {
@@ -618,7 +929,9 @@ public final class DBReader {
     }
 
     /**
-     * Searches the DB for statistics.
+     * Searches the DB for statistics. The totals are read from the statistics table. Only the played time
+     * of a limited time frame and the recently published episodes need to look at single episodes,
+     * which the indexes on their dates keep cheap.
      *
      * @return The list of statistics objects
      */
@@ -630,32 +943,50 @@ public final class DBReader {
 
         StatisticsResult result = new StatisticsResult();
         long sixMonthsAgo = System.currentTimeMillis() - (long) (1000L * 3600 * 24 * 30.44 * 6);
-        try (FeedCursor cursor = new FeedCursor(adapter.getFeedStatisticsCursor(
-                includeMarkedAsPlayed, timeFilterFrom, timeFilterTo, sixMonthsAgo))) {
-            int indexOldestDate = cursor.getColumnIndexOrThrow("oldest_date");
+        Map<Long, Long> filteredPlayedTime = null;
+        if (timeFilterFrom > 0 || timeFilterTo != Long.MAX_VALUE) {
+            filteredPlayedTime = new HashMap<>();
+            try (Cursor cursor = adapter.getFeedPlayedTimeCursor(includeMarkedAsPlayed, timeFilterFrom, timeFilterTo)) {
+                while (cursor.moveToNext()) {
+                    filteredPlayedTime.put(cursor.getLong(0), cursor.getLong(1));
+                }
+            }
+        }
+        LongHashSet feedsWithRecentUnplayed = new LongHashSet();
+        try (Cursor cursor = adapter.getRecentUnplayedCountCursor(sixMonthsAgo)) {
+            while (cursor.moveToNext()) {
+                feedsWithRecentUnplayed.add(cursor.getLong(0));
+            }
+        }
+        try (Cursor cursor = adapter.getOldestPlayedTimeCursor()) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                result.oldestDate = Math.min(result.oldestDate, cursor.getLong(0));
+            }
+        }
+
+        try (FeedCursor cursor = new FeedCursor(adapter.getFeedStatisticsCursor(includeMarkedAsPlayed))) {
             int indexNumEpisodes = cursor.getColumnIndexOrThrow("num_episodes");
             int indexEpisodesStarted = cursor.getColumnIndexOrThrow("episodes_started");
             int indexTotalTime = cursor.getColumnIndexOrThrow("total_time");
             int indexPlayedTime = cursor.getColumnIndexOrThrow("played_time");
             int indexNumDownloaded = cursor.getColumnIndexOrThrow("num_downloaded");
             int indexDownloadSize = cursor.getColumnIndexOrThrow("download_size");
-            int indexNumRecentUnplayed = cursor.getColumnIndexOrThrow("num_recent_unplayed");
 
             while (cursor.moveToNext()) {
                 Feed feed = cursor.getFeed();
 
-                long feedPlayedTime = cursor.getLong(indexPlayedTime) / 1000;
+                long feedPlayedTime = cursor.getLong(indexPlayedTime);
+                if (filteredPlayedTime != null) {
+                    Long playedTime = filteredPlayedTime.get(feed.getId());
+                    feedPlayedTime = playedTime != null ? playedTime : 0;
+                }
+                feedPlayedTime /= 1000;
                 long feedTotalTime = cursor.getLong(indexTotalTime) / 1000;
                 long episodes = cursor.getLong(indexNumEpisodes);
                 long episodesStarted = cursor.getLong(indexEpisodesStarted);
                 long totalDownloadSize = cursor.getLong(indexDownloadSize);
                 long episodesDownloadCount = cursor.getLong(indexNumDownloaded);
-                long oldestDate = cursor.getLong(indexOldestDate);
-                boolean hasRecentUnplayed = cursor.getLong(indexNumRecentUnplayed) > 0;
-
-                if (episodes > 0 && oldestDate < Long.MAX_VALUE) {
-                    result.oldestDate = Math.min(result.oldestDate, oldestDate);
-                }
+                boolean hasRecentUnplayed = feedsWithRecentUnplayed.contains(feed.getId());
 
                 result.feedTime.add(new StatisticsItem(feed, feedTotalTime, feedPlayedTime, episodes,
                         episodesStarted, totalDownloadSize, episodesDownloadCount, hasRecentUnplayed));
@@ -756,8 +1087,14 @@ public final class DBReader {
 
         Collections.sort(feeds, comparator);
         final int queueSize = adapter.getQueueSize();
-        final int numNewItems = getTotalEpisodeCount(new FeedItemFilter(FeedItemFilter.NEW));
-        final int numDownloadedItems = getTotalEpisodeCount(new FeedItemFilter(FeedItemFilter.DOWNLOADED));
+        int numNewItems = 0;
+        int numDownloadedItems = 0;
+        try (Cursor cursor = adapter.getTotalFeedCountersCursor()) {
+            if (cursor.moveToFirst()) {
+                numNewItems = cursor.getInt(0);
+                numDownloadedItems = cursor.getInt(1);
+            }
+        }
 
         NavDrawerData.TagItem untaggedTag = new NavDrawerData.TagItem(FeedPreferences.TAG_UNTAGGED);
         Map<String, NavDrawerData.TagItem> tags = new HashMap<>();
@@ -826,11 +1163,53 @@ public final class DBReader {
         return tagsSorted;
     }
 
-    public static List<FeedItem> searchFeedItems(final long feedId, final String query, int state) {
+    /**
+     * Searches the title and description of episodes. The best matches come first.
+     * Only the newest {@link #SEARCH_CANDIDATE_LIMIT} matches are ranked, which also limits the number of pages.
+     *
+     * @param feedId Only search the episodes of this feed, or 0 to search all feeds with the given state.
+     * @param offset Number of results to skip, for loading further pages.
+     * @param limit  Maximum number of results to return.
+     */
+    public static List<FeedItem> searchFeedItems(final long feedId, final String query, int state,
+                                                 int offset, int limit) {
+        String matchQuery = FullTextSearch.toMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        try (FeedItemCursor searchResult = new FeedItemCursor(adapter.searchItems(feedId, query, state))) {
-            List<FeedItem> items = extractItemlistFromCursor(searchResult);
+        try {
+            long[] rankedIds = rankFeedItems(adapter, feedId, matchQuery, state);
+            int from = Math.min(rankedIds.length, Math.max(0, offset));
+            int to = Math.min(rankedIds.length, from + Math.max(0, limit));
+            if (from == to) {
+                return new ArrayList<>();
+            }
+
+            String[] ids = new String[to - from];
+            LongIntMap positions = new LongIntMap(to - from);
+            for (int i = from; i < to; i++) {
+                ids[i - from] = String.valueOf(rankedIds[i]);
+                positions.put(rankedIds[i], i - from);
+            }
+            FeedItem[] sorted = new FeedItem[to - from];
+            try (FeedItemCursor cursor = new FeedItemCursor(adapter.getFeedItemCursor(ids))) {
+                for (FeedItem item : extractItemlistFromCursor(cursor)) {
+                    int position = positions.get(item.getId(), -1);
+                    if (position < 0) {
+                        Log.e(TAG, "Loaded search result that was not requested: " + item.getId());
+                        continue;
+                    }
+                    sorted[position] = item;
+                }
+            }
+            List<FeedItem> items = new ArrayList<>(to - from);
+            for (FeedItem item : sorted) {
+                if (item != null) {
+                    items.add(item);
+                }
+            }
             loadAdditionalFeedItemListData(items);
             return items;
         } finally {
@@ -838,17 +1217,69 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Scores the newest matches of an episode search.
+     *
+     * @return The IDs of the matching episodes, best match first.
+     */
+    private static long[] rankFeedItems(PodDBAdapter adapter, long feedId, String matchQuery, int state) {
+        List<SearchResult<Long>> results = new ArrayList<>();
+        try (Cursor cursor = adapter.searchItems(feedId, matchQuery, state, SEARCH_CANDIDATE_LIMIT)) {
+            while (cursor.moveToNext()) {
+                double score = FullTextSearch.bm25(cursor.getBlob(1), ITEM_SEARCH_COLUMN_WEIGHTS);
+                results.add(new SearchResult<>(cursor.getLong(0), score));
+            }
+        }
+        List<SearchResult<Long>> ranked = getResultPage(results, 0, results.size());
+        long[] ids = new long[ranked.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ranked.get(i).value;
+        }
+        return ids;
+    }
+
+    /**
+     * Searches the title, author and description of podcasts. The best matches come first.
+     */
     public static List<Feed> searchFeeds(final String query, int state) {
+        String matchQuery = FullTextSearch.toMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        try (FeedCursor cursor = new FeedCursor(adapter.searchFeeds(query, state))) {
-            List<Feed> items = new ArrayList<>();
+        try (FeedCursor cursor = new FeedCursor(adapter.searchFeeds(matchQuery, state))) {
+            int indexMatchinfo = cursor.getColumnIndexOrThrow(PodDBAdapter.SELECT_KEY_MATCHINFO);
+            List<SearchResult<Feed>> results = new ArrayList<>();
             while (cursor.moveToNext()) {
-                items.add(cursor.getFeed());
+                double score = FullTextSearch.bm25(cursor.getBlob(indexMatchinfo), FEED_SEARCH_COLUMN_WEIGHTS);
+                results.add(new SearchResult<>(cursor.getFeed(), score));
             }
-            return items;
+            List<Feed> feeds = new ArrayList<>();
+            for (SearchResult<Feed> result : getResultPage(results, 0, SEARCH_RESULT_LIMIT)) {
+                feeds.add(result.value);
+            }
+            return feeds;
         } finally {
             adapter.close();
         }
     }
+
+    private static <T> List<SearchResult<T>> getResultPage(List<SearchResult<T>> results, int offset, int limit) {
+        // Stable sort, so equally good matches stay in the order of the database query
+        Collections.sort(results, (a, b) -> Double.compare(b.score, a.score));
+        int from = Math.min(results.size(), Math.max(0, offset));
+        int to = Math.min(results.size(), from + Math.max(0, limit));
+        return results.subList(from, to);
+    }
+
+    private static class SearchResult<T> {
+        final T value;
+        final double score;
+
+        SearchResult(T value, double score) {
+            this.value = value;
+            this.score = score;
+        }
+    }
 }
@@ -355,6 +355,54 @@ class DBUpgrader {
             db.execSQL("DELETE FROM " + PodDBAdapter.TABLE_NAME_FAVORITES + " WHERE " + PodDBAdapter.KEY_FEEDITEM
                     + " NOT IN (SELECT " + PodDBAdapter.KEY_ID + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + ")");
         }
+        if (oldVersion < 3120000) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CONTENT_HASH + " INTEGER DEFAULT " + FeedItemContentHash.NONE);
+
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_ETAG + " TEXT");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_LAST_DOWNLOAD_SIZE + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_NOT_MODIFIED_BYTES_SAVED + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_LAST_FULL_PARSE + " INTEGER DEFAULT 0");
+            // The last_update column used to hold the ETag if the server did not send a Last-Modified header.
+            // ETags are quoted strings, optionally prefixed with W/ for weak validators.
+            final String isEtag = PodDBAdapter.KEY_LASTUPDATE + " LIKE '\"%'"
+                    + " OR " + PodDBAdapter.KEY_LASTUPDATE + " LIKE 'W/%'";
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " SET " + PodDBAdapter.KEY_ETAG + " = " + PodDBAdapter.KEY_LASTUPDATE + ", "
+                    + PodDBAdapter.KEY_LASTUPDATE + " = NULL"
+                    + " WHERE " + isEtag);
+
+            for (String statement : FeedItemDescriptionTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            FeedItemDescriptionTable.migrate(db);
+            for (String statement : PodDBAdapter.CREATE_FEEDS_FULL_TEXT_INDEX) {
+                db.execSQL(statement);
+            }
+            db.execSQL("INSERT INTO " + PodDBAdapter.TABLE_NAME_FEEDS_FTS + "("
+                    + PodDBAdapter.TABLE_NAME_FEEDS_FTS + ") VALUES('rebuild')");
+
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDITEMS_FEED_PUBDATE);
+
+            for (String statement : FeedStatisticsTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            db.execSQL(FeedStatisticsTable.getRebuildStatement());
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_LAST_PLAYED_TIME_STATISTICS);
+
+            for (String statement : FeedCountersTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            for (String statement : FeedCountersTable.getRebuildStatements()) {
+                db.execSQL(statement);
+            }
+        }
     }
 
 }
@@ -35,6 +35,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.FavoritesEvent;
 import de.danoeh.antennapod.event.FeedItemEvent;
 import de.danoeh.antennapod.event.FeedListUpdateEvent;
@@ -195,7 +196,7 @@ public class DBWriter {
             if (!feed.isLocalFeed() && feed.getState() != Feed.STATE_NOT_SUBSCRIBED) {
                 SynchronizationQueue.getInstance().enqueueFeedRemoved(feed.getDownloadUrl());
             }
-            EventBus.getDefault().post(new FeedListUpdateEvent(feed));
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(feed));
         });
     }
 
@@ -213,11 +214,13 @@ public class DBWriter {
      * Deleting media also removes the download log entries.
      */
     private static void deleteFeedItemsSynchronous(@NonNull Context context, @NonNull List<FeedItem> items) {
-        List<FeedItem> queue = DBReader.getQueue();
+        LongHashSet queueIds = DBReader.getQueueIDSet();
         List<FeedItem> removedFromQueue = new ArrayList<>();
+        QueueMutations queueMutations = new QueueMutations();
         for (FeedItem item : items) {
-            if (queue.remove(item)) {
+            if (queueIds.remove(item.getId())) {
                 removedFromQueue.add(item);
+                queueMutations.remove(item.getId());
             }
             if (item.getMedia() != null) {
                 if (item.getMedia().getId() == PlaybackPreferences.getCurrentlyPlayingFeedMediaId()) {
@@ -238,8 +241,8 @@ public class DBWriter {
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        if (!removedFromQueue.isEmpty()) {
-            adapter.setQueue(queue);
+        if (!queueMutations.isEmpty()) {
+            adapter.applyQueueMutations(queueMutations);
         }
         adapter.removeFeedItems(items);
         adapter.close();
@@ -349,13 +352,15 @@ public class DBWriter {
         return runOnDbThread(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            final List<FeedItem> queue = DBReader.getQueue();
+            final LongHashSet queueIds = DBReader.getQueueIDSet();
 
-            if (!itemListContains(queue, itemId)) {
+            if (!queueIds.contains(itemId)) {
                 FeedItem item = DBReader.getFeedItem(itemId);
                 if (item != null) {
-                    queue.add(index, item);
-                    adapter.setQueue(queue);
+                    if (index < 0 || index > queueIds.size()) {
+                        throw new IndexOutOfBoundsException("Index " + index + ", queue size " + queueIds.size());
+                    }
+                    adapter.applyQueueMutations(new QueueMutations().insert(item, index));
                     item.addTag(FeedItem.TAG_QUEUE);
                     EventBus.getDefault().post(QueueEvent.added(item, index));
                     EventBus.getDefault().post(FeedItemEvent.updated(item));
@@ -390,6 +395,7 @@ public class DBWriter {
             List<FeedItem>  markAsUnplayed = new ArrayList<>();
             List<QueueEvent> events = new ArrayList<>();
             List<FeedItem> updatedItems = new ArrayList<>();
+            QueueMutations queueMutations = new QueueMutations();
             ItemEnqueuePositionCalculator positionCalculator =
                     new ItemEnqueuePositionCalculator(UserPreferences.getEnqueueLocation());
             Playable currentlyPlaying = DBReader.getFeedMedia(PlaybackPreferences.getCurrentlyPlayingFeedMediaId());
@@ -401,6 +407,7 @@ public class DBWriter {
                     continue;
                 }
                 queue.add(insertPosition, item);
+                queueMutations.insert(item, insertPosition);
                 events.add(QueueEvent.added(item, insertPosition));
 
                 item.addTag(FeedItem.TAG_QUEUE);
@@ -411,8 +418,11 @@ public class DBWriter {
                 insertPosition++;
             }
             if (!updatedItems.isEmpty()) {
-                applySortOrder(queue, events);
-                adapter.setQueue(queue);
+                if (applySortOrder(queue, events)) {
+                    adapter.setQueue(queue);
+                } else {
+                    adapter.applyQueueMutations(queueMutations);
+                }
                 for (QueueEvent event : events) {
                     EventBus.getDefault().post(event);
                 }
@@ -432,18 +442,19 @@ public class DBWriter {
      *
      * @param queue  The queue to be sorted.
      * @param events Replaces the events by a single SORT event if the list has to be sorted automatically.
+     * @return true if the queue was sorted.
      */
-    private static void applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
+    private static boolean applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
         if (!UserPreferences.isQueueKeepSorted()) {
             // queue is not in keep sorted mode, there's nothing to do
-            return;
+            return false;
         }
 
         // Sort queue by configured sort order
         SortOrder sortOrder = UserPreferences.getQueueKeepSortedOrder();
         if (sortOrder == SortOrder.RANDOM) {
             // do not shuffle the list on every change
-            return;
+            return false;
         }
         Permutor<FeedItem> permutor = FeedItemPermutors.getPermutor(sortOrder);
         permutor.reorder(queue);
@@ -451,6 +462,7 @@ public class DBWriter {
         // Replace ADDED events by a single SORTED event
         events.clear();
         events.add(QueueEvent.sorted(queue));
+        return true;
     }
 
     /**
@@ -492,21 +504,22 @@ public class DBWriter {
         }
         final PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        final List<FeedItem> queue = DBReader.getQueue();
+        final LongHashSet queueIds = DBReader.getQueueIDSet();
 
         boolean queueModified = false;
         List<QueueEvent> events = new ArrayList<>();
         List<FeedItem> updatedItems = new ArrayList<>();
+        QueueMutations queueMutations = new QueueMutations();
         for (long itemId : itemIds) {
-            int position = indexInItemList(queue, itemId);
-            if (position >= 0) {
+            if (queueIds.contains(itemId)) {
                 final FeedItem item = DBReader.getFeedItem(itemId);
                 if (item == null) {
                     Log.e(TAG, "removeQueueItem - item in queue but somehow cannot be loaded."
                             + " Item ignored. It should never happen. id:" + itemId);
                     continue;
                 }
-                queue.remove(position);
+                queueIds.remove(itemId);
+                queueMutations.remove(itemId);
                 item.removeTag(FeedItem.TAG_QUEUE);
                 events.add(QueueEvent.removed(item));
                 updatedItems.add(item);
@@ -516,7 +529,7 @@ public class DBWriter {
             }
         }
         if (queueModified) {
-            adapter.setQueue(queue);
+            adapter.applyQueueMutations(queueMutations);
             for (QueueEvent event : events) {
                 EventBus.getDefault().post(event);
             }
@@ -573,15 +586,16 @@ public class DBWriter {
         return runOnDbThread(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            final List<FeedItem> queue = DBReader.getQueue();
-
-            if (from >= 0 && from < queue.size() && to >= 0 && to < queue.size()) {
-                final FeedItem item = queue.remove(from);
-                queue.add(to, item);
+            final LongList queueIds = DBReader.getQueueIDList();
 
-                adapter.setQueue(queue);
+            if (from >= 0 && from < queueIds.size() && to >= 0 && to < queueIds.size()) {
+                final long itemId = queueIds.get(from);
+                adapter.applyQueueMutations(new QueueMutations().move(itemId, to));
                 if (broadcastUpdate) {
-                    EventBus.getDefault().post(QueueEvent.moved(item, to));
+                    final FeedItem item = DBReader.getFeedItem(itemId);
+                    if (item != null) {
+                        EventBus.getDefault().post(QueueEvent.moved(item, to));
+                    }
                 }
             }
             adapter.close();
@@ -612,6 +626,7 @@ public class DBWriter {
 
         boolean queueModified = false;
         List<QueueEvent> events = new ArrayList<>();
+        QueueMutations queueMutations = new QueueMutations();
 
         queue.removeAll(selectedItems);
         events.add(QueueEvent.setQueue(queue));
@@ -619,12 +634,13 @@ public class DBWriter {
         for (FeedItem item : selectedItems) {
             int newIndex = moveToTop ? 0 : queue.size();
             queue.add(newIndex, item);
+            queueMutations.move(item.getId(), moveToTop ? 0 : Integer.MAX_VALUE);
             events.add(QueueEvent.moved(item, newIndex));
             queueModified = true;
         }
 
         if (queueModified) {
-            adapter.setQueue(queue);
+            adapter.applyQueueMutations(queueMutations);
             for (QueueEvent event : events) {
                 EventBus.getDefault().post(event);
             }
@@ -659,7 +675,7 @@ public class DBWriter {
             adapter.setFeedItemRead(played, resetMediaPosition, items);
             adapter.close();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            CoalescingEventDispatcher.getInstance().post(new UnreadItemsUpdateEvent());
         });
     }
 
@@ -675,7 +691,7 @@ public class DBWriter {
             adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED, feedId);
             adapter.close();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            CoalescingEventDispatcher.getInstance().post(new UnreadItemsUpdateEvent());
         });
     }
 
@@ -689,7 +705,7 @@ public class DBWriter {
             adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED);
             adapter.close();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            CoalescingEventDispatcher.getInstance().post(new UnreadItemsUpdateEvent());
         });
     }
 
@@ -720,6 +736,19 @@ public class DBWriter {
         });
     }
 
+    /**
+     * Saves the feeds and only the given subset of their items.
+     * See {@link PodDBAdapter#storeChangedFeedItems(List)}.
+     */
+    static Future<?> storeChangedFeedItems(final List<FeedChangeSet> changes) {
+        return runOnDbThread(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.storeChangedFeedItems(changes);
+            adapter.close();
+        });
+    }
+
     public static Future<?> setItemList(final List<FeedItem> items) {
         return runOnDbThread(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
@@ -799,7 +828,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedPreferences(preferences);
             adapter.close();
-            EventBus.getDefault().post(new FeedListUpdateEvent(preferences.getFeedID()));
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(preferences.getFeedID()));
         });
     }
 
@@ -829,7 +858,32 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedLastUpdateFailed(feedId, lastUpdateFailed);
             adapter.close();
-            EventBus.getDefault().post(new FeedListUpdateEvent(feedId));
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(feedId));
+        });
+    }
+
+    /**
+     * Saves the size of the last complete download of a feed.
+     */
+    public static Future<?> setFeedLastDownloadSize(final long feedId, final long size) {
+        return runOnDbThread(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setFeedLastDownloadSize(feedId, size);
+            adapter.close();
+        });
+    }
+
+    /**
+     * Records that the server responded with 304 Not Modified when refreshing a feed.
+     * The size of the last complete download is counted as saved traffic.
+     */
+    public static Future<?> addFeedNotModified(final long feedId) {
+        return runOnDbThread(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.addFeedNotModified(feedId);
+            adapter.close();
         });
     }
 
@@ -839,7 +893,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedCustomTitle(feed.getId(), feed.getCustomTitle());
             adapter.close();
-            EventBus.getDefault().post(new FeedListUpdateEvent(feed));
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(feed));
         });
     }
 
@@ -864,7 +918,7 @@ public class DBWriter {
                 }
             }
             adapter.close();
-            EventBus.getDefault().post(new FeedListUpdateEvent(feed));
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(feed));
         });
     }
 
@@ -0,0 +1,121 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.storage.database.mapper.FeedCursor;
+
+/**
+ * Process-wide snapshot of all feeds without their items, so that episode lists, the navigation drawer
+ * and the feed refresh do not need to read the whole feeds table every time.
+ * Every write to the feeds table in {@link PodDBAdapter} invalidates the snapshot.
+ *
+ * <p>The snapshot keeps Feed objects that are never handed out. Every caller gets copies of its own,
+ * so changing them does not affect other callers or later reads.</p>
+ */
+public final class FeedCache {
+    private static final String TAG = "FeedCache";
+
+    private static final Object lock = new Object();
+    private static FeedCache current;
+    private static long version;
+
+    private final List<Feed> feeds;
+    private final Map<Long, Feed> feedsById;
+    private final Map<String, Feed> feedsByIdentifyingValue;
+
+    private FeedCache(List<Feed> feeds) {
+        this.feeds = feeds;
+        feedsById = new HashMap<>(feeds.size());
+        feedsByIdentifyingValue = new HashMap<>(feeds.size());
+        for (Feed feed : feeds) {
+            feedsById.put(feed.getId(), feed);
+            String identifyingValue = feed.getIdentifyingValue();
+            if (identifyingValue != null && !feedsByIdentifyingValue.containsKey(identifyingValue)) {
+                feedsByIdentifyingValue.put(identifyingValue, feed);
+            }
+        }
+    }
+
+    /**
+     * Returns the current snapshot, reading it from the database if it was invalidated.
+     */
+    @NonNull
+    static FeedCache getInstance() {
+        long loadVersion;
+        synchronized (lock) {
+            if (current != null) {
+                return current;
+            }
+            loadVersion = version;
+        }
+        FeedCache loaded = load();
+        synchronized (lock) {
+            // Do not keep the result if the feeds were changed while reading them
+            if (version == loadVersion) {
+                current = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Discards the current snapshot. Needs to be called whenever the feeds table is changed.
+     */
+    public static void invalidate() {
+        synchronized (lock) {
+            version++;
+            current = null;
+        }
+    }
+
+    private static FeedCache load() {
+        Log.d(TAG, "Extracting Feedlist");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (FeedCursor cursor = new FeedCursor(adapter.getAllFeedsCursor())) {
+            List<Feed> feeds = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                feeds.add(cursor.getFeed());
+            }
+            return new FeedCache(feeds);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Nullable
+    private static Feed copy(@Nullable Feed feed) {
+        return feed != null ? new Feed(feed) : null;
+    }
+
+    /**
+     * All feeds, sorted alphabetically by their title.
+     */
+    @NonNull
+    List<Feed> getFeeds() {
+        List<Feed> copies = new ArrayList<>(feeds.size());
+        for (Feed feed : feeds) {
+            copies.add(new Feed(feed));
+        }
+        return copies;
+    }
+
+    @Nullable
+    Feed getFeed(long feedId) {
+        return copy(feedsById.get(feedId));
+    }
+
+    @Nullable
+    Feed getFeedByIdentifyingValue(String identifyingValue) {
+        return copy(feedsByIdentifyingValue.get(identifyingValue));
+    }
+}
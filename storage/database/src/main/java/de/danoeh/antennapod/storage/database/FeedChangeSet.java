@@ -0,0 +1,25 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A feed together with the subset of its items that need to be written, and the content hash of each of them.
+ */
+class FeedChangeSet {
+    final Feed feed;
+    final List<FeedItem> items = new ArrayList<>();
+    final LongList contentHashes = new LongList();
+
+    FeedChangeSet(Feed feed) {
+        this.feed = feed;
+    }
+
+    void add(FeedItem item, long contentHash) {
+        items.add(item);
+        contentHashes.add(contentHash);
+    }
+}
@@ -0,0 +1,126 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.text.TextUtils;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.storage.database.FeedRollupTriggers.MediaColumns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_DOWNLOAD_DATE;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEED;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEEDITEM;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_ID;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_PUBDATE;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_READ;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_ITEMS;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_MEDIA;
+
+/**
+ * Episode counters of each feed, as shown in the navigation drawer and the subscriptions screen.
+ * Triggers on the episode and media tables keep them up to date, in the same transaction as the change
+ * of the episode, see {@link FeedRollupTriggers}.
+ */
+final class FeedCountersTable {
+    static final String TABLE_NAME = "FeedCounters";
+    static final String KEY_NUM_NEW = "num_new";
+    static final String KEY_NUM_UNPLAYED = "num_unplayed";
+    static final String KEY_NUM_DOWNLOADED = "num_downloaded";
+    static final String KEY_NUM_DOWNLOADED_UNPLAYED = "num_downloaded_unplayed";
+    static final String KEY_NUM_PLAYED = "num_played";
+    static final String KEY_MOST_RECENT_PUBDATE = "most_recent_pubdate";
+
+    private static final String[] COUNTER_COLUMNS = {
+        KEY_NUM_NEW, KEY_NUM_UNPLAYED, KEY_NUM_DOWNLOADED, KEY_NUM_DOWNLOADED_UNPLAYED, KEY_NUM_PLAYED
+    };
+
+    private static final String[] KEY_COLUMNS = {KEY_FEED};
+
+    private FeedCountersTable() {
+    }
+
+    static String[] getCreateStatements() {
+        StringBuilder columns = new StringBuilder();
+        for (String column : COUNTER_COLUMNS) {
+            columns.append(column).append(" INTEGER DEFAULT 0, ");
+        }
+        FeedRollupTriggers.Rollup rollup = new FeedRollupTriggers.Rollup() {
+            @Override
+            public String add(String sign, String feed, String read, MediaColumns media) {
+                return FeedCountersTable.add(sign, feed, read, media.get(KEY_DOWNLOAD_DATE));
+            }
+
+            @Override
+            public String afterItemChange(String feed) {
+                return updateMostRecentPubDate(feed);
+            }
+        };
+
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE TABLE " + TABLE_NAME + " (" + KEY_FEED + " INTEGER PRIMARY KEY, "
+                + columns + KEY_MOST_RECENT_PUBDATE + " INTEGER DEFAULT 0)");
+        statements.addAll(Arrays.asList(FeedRollupTriggers.getCreateTriggerStatements(TABLE_NAME,
+                KEY_FEED + ", " + KEY_READ + ", " + KEY_PUBDATE, KEY_DOWNLOAD_DATE + ", " + KEY_FEEDITEM, rollup)));
+        return statements.toArray(new String[0]);
+    }
+
+    /**
+     * Fills the table from the existing episodes. Existing counters are replaced.
+     */
+    static String[] getRebuildStatements() {
+        String[] values = getValues(TABLE_NAME_FEED_ITEMS + "." + KEY_READ,
+                TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_DATE);
+        StringBuilder sums = new StringBuilder();
+        for (String value : values) {
+            sums.append(", SUM(").append(value).append(")");
+        }
+        return new String[]{
+            "DELETE FROM " + TABLE_NAME,
+            "INSERT INTO " + TABLE_NAME + " (" + KEY_FEED + ", " + TextUtils.join(", ", COUNTER_COLUMNS)
+                    + ", " + KEY_MOST_RECENT_PUBDATE + ")"
+                    + " SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + sums
+                    + ", IFNULL(MAX(" + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + "), 0)"
+                    + " FROM " + TABLE_NAME_FEED_ITEMS
+                    + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                            + " = " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                    + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + " IS NOT NULL"
+                    + " GROUP BY 1"
+        };
+    }
+
+    /**
+     * Adds (or, with sign "-", removes) an episode to the counters of its feed.
+     */
+    private static String add(String sign, String feed, String read, String downloadDate) {
+        return FeedRollupTriggers.add(TABLE_NAME, KEY_COLUMNS, new String[]{feed}, sign,
+                COUNTER_COLUMNS, getValues(read, downloadDate));
+    }
+
+    /**
+     * Looks up the newest episode of the feed, using the index on feed and pubDate.
+     */
+    private static String updateMostRecentPubDate(String feed) {
+        return FeedRollupTriggers.insertRow(TABLE_NAME, KEY_COLUMNS, new String[]{feed})
+                + "UPDATE " + TABLE_NAME + " SET " + KEY_MOST_RECENT_PUBDATE + " = IFNULL((SELECT MAX("
+                + KEY_PUBDATE + ") FROM " + TABLE_NAME_FEED_ITEMS + " WHERE " + KEY_FEED + " = " + feed + "), 0)"
+                + " WHERE " + KEY_FEED + " = " + feed + "; ";
+    }
+
+    /**
+     * The counter values of an episode, in the order of {@link #COUNTER_COLUMNS}.
+     * The download date is NULL for episodes without media, just like in a LEFT JOIN.
+     */
+    private static String[] getValues(String read, String downloadDate) {
+        String unplayed = "(" + read + " = " + FeedItem.NEW + " OR " + read + " = " + FeedItem.UNPLAYED + ")";
+        String downloaded = "(" + downloadDate + " > 0)";
+        return new String[]{
+            "CASE WHEN " + read + " = " + FeedItem.NEW + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + unplayed + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + downloaded + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + unplayed + " AND " + downloaded + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + read + " = " + FeedItem.PLAYED + " THEN 1 ELSE 0 END"
+        };
+    }
+}
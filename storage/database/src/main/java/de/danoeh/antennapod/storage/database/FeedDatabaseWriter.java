@@ -2,6 +2,9 @@ package de.danoeh.antennapod.storage.database;
 
 import android.content.Context;
 import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import de.danoeh.antennapod.event.CoalescingEventDispatcher;
 import de.danoeh.antennapod.event.FeedListUpdateEvent;
 import de.danoeh.antennapod.model.download.DownloadError;
 import de.danoeh.antennapod.model.download.DownloadResult;
@@ -13,13 +16,17 @@ import de.danoeh.antennapod.model.feed.SortOrder;
 import de.danoeh.antennapod.net.sync.serviceinterface.EpisodeAction;
 import de.danoeh.antennapod.net.sync.serviceinterface.SynchronizationQueue;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
-import org.greenrobot.eventbus.EventBus;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -28,20 +35,85 @@ import java.util.concurrent.ExecutionException;
 public abstract class FeedDatabaseWriter {
     private static final String TAG = "FeedDbWriter";
 
+    /**
+     * Number of item rows that were touched when merging a refreshed feed into the database.
+     */
+    public static class MergeCounters {
+        private int inserted = 0;
+        private int updated = 0;
+        private int unchanged = 0;
+        private int removed = 0;
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "inserted=" + inserted + ", updated=" + updated
+                    + ", unchanged=" + unchanged + ", removed=" + removed;
+        }
+    }
+
+    /**
+     * A feed as it was stored by {@link #updateFeeds}, and how many of its item rows were written for that.
+     */
+    public static class MergeResult {
+        private final Feed feed;
+        private final MergeCounters counters;
+
+        MergeResult(Feed feed, MergeCounters counters) {
+            this.feed = feed;
+            this.counters = counters;
+        }
+
+        /**
+         * The feed from the database. Its items are NOT loaded.
+         */
+        public Feed getFeed() {
+            return feed;
+        }
+
+        public MergeCounters getCounters() {
+            return counters;
+        }
+    }
+
+    /**
+     * An item of the refreshed feed that matched a stored item whose row needs to be written.
+     */
+    private static class PendingUpdate {
+        private final FeedItem newItem;
+        private final long contentHash;
+        @Nullable
+        private final String repairedIdentifier;
+
+        PendingUpdate(FeedItem newItem, long contentHash, @Nullable String repairedIdentifier) {
+            this.newItem = newItem;
+            this.contentHash = contentHash;
+            this.repairedIdentifier = repairedIdentifier;
+        }
+    }
+
+    @Nullable
     private static Feed searchFeedByIdentifyingValueOrID(Feed feed) {
         if (feed.getId() != 0) {
-            return DBReader.getFeed(feed.getId(), false, 0, Integer.MAX_VALUE);
-        } else {
-            List<Feed> feeds = DBReader.getFeedList();
-            for (Feed f : feeds) {
-                if (f.getIdentifyingValue().equals(feed.getIdentifyingValue())) {
-                    f.setItems(DBReader.getFeedItemList(f, FeedItemFilter.unfiltered(),
-                            SortOrder.DATE_NEW_OLD, 0, Integer.MAX_VALUE));
-                    return f;
-                }
-            }
+            return FeedCache.getInstance().getFeed(feed.getId());
         }
-        return null;
+        return FeedCache.getInstance().getFeedByIdentifyingValue(feed.getIdentifyingValue());
     }
 
     /**
@@ -53,183 +125,285 @@ public abstract class FeedDatabaseWriter {
      * @param newFeed The new Feed object.
      * @param removeUnlistedItems The item list in the new Feed object is considered to be exhaustive.
      *                            I.e. items are removed from the database if they are not in this item list.
-     * @return The updated Feed from the database if it already existed, or the new Feed from the parameters otherwise.
+     * @return The updated Feed from the database, with all of its items.
      */
     public static synchronized Feed updateFeed(Context context, Feed newFeed, boolean removeUnlistedItems) {
-        Feed resultFeed;
+        Feed savedFeed = updateFeeds(context, Collections.singletonList(newFeed), removeUnlistedItems)
+                .get(0).getFeed();
+        if (savedFeed != null) {
+            DBReader.getFeedItemList(savedFeed, FeedItemFilter.unfiltered(),
+                    SortOrder.DATE_NEW_OLD, 0, Integer.MAX_VALUE);
+        }
+        return savedFeed;
+    }
+
+    /**
+     * Same as {@link #updateFeed(Context, Feed, boolean)}, but for several feeds at once.
+     * The changed items of all feeds that already existed are written in a single transaction.
+     * Stored items are matched by their identifying attributes and content hash. Only the items that
+     * were inserted or changed are loaded completely, so this does not load the items of the returned feeds.
+     *
+     * @return The stored feeds, in the same order as newFeeds.
+     */
+    public static synchronized List<MergeResult> updateFeeds(Context context, List<Feed> newFeeds,
+                                                             boolean removeUnlistedItems) {
+        List<Feed> resultFeeds = new ArrayList<>();
+        List<MergeCounters> resultCounters = new ArrayList<>();
+        List<Feed> addedFeeds = new ArrayList<>();
+        List<Feed> mergedFeeds = new ArrayList<>();
+        List<FeedChangeSet> changes = new ArrayList<>();
         List<FeedItem> unlistedItems = new ArrayList<>();
         List<FeedItem> itemsToAddToQueue = new ArrayList<>();
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
 
-        // Look up feed in the feedslist
-        final Feed savedFeed = searchFeedByIdentifyingValueOrID(newFeed);
-        if (savedFeed == null) {
-            Log.d(TAG, "Found no existing Feed with title "
-                            + newFeed.getTitle() + ". Adding as new one.");
-
-            resultFeed = newFeed;
-        } else {
-            Log.d(TAG, "Feed with title " + newFeed.getTitle()
+        for (Feed newFeed : newFeeds) {
+            MergeCounters counters = new MergeCounters();
+            // Look up feed in the feedslist
+            final Feed savedFeed = searchFeedByIdentifyingValueOrID(newFeed);
+            if (savedFeed == null) {
+                Log.d(TAG, "Found no existing Feed with title "
+                        + newFeed.getTitle() + ". Adding as new one.");
+                addedFeeds.add(newFeed);
+                resultFeeds.add(newFeed);
+                counters.inserted = newFeed.getItems().size();
+            } else {
+                Log.d(TAG, "Feed with title " + newFeed.getTitle()
                         + " already exists. Syncing new with existing one.");
+                changes.add(mergeFeed(newFeed, savedFeed, removeUnlistedItems,
+                        unlistedItems, itemsToAddToQueue, counters));
+                Log.d(TAG, "Merged items of " + savedFeed.getTitle() + ": " + counters);
+                mergedFeeds.add(savedFeed);
+                resultFeeds.add(savedFeed);
+            }
+            resultCounters.add(counters);
+        }
 
-            Collections.sort(newFeed.getItems(), new FeedItemPubdateComparator());
-            FeedItemDuplicateGuesserPool newFeedDuplicateGuesser = new FeedItemDuplicateGuesserPool(newFeed.getItems());
-            FeedItemDuplicateGuesserPool savedFeedDuplicateGuesser
-                    = new FeedItemDuplicateGuesserPool(savedFeed.getItems());
-
-            if (newFeed.getPageNr() == savedFeed.getPageNr()) {
-                savedFeed.updateFromOther(newFeed);
-                savedFeed.getPreferences().updateFromOther(newFeed.getPreferences());
-            } else {
-                Log.d(TAG, "New feed has a higher page number.");
-                savedFeed.setNextPageLink(newFeed.getNextPageLink());
+        try {
+            if (!addedFeeds.isEmpty()) {
+                DBWriter.addNewFeed(context, addedFeeds.toArray(new Feed[0])).get();
+                // Update with default values that are set in database
+                for (int i = 0; i < newFeeds.size(); i++) {
+                    if (resultFeeds.get(i) == newFeeds.get(i)) {
+                        resultFeeds.set(i, searchFeedByIdentifyingValueOrID(newFeeds.get(i)));
+                    }
+                }
             }
+            if (!changes.isEmpty()) {
+                DBWriter.storeChangedFeedItems(changes).get();
+            }
+            if (removeUnlistedItems) {
+                DBWriter.deleteFeedItems(context, unlistedItems).get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        // We need to add to queue after items are saved to database
+        DBWriter.addQueueItem(context, itemsToAddToQueue.toArray(new FeedItem[0]));
+
+        adapter.close();
 
-            // get the most recent date now, before we start changing the list
-            FeedItem priorMostRecent = savedFeed.getMostRecentItem();
-            Date priorMostRecentDate = new Date();
-            if (priorMostRecent != null) {
-                priorMostRecentDate = priorMostRecent.getPubDate();
+        if (!mergedFeeds.isEmpty()) {
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(mergedFeeds));
+        }
+        if (!addedFeeds.isEmpty()) {
+            CoalescingEventDispatcher.getInstance().post(new FeedListUpdateEvent(Collections.emptyList()));
+        }
+
+        List<MergeResult> results = new ArrayList<>(resultFeeds.size());
+        for (int i = 0; i < resultFeeds.size(); i++) {
+            results.add(new MergeResult(resultFeeds.get(i), resultCounters.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Merges the attributes and items of newFeed into savedFeed. The stored items are only loaded with the
+     * attributes that identify them. Items that need to be written are then loaded completely.
+     *
+     * @return The items of savedFeed that were inserted or changed and need to be written to the database.
+     */
+    private static FeedChangeSet mergeFeed(Feed newFeed, Feed savedFeed, boolean removeUnlistedItems,
+                                           List<FeedItem> unlistedItems, List<FeedItem> itemsToAddToQueue,
+                                           MergeCounters counters) {
+        FeedChangeSet change = new FeedChangeSet(savedFeed);
+        Collections.sort(newFeed.getItems(), new FeedItemPubdateComparator());
+        Map<Long, Long> storedContentHashes = new HashMap<>();
+        List<FeedItem> storedItems = DBReader.getFeedItemIdentities(savedFeed.getId(), storedContentHashes);
+        for (FeedItem storedItem : storedItems) {
+            storedItem.setFeed(savedFeed);
+        }
+        FeedItemDuplicateGuesserPool newFeedDuplicateGuesser = new FeedItemDuplicateGuesserPool(newFeed.getItems());
+        FeedItemDuplicateGuesserPool savedFeedDuplicateGuesser = new FeedItemDuplicateGuesserPool(storedItems);
+
+        if (newFeed.getPageNr() == savedFeed.getPageNr()) {
+            savedFeed.updateFromOther(newFeed);
+            savedFeed.getPreferences().updateFromOther(newFeed.getPreferences());
+        } else {
+            Log.d(TAG, "New feed has a higher page number.");
+            savedFeed.setNextPageLink(newFeed.getNextPageLink());
+        }
+
+        // get the most recent date now, before we start adding items
+        Date priorMostRecentDate = null;
+        for (FeedItem storedItem : storedItems) {
+            Date pubDate = storedItem.getPubDate();
+            if (pubDate.getTime() > 0 && (priorMostRecentDate == null || pubDate.after(priorMostRecentDate))) {
+                priorMostRecentDate = pubDate;
             }
+        }
+        if (priorMostRecentDate == null) {
+            priorMostRecentDate = new Date();
+        }
+
+        // Stored items whose feed content differs from the last refresh, by item ID
+        Map<Long, List<PendingUpdate>> pendingUpdates = new LinkedHashMap<>();
 
-            // Look for new or updated Items
-            for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
-                final FeedItem item = newFeed.getItems().get(idx);
+        // Look for new or updated Items
+        for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
+            final FeedItem item = newFeed.getItems().get(idx);
+            final long contentHash = FeedItemContentHash.of(item);
+            String repairedIdentifier = null;
+
+            FeedItem possibleDuplicate = newFeedDuplicateGuesser.guessDuplicate(item);
+            if (!newFeed.isLocalFeed() && possibleDuplicate != null && item != possibleDuplicate) {
+                // Canonical episode is the first one returned (usually oldest)
+                DBWriter.addDownloadStatus(new DownloadResult(item.getTitle(),
+                        savedFeed.getId(), Feed.FEEDFILETYPE_FEED, false,
+                        DownloadError.ERROR_PARSER_EXCEPTION_DUPLICATE,
+                        "The podcast host appears to have added the same episode twice. "
+                                + "AntennaPod still refreshed the feed and attempted to repair it."
+                                + "\n\nOriginal episode:\n" + duplicateEpisodeDetails(item)
+                                + "\n\nSecond episode that is also in the feed:\n"
+                                + duplicateEpisodeDetails(possibleDuplicate)));
+                continue;
+            }
 
-                FeedItem possibleDuplicate = newFeedDuplicateGuesser.guessDuplicate(item);
-                if (!newFeed.isLocalFeed() && possibleDuplicate != null && item != possibleDuplicate) {
-                    // Canonical episode is the first one returned (usually oldest)
+            FeedItem oldItem = savedFeedDuplicateGuesser.findById(item);
+            if (!newFeed.isLocalFeed() && oldItem == null) {
+                oldItem = savedFeedDuplicateGuesser.guessDuplicate(item);
+                if (oldItem != null) {
+                    Log.d(TAG, "Repaired duplicate: " + oldItem + ", " + item);
                     DBWriter.addDownloadStatus(new DownloadResult(item.getTitle(),
                             savedFeed.getId(), Feed.FEEDFILETYPE_FEED, false,
                             DownloadError.ERROR_PARSER_EXCEPTION_DUPLICATE,
-                            "The podcast host appears to have added the same episode twice. "
-                                    + "AntennaPod still refreshed the feed and attempted to repair it."
-                                    + "\n\nOriginal episode:\n" + duplicateEpisodeDetails(item)
-                                    + "\n\nSecond episode that is also in the feed:\n"
-                                    + duplicateEpisodeDetails(possibleDuplicate)));
-                    continue;
-                }
+                            "The podcast host changed the ID of an existing episode instead of just "
+                                    + "updating the episode itself. AntennaPod still refreshed the feed and "
+                                    + "attempted to repair it."
+                                    + "\n\nOriginal episode:\n" + duplicateEpisodeDetails(oldItem)
+                                    + "\n\nNow the feed contains:\n" + duplicateEpisodeDetails(item)));
+                    oldItem.setItemIdentifier(item.getItemIdentifier());
+                    repairedIdentifier = item.getItemIdentifier();
 
-                FeedItem oldItem = savedFeedDuplicateGuesser.findById(item);
-                if (!newFeed.isLocalFeed() && oldItem == null) {
-                    oldItem = savedFeedDuplicateGuesser.guessDuplicate(item);
-                    if (oldItem != null) {
-                        Log.d(TAG, "Repaired duplicate: " + oldItem + ", " + item);
-                        DBWriter.addDownloadStatus(new DownloadResult(item.getTitle(),
-                                savedFeed.getId(), Feed.FEEDFILETYPE_FEED, false,
-                                DownloadError.ERROR_PARSER_EXCEPTION_DUPLICATE,
-                                "The podcast host changed the ID of an existing episode instead of just "
-                                        + "updating the episode itself. AntennaPod still refreshed the feed and "
-                                        + "attempted to repair it."
-                                        + "\n\nOriginal episode:\n" + duplicateEpisodeDetails(oldItem)
-                                        + "\n\nNow the feed contains:\n" + duplicateEpisodeDetails(item)));
-                        oldItem.setItemIdentifier(item.getItemIdentifier());
-
-                        if (oldItem.isPlayed() && oldItem.getMedia() != null
-                                && savedFeed.getState() != Feed.STATE_NOT_SUBSCRIBED) {
-                            EpisodeAction action = new EpisodeAction.Builder(oldItem, EpisodeAction.PLAY)
-                                    .currentTimestamp()
-                                    .started(oldItem.getMedia().getDuration() / 1000)
-                                    .position(oldItem.getMedia().getDuration() / 1000)
-                                    .total(oldItem.getMedia().getDuration() / 1000)
-                                    .build();
-                            SynchronizationQueue.getInstance().enqueueEpisodeAction(action);
-                        }
+                    if (oldItem.isPlayed() && oldItem.getMedia() != null
+                            && savedFeed.getState() != Feed.STATE_NOT_SUBSCRIBED) {
+                        EpisodeAction action = new EpisodeAction.Builder(oldItem, EpisodeAction.PLAY)
+                                .currentTimestamp()
+                                .started(oldItem.getMedia().getDuration() / 1000)
+                                .position(oldItem.getMedia().getDuration() / 1000)
+                                .total(oldItem.getMedia().getDuration() / 1000)
+                                .build();
+                        SynchronizationQueue.getInstance().enqueueEpisodeAction(action);
                     }
                 }
+            }
 
-                if (oldItem != null) {
-                    oldItem.updateFromOther(item);
+            if (oldItem != null) {
+                Long storedHash = storedContentHashes.get(oldItem.getId());
+                if (repairedIdentifier == null && storedHash != null && storedHash == contentHash) {
+                    counters.unchanged++;
                 } else {
-                    Log.d(TAG, "Found new item: " + item.getTitle());
-                    item.setFeed(savedFeed);
+                    List<PendingUpdate> updates = pendingUpdates.get(oldItem.getId());
+                    if (updates == null) {
+                        updates = new ArrayList<>(1);
+                        pendingUpdates.put(oldItem.getId(), updates);
+                    }
+                    updates.add(new PendingUpdate(item, contentHash, repairedIdentifier));
+                    counters.updated++;
+                }
+            } else {
+                Log.d(TAG, "Found new item: " + item.getTitle());
+                item.setFeed(savedFeed);
+                change.add(item, contentHash);
+                counters.inserted++;
+                savedFeedDuplicateGuesser.add(item);
 
-                    if (idx >= savedFeed.getItems().size()) {
-                        savedFeed.getItems().add(item);
-                    } else {
-                        savedFeed.getItems().add(idx, item);
+                boolean shouldPerformNewEpisodesAction = item.getPubDate() == null
+                        || priorMostRecentDate == null
+                        || priorMostRecentDate.before(item.getPubDate())
+                        || priorMostRecentDate.equals(item.getPubDate());
+                if (savedFeed.getState() == Feed.STATE_SUBSCRIBED && shouldPerformNewEpisodesAction) {
+                    FeedPreferences.NewEpisodesAction action = savedFeed.getPreferences().getNewEpisodesAction();
+                    if (action == FeedPreferences.NewEpisodesAction.GLOBAL) {
+                        action = UserPreferences.getNewEpisodesAction();
                     }
-                    savedFeedDuplicateGuesser.add(item);
-
-                    boolean shouldPerformNewEpisodesAction = item.getPubDate() == null
-                            || priorMostRecentDate == null
-                            || priorMostRecentDate.before(item.getPubDate())
-                            || priorMostRecentDate.equals(item.getPubDate());
-                    if (savedFeed.getState() == Feed.STATE_SUBSCRIBED && shouldPerformNewEpisodesAction) {
-                        FeedPreferences.NewEpisodesAction action = savedFeed.getPreferences().getNewEpisodesAction();
-                        if (action == FeedPreferences.NewEpisodesAction.GLOBAL) {
-                            action = UserPreferences.getNewEpisodesAction();
-                        }
-                        FeedPreferences.AutoDownloadSetting autoDownload = savedFeed.getPreferences().getAutoDownload();
-                        if (!savedFeed.isLocalFeed() && (autoDownload == FeedPreferences.AutoDownloadSetting.ENABLED
-                                || (autoDownload == FeedPreferences.AutoDownloadSetting.GLOBAL
-                                        && UserPreferences.isEnableAutodownloadGlobal()))) {
-                            // Auto download currently only considers episodes in the inbox
-                            action = FeedPreferences.NewEpisodesAction.ADD_TO_INBOX;
-                        }
-                        switch (action) {
-                            case ADD_TO_INBOX:
-                                item.setNew();
-                                break;
-                            case ADD_TO_QUEUE:
-                                itemsToAddToQueue.add(item);
-                                break;
-                            default:
-                                break;
-                        }
+                    FeedPreferences.AutoDownloadSetting autoDownload = savedFeed.getPreferences().getAutoDownload();
+                    if (!savedFeed.isLocalFeed() && (autoDownload == FeedPreferences.AutoDownloadSetting.ENABLED
+                            || (autoDownload == FeedPreferences.AutoDownloadSetting.GLOBAL
+                                    && UserPreferences.isEnableAutodownloadGlobal()))) {
+                        // Auto download currently only considers episodes in the inbox
+                        action = FeedPreferences.NewEpisodesAction.ADD_TO_INBOX;
+                    }
+                    switch (action) {
+                        case ADD_TO_INBOX:
+                            item.setNew();
+                            break;
+                        case ADD_TO_QUEUE:
+                            itemsToAddToQueue.add(item);
+                            break;
+                        default:
+                            break;
                     }
                 }
             }
+        }
 
-            // identify items to be removed
-            if (removeUnlistedItems) {
-                Iterator<FeedItem> it = savedFeed.getItems().iterator();
-                while (it.hasNext()) {
-                    FeedItem feedItem = it.next();
-                    if (newFeedDuplicateGuesser.findById(feedItem) == null) {
-                        unlistedItems.add(feedItem);
-                        it.remove();
-                    }
+        // Only the items that are written are loaded completely
+        for (FeedItem oldItem : loadItems(savedFeed, pendingUpdates.keySet())) {
+            long contentHash = FeedItemContentHash.NONE;
+            for (PendingUpdate update : pendingUpdates.get(oldItem.getId())) {
+                if (update.repairedIdentifier != null) {
+                    oldItem.setItemIdentifier(update.repairedIdentifier);
                 }
+                oldItem.updateFromOther(update.newItem);
+                contentHash = update.contentHash;
             }
-
-            // update attributes
-            savedFeed.setLastModified(newFeed.getLastModified());
-            savedFeed.setType(newFeed.getType());
-            savedFeed.setLastUpdateFailed(false);
-
-            resultFeed = savedFeed;
+            change.add(oldItem, contentHash);
         }
 
-        try {
-            if (savedFeed == null) {
-                DBWriter.addNewFeed(context, newFeed).get();
-                // Update with default values that are set in database
-                resultFeed = searchFeedByIdentifyingValueOrID(newFeed);
-            } else {
-                DBWriter.setCompleteFeed(savedFeed).get();
-            }
-            if (removeUnlistedItems) {
-                DBWriter.deleteFeedItems(context, unlistedItems).get();
+        // identify items to be removed
+        if (removeUnlistedItems) {
+            Set<Long> unlistedIds = new LinkedHashSet<>();
+            for (FeedItem storedItem : storedItems) {
+                if (newFeedDuplicateGuesser.findById(storedItem) == null) {
+                    unlistedIds.add(storedItem.getId());
+                }
             }
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            unlistedItems.addAll(loadItems(savedFeed, unlistedIds));
+            counters.removed += unlistedIds.size();
         }
 
-        // We need to add to queue after items are saved to database
-        DBWriter.addQueueItem(context, itemsToAddToQueue.toArray(new FeedItem[0]));
+        // update attributes
+        savedFeed.setLastModified(newFeed.getLastModified());
+        savedFeed.setEtag(newFeed.getEtag());
+        savedFeed.setType(newFeed.getType());
+        savedFeed.setLastUpdateFailed(false);
 
-        adapter.close();
+        return change;
+    }
 
-        if (savedFeed != null) {
-            EventBus.getDefault().post(new FeedListUpdateEvent(savedFeed));
-        } else {
-            EventBus.getDefault().post(new FeedListUpdateEvent(Collections.emptyList()));
+    private static List<FeedItem> loadItems(Feed feed, Collection<Long> itemIds) {
+        LongList ids = new LongList(itemIds.size());
+        for (long id : itemIds) {
+            ids.add(id);
         }
-
-        return resultFeed;
+        List<FeedItem> items = DBReader.getFeedItemsById(ids);
+        for (FeedItem item : items) {
+            item.setFeed(feed);
+        }
+        return items;
     }
 
     private static String duplicateEpisodeDetails(FeedItem item) {
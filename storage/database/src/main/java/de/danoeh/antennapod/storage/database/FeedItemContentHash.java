@@ -0,0 +1,75 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.Chapter;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+
+/**
+ * Calculates a stable 64-bit hash over the attributes of a FeedItem that are read from the feed.
+ * If the hash of a freshly parsed item equals the hash stored when the item was last merged,
+ * merging it again would not change anything in the database.
+ */
+public final class FeedItemContentHash {
+    /**
+     * Value that is stored for items that do not have a hash yet.
+     */
+    public static final long NONE = 0;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private FeedItemContentHash() {
+    }
+
+    public static long of(FeedItem item) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = add(hash, item.getItemIdentifier());
+        hash = add(hash, item.getTitle());
+        hash = add(hash, item.getDescription());
+        hash = add(hash, item.getLink());
+        hash = add(hash, item.getPubDate() == null ? Long.MIN_VALUE : item.getPubDate().getTime());
+        hash = add(hash, item.getPaymentLink());
+        hash = add(hash, item.getImageUrl());
+        hash = add(hash, item.getPodcastIndexChapterUrl());
+        hash = add(hash, item.getSocialInteractUrl());
+        hash = add(hash, item.getTranscriptUrl());
+        hash = add(hash, item.getTranscriptType());
+
+        FeedMedia media = item.getMedia();
+        if (media != null) {
+            hash = add(hash, media.getDownloadUrl());
+            hash = add(hash, media.getMimeType());
+            hash = add(hash, media.getSize());
+            hash = add(hash, media.getDuration());
+        }
+        if (item.getChapters() != null) {
+            for (Chapter chapter : item.getChapters()) {
+                hash = add(hash, chapter.getStart());
+                hash = add(hash, chapter.getTitle());
+                hash = add(hash, chapter.getLink());
+                hash = add(hash, chapter.getImageUrl());
+            }
+        }
+        // Reserve NONE for items that have never been hashed
+        return hash == NONE ? 1 : hash;
+    }
+
+    private static long add(long hash, String value) {
+        if (value == null) {
+            return add(hash, (long) -1);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return add(hash, (long) value.length());
+    }
+
+    private static long add(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,173 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.HtmlCompat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_DESCRIPTION;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_ID;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_TITLE;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_ITEMS;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_ITEMS_FTS;
+
+/**
+ * Episode descriptions are often several kilobytes of HTML. They are kept out of the episode table, which
+ * is read by every list and count, and stored deflate-compressed in a table of their own.
+ * SQLite cannot look into the compressed text, so the full-text index of the episodes keeps its own copy
+ * of the title and of the description without HTML tags.
+ */
+final class FeedItemDescriptionTable {
+    private static final String TAG = "FeedItemDescriptionTab";
+    static final String TABLE_NAME = "FeedItemDescriptions";
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final int BUFFER_SIZE = 8192;
+
+    private FeedItemDescriptionTable() {
+    }
+
+    static String[] getCreateStatements() {
+        return new String[]{
+            "CREATE TABLE " + TABLE_NAME + " (" + KEY_ID + " INTEGER PRIMARY KEY, " + KEY_DESCRIPTION + " BLOB)",
+            "CREATE VIRTUAL TABLE " + TABLE_NAME_FEED_ITEMS_FTS + " USING fts4(" + KEY_TITLE + ", "
+                    + KEY_DESCRIPTION + ")",
+            "CREATE TRIGGER " + TABLE_NAME + "_item_ai AFTER INSERT ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + "INSERT INTO " + TABLE_NAME_FEED_ITEMS_FTS + "(docid, " + KEY_TITLE + ")"
+                    + " VALUES (new." + KEY_ID + ", new." + KEY_TITLE + "); END",
+            "CREATE TRIGGER " + TABLE_NAME + "_item_au AFTER UPDATE OF " + KEY_TITLE
+                    + " ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + "UPDATE " + TABLE_NAME_FEED_ITEMS_FTS + " SET " + KEY_TITLE + " = new." + KEY_TITLE
+                    + " WHERE docid = new." + KEY_ID + "; END",
+            "CREATE TRIGGER " + TABLE_NAME + "_item_ad AFTER DELETE ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + "DELETE FROM " + TABLE_NAME + " WHERE " + KEY_ID + " = old." + KEY_ID + "; "
+                    + "DELETE FROM " + TABLE_NAME_FEED_ITEMS_FTS + " WHERE docid = old." + KEY_ID + "; END"
+        };
+    }
+
+    /**
+     * Stores the description of an episode. The episode needs to be inserted already.
+     * Feed refreshes store the same description again and again, so an unchanged description
+     * is neither compressed nor indexed again.
+     */
+    static void setDescription(SQLiteDatabase db, long itemId, @NonNull String description) {
+        try (Cursor cursor = db.rawQuery("SELECT " + KEY_DESCRIPTION + " FROM " + TABLE_NAME
+                + " WHERE " + KEY_ID + " = ?", new String[]{String.valueOf(itemId)})) {
+            if (cursor.moveToFirst() && description.equals(decompress(cursor.getBlob(0)))) {
+                return;
+            }
+        }
+        SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_NAME
+                + " (" + KEY_ID + ", " + KEY_DESCRIPTION + ") VALUES (?, ?)");
+        insert.bindLong(1, itemId);
+        insert.bindBlob(2, compress(description));
+        insert.executeInsert();
+        insert.close();
+
+        SQLiteStatement index = db.compileStatement("UPDATE " + TABLE_NAME_FEED_ITEMS_FTS
+                + " SET " + KEY_DESCRIPTION + " = ? WHERE docid = ?");
+        index.bindString(1, toSearchText(description));
+        index.bindLong(2, itemId);
+        index.executeUpdateDelete();
+        index.close();
+    }
+
+    /**
+     * Moves the descriptions that are still stored in the episode table to the compressed table
+     * and fills the full-text index. The space of the old column is only given back to the file system
+     * by a VACUUM, which cannot run in the upgrade transaction, see {@link PodDBAdapter}.
+     */
+    static void migrate(SQLiteDatabase db) {
+        SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_NAME
+                + " (" + KEY_ID + ", " + KEY_DESCRIPTION + ") VALUES (?, ?)");
+        SQLiteStatement index = db.compileStatement("INSERT INTO " + TABLE_NAME_FEED_ITEMS_FTS
+                + " (docid, " + KEY_TITLE + ", " + KEY_DESCRIPTION + ") VALUES (?, ?, ?)");
+        try (Cursor cursor = db.rawQuery("SELECT " + KEY_ID + ", " + KEY_TITLE + ", " + KEY_DESCRIPTION
+                + " FROM " + TABLE_NAME_FEED_ITEMS, null)) {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                String title = cursor.getString(1);
+                String description = cursor.getString(2);
+                index.clearBindings();
+                index.bindLong(1, id);
+                if (title != null) {
+                    index.bindString(2, title);
+                }
+                if (description != null) {
+                    index.bindString(3, toSearchText(description));
+                    insert.bindLong(1, id);
+                    insert.bindBlob(2, compress(description));
+                    insert.executeInsert();
+                }
+                index.executeInsert();
+            }
+        }
+        insert.close();
+        index.close();
+        db.execSQL("UPDATE " + TABLE_NAME_FEED_ITEMS + " SET " + KEY_DESCRIPTION + " = NULL");
+    }
+
+    @NonNull
+    static byte[] compress(@NonNull String description) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(description.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    @Nullable
+    static String decompress(@Nullable byte[] compressed) {
+        if (compressed == null) {
+            return null;
+        }
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    Log.e(TAG, "Truncated description");
+                    break;
+                }
+                out.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            return null;
+        } finally {
+            inflater.end();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The words of the description, as they are put into the full-text index. Tags become spaces,
+     * so that the words of adjacent elements are not joined, and entities like &amp;amp; are decoded.
+     */
+    @NonNull
+    static String toSearchText(@NonNull String description) {
+        String text = HTML_TAG.matcher(description).replaceAll(" ");
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return HtmlCompat.fromHtml(text, HtmlCompat.FROM_HTML_MODE_COMPACT).toString();
+    }
+}
@@ -0,0 +1,143 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.text.TextUtils;
+
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEED;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEEDITEM;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_ID;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_READ;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_ITEMS;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_MEDIA;
+
+/**
+ * Triggers for tables that sum up values of the episodes of each feed, like {@link FeedCountersTable}
+ * and {@link FeedStatisticsTable}. When an episode or its media changes, the triggers remove the old values
+ * of the episode from the row of its feed and add the new ones.
+ */
+final class FeedRollupTriggers {
+    /**
+     * Media columns of an episode without media are NULL, just like in a LEFT JOIN.
+     */
+    static final MediaColumns NO_MEDIA = column -> "NULL";
+
+    /**
+     * Where the triggers find a column of the media of an episode.
+     */
+    interface MediaColumns {
+        String get(String column);
+    }
+
+    /**
+     * Statements that keep the rows of one table up to date.
+     */
+    interface Rollup {
+        /**
+         * Adds (or, with sign "-", removes) the values of an episode.
+         *
+         * @param feed Expression for the feed of the episode, might be NULL
+         * @param read Expression for the played state of the episode
+         */
+        String add(String sign, String feed, String read, MediaColumns media);
+
+        /**
+         * Additional statements after an episode of the feed was inserted, deleted or updated.
+         */
+        String afterItemChange(String feed);
+    }
+
+    private FeedRollupTriggers() {
+    }
+
+    /**
+     * @param table Name of the table, used as prefix of the trigger names
+     * @param itemColumns Columns of the episode table that the values depend on
+     * @param mediaColumns Columns of the media table that the values depend on
+     */
+    static String[] getCreateTriggerStatements(String table, String itemColumns, String mediaColumns,
+                                               Rollup rollup) {
+        String newItemFeed = getItemColumn("new", KEY_FEED);
+        String newItemRead = getItemColumn("new", KEY_READ);
+        String oldItemFeed = getItemColumn("old", KEY_FEED);
+        String oldItemRead = getItemColumn("old", KEY_READ);
+        MediaColumns newMedia = column -> "new." + column;
+        MediaColumns oldMedia = column -> "old." + column;
+        MediaColumns mediaOfNewItem = getMediaOfItem("new");
+        MediaColumns mediaOfOldItem = getMediaOfItem("old");
+        return new String[]{
+            "CREATE TRIGGER " + table + "_item_ai AFTER INSERT ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + rollup.add("+", "new." + KEY_FEED, "new." + KEY_READ, mediaOfNewItem)
+                    + rollup.afterItemChange("new." + KEY_FEED) + " END",
+            "CREATE TRIGGER " + table + "_item_ad AFTER DELETE ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + rollup.add("-", "old." + KEY_FEED, "old." + KEY_READ, mediaOfOldItem)
+                    + rollup.afterItemChange("old." + KEY_FEED) + " END",
+            "CREATE TRIGGER " + table + "_item_au AFTER UPDATE OF " + itemColumns
+                    + " ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                    + rollup.add("-", "old." + KEY_FEED, "old." + KEY_READ, mediaOfOldItem)
+                    + rollup.add("+", "new." + KEY_FEED, "new." + KEY_READ, mediaOfNewItem)
+                    + rollup.afterItemChange("old." + KEY_FEED)
+                    + rollup.afterItemChange("new." + KEY_FEED) + " END",
+            "CREATE TRIGGER " + table + "_media_ai AFTER INSERT ON " + TABLE_NAME_FEED_MEDIA + " BEGIN "
+                    + rollup.add("-", newItemFeed, newItemRead, NO_MEDIA)
+                    + rollup.add("+", newItemFeed, newItemRead, newMedia) + " END",
+            "CREATE TRIGGER " + table + "_media_ad AFTER DELETE ON " + TABLE_NAME_FEED_MEDIA + " BEGIN "
+                    + rollup.add("-", oldItemFeed, oldItemRead, oldMedia)
+                    + rollup.add("+", oldItemFeed, oldItemRead, NO_MEDIA) + " END",
+            "CREATE TRIGGER " + table + "_media_au AFTER UPDATE OF " + mediaColumns
+                    + " ON " + TABLE_NAME_FEED_MEDIA + " BEGIN "
+                    + rollup.add("-", oldItemFeed, oldItemRead, oldMedia)
+                    + rollup.add("+", newItemFeed, newItemRead, newMedia) + " END"
+        };
+    }
+
+    /**
+     * Adds (or, with sign "-", removes) values to a row, which is created first if needed.
+     * Nothing happens if the feed is NULL.
+     *
+     * @param keyColumns Columns that identify the row, starting with the feed
+     * @param keyValues Values of the key columns
+     * @param valueColumns Columns to add the values to
+     * @param values Expressions for the values, in the order of the value columns
+     */
+    static String add(String table, String[] keyColumns, String[] keyValues, String sign,
+                      String[] valueColumns, String[] values) {
+        StringBuilder set = new StringBuilder();
+        for (int i = 0; i < valueColumns.length; i++) {
+            if (i > 0) {
+                set.append(", ");
+            }
+            set.append(valueColumns[i]).append(" = ").append(valueColumns[i])
+                    .append(" ").append(sign).append(" (").append(values[i]).append(")");
+        }
+        return insertRow(table, keyColumns, keyValues)
+                + "UPDATE " + table + " SET " + set + " WHERE " + getKeyCondition(keyColumns, keyValues) + "; ";
+    }
+
+    /**
+     * Creates a row with default values, unless it exists already or the feed is NULL.
+     */
+    static String insertRow(String table, String[] keyColumns, String[] keyValues) {
+        return "INSERT OR IGNORE INTO " + table + " (" + TextUtils.join(", ", keyColumns) + ")"
+                + " SELECT " + TextUtils.join(", ", keyValues) + " WHERE " + keyValues[0] + " IS NOT NULL; ";
+    }
+
+    static String getKeyCondition(String[] keyColumns, String[] keyValues) {
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) {
+                condition.append(" AND ");
+            }
+            condition.append(keyColumns[i]).append(" = ").append(keyValues[i]);
+        }
+        return condition.toString();
+    }
+
+    private static String getItemColumn(String media, String column) {
+        return "(SELECT " + column + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " WHERE " + KEY_ID + " = " + media + "." + KEY_FEEDITEM + ")";
+    }
+
+    private static MediaColumns getMediaOfItem(String item) {
+        return column -> "(SELECT " + column + " FROM " + TABLE_NAME_FEED_MEDIA
+                + " WHERE " + KEY_FEEDITEM + " = " + item + "." + KEY_ID + ")";
+    }
+}
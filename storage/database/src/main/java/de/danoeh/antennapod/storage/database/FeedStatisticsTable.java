@@ -0,0 +1,152 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.text.TextUtils;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.storage.database.FeedRollupTriggers.MediaColumns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_DOWNLOAD_DATE;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_DURATION;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEED;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_FEEDITEM;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_ID;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_LAST_PLAYED_TIME_HISTORY;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_LAST_PLAYED_TIME_STATISTICS;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_PLAYED_DURATION;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_POSITION;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_READ;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.KEY_SIZE;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_ITEMS;
+import static de.danoeh.antennapod.storage.database.PodDBAdapter.TABLE_NAME_FEED_MEDIA;
+
+/**
+ * Statistics of each feed, summed up per month, so that the statistics screens do not need to go through
+ * all episodes. Every episode is counted in the month in which it was last played, or in month 0 if it was
+ * never played. Triggers on the episode and media tables move the values of an episode whenever it changes,
+ * see {@link FeedRollupTriggers}.
+ */
+final class FeedStatisticsTable {
+    static final String TABLE_NAME = "FeedStatistics";
+    /**
+     * Start of the month in UTC, in milliseconds.
+     */
+    static final String KEY_MONTH = "month";
+    static final String KEY_NUM_EPISODES = "num_episodes";
+    static final String KEY_TOTAL_TIME = "total_time";
+    static final String KEY_PLAYED_TIME = "played_time";
+    /**
+     * Like {@link #KEY_PLAYED_TIME}, but counts episodes that were marked as played with their whole duration.
+     */
+    static final String KEY_PLAYED_TIME_WITH_MARKED = "played_time_with_marked";
+    static final String KEY_EPISODES_STARTED = "episodes_started";
+    static final String KEY_EPISODES_STARTED_WITH_MARKED = "episodes_started_with_marked";
+    static final String KEY_NUM_DOWNLOADED = "num_downloaded";
+    static final String KEY_DOWNLOAD_SIZE = "download_size";
+
+    private static final String[] VALUE_COLUMNS = {
+        KEY_NUM_EPISODES, KEY_TOTAL_TIME, KEY_PLAYED_TIME, KEY_PLAYED_TIME_WITH_MARKED,
+        KEY_EPISODES_STARTED, KEY_EPISODES_STARTED_WITH_MARKED, KEY_NUM_DOWNLOADED, KEY_DOWNLOAD_SIZE
+    };
+
+    private FeedStatisticsTable() {
+    }
+
+    static String[] getCreateStatements() {
+        StringBuilder columns = new StringBuilder();
+        for (String column : VALUE_COLUMNS) {
+            columns.append(column).append(" INTEGER DEFAULT 0, ");
+        }
+        String mediaColumns = KEY_DURATION + ", " + KEY_PLAYED_DURATION + ", " + KEY_POSITION + ", "
+                + KEY_LAST_PLAYED_TIME_HISTORY + ", " + KEY_LAST_PLAYED_TIME_STATISTICS + ", "
+                + KEY_DOWNLOAD_DATE + ", " + KEY_SIZE + ", " + KEY_FEEDITEM;
+        FeedRollupTriggers.Rollup rollup = new FeedRollupTriggers.Rollup() {
+            @Override
+            public String add(String sign, String feed, String read, MediaColumns media) {
+                return FeedStatisticsTable.add(sign, feed, read, media);
+            }
+
+            @Override
+            public String afterItemChange(String feed) {
+                return "";
+            }
+        };
+
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE TABLE " + TABLE_NAME + " (" + KEY_FEED + " INTEGER NOT NULL, "
+                + KEY_MONTH + " INTEGER NOT NULL, " + columns + "PRIMARY KEY (" + KEY_FEED + ", " + KEY_MONTH + "))");
+        statements.addAll(Arrays.asList(FeedRollupTriggers.getCreateTriggerStatements(TABLE_NAME,
+                KEY_FEED + ", " + KEY_READ, mediaColumns, rollup)));
+        return statements.toArray(new String[0]);
+    }
+
+    /**
+     * Fills the table from the existing episodes.
+     */
+    static String getRebuildStatement() {
+        MediaColumns media = column -> TABLE_NAME_FEED_MEDIA + "." + column;
+        String[] values = getValues(TABLE_NAME_FEED_ITEMS + "." + KEY_READ, media);
+        StringBuilder sums = new StringBuilder();
+        for (String value : values) {
+            sums.append(", SUM(").append(value).append(")");
+        }
+        return "INSERT INTO " + TABLE_NAME + " (" + KEY_FEED + ", " + KEY_MONTH + ", "
+                + TextUtils.join(", ", VALUE_COLUMNS) + ")"
+                + " SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + ", " + getMonth(media) + sums
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                        + " = " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + " IS NOT NULL"
+                + " GROUP BY 1, 2";
+    }
+
+    /**
+     * Played time of an episode, as counted by the statistics.
+     *
+     * @param read Expression for the played state of the episode
+     * @param tableName Table that holds the media columns
+     */
+    static String getPlayedTime(boolean includeMarkedAsPlayed, String read, String tableName) {
+        String[] values = getValues(read, column -> tableName + "." + column);
+        return includeMarkedAsPlayed ? values[3] : values[2];
+    }
+
+    /**
+     * Adds (or, with sign "-", removes) the values of an episode to the row of its feed and month.
+     */
+    private static String add(String sign, String feed, String read, MediaColumns media) {
+        return FeedRollupTriggers.add(TABLE_NAME, new String[]{KEY_FEED, KEY_MONTH},
+                new String[]{feed, getMonth(media)}, sign, VALUE_COLUMNS, getValues(read, media));
+    }
+
+    private static String getMonth(MediaColumns media) {
+        return "(CAST(strftime('%s', IFNULL(" + media.get(KEY_LAST_PLAYED_TIME_STATISTICS) + ", 0) / 1000,"
+                + " 'unixepoch', 'start of month') AS INTEGER) * 1000)";
+    }
+
+    /**
+     * The values of an episode, in the order of {@link #VALUE_COLUMNS}. Media columns are NULL
+     * for episodes without media, just like in a LEFT JOIN.
+     */
+    private static String[] getValues(String read, MediaColumns media) {
+        String duration = media.get(KEY_DURATION);
+        String played = media.get(KEY_PLAYED_DURATION);
+        String started = "(" + media.get(KEY_LAST_PLAYED_TIME_HISTORY) + " > 0 AND " + played + " > 0)";
+        String downloaded = media.get(KEY_DOWNLOAD_DATE) + " > 0";
+        return new String[]{
+            "1",
+            "IFNULL(" + duration + ", 0)",
+            "IFNULL(" + played + ", 0)",
+            "IFNULL(CASE WHEN " + played + " != 0 THEN " + played
+                    + " WHEN " + read + " = " + FeedItem.PLAYED + " THEN " + duration + " ELSE 0 END, 0)",
+            "CASE WHEN " + started + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + started + " OR " + read + " = " + FeedItem.PLAYED
+                    + " OR " + media.get(KEY_POSITION) + " > 0 THEN 1 ELSE 0 END",
+            "CASE WHEN " + downloaded + " THEN 1 ELSE 0 END",
+            "CASE WHEN " + downloaded + " THEN IFNULL(" + media.get(KEY_SIZE) + ", 0) ELSE 0 END"
+        };
+    }
+}
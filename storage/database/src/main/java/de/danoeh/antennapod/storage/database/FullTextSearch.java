@@ -0,0 +1,96 @@
+package de.danoeh.antennapod.storage.database;
+
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Helpers for the FTS4 search index of episodes and podcasts.
+ * SQLite only offers BM25 ranking for FTS5, which is not available on all Android versions.
+ * The score is therefore calculated from the matchinfo() of each result.
+ */
+final class FullTextSearch {
+    /**
+     * Format for matchinfo(): phrase count, column count, row count, average and current column lengths,
+     * and hit counts per phrase and column.
+     */
+    static final String MATCHINFO_FORMAT = "pcnalx";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /**
+     * Lower bound for the IDF of very common terms, like the one FTS5 uses.
+     */
+    private static final double MIN_IDF = 1e-6;
+
+    private FullTextSearch() {
+    }
+
+    /**
+     * Turns what the user typed into an FTS MATCH expression.
+     * Every word has to be found, and the words also match longer words that start with them.
+     *
+     * @return The expression, or null if the query does not contain anything to search for.
+     */
+    @Nullable
+    static String toMatchQuery(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.split("\\s+")) {
+            String phrase = word.replace("\"", " ").trim();
+            if (!containsLetterOrDigit(phrase)) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(phrase).append("*\"");
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    private static boolean containsLetterOrDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the Okapi BM25 score of a result. Higher is better.
+     *
+     * @param matchinfo     Result of matchinfo() with {@link #MATCHINFO_FORMAT}.
+     * @param columnWeights Weight of a hit in each column of the index.
+     */
+    static double bm25(byte[] matchinfo, double[] columnWeights) {
+        IntBuffer info = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = info.get(0);
+        int columnCount = info.get(1);
+        int rowCount = info.get(2);
+        double averageLength = 0;
+        double length = 0;
+        for (int column = 0; column < columnCount; column++) {
+            averageLength += info.get(3 + column);
+            length += info.get(3 + columnCount + column);
+        }
+        double lengthNormalization = K1 * (1 - B + B * length / Math.max(1, averageLength));
+
+        double score = 0;
+        int hitsStart = 3 + 2 * columnCount;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            double frequency = 0;
+            int rowsWithHit = 0;
+            for (int column = 0; column < columnCount; column++) {
+                int hits = hitsStart + 3 * (phrase * columnCount + column);
+                frequency += columnWeights[column] * info.get(hits);
+                rowsWithHit = Math.max(rowsWithHit, info.get(hits + 2));
+            }
+            double idf = Math.log((rowCount - rowsWithHit + 0.5) / (rowsWithHit + 0.5));
+            score += Math.max(MIN_IDF, idf) * frequency * (K1 + 1) / (frequency + lengthNormalization);
+        }
+        return score;
+    }
+}
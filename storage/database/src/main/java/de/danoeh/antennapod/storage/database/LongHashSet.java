@@ -0,0 +1,193 @@
+package de.danoeh.antennapod.storage.database;
+
+/**
+ * Fast and memory efficient set of longs, for checking whether IDs are part of a list.
+ * Uses open addressing with linear probing, so values are not boxed.
+ */
+public final class LongHashSet {
+    /**
+     * Marks an empty slot. The value itself is tracked separately.
+     */
+    private static final long EMPTY = 0;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+
+    /**
+     * Constructs an empty instance with a default initial capacity.
+     */
+    public LongHashSet() {
+        this(4);
+    }
+
+    /**
+     * Constructs an empty instance.
+     *
+     * @param expectedSize {@code >= 0;} number of values that can be added without resizing
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Constructs an instance that contains the values of the given list.
+     */
+    public LongHashSet(LongList list) {
+        this(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            add(list.get(i));
+        }
+    }
+
+    public static LongHashSet of(long... values) {
+        LongHashSet result = new LongHashSet(values.length);
+        for (long value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of elements in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @return {@code true} if the value was added, {@code false} if it was already contained
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int slot = indexOf(value);
+        if (slots[slot] == value) {
+            return false;
+        }
+        slots[slot] = value;
+        size++;
+        if (2 * size > slots.length) {
+            rehash(2 * slots.length);
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the given value is contained in the set
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        return slots[indexOf(value)] == value;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @return {@code true} if the value was removed, {@code false} if it was not contained
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int slot = indexOf(value);
+        if (slots[slot] != value) {
+            return false;
+        }
+        size--;
+        // Move following values of the same probe sequence into the gap, so that lookups still find them
+        int gap = slot;
+        int current = (slot + 1) & mask;
+        while (slots[current] != EMPTY) {
+            int home = hash(slots[current], mask);
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                slots[gap] = slots[current];
+                gap = current;
+            }
+            current = (current + 1) & mask;
+        }
+        slots[gap] = EMPTY;
+        return true;
+    }
+
+    /**
+     * Returns an array with a copy of this set's values, in no particular order
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsEmpty) {
+            result[i++] = EMPTY;
+        }
+        for (long value : slots) {
+            if (value != EMPTY) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the slot that contains the value or the empty slot where it would be inserted.
+     */
+    private int indexOf(long value) {
+        int slot = hash(value, mask);
+        while (slots[slot] != EMPTY && slots[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int tableSize) {
+        slots = new long[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldSlots = slots;
+        allocate(tableSize);
+        for (long value : oldSlots) {
+            if (value != EMPTY) {
+                slots[indexOf(value)] = value;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the value, database IDs are mostly sequential.
+     */
+    static int hash(long value, int mask) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    /**
+     * Returns a power of two that keeps the table at most half full.
+     */
+    static int tableSizeFor(int expectedSize) {
+        int tableSize = 4;
+        while (tableSize < 2 * expectedSize) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+}
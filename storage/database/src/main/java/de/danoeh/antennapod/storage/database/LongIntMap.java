@@ -0,0 +1,117 @@
+package de.danoeh.antennapod.storage.database;
+
+/**
+ * Fast and memory efficient map from long keys to int values, for example from IDs to list positions.
+ * Uses open addressing with linear probing, so keys and values are not boxed.
+ */
+public final class LongIntMap {
+    /**
+     * Marks an empty slot. The value of this key is tracked separately.
+     */
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+    private int emptyKeyValue;
+
+    /**
+     * Constructs an empty instance with a default initial capacity.
+     */
+    public LongIntMap() {
+        this(4);
+    }
+
+    /**
+     * Constructs an empty instance.
+     *
+     * @param expectedSize {@code >= 0;} number of keys that can be added without resizing
+     */
+    public LongIntMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        allocate(LongHashSet.tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Gets the number of keys in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the value with the key, replacing the previous value.
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+        int slot = indexOf(key);
+        values[slot] = value;
+        if (keys[slot] == key) {
+            return;
+        }
+        keys[slot] = key;
+        size++;
+        if (2 * size > keys.length) {
+            rehash(2 * keys.length);
+        }
+    }
+
+    /**
+     * Returns the value of the given key, or {@code defaultValue} if the key is not contained in the map.
+     */
+    public int get(long key, int defaultValue) {
+        if (key == EMPTY) {
+            return containsEmpty ? emptyKeyValue : defaultValue;
+        }
+        int slot = indexOf(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return containsEmpty;
+        }
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * Returns the slot that contains the key or the empty slot where it would be inserted.
+     */
+    private int indexOf(long key) {
+        int slot = LongHashSet.hash(key, mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(tableSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = indexOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -145,7 +145,7 @@ public final class LongList {
      * @param n {@code >= 0, <=size();} index of where to insert
      * @param value value to insert
      */
-    public void insert(int n, int value) {
+    public void insert(int n, long value) {
         if (n > size) {
             throw new IndexOutOfBoundsException("n > size()");
         } else if(n < 0) {
@@ -54,12 +54,12 @@ public class PodDBAdapter {
 
     private static final String TAG = "PodDBAdapter";
     public static final String DATABASE_NAME = "Antennapod.db";
-    public static final int VERSION = 3110000;
+    public static final int VERSION = 3120000;
 
     /**
      * Maximum number of arguments for IN-operator.
      */
-    private static final int IN_OPERATOR_MAXIMUM = 800;
+    static final int IN_OPERATOR_MAXIMUM = 800;
 
     // Key-constants
     public static final String KEY_ID = "id";
@@ -127,6 +127,12 @@ public class PodDBAdapter {
     public static final String KEY_STATE = "state";
     public static final String KEY_PODCASTINDEX_TRANSCRIPT_URL = "podcastindex_transcript_url";
     public static final String KEY_PODCASTINDEX_TRANSCRIPT_TYPE = "podcastindex_transcript_type";
+    public static final String KEY_CONTENT_HASH = "content_hash";
+    public static final String KEY_ETAG = "etag";
+    public static final String KEY_LAST_DOWNLOAD_SIZE = "last_download_size";
+    public static final String KEY_NOT_MODIFIED_COUNT = "not_modified_count";
+    public static final String KEY_NOT_MODIFIED_BYTES_SAVED = "not_modified_bytes_saved";
+    public static final String KEY_LAST_FULL_PARSE = "last_full_parse";
 
     // Table names
     public static final String TABLE_NAME_FEEDS = "Feeds";
@@ -135,8 +141,15 @@ public class PodDBAdapter {
     public static final String TABLE_NAME_FEED_MEDIA = "FeedMedia";
     public static final String TABLE_NAME_DOWNLOAD_LOG = "DownloadLog";
     public static final String TABLE_NAME_QUEUE = "Queue";
+    /**
+     * Distance between the ordering keys (Queue.ID) of neighbouring queue items, so that items can be inserted
+     * or moved between them without changing the keys of other items.
+     */
+    static final long QUEUE_KEY_GAP = 1 << 16;
     public static final String TABLE_NAME_SIMPLECHAPTERS = "SimpleChapters";
     public static final String TABLE_NAME_FAVORITES = "Favorites";
+    public static final String TABLE_NAME_FEED_ITEMS_FTS = "FeedItemsFts";
+    public static final String TABLE_NAME_FEEDS_FTS = "FeedsFts";
 
     // SQL Statements for creating new tables
     private static final String TABLE_PRIMARY_KEY = KEY_ID
@@ -152,6 +165,7 @@ public class PodDBAdapter {
             + KEY_DESCRIPTION + " TEXT,"
             + KEY_PAYMENT_LINK + " TEXT,"
             + KEY_LASTUPDATE + " TEXT,"
+            + KEY_ETAG + " TEXT,"
             + KEY_LANGUAGE + " TEXT,"
             + KEY_AUTHOR + " TEXT,"
             + KEY_IMAGE_URL + " TEXT,"
@@ -178,13 +192,17 @@ public class PodDBAdapter {
             + KEY_FEED_SKIP_ENDING + " INTEGER DEFAULT 0,"
             + KEY_EPISODE_NOTIFICATION + " INTEGER DEFAULT 0,"
             + KEY_STATE + " INTEGER DEFAULT " + Feed.STATE_SUBSCRIBED + ","
-            + KEY_NEW_EPISODES_ACTION + " INTEGER DEFAULT 0)";
+            + KEY_NEW_EPISODES_ACTION + " INTEGER DEFAULT 0,"
+            + KEY_LAST_DOWNLOAD_SIZE + " INTEGER DEFAULT 0,"
+            + KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_NOT_MODIFIED_BYTES_SAVED + " INTEGER DEFAULT 0,"
+            + KEY_LAST_FULL_PARSE + " INTEGER DEFAULT 0)";
 
     private static final String CREATE_TABLE_FEED_ITEMS = "CREATE TABLE "
             + TABLE_NAME_FEED_ITEMS + " (" + TABLE_PRIMARY_KEY
             + KEY_TITLE + " TEXT," + KEY_PUBDATE + " INTEGER,"
             + KEY_READ + " INTEGER," + KEY_LINK + " TEXT,"
-            + KEY_DESCRIPTION + " TEXT," + KEY_PAYMENT_LINK + " TEXT,"
+            + KEY_PAYMENT_LINK + " TEXT,"
             + KEY_MEDIA + " INTEGER," + KEY_FEED + " INTEGER,"
             + KEY_HAS_CHAPTERS + " INTEGER," + KEY_ITEM_IDENTIFIER + " TEXT,"
             + KEY_IMAGE_URL + " TEXT,"
@@ -192,7 +210,8 @@ public class PodDBAdapter {
             + KEY_PODCASTINDEX_CHAPTER_URL + " TEXT,"
             + KEY_PODCASTINDEX_TRANSCRIPT_TYPE + " TEXT,"
             + KEY_PODCASTINDEX_TRANSCRIPT_URL + " TEXT,"
-            + KEY_SOCIAL_INTERACT_URL + " TEXT)";
+            + KEY_SOCIAL_INTERACT_URL + " TEXT,"
+            + KEY_CONTENT_HASH + " INTEGER DEFAULT " + FeedItemContentHash.NONE + ")";
 
     private static final String CREATE_TABLE_FEED_MEDIA = "CREATE TABLE "
             + TABLE_NAME_FEED_MEDIA + " (" + TABLE_PRIMARY_KEY + KEY_DURATION
@@ -230,6 +249,10 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_ITEMS + "_" + KEY_PUBDATE + " ON " + TABLE_NAME_FEED_ITEMS + " ("
             + KEY_PUBDATE + ")";
 
+    static final String CREATE_INDEX_FEEDITEMS_FEED_PUBDATE = "CREATE INDEX "
+            + TABLE_NAME_FEED_ITEMS + "_" + KEY_FEED + "_" + KEY_PUBDATE + " ON " + TABLE_NAME_FEED_ITEMS + " ("
+            + KEY_FEED + ", " + KEY_PUBDATE + ")";
+
     static final String CREATE_INDEX_FEEDITEMS_READ = "CREATE INDEX "
             + TABLE_NAME_FEED_ITEMS + "_" + KEY_READ + " ON " + TABLE_NAME_FEED_ITEMS + " ("
             + KEY_READ + ")";
@@ -242,6 +265,10 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_MEDIA + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_FEED_MEDIA + " ("
             + KEY_FEEDITEM + ")";
 
+    static final String CREATE_INDEX_FEEDMEDIA_LAST_PLAYED_TIME_STATISTICS = "CREATE INDEX "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_LAST_PLAYED_TIME_STATISTICS + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_LAST_PLAYED_TIME_STATISTICS + ")";
+
     static final String CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM = "CREATE INDEX "
             + TABLE_NAME_SIMPLECHAPTERS + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_SIMPLECHAPTERS + " ("
             + KEY_FEEDITEM + ")";
@@ -250,6 +277,9 @@ public class PodDBAdapter {
             + TABLE_NAME_FAVORITES + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
             + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
 
+    static final String[] CREATE_FEEDS_FULL_TEXT_INDEX = getCreateFullTextIndexStatements(
+            TABLE_NAME_FEEDS, TABLE_NAME_FEEDS_FTS, KEY_TITLE, KEY_CUSTOM_TITLE, KEY_AUTHOR, KEY_DESCRIPTION);
+
     /**
      * All the tables in the database
      */
@@ -260,12 +290,16 @@ public class PodDBAdapter {
             TABLE_NAME_DOWNLOAD_LOG,
             TABLE_NAME_QUEUE,
             TABLE_NAME_SIMPLECHAPTERS,
-            TABLE_NAME_FAVORITES
+            TABLE_NAME_FAVORITES,
+            FeedStatisticsTable.TABLE_NAME,
+            FeedCountersTable.TABLE_NAME,
+            FeedItemDescriptionTable.TABLE_NAME
     };
 
     public static final String SELECT_KEY_ITEM_ID = "item_id";
     public static final String SELECT_KEY_MEDIA_ID = "media_id";
     public static final String SELECT_KEY_FEED_ID = "feed_id";
+    public static final String SELECT_KEY_MATCHINFO = "matchinfo";
 
     private static final String KEYS_FEED_ITEM_WITHOUT_DESCRIPTION =
             TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " AS " + SELECT_KEY_ITEM_ID + ", "
@@ -300,6 +334,23 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_MEDIA + "." + KEY_HAS_EMBEDDED_PICTURE + ", "
             + TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME_STATISTICS;
 
+    /**
+     * The columns of {@link de.danoeh.antennapod.model.feed.EpisodeListRow}.
+     */
+    private static final String KEYS_EPISODE_LIST_ROW =
+            TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " AS " + SELECT_KEY_ITEM_ID + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_ID + " AS " + SELECT_KEY_MEDIA_ID + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_DURATION + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_POSITION + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_SIZE + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_DATE + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_MIME_TYPE;
+
     private static final String KEYS_FEED =
             TABLE_NAME_FEEDS + "." + KEY_ID + " AS " + SELECT_KEY_FEED_ID + ", "
             + TABLE_NAME_FEEDS + "." + KEY_TITLE + ", "
@@ -311,6 +362,8 @@ public class PodDBAdapter {
             + TABLE_NAME_FEEDS + "." + KEY_DESCRIPTION + ", "
             + TABLE_NAME_FEEDS + "." + KEY_PAYMENT_LINK + ", "
             + TABLE_NAME_FEEDS + "." + KEY_LASTUPDATE + ", "
+            + TABLE_NAME_FEEDS + "." + KEY_ETAG + ", "
+            + TABLE_NAME_FEEDS + "." + KEY_LAST_FULL_PARSE + ", "
             + TABLE_NAME_FEEDS + "." + KEY_LANGUAGE + ", "
             + TABLE_NAME_FEEDS + "." + KEY_AUTHOR + ", "
             + TABLE_NAME_FEEDS + "." + KEY_IMAGE_URL + ", "
@@ -342,11 +395,6 @@ public class PodDBAdapter {
     private static final String JOIN_FEED_ITEM_AND_MEDIA = " LEFT JOIN " + TABLE_NAME_FEED_MEDIA
             + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + " ";
 
-    private static final String SELECT_FEED_ITEMS_AND_MEDIA_WITH_DESCRIPTION =
-            "SELECT " + KEYS_FEED_ITEM_WITHOUT_DESCRIPTION + ", " + KEYS_FEED_MEDIA + ", "
-                    + TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION
-            + " FROM " + TABLE_NAME_FEED_ITEMS
-            + JOIN_FEED_ITEM_AND_MEDIA;
     private static final String SELECT_FEED_ITEMS_AND_MEDIA =
             "SELECT " + KEYS_FEED_ITEM_WITHOUT_DESCRIPTION + ", " + KEYS_FEED_MEDIA
             + " FROM " + TABLE_NAME_FEED_ITEMS
@@ -429,6 +477,7 @@ public class PodDBAdapter {
     public static void tearDownTests() {
         getInstance().dbHelper.close();
         instance = null;
+        FeedCache.invalidate();
     }
 
     public static boolean deleteDatabase() {
@@ -438,6 +487,7 @@ public class PodDBAdapter {
             for (String tableName : ALL_TABLES) {
                 adapter.db.delete(tableName, "1", null);
             }
+            FeedCache.invalidate();
             return true;
         } finally {
             adapter.close();
@@ -463,6 +513,8 @@ public class PodDBAdapter {
         values.put(KEY_DOWNLOAD_URL, feed.getDownloadUrl());
         values.put(KEY_LAST_REFRESH_ATTEMPT, feed.getLastRefreshAttempt());
         values.put(KEY_LASTUPDATE, feed.getLastModified());
+        values.put(KEY_ETAG, feed.getEtag());
+        values.put(KEY_LAST_FULL_PARSE, feed.getLastFullParse());
         values.put(KEY_TYPE, feed.getType());
         values.put(KEY_FEED_IDENTIFIER, feed.getFeedIdentifier());
         values.put(KEY_STATE, feed.getState());
@@ -485,6 +537,7 @@ public class PodDBAdapter {
             db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?",
                     new String[]{String.valueOf(feed.getId())});
         }
+        FeedCache.invalidate();
         return feed.getId();
     }
 
@@ -510,6 +563,7 @@ public class PodDBAdapter {
         values.put(KEY_EPISODE_NOTIFICATION, prefs.getShowEpisodeNotification());
         values.put(KEY_NEW_EPISODES_ACTION, prefs.getNewEpisodesAction().code);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(prefs.getFeedID())});
+        FeedCache.invalidate();
     }
 
     public void setFeedItemFilter(long feedId, Set<String> filterValues) {
@@ -519,12 +573,14 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_HIDE, valuesList);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     public void setFeedItemSortOrder(long feedId, @Nullable SortOrder sortOrder) {
         ContentValues values = new ContentValues();
         values.put(KEY_SORT_ORDER, toCodeString(sortOrder));
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     /**
@@ -628,6 +684,34 @@ public class PodDBAdapter {
         }
     }
 
+    /**
+     * Stores the feed objects themselves and only those of their FeedItems that were inserted or changed
+     * during a refresh. All feeds are written in a single transaction.
+     *
+     * @param changes Feeds whose attributes and preferences should be saved, each with the items that need to be
+     *                written and their content hashes, see {@link FeedItemContentHash}.
+     *                Items of the feeds that are not listed are left untouched.
+     */
+    void storeChangedFeedItems(List<FeedChangeSet> changes) {
+        try {
+            db.beginTransactionNonExclusive();
+            for (FeedChangeSet change : changes) {
+                setFeed(change.feed);
+                for (int i = 0; i < change.items.size(); i++) {
+                    updateOrInsertFeedItem(change.items.get(i), false, change.contentHashes.get(i));
+                }
+                if (change.feed.getPreferences() != null) {
+                    setFeedPreferences(change.feed.getPreferences());
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     /**
      * Updates the download URL of a Feed.
      */
@@ -635,6 +719,7 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_DOWNLOAD_URL, updated);
         db.update(TABLE_NAME_FEEDS, values, KEY_DOWNLOAD_URL + "=?", new String[]{original});
+        FeedCache.invalidate();
     }
 
     public void storeFeedItemlist(List<FeedItem> items) {
@@ -674,6 +759,21 @@ public class PodDBAdapter {
      * @return the id of the entry
      */
     private long updateOrInsertFeedItem(FeedItem item, boolean saveFeed) {
+        return updateOrInsertFeedItem(item, saveFeed, FeedItemContentHash.NONE);
+    }
+
+    /**
+     * Inserts or updates a feeditem entry
+     *
+     * @param contentHash Hash of the feed content the item was last merged from,
+     *                    or {@link FeedItemContentHash#NONE} to keep the stored hash.
+     *                    New items are hashed if no hash is given.
+     */
+    private long updateOrInsertFeedItem(FeedItem item, boolean saveFeed, long contentHash) {
+        if (item.getId() == 0 && contentHash == FeedItemContentHash.NONE) {
+            // Hash before filling in defaults, so that the next refresh of the same item matches
+            contentHash = FeedItemContentHash.of(item);
+        }
         if (item.getId() == 0 && item.getPubDate() == null) {
             Log.e(TAG, "Newly saved item has no pubDate. Using current date as pubDate");
             item.setPubDate(new Date());
@@ -682,9 +782,6 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_TITLE, item.getTitle());
         values.put(KEY_LINK, item.getLink());
-        if (item.getDescription() != null) {
-            values.put(KEY_DESCRIPTION, item.getDescription());
-        }
         values.put(KEY_PUBDATE, item.getPubDate().getTime());
         values.put(KEY_PAYMENT_LINK, item.getPaymentLink());
         if (saveFeed && item.getFeed() != null) {
@@ -712,6 +809,9 @@ public class PodDBAdapter {
             values.put(KEY_PODCASTINDEX_TRANSCRIPT_TYPE, type);
             values.put(KEY_PODCASTINDEX_TRANSCRIPT_URL, url);
         }
+        if (contentHash != FeedItemContentHash.NONE) {
+            values.put(KEY_CONTENT_HASH, contentHash);
+        }
 
         if (item.getId() == 0) {
             item.setId(db.insert(TABLE_NAME_FEED_ITEMS, null, values));
@@ -719,6 +819,9 @@ public class PodDBAdapter {
             db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?",
                     new String[]{String.valueOf(item.getId())});
         }
+        if (item.getDescription() != null) {
+            FeedItemDescriptionTable.setDescription(db, item.getId(), item.getDescription());
+        }
         if (item.getMedia() != null) {
             setMedia(item.getMedia());
             item.getMedia().setItemId(item.getId());
@@ -782,6 +885,7 @@ public class PodDBAdapter {
                 + " SET " + KEY_NEXT_PAGE_LINK + "=" + KEY_DOWNLOAD_URL
                 + " WHERE " + KEY_ID + "=" + feed.getId();
         db.execSQL(sql);
+        FeedCache.invalidate();
     }
 
     public void setFeedLastUpdateFailed(long feedId, boolean failed) {
@@ -790,18 +894,67 @@ public class PodDBAdapter {
                 + "," + KEY_LAST_REFRESH_ATTEMPT + "=" + System.currentTimeMillis()
                 + " WHERE " + KEY_ID + "=" + feedId;
         db.execSQL(sql);
+        FeedCache.invalidate();
+    }
+
+    /**
+     * Remembers the size of the last complete download of a feed.
+     * It is used to estimate the traffic that is saved when the server responds with 304 Not Modified.
+     */
+    public void setFeedLastDownloadSize(long feedId, long size) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_LAST_DOWNLOAD_SIZE, size);
+        db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+    }
+
+    public void addFeedNotModified(long feedId) {
+        final String sql = "UPDATE " + TABLE_NAME_FEEDS
+                + " SET " + KEY_NOT_MODIFIED_COUNT + "=" + KEY_NOT_MODIFIED_COUNT + "+1"
+                + "," + KEY_NOT_MODIFIED_BYTES_SAVED + "=" + KEY_NOT_MODIFIED_BYTES_SAVED
+                + "+" + KEY_LAST_DOWNLOAD_SIZE
+                + "," + KEY_LAST_UPDATE_FAILED + "=0"
+                + "," + KEY_LAST_REFRESH_ATTEMPT + "=" + System.currentTimeMillis()
+                + " WHERE " + KEY_ID + "=" + feedId;
+        db.execSQL(sql);
+        FeedCache.invalidate();
+    }
+
+    public final Cursor getFeedNotModifiedStatisticsCursor(long feedId) {
+        final String query = "SELECT " + KEY_NOT_MODIFIED_COUNT + ", " + KEY_NOT_MODIFIED_BYTES_SAVED
+                + " FROM " + TABLE_NAME_FEEDS
+                + " WHERE " + KEY_ID + "=" + feedId;
+        return db.rawQuery(query, null);
+    }
+
+    public final Cursor getFeedItemIdentifiersCursor(long feedId) {
+        final String query = "SELECT " + KEY_ITEM_IDENTIFIER
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " WHERE " + KEY_FEED + "=" + feedId
+                + " AND " + KEY_ITEM_IDENTIFIER + " IS NOT NULL";
+        return db.rawQuery(query, null);
+    }
+
+    public final Cursor getFeedMediaDownloadUrlsCursor(long feedId) {
+        final String query = "SELECT " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedId;
+        return db.rawQuery(query, null);
     }
 
     public void setFeedCustomTitle(long feedId, String customTitle) {
         ContentValues values = new ContentValues();
         values.put(KEY_CUSTOM_TITLE, customTitle);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     public void setFeedState(long feedId, int state) {
         ContentValues values = new ContentValues();
         values.put(KEY_STATE, state);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     /**
@@ -880,7 +1033,7 @@ public class PodDBAdapter {
             db.delete(TABLE_NAME_QUEUE, null, null);
             for (int i = 0; i < queue.size(); i++) {
                 FeedItem item = queue.get(i);
-                values.put(KEY_ID, i);
+                values.put(KEY_ID, i * QUEUE_KEY_GAP);
                 values.put(KEY_FEEDITEM, item.getId());
                 values.put(KEY_FEED, item.getFeed().getId());
                 db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
@@ -893,6 +1046,118 @@ public class PodDBAdapter {
         }
     }
 
+    /**
+     * Applies a batch of changes to the queue in one transaction.
+     * Only the rows of inserted, removed and moved items are written. Their new ordering key is picked from
+     * the gap between their neighbours. All keys are only rewritten if there is no gap left.
+     */
+    public void applyQueueMutations(QueueMutations mutations) {
+        LongList keys = new LongList();
+        LongList itemIds = new LongList();
+        LongList feedIds = new LongList();
+        try {
+            db.beginTransactionNonExclusive();
+            try (Cursor cursor = db.query(TABLE_NAME_QUEUE, new String[]{KEY_ID, KEY_FEEDITEM, KEY_FEED},
+                    null, null, null, null, KEY_ID + " ASC")) {
+                while (cursor.moveToNext()) {
+                    keys.add(cursor.getLong(0));
+                    itemIds.add(cursor.getLong(1));
+                    feedIds.add(cursor.getLong(2));
+                }
+            }
+
+            boolean renumbered = false;
+            for (QueueMutations.Mutation mutation : mutations.getMutations()) {
+                int index = itemIds.indexOf(mutation.itemId);
+                if (mutation.type == QueueMutations.REMOVE) {
+                    if (index < 0) {
+                        continue;
+                    }
+                    if (!renumbered) {
+                        db.delete(TABLE_NAME_QUEUE, KEY_ID + "=?", new String[]{String.valueOf(keys.get(index))});
+                    }
+                    keys.removeIndex(index);
+                    itemIds.removeIndex(index);
+                    feedIds.removeIndex(index);
+                    continue;
+                } else if ((mutation.type == QueueMutations.INSERT) == (index >= 0)) {
+                    continue; // Already in the queue, or nothing to move
+                }
+
+                long feedId = mutation.feedId;
+                if (mutation.type == QueueMutations.MOVE) {
+                    feedId = feedIds.get(index);
+                    keys.removeIndex(index);
+                    itemIds.removeIndex(index);
+                    feedIds.removeIndex(index);
+                }
+                int position = Math.max(0, Math.min(mutation.position, keys.size()));
+                long key = getQueueKeyBetween(keys, position);
+                if (key == Long.MIN_VALUE) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        keys.set(i, i * QUEUE_KEY_GAP);
+                    }
+                    renumbered = true;
+                    key = getQueueKeyBetween(keys, position);
+                }
+                keys.insert(position, key);
+                itemIds.insert(position, mutation.itemId);
+                feedIds.insert(position, feedId);
+
+                if (renumbered) {
+                    continue;
+                }
+                ContentValues values = new ContentValues();
+                values.put(KEY_ID, key);
+                if (mutation.type == QueueMutations.INSERT) {
+                    values.put(KEY_FEEDITEM, mutation.itemId);
+                    values.put(KEY_FEED, feedId);
+                    db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                } else {
+                    db.update(TABLE_NAME_QUEUE, values, KEY_FEEDITEM + "=?",
+                            new String[]{String.valueOf(mutation.itemId)});
+                }
+            }
+
+            if (renumbered) {
+                Log.d(TAG, "No gap left in queue ordering keys, rewriting the whole queue");
+                db.delete(TABLE_NAME_QUEUE, null, null);
+                ContentValues values = new ContentValues();
+                for (int i = 0; i < keys.size(); i++) {
+                    values.put(KEY_ID, keys.get(i));
+                    values.put(KEY_FEEDITEM, itemIds.get(i));
+                    values.put(KEY_FEED, feedIds.get(i));
+                    db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return An ordering key for an item inserted at the given position,
+     *         or Long.MIN_VALUE if the neighbouring keys leave no room.
+     */
+    private static long getQueueKeyBetween(LongList keys, int position) {
+        if (keys.size() == 0) {
+            return 0;
+        } else if (position == 0) {
+            return keys.get(0) - QUEUE_KEY_GAP;
+        } else if (position == keys.size()) {
+            return keys.get(position - 1) + QUEUE_KEY_GAP;
+        }
+        long before = keys.get(position - 1);
+        long after = keys.get(position);
+        if (after - before < 2) {
+            return Long.MIN_VALUE;
+        }
+        return before + (after - before) / 2;
+    }
+
     public void clearQueue() {
         db.delete(TABLE_NAME_QUEUE, null, null);
     }
@@ -947,11 +1212,16 @@ public class PodDBAdapter {
 
             db.delete(TABLE_NAME_FEEDS, KEY_ID + "=?",
                     new String[]{String.valueOf(feed.getId())});
+            db.delete(FeedStatisticsTable.TABLE_NAME, KEY_FEED + "=?",
+                    new String[]{String.valueOf(feed.getId())});
+            db.delete(FeedCountersTable.TABLE_NAME, KEY_FEED + "=?",
+                    new String[]{String.valueOf(feed.getId())});
             db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
             db.endTransaction();
+            FeedCache.invalidate();
         }
     }
 
@@ -1006,11 +1276,51 @@ public class PodDBAdapter {
     }
 
     /**
-     * Return the description and content_encoded of item
+     * Same as {@link #getItemsOfFeedCursor(Feed, FeedItemFilter, SortOrder, int, int)}, but returns the page
+     * of items that directly follows lastItem instead of skipping a number of items.
+     */
+    public final Cursor getItemsOfFeedCursor(final Feed feed, FeedItemFilter filter, SortOrder sortOrder,
+                                             @NonNull FeedItem lastItem, int limit) {
+        String filterQuery = FeedItemFilterQuery.generateFrom(filter);
+        String whereClauseAnd = "".equals(filterQuery) ? "" : " AND " + filterQuery;
+        final String query = SELECT_FEED_ITEMS_AND_MEDIA
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feed.getId()
+                + whereClauseAnd
+                + " AND " + FeedItemSortQuery.generateKeysetCondition(sortOrder, lastItem)
+                + " ORDER BY " + FeedItemSortQuery.generateFrom(sortOrder)
+                + " LIMIT " + limit;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns the attributes that identify the items of a feed, together with the content hash that was stored
+     * when the respective item was last merged from the feed. Columns: item ID, item identifier, title, link,
+     * pubDate, read, content hash, media ID, download URL, duration and MIME type of the media.
+     */
+    public final Cursor getFeedItemIdentitiesCursor(long feedId) {
+        final String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_LINK + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_CONTENT_HASH + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_ID + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_DURATION + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_MIME_TYPE
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + JOIN_FEED_ITEM_AND_MEDIA
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedId;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Return the compressed description of item, see {@link FeedItemDescriptionTable#decompress}
      */
     public final Cursor getDescriptionOfItem(final FeedItem item) {
         final String query = "SELECT " + KEY_DESCRIPTION
-                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " FROM " + FeedItemDescriptionTable.TABLE_NAME
                 + " WHERE " + KEY_ID + "=" + item.getId();
         return db.rawQuery(query, null);
     }
@@ -1114,6 +1424,35 @@ public class PodDBAdapter {
         return db.rawQuery(query, null);
     }
 
+    /**
+     * Same as {@link #getEpisodesCursor(int, int, FeedItemFilter, SortOrder)}, but returns the page
+     * of episodes that directly follows lastItem instead of skipping a number of episodes.
+     */
+    public final Cursor getEpisodesCursor(@NonNull FeedItem lastItem, int limit, FeedItemFilter filter,
+                                          SortOrder sortOrder) {
+        String filterQuery = FeedItemFilterQuery.generateFrom(filter);
+        String keysetCondition = FeedItemSortQuery.generateKeysetCondition(sortOrder, lastItem);
+        String whereClause = " WHERE " + ("".equals(filterQuery) ? "" : filterQuery + " AND ") + keysetCondition;
+        final String query = SELECT_FEED_ITEMS_AND_MEDIA + whereClause
+                + " ORDER BY " + FeedItemSortQuery.generateFrom(sortOrder) + " LIMIT " + limit;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Same as {@link #getEpisodesCursor(int, int, FeedItemFilter, SortOrder)}, but only with the columns
+     * of {@link de.danoeh.antennapod.model.feed.EpisodeListRow}.
+     */
+    public final Cursor getEpisodeListRowsCursor(int offset, int limit, FeedItemFilter filter,
+                                                 SortOrder sortOrder) {
+        String orderByQuery = FeedItemSortQuery.generateFrom(sortOrder);
+        String filterQuery = FeedItemFilterQuery.generateFrom(filter);
+        String whereClause = "".equals(filterQuery) ? "" : " WHERE " + filterQuery;
+        final String query = "SELECT " + KEYS_EPISODE_LIST_ROW + " FROM " + TABLE_NAME_FEED_ITEMS
+                + JOIN_FEED_ITEM_AND_MEDIA + whereClause
+                + " ORDER BY " + orderByQuery + " LIMIT " + offset + ", " + limit;
+        return db.rawQuery(query, null);
+    }
+
     public final Cursor getEpisodeCountCursor(FeedItemFilter filter) {
         String filterQuery = FeedItemFilterQuery.generateFrom(filter);
         String whereClause = "".equals(filterQuery) ? "" : " WHERE " + filterQuery;
@@ -1213,60 +1552,120 @@ public class PodDBAdapter {
         return db.rawQuery(query, null);
     }
 
-    public final Cursor getMonthlyStatisticsCursor() {
-        final String query = "SELECT SUM(" + KEY_PLAYED_DURATION + ") AS total_duration"
-                + ", strftime('%m', datetime(" + KEY_LAST_PLAYED_TIME_STATISTICS + "/1000, 'unixepoch')) AS month"
-                + ", strftime('%Y', datetime(" + KEY_LAST_PLAYED_TIME_STATISTICS + "/1000, 'unixepoch')) AS year"
-                + " FROM " + TABLE_NAME_FEED_MEDIA
-                + " WHERE " + KEY_LAST_PLAYED_TIME_STATISTICS + " > 0 AND " + KEY_PLAYED_DURATION + " > 0"
-                + " GROUP BY year, month"
-                + " ORDER BY year, month";
-        return db.rawQuery(query, null);
+    /**
+     * Selects the items whose item identifier is one of the given GUIDs, together with their media.
+     * Like {@link #getFeedItemCursor(String, String)}, only items of feeds that still exist are included.
+     */
+    public final Cursor getFeedItemCursorByGuids(List<String> guids) {
+        return getFeedItemCursorWhereIn(TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER, guids);
     }
 
-    public final Cursor getFeedStatisticsCursor(boolean includeMarkedAsPlayed, long timeFilterFrom,
-                                                long timeFilterTo, long sixMonthsAgo) {
-        final String lastPlayedTimeStatistics = TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME_STATISTICS;
-        String wasStarted = TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME_HISTORY + " > 0"
-                + " AND " + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYED_DURATION + " > 0";
-        if (includeMarkedAsPlayed) {
-            wasStarted = "(" + wasStarted + ") OR "
-                    + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.PLAYED + " OR "
-                    + TABLE_NAME_FEED_MEDIA + "." + KEY_POSITION + "> 0";
+    /**
+     * Selects the items whose media has one of the given download URLs, together with their media.
+     * Like {@link #getFeedItemCursor(String, String)}, only items of feeds that still exist are included.
+     */
+    public final Cursor getFeedItemCursorByEpisodeUrls(List<String> episodeUrls) {
+        return getFeedItemCursorWhereIn(TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL, episodeUrls);
+    }
+
+    private Cursor getFeedItemCursorWhereIn(String column, List<String> values) {
+        if (values.size() > IN_OPERATOR_MAXIMUM) {
+            throw new IllegalArgumentException("number of values must not be larger than " + IN_OPERATOR_MAXIMUM);
         }
-        final String timeFilter = lastPlayedTimeStatistics + ">=" + timeFilterFrom
-                + " AND " + lastPlayedTimeStatistics + "<" + timeFilterTo;
-        String playedTime = TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYED_DURATION;
-        if (includeMarkedAsPlayed) {
-            playedTime = "(CASE WHEN " + playedTime + " != 0"
-                    + " THEN " + playedTime + " ELSE ("
-                            + "CASE WHEN " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.PLAYED
-                                + " THEN " + TABLE_NAME_FEED_MEDIA + "." + KEY_DURATION + " ELSE 0 END"
-                    + ") END)";
+        StringBuilder valuesString = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i != 0) {
+                valuesString.append(",");
+            }
+            valuesString.append(DatabaseUtils.sqlEscapeString(values.get(i)));
         }
+        final String query = SELECT_FEED_ITEMS_AND_MEDIA
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + column + " IN (" + valuesString + ")";
+        return db.rawQuery(query, null);
+    }
+
+    public final Cursor getMonthlyStatisticsCursor() {
+        final String month = FeedStatisticsTable.TABLE_NAME + "." + FeedStatisticsTable.KEY_MONTH;
+        final String query = "SELECT SUM(" + FeedStatisticsTable.KEY_PLAYED_TIME + ") AS total_duration"
+                + ", strftime('%m', " + month + " / 1000, 'unixepoch') AS month"
+                + ", strftime('%Y', " + month + " / 1000, 'unixepoch') AS year"
+                + " FROM " + FeedStatisticsTable.TABLE_NAME
+                + " WHERE " + month + " > 0"
+                + " GROUP BY " + month
+                + " HAVING total_duration > 0"
+                + " ORDER BY " + month;
+        return db.rawQuery(query, null);
+    }
 
+    /**
+     * Statistics of all subscribed feeds over all time, summed up from {@link FeedStatisticsTable}.
+     */
+    public final Cursor getFeedStatisticsCursor(boolean includeMarkedAsPlayed) {
+        final String playedTime = includeMarkedAsPlayed
+                ? FeedStatisticsTable.KEY_PLAYED_TIME_WITH_MARKED : FeedStatisticsTable.KEY_PLAYED_TIME;
+        final String episodesStarted = includeMarkedAsPlayed
+                ? FeedStatisticsTable.KEY_EPISODES_STARTED_WITH_MARKED : FeedStatisticsTable.KEY_EPISODES_STARTED;
         final String query = "SELECT " + KEYS_FEED + ", "
-                        + "COUNT(*) AS num_episodes, "
-                        + "MIN(CASE WHEN " + lastPlayedTimeStatistics + " > 0"
-                                + " THEN " + lastPlayedTimeStatistics
-                                + " ELSE " + Long.MAX_VALUE + " END) AS oldest_date, "
-                        + "SUM(CASE WHEN (" + wasStarted + ") THEN 1 ELSE 0 END) AS episodes_started, "
-                        + "IFNULL(SUM(CASE WHEN (" + timeFilter + ")"
-                                + " THEN (" + playedTime + ") ELSE 0 END), 0) AS played_time, "
-                        + "IFNULL(SUM(" + TABLE_NAME_FEED_MEDIA + "." + KEY_DURATION + "), 0) AS total_time, "
-                        + "SUM(CASE WHEN " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_DATE + " > 0"
-                                + " THEN 1 ELSE 0 END) AS num_downloaded, "
-                        + "SUM(CASE WHEN " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_DATE + " > 0"
-                                + " THEN " + TABLE_NAME_FEED_MEDIA + "." + KEY_SIZE + " ELSE 0 END) AS download_size, "
-                        + "SUM(CASE WHEN " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + " != " + FeedItem.PLAYED
-                                + " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " >= " + sixMonthsAgo
-                                + " THEN 1 ELSE 0 END) AS num_recent_unplayed "
+                        + "SUM(" + FeedStatisticsTable.KEY_NUM_EPISODES + ") AS num_episodes, "
+                        + "SUM(" + episodesStarted + ") AS episodes_started, "
+                        + "SUM(" + playedTime + ") AS played_time, "
+                        + "SUM(" + FeedStatisticsTable.KEY_TOTAL_TIME + ") AS total_time, "
+                        + "SUM(" + FeedStatisticsTable.KEY_NUM_DOWNLOADED + ") AS num_downloaded, "
+                        + "SUM(" + FeedStatisticsTable.KEY_DOWNLOAD_SIZE + ") AS download_size"
+                + " FROM " + FeedStatisticsTable.TABLE_NAME
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + FeedStatisticsTable.TABLE_NAME + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_STATE + "!=" + Feed.STATE_NOT_SUBSCRIBED
+                + " GROUP BY " + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " HAVING num_episodes > 0";
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Played time per feed, of the episodes that were last played within the time frame.
+     */
+    public final Cursor getFeedPlayedTimeCursor(boolean includeMarkedAsPlayed, long timeFilterFrom,
+                                                long timeFilterTo) {
+        final String lastPlayedTimeStatistics = TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME_STATISTICS;
+        final String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + " AS " + KEY_FEED + ", "
+                        + "SUM(" + FeedStatisticsTable.getPlayedTime(includeMarkedAsPlayed,
+                                TABLE_NAME_FEED_ITEMS + "." + KEY_READ, TABLE_NAME_FEED_MEDIA) + ") AS played_time"
+                + " FROM " + TABLE_NAME_FEED_MEDIA
+                + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " WHERE " + lastPlayedTimeStatistics + ">=" + timeFilterFrom
+                        + " AND " + lastPlayedTimeStatistics + "<" + timeFilterTo
+                + " GROUP BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Number of unplayed episodes per feed that were published after the given date.
+     */
+    public final Cursor getRecentUnplayedCountCursor(long since) {
+        final String query = "SELECT " + KEY_FEED + ", COUNT(*) AS num_recent_unplayed"
                 + " FROM " + TABLE_NAME_FEED_ITEMS
-                + JOIN_FEED_ITEM_AND_MEDIA
+                + " WHERE " + KEY_PUBDATE + " >= " + since
+                        + " AND " + KEY_READ + " != " + FeedItem.PLAYED
+                + " GROUP BY " + KEY_FEED;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Time at which the episode of a subscribed feed that was played the longest time ago was last played.
+     */
+    public final Cursor getOldestPlayedTimeCursor() {
+        final String lastPlayedTimeStatistics = TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME_STATISTICS;
+        final String query = "SELECT MIN(" + lastPlayedTimeStatistics + ")"
+                + " FROM " + TABLE_NAME_FEED_MEDIA
+                + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
                 + " INNER JOIN " + TABLE_NAME_FEEDS
                 + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
-                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_STATE + "!=" + Feed.STATE_NOT_SUBSCRIBED
-                + " GROUP BY " + TABLE_NAME_FEEDS + "." + KEY_ID;
+                + " WHERE " + lastPlayedTimeStatistics + " > 0"
+                        + " AND " + TABLE_NAME_FEEDS + "." + KEY_STATE + "!=" + Feed.STATE_NOT_SUBSCRIBED;
         return db.rawQuery(query, null);
     }
 
@@ -1297,32 +1696,29 @@ public class PodDBAdapter {
     }
 
     public final Map<Long, Integer> getFeedCounters(FeedCounter setting, long... feedIds) {
-        String whereRead;
+        String column;
         switch (setting) {
             case SHOW_NEW:
-                whereRead = KEY_READ + "=" + FeedItem.NEW;
+                column = FeedCountersTable.KEY_NUM_NEW;
                 break;
             case SHOW_UNPLAYED:
-                whereRead = "(" + KEY_READ + "=" + FeedItem.NEW
-                        + " OR " + KEY_READ + "=" + FeedItem.UNPLAYED + ")";
+                column = FeedCountersTable.KEY_NUM_UNPLAYED;
                 break;
             case SHOW_DOWNLOADED:
-                whereRead = KEY_DOWNLOAD_DATE + ">0";
+                column = FeedCountersTable.KEY_NUM_DOWNLOADED;
                 break;
             case SHOW_DOWNLOADED_UNPLAYED:
-                whereRead = "(" + KEY_READ + "=" + FeedItem.NEW
-                        + " OR " + KEY_READ + "=" + FeedItem.UNPLAYED + ")"
-                        + " AND " + KEY_DOWNLOAD_DATE + ">0";
+                column = FeedCountersTable.KEY_NUM_DOWNLOADED_UNPLAYED;
                 break;
             case SHOW_NONE:
                 // deliberate fall-through
             default: // NONE
                 return new HashMap<>();
         }
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return readFeedCounters(column, feedIds);
     }
 
-    private Map<Long, Integer> conditionalFeedCounterRead(String whereRead, long... feedIds) {
+    private Map<Long, Integer> readFeedCounters(String column, long... feedIds) {
         String limitFeeds;
         if (feedIds.length > 0) {
             // work around TextUtils.join wanting only boxed items
@@ -1334,17 +1730,14 @@ public class PodDBAdapter {
             }
             // there's an extra ',', get rid of it
             builder.deleteCharAt(builder.length() - 1);
-            limitFeeds = KEY_FEED + " IN (" + builder.toString() + ") AND ";
+            limitFeeds = KEY_FEED + " IN (" + builder.toString() + ")";
         } else {
-            limitFeeds = SELECT_WHERE_FEED_IS_SUBSCRIBED + " AND ";
+            limitFeeds = KEY_FEED + " IN (SELECT " + KEY_ID + " FROM " + TABLE_NAME_FEEDS
+                    + " WHERE " + KEY_STATE + "=" + Feed.STATE_SUBSCRIBED + ")";
         }
 
-        final String query = "SELECT " + KEY_FEED + ", COUNT(" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ") AS count "
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON "
-                + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
-                + " WHERE " + limitFeeds + " "
-                + whereRead + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + column + " FROM " + FeedCountersTable.TABLE_NAME
+                + " WHERE " + limitFeeds + " AND " + column + " > 0";
 
         Cursor c = db.rawQuery(query, null);
         Map<Long, Integer> result = new HashMap<>();
@@ -1360,15 +1753,12 @@ public class PodDBAdapter {
     }
 
     public final Map<Long, Integer> getPlayedEpisodesCounters(long... feedIds) {
-        String whereRead = KEY_READ + "=" + FeedItem.PLAYED;
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return readFeedCounters(FeedCountersTable.KEY_NUM_PLAYED, feedIds);
     }
 
     public final Map<Long, Long> getMostRecentItemDates() {
-        final String query = "SELECT " + KEY_FEED + ","
-                + " MAX(" + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ") AS most_recent_pubdate"
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + FeedCountersTable.KEY_MOST_RECENT_PUBDATE
+                + " FROM " + FeedCountersTable.TABLE_NAME;
 
         Cursor c = db.rawQuery(query, null);
         Map<Long, Long> result = new HashMap<>();
@@ -1384,92 +1774,83 @@ public class PodDBAdapter {
     }
 
     /**
-     * Uses DatabaseUtils to escape a search query and removes ' at the
-     * beginning and the end of the string returned by the escape method.
+     * Number of new and of downloaded episodes in all subscribed feeds.
      */
-    private String[] prepareSearchQuery(String query) {
-        String[] queryWords = query.split("\\s+");
-        for (int i = 0; i < queryWords.length; ++i) {
-            StringBuilder builder = new StringBuilder();
-            DatabaseUtils.appendEscapedSQLString(builder, queryWords[i]);
-            builder.deleteCharAt(0);
-            builder.deleteCharAt(builder.length() - 1);
-            queryWords[i] = builder.toString();
-        }
-
-        return queryWords;
+    public final Cursor getTotalFeedCountersCursor() {
+        final String query = "SELECT IFNULL(SUM(" + FeedCountersTable.TABLE_NAME + "." + FeedCountersTable.KEY_NUM_NEW
+                + "), 0), IFNULL(SUM(" + FeedCountersTable.TABLE_NAME + "." + FeedCountersTable.KEY_NUM_DOWNLOADED
+                + "), 0) FROM " + FeedCountersTable.TABLE_NAME
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + FeedCountersTable.TABLE_NAME + "." + KEY_FEED + " = " + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_STATE + " = " + Feed.STATE_SUBSCRIBED;
+        return db.rawQuery(query, null);
     }
 
     /**
-     * Searches for the given query in various values of all items or the items
-     * of a specified feed.
+     * Finds the items that match a full-text search expression in their title or description.
      *
-     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     * @param matchQuery An FTS MATCH expression.
+     * @param limit      Maximum number of results.
+     * @return A cursor with the item ID and the matchinfo() of the results, newest first.
      */
-    public Cursor searchItems(long feedID, String searchQuery, int state) {
-        final String[] queryWords = prepareSearchQuery(searchQuery);
-
-        String queryFeedId;
+    public Cursor searchItems(long feedID, String matchQuery, int state, int limit) {
+        String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ", "
+                + "matchinfo(" + TABLE_NAME_FEED_ITEMS_FTS + ", '" + FullTextSearch.MATCHINFO_FORMAT + "')"
+                + " FROM " + TABLE_NAME_FEED_ITEMS_FTS
+                + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " = " + TABLE_NAME_FEED_ITEMS_FTS + ".docid"
+                + " WHERE " + TABLE_NAME_FEED_ITEMS_FTS + " MATCH ?";
         if (feedID != 0) {
             // search items in specific feed
-            queryFeedId = KEY_FEED + " = " + feedID;
-        } else {
-            // search through all items
-            queryFeedId = "1 = 1";
-        }
-
-        String queryStart = SELECT_FEED_ITEMS_AND_MEDIA_WITH_DESCRIPTION + " WHERE " + queryFeedId;
-        if (state == Feed.STATE_SUBSCRIBED && feedID == 0) {
-            queryStart += " AND " + SELECT_WHERE_FEED_IS_SUBSCRIBED;
-        }
-        queryStart += " AND (";
-        StringBuilder sb = new StringBuilder(queryStart);
-
-        for (int i = 0; i < queryWords.length; i++) {
-            sb
-                    .append("(")
-                    .append(KEY_DESCRIPTION + " LIKE '%").append(queryWords[i])
-                    .append("%' OR ")
-                    .append(KEY_TITLE).append(" LIKE '%").append(queryWords[i])
-                    .append("%') ");
-
-            if (i != queryWords.length - 1) {
-                sb.append("AND ");
-            }
+            query += " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + " = " + feedID;
+        } else if (state == Feed.STATE_SUBSCRIBED) {
+            query += " AND " + SELECT_WHERE_FEED_IS_SUBSCRIBED;
         }
-
-        sb.append(") ORDER BY " + KEY_PUBDATE + " DESC LIMIT 300");
-
-        return db.rawQuery(sb.toString(), null);
+        query += " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
+                + " LIMIT " + limit;
+        return db.rawQuery(query, new String[]{matchQuery});
     }
 
     /**
-     * Searches for the given query in various values of all feeds.
+     * Finds the feeds that match a full-text search expression in their title, custom title, author or description.
      *
-     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     * @param matchQuery An FTS MATCH expression.
+     * @return A cursor with all feed columns and the matchinfo() in {@link #SELECT_KEY_MATCHINFO}.
      */
-    public Cursor searchFeeds(String searchQuery, int state) {
-        final String[] queryWords = prepareSearchQuery(searchQuery);
-        String queryStart = "SELECT " + KEYS_FEED + " FROM " + TABLE_NAME_FEEDS
-                + " WHERE " + KEY_STATE + " = " + state;
-        StringBuilder sb = new StringBuilder(queryStart);
-
-        for (int i = 0; i < queryWords.length; i++) {
-            sb
-                    .append(" AND (")
-                    .append(KEY_TITLE).append(" LIKE '%").append(queryWords[i])
-                    .append("%' OR ")
-                    .append(KEY_CUSTOM_TITLE).append(" LIKE '%").append(queryWords[i])
-                    .append("%' OR ")
-                    .append(KEY_AUTHOR).append(" LIKE '%").append(queryWords[i])
-                    .append("%' OR ")
-                    .append(KEY_DESCRIPTION).append(" LIKE '%").append(queryWords[i])
-                    .append("%') ");
-        }
-
-        sb.append(" ORDER BY " + KEY_TITLE + " ASC LIMIT 300");
+    public Cursor searchFeeds(String matchQuery, int state) {
+        final String query = "SELECT " + KEYS_FEED + ", "
+                + "matchinfo(" + TABLE_NAME_FEEDS_FTS + ", '" + FullTextSearch.MATCHINFO_FORMAT + "')"
+                + " AS " + SELECT_KEY_MATCHINFO
+                + " FROM " + TABLE_NAME_FEEDS_FTS
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEEDS + "." + KEY_ID + " = " + TABLE_NAME_FEEDS_FTS + ".docid"
+                + " WHERE " + TABLE_NAME_FEEDS_FTS + " MATCH ?"
+                + " AND " + TABLE_NAME_FEEDS + "." + KEY_STATE + " = " + state
+                + " ORDER BY " + TABLE_NAME_FEEDS + "." + KEY_TITLE + " ASC";
+        return db.rawQuery(query, new String[]{matchQuery});
+    }
 
-        return db.rawQuery(sb.toString(), null);
+    /**
+     * Creates an FTS4 index over some text columns of a table. The index does not store a copy of the text,
+     * triggers keep it up to date when rows are inserted, changed or deleted.
+     */
+    static String[] getCreateFullTextIndexStatements(String table, String ftsTable, String... columns) {
+        String columnList = TextUtils.join(", ", columns);
+        StringBuilder newValues = new StringBuilder();
+        for (String column : columns) {
+            newValues.append(", new.").append(column);
+        }
+        String insert = "INSERT INTO " + ftsTable + "(docid, " + columnList + ")"
+                + " VALUES (new." + KEY_ID + newValues + ");";
+        String delete = "DELETE FROM " + ftsTable + " WHERE docid = old." + KEY_ID + ";";
+        String updateOf = " UPDATE OF " + columnList + " ON " + table;
+        return new String[]{
+            "CREATE VIRTUAL TABLE " + ftsTable + " USING fts4(content=\"" + table + "\", " + columnList + ")",
+            "CREATE TRIGGER " + ftsTable + "_bu BEFORE" + updateOf + " BEGIN " + delete + " END",
+            "CREATE TRIGGER " + ftsTable + "_bd BEFORE DELETE ON " + table + " BEGIN " + delete + " END",
+            "CREATE TRIGGER " + ftsTable + "_au AFTER" + updateOf + " BEGIN " + insert + " END",
+            "CREATE TRIGGER " + ftsTable + "_ai AFTER INSERT ON " + table + " BEGIN " + insert + " END"
+        };
     }
 
     /**
@@ -1507,6 +1888,8 @@ public class PodDBAdapter {
      * Helper class for opening the Antennapod database.
      */
     private static class PodDBHelper extends SQLiteOpenHelper {
+        private boolean vacuumAfterUpgrade = false;
+
         /**
          * Constructor.
          *
@@ -1530,16 +1913,44 @@ public class PodDBAdapter {
 
             db.execSQL(CREATE_INDEX_FEEDITEMS_FEED);
             db.execSQL(CREATE_INDEX_FEEDITEMS_PUBDATE);
+            db.execSQL(CREATE_INDEX_FEEDITEMS_FEED_PUBDATE);
             db.execSQL(CREATE_INDEX_FEEDITEMS_READ);
             db.execSQL(CREATE_INDEX_FEEDMEDIA_FEEDITEM);
             db.execSQL(CREATE_INDEX_QUEUE_FEEDITEM);
             db.execSQL(CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_LAST_PLAYED_TIME_STATISTICS);
+
+            for (String statement : FeedStatisticsTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            for (String statement : FeedCountersTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            for (String statement : FeedItemDescriptionTable.getCreateStatements()) {
+                db.execSQL(statement);
+            }
+            for (String statement : CREATE_FEEDS_FULL_TEXT_INDEX) {
+                db.execSQL(statement);
+            }
         }
 
         @Override
         public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
             Log.w("DBAdapter", "Upgrading from version " + oldVersion + " to " + newVersion + ".");
             DBUpgrader.upgrade(db, oldVersion, newVersion);
+            // Episode descriptions moved out of the episode table
+            vacuumAfterUpgrade = oldVersion < 3120000;
+        }
+
+        @Override
+        public void onOpen(final SQLiteDatabase db) {
+            super.onOpen(db);
+            if (vacuumAfterUpgrade) {
+                // VACUUM cannot run in the transaction of onUpgrade
+                vacuumAfterUpgrade = false;
+                Log.d("DBAdapter", "Vacuuming database after upgrade");
+                db.execSQL("VACUUM");
+            }
         }
     }
 }
@@ -0,0 +1,66 @@
+package de.danoeh.antennapod.storage.database;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+/**
+ * A batch of changes to the queue that is written in a single transaction by
+ * {@link PodDBAdapter#applyQueueMutations(QueueMutations)}.
+ * Positions refer to the queue as it is after the previous changes of the same batch were applied.
+ */
+public final class QueueMutations {
+    static final int INSERT = 0;
+    static final int REMOVE = 1;
+    static final int MOVE = 2;
+
+    static final class Mutation {
+        final int type;
+        final long itemId;
+        final long feedId;
+        final int position;
+
+        private Mutation(int type, long itemId, long feedId, int position) {
+            this.type = type;
+            this.itemId = itemId;
+            this.feedId = feedId;
+            this.position = position;
+        }
+    }
+
+    private final List<Mutation> mutations = new ArrayList<>();
+
+    /**
+     * Inserts an item at the given position. Items that are already in the queue are not moved.
+     */
+    public QueueMutations insert(@NonNull FeedItem item, int position) {
+        long feedId = item.getFeed() != null ? item.getFeed().getId() : item.getFeedId();
+        mutations.add(new Mutation(INSERT, item.getId(), feedId, position));
+        return this;
+    }
+
+    public QueueMutations remove(long itemId) {
+        mutations.add(new Mutation(REMOVE, itemId, 0, -1));
+        return this;
+    }
+
+    /**
+     * Moves an item to the given position. Items that are not in the queue are ignored.
+     * Positions beyond the end of the queue move the item to the end.
+     */
+    public QueueMutations move(long itemId, int position) {
+        mutations.add(new Mutation(MOVE, itemId, 0, position));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return mutations.isEmpty();
+    }
+
+    List<Mutation> getMutations() {
+        return mutations;
+    }
+}
@@ -0,0 +1,22 @@
+package de.danoeh.antennapod.storage.database.mapper;
+
+import android.database.Cursor;
+import androidx.annotation.Nullable;
+
+/**
+ * Helpers for reading strings from a {@link Cursor}, shared by the cursor mappers.
+ */
+final class CursorStrings {
+    private CursorStrings() {
+    }
+
+    /**
+     * For columns that only have a handful of different values, like the MIME type.
+     * Long lists then share one string instead of holding a copy per row.
+     */
+    @Nullable
+    static String getInterned(Cursor cursor, int columnIndex) {
+        String value = cursor.getString(columnIndex);
+        return value != null ? value.intern() : null;
+    }
+}
@@ -0,0 +1,68 @@
+package de.danoeh.antennapod.storage.database.mapper;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import androidx.annotation.NonNull;
+import de.danoeh.antennapod.model.feed.EpisodeListRow;
+import de.danoeh.antennapod.storage.database.PodDBAdapter;
+
+/**
+ * Converts a {@link Cursor} to an {@link EpisodeListRow} object.
+ */
+public class EpisodeListRowCursor extends CursorWrapper {
+    private final int indexId;
+    private final int indexFeedId;
+    private final int indexTitle;
+    private final int indexPubDate;
+    private final int indexRead;
+    private final int indexImageUrl;
+    private final int indexMediaId;
+    private final int indexDuration;
+    private final int indexPosition;
+    private final int indexSize;
+    private final int indexDownloadDate;
+    private final int indexMimeType;
+
+    public EpisodeListRowCursor(Cursor cursor) {
+        super(cursor);
+        indexId = cursor.getColumnIndexOrThrow(PodDBAdapter.SELECT_KEY_ITEM_ID);
+        indexFeedId = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_FEED);
+        indexTitle = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_TITLE);
+        indexPubDate = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_PUBDATE);
+        indexRead = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_READ);
+        indexImageUrl = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_IMAGE_URL);
+        indexMediaId = cursor.getColumnIndexOrThrow(PodDBAdapter.SELECT_KEY_MEDIA_ID);
+        indexDuration = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_DURATION);
+        indexPosition = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_POSITION);
+        indexSize = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_SIZE);
+        indexDownloadDate = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_DOWNLOAD_DATE);
+        indexMimeType = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_MIME_TYPE);
+    }
+
+    public long getItemId() {
+        return getLong(indexId);
+    }
+
+    /**
+     * Create an {@link EpisodeListRow} instance from a database row (cursor).
+     * Media columns are NULL for episodes without media, which reads as 0.
+     */
+    @NonNull
+    public EpisodeListRow getEpisodeListRow(boolean inQueue, boolean favorite) {
+        return new EpisodeListRow(
+                getItemId(),
+                getLong(indexFeedId),
+                getString(indexTitle),
+                getLong(indexPubDate),
+                getInt(indexRead),
+                getString(indexImageUrl),
+                getLong(indexMediaId),
+                getInt(indexDuration),
+                getInt(indexPosition),
+                getLong(indexSize),
+                getLong(indexDownloadDate),
+                CursorStrings.getInterned(this, indexMimeType),
+                inQueue,
+                favorite);
+    }
+}
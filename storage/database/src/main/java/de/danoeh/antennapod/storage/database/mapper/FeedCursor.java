@@ -16,6 +16,8 @@ public class FeedCursor extends CursorWrapper {
     private final FeedPreferencesCursor preferencesCursor;
     private final int indexId;
     private final int indexLastUpdate;
+    private final int indexEtag;
+    private final int indexLastFullParse;
     private final int indexTitle;
     private final int indexCustomTitle;
     private final int indexLink;
@@ -41,6 +43,8 @@ public class FeedCursor extends CursorWrapper {
         preferencesCursor = (FeedPreferencesCursor) getWrappedCursor();
         indexId = cursor.getColumnIndexOrThrow(PodDBAdapter.SELECT_KEY_FEED_ID);
         indexLastUpdate = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_LASTUPDATE);
+        indexEtag = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_ETAG);
+        indexLastFullParse = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_LAST_FULL_PARSE);
         indexTitle = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_TITLE);
         indexCustomTitle = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_CUSTOM_TITLE);
         indexLink = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_LINK);
@@ -89,6 +93,8 @@ public class FeedCursor extends CursorWrapper {
                 SortOrder.fromCodeString(getString(indexSortOrder)),
                 getInt(indexLastUpdateFailed) > 0,
                 getInt(indexState));
+        feed.setEtag(getString(indexEtag));
+        feed.setLastFullParse(getLong(indexLastFullParse));
         feed.setPreferences(preferencesCursor.getFeedPreferences());
         return feed;
     }
@@ -69,7 +69,7 @@ public class FeedItemCursor extends CursorWrapper {
                 getString(indexItemIdentifier),
                 getLong(indexAutoDownload) > 0,
                 getString(indexPodcastIndexChapterUrl),
-                getString(indexPodcastIndexTranscriptType),
+                CursorStrings.getInterned(this, indexPodcastIndexTranscriptType),
                 getString(indexPodcastIndexTranscriptUrl),
                 getString(indexSocialInteractUrl));
         if (!isNull(indexMediaId)) {
@@ -1,39 +1,135 @@
 package de.danoeh.antennapod.storage.database.mapper;
 
+import android.database.DatabaseUtils;
+
+import androidx.annotation.NonNull;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.model.feed.SortOrder;
 import de.danoeh.antennapod.storage.database.PodDBAdapter;
 import de.danoeh.antennapod.storage.preferences.UserPreferences;
 
 public class FeedItemSortQuery {
+    private static final String ID_COLUMN = PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_ID;
+
+    /**
+     * Generates the ORDER BY clause for the sort order.
+     * Episodes with the same sort value are ordered by their ID, so that every episode has a unique position
+     * and pages loaded with {@link #generateKeysetCondition} line up with pages loaded with an offset.
+     *
+     * <p>Only the date orders have an index. The title and file name orders are rare enough that they do not
+     * get an index of their own, so SQLite sorts the matching episodes for every page. With a LIMIT, that is
+     * a top-N sort that does not keep more rows than the page in memory.
+     */
     public static String generateFrom(SortOrder sortOrder) {
+        sortOrder = resolve(sortOrder);
+        String direction = getDirection(sortOrder);
+        return getColumn(sortOrder) + " " + direction + ", " + ID_COLUMN + " " + direction;
+    }
+
+    /**
+     * Generates a condition that only matches the episodes that come after the given episode
+     * in the order of {@link #generateFrom}. Unlike an OFFSET, this lets SQLite start reading
+     * right at the position of the episode, no matter how far down the list it is.
+     *
+     * <p>The sort value is read from the database, because the episode might have changed since it was loaded,
+     * for example when it was played. The value of the loaded episode is only used if it was deleted.
+     */
+    public static String generateKeysetCondition(SortOrder sortOrder, @NonNull FeedItem lastItem) {
+        sortOrder = resolve(sortOrder);
+        String column = getColumn(sortOrder);
+        String literal = getValue(sortOrder, lastItem);
+        String whereLastItem = " WHERE " + ID_COLUMN + " = " + lastItem.getId();
+        String value = "(CASE WHEN EXISTS (SELECT 1 FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + whereLastItem + ")"
+                + " THEN (SELECT " + column + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                + " LEFT JOIN " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                + " ON " + ID_COLUMN + " = " + PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_FEEDITEM
+                + whereLastItem + ")"
+                + " ELSE " + (literal != null ? literal : "NULL") + " END)";
+        boolean ascending = "ASC".equals(getDirection(sortOrder));
+        String sameValueAfterId = ID_COLUMN + (ascending ? " > " : " < ") + lastItem.getId();
+        // NULL sorts before all other values
+        String afterValue = column + (ascending ? " > " : " < ") + value;
+        String afterNull = ascending
+                ? "(" + value + " IS NULL AND " + column + " IS NOT NULL)"
+                : "(" + value + " IS NOT NULL AND " + column + " IS NULL)";
+        return "(" + afterValue + " OR (" + column + " IS " + value + " AND " + sameValueAfterId + ")"
+                + " OR " + afterNull + ")";
+    }
+
+    private static SortOrder resolve(SortOrder sortOrder) {
         if (sortOrder == null || SortOrder.GLOBAL_DEFAULT.equals(sortOrder)) {
-            sortOrder = UserPreferences.getPrefGlobalSortedOrder();
+            return UserPreferences.getPrefGlobalSortedOrder();
         }
+        return sortOrder;
+    }
+
+    private static String getColumn(SortOrder sortOrder) {
         switch (sortOrder) {
             case EPISODE_TITLE_A_Z:
-                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_TITLE + " " + "ASC";
             case EPISODE_TITLE_Z_A:
-                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_TITLE + " " + "DESC";
+                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_TITLE;
             case DURATION_SHORT_LONG:
-                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_DURATION + " " + "ASC";
             case DURATION_LONG_SHORT:
-                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_DURATION + " " + "DESC";
+                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_DURATION;
             case SIZE_SMALL_LARGE:
-                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_SIZE + " " + "ASC";
             case SIZE_LARGE_SMALL:
-                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_SIZE + " " + "DESC";
+                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_SIZE;
             case COMPLETION_DATE_NEW_OLD:
-                return PodDBAdapter.TABLE_NAME_FEED_MEDIA + "."
-                        + PodDBAdapter.KEY_LAST_PLAYED_TIME_HISTORY + " " + "DESC";
+                // Episodes that were never completed hold NULL or 0, depending on when they were stored
+                return "COALESCE(" + PodDBAdapter.TABLE_NAME_FEED_MEDIA + "."
+                        + PodDBAdapter.KEY_LAST_PLAYED_TIME_HISTORY + ", 0)";
+            case EPISODE_FILENAME_A_Z:
+            case EPISODE_FILENAME_Z_A:
+                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_LINK;
+            case DATE_OLD_NEW:
+            case DATE_NEW_OLD:
+            default:
+                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_PUBDATE;
+        }
+    }
+
+    private static String getDirection(SortOrder sortOrder) {
+        switch (sortOrder) {
+            case EPISODE_TITLE_A_Z:
+            case DURATION_SHORT_LONG:
+            case SIZE_SMALL_LARGE:
             case DATE_OLD_NEW:
-                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_PUBDATE + " " + "ASC";
             case EPISODE_FILENAME_A_Z:
-                return PodDBAdapter.KEY_LINK + " " + "ASC";
+                return "ASC";
+            default:
+                return "DESC";
+        }
+    }
+
+    /**
+     * Returns the sort value of the loaded episode as an SQL literal, or null if the database holds NULL for it.
+     */
+    private static String getValue(SortOrder sortOrder, FeedItem item) {
+        FeedMedia media = item.getMedia();
+        switch (sortOrder) {
+            case EPISODE_TITLE_A_Z:
+            case EPISODE_TITLE_Z_A:
+                return item.getTitle() != null ? DatabaseUtils.sqlEscapeString(item.getTitle()) : null;
+            case DURATION_SHORT_LONG:
+            case DURATION_LONG_SHORT:
+                return media != null ? String.valueOf(media.getDuration()) : null;
+            case SIZE_SMALL_LARGE:
+            case SIZE_LARGE_SMALL:
+                return media != null ? String.valueOf(media.getSize()) : null;
+            case COMPLETION_DATE_NEW_OLD:
+                if (media == null || media.getLastPlayedTimeHistory() == null) {
+                    return "0";
+                }
+                return String.valueOf(media.getLastPlayedTimeHistory().getTime());
+            case EPISODE_FILENAME_A_Z:
             case EPISODE_FILENAME_Z_A:
-                return PodDBAdapter.KEY_LINK + " " + "DESC";
+                return item.getLink() != null ? DatabaseUtils.sqlEscapeString(item.getLink()) : null;
+            case DATE_OLD_NEW:
             case DATE_NEW_OLD:
             default:
-                return PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_PUBDATE + " " + "DESC";
+                return item.getPubDate() != null ? String.valueOf(item.getPubDate().getTime()) : null;
         }
     }
-}
\ No newline at end of file
+}
@@ -68,7 +68,7 @@ public class FeedMediaCursor extends CursorWrapper {
                 getInt(indexDuration),
                 getInt(indexPosition),
                 getLong(indexSize),
-                getString(indexMimeType),
+                CursorStrings.getInterned(this, indexMimeType),
                 getString(indexFileUrl),
                 getString(indexDownloadUrl),
                 getLong(indexDownloadDate),
@@ -0,0 +1,55 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.content.Context;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.storage.preferences.UserPreferences;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Database fixture for tests that run with Robolectric.
+ */
+public class DbTestUtil {
+
+    /**
+     * Initializes the preferences and an empty database.
+     */
+    public static PodDBAdapter initEmptyDatabase() {
+        Context context = RuntimeEnvironment.getApplication();
+        UserPreferences.init(context);
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        return adapter;
+    }
+
+    /**
+     * Stores a subscribed feed called "Feed" with the given items.
+     */
+    public static Feed storeFeed(List<FeedItem> items) {
+        return storeFeed("url", "Feed", items);
+    }
+
+    public static Feed storeFeed(String downloadUrl, String title) {
+        return storeFeed(downloadUrl, title, Collections.emptyList());
+    }
+
+    public static Feed storeFeed(String downloadUrl, String title, List<FeedItem> items) {
+        Feed feed = new Feed(downloadUrl, null, title);
+        feed.setItems(new ArrayList<>());
+        for (FeedItem item : items) {
+            item.setFeed(feed);
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+        return feed;
+    }
+}
@@ -0,0 +1,109 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.EpisodeListRow;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedItemFilter;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import de.danoeh.antennapod.model.feed.SortOrder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DBReader#getEpisodeListRows}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class EpisodeListRowTest {
+    private PodDBAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = DbTestUtil.initEmptyDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testSameEpisodesAsFullItems() {
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            FeedItem item = new FeedItem(0, "Item " + i, "guid-" + i, "http://example.com/" + i,
+                    new Date(i * 1000L), i % 2 == 0 ? FeedItem.PLAYED : FeedItem.NEW, null);
+            if (i % 3 != 0) {
+                FeedMedia media = new FeedMedia(item, "http://example.com/" + i + ".mp3", 1000 + i, "audio/mpeg");
+                media.setDuration(60000 + i);
+                media.setPosition(i * 100);
+                item.setMedia(media);
+            }
+            items.add(item);
+        }
+        DbTestUtil.storeFeed(items);
+
+        FeedItemFilter filter = new FeedItemFilter(FeedItemFilter.UNPLAYED);
+        List<FeedItem> full = DBReader.getEpisodes(0, 100, filter, SortOrder.DATE_NEW_OLD);
+        List<EpisodeListRow> rows = DBReader.getEpisodeListRows(0, 100, filter, SortOrder.DATE_NEW_OLD);
+        assertEquals(5, rows.size());
+        assertEquals(full.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            FeedItem item = full.get(i);
+            EpisodeListRow row = rows.get(i);
+            assertEquals(item.getId(), row.getId());
+            assertEquals(item.getFeedId(), row.getFeedId());
+            assertEquals(item.getTitle(), row.getTitle());
+            assertEquals(item.getPubDate().getTime(), row.getPubDate());
+            assertEquals(item.getPlayState(), row.getPlayState());
+            assertTrue(row.isNew());
+            assertEquals(item.hasMedia(), row.hasMedia());
+            if (item.hasMedia()) {
+                assertEquals(item.getMedia().getId(), row.getMediaId());
+                assertEquals(item.getMedia().getDuration(), row.getDuration());
+                assertEquals(item.getMedia().getPosition(), row.getPosition());
+                assertEquals(item.getMedia().getSize(), row.getSize());
+                assertSame("audio/mpeg", row.getMimeType());
+            } else {
+                assertEquals(0, row.getDuration());
+                assertNull(row.getMimeType());
+            }
+        }
+    }
+
+    @Test
+    public void testQueueAndFavoriteTags() {
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(new FeedItem(0, "Item " + i, "guid-" + i, "http://example.com/" + i,
+                    new Date(i * 1000L), FeedItem.UNPLAYED, null));
+        }
+        DbTestUtil.storeFeed(items);
+        adapter.open();
+        adapter.setQueue(Collections.singletonList(items.get(1)));
+        adapter.addFavoriteItem(items.get(2));
+        adapter.close();
+
+        List<EpisodeListRow> rows = DBReader.getEpisodeListRows(0, 10,
+                new FeedItemFilter(), SortOrder.DATE_OLD_NEW);
+        assertEquals(3, rows.size());
+        assertFalse(rows.get(0).isInQueue());
+        assertFalse(rows.get(0).isFavorite());
+        assertTrue(rows.get(1).isInQueue());
+        assertFalse(rows.get(1).isFavorite());
+        assertFalse(rows.get(2).isInQueue());
+        assertTrue(rows.get(2).isFavorite());
+    }
+}
@@ -0,0 +1,94 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FeedCacheTest {
+
+    @Before
+    public void setUp() {
+        DbTestUtil.initEmptyDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testRepeatedReadsUseCache() {
+        Feed feed = DbTestUtil.storeFeed("http://example.com/feed", "Feed");
+        FeedCache cache = FeedCache.getInstance();
+
+        List<Feed> first = DBReader.getFeedList();
+        List<Feed> second = DBReader.getFeedList();
+        assertEquals(1, first.size());
+        assertEquals(feed.getId(), second.get(0).getId());
+        assertEquals(feed.getId(), FeedCache.getInstance().getFeed(feed.getId()).getId());
+        assertEquals(feed.getId(),
+                FeedCache.getInstance().getFeedByIdentifyingValue("http://example.com/feed").getId());
+        assertSame(cache, FeedCache.getInstance());
+
+        FeedCache.invalidate();
+        assertNotSame(cache, FeedCache.getInstance());
+    }
+
+    @Test
+    public void testReturnedFeedsAreCopies() {
+        Feed feed = DbTestUtil.storeFeed("http://example.com/feed", "Feed");
+        Feed returned = DBReader.getFeedList().get(0);
+        assertNotSame(returned, DBReader.getFeedList().get(0));
+
+        returned.setItems(new ArrayList<>(Collections.singletonList(new FeedItem())));
+        returned.setState(Feed.STATE_NOT_SUBSCRIBED);
+        returned.setCustomTitle("Changed");
+        returned.getPreferences().setKeepUpdated(false);
+        returned.getPreferences().getTags().add("Tag");
+
+        Feed next = DBReader.getFeedList().get(0);
+        assertTrue(next.getItems() == null || next.getItems().isEmpty());
+        assertEquals(Feed.STATE_SUBSCRIBED, next.getState());
+        assertEquals("Feed", next.getTitle());
+        assertTrue(next.getPreferences().getKeepUpdated());
+        assertFalse(next.getPreferences().getTags().contains("Tag"));
+        assertNotSame(next, FeedCache.getInstance().getFeed(feed.getId()));
+    }
+
+    @Test
+    public void testWritesInvalidateCache() {
+        Feed feed = DbTestUtil.storeFeed("http://example.com/feed", "Feed");
+        assertEquals("Feed", DBReader.getFeedList().get(0).getTitle());
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setFeedCustomTitle(feed.getId(), "Custom title");
+        adapter.close();
+        assertEquals("Custom title", DBReader.getFeedList().get(0).getTitle());
+
+        DbTestUtil.storeFeed("http://example.com/other", "Other feed");
+        assertEquals(2, DBReader.getFeedList().size());
+
+        adapter.open();
+        adapter.removeFeed(feed);
+        adapter.close();
+        assertEquals(1, DBReader.getFeedList().size());
+        assertNull(FeedCache.getInstance().getFeed(feed.getId()));
+    }
+}
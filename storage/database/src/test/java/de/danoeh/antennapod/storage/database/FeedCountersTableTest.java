@@ -0,0 +1,137 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.database.Cursor;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedCounter;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the triggers of {@link FeedCountersTable} keep the counters in line with the episodes.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedCountersTableTest {
+    private static final long PUB_DATE = 1700000000000L;
+
+    private PodDBAdapter adapter;
+    private Feed feed;
+
+    @Before
+    public void setUp() {
+        adapter = DbTestUtil.initEmptyDatabase();
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            FeedItem item = new FeedItem();
+            item.setItemIdentifier("item-" + i);
+            item.setTitle("Item " + i);
+            item.setPubDate(new Date(PUB_DATE + i));
+            item.setNew();
+            item.setMedia(new FeedMedia(item, "url-" + i, 1000, "audio/mpeg"));
+            items.add(item);
+        }
+        feed = DbTestUtil.storeFeed(items);
+    }
+
+    @Test
+    public void testNewEpisodes() {
+        assertEquals(3, getCounter(FeedCounter.SHOW_NEW));
+        assertEquals(3, getCounter(FeedCounter.SHOW_UNPLAYED));
+        assertEquals(0, getCounter(FeedCounter.SHOW_DOWNLOADED));
+        assertFalse(adapter.getPlayedEpisodesCounters().containsKey(feed.getId()));
+        assertEquals(PUB_DATE + 2, (long) adapter.getMostRecentItemDates().get(feed.getId()));
+    }
+
+    @Test
+    public void testPlayedAndDownloaded() {
+        adapter.setFeedItemRead(FeedItem.PLAYED, false, feed.getItems().get(0));
+        adapter.setFeedItemRead(FeedItem.UNPLAYED, false, feed.getItems().get(1));
+        FeedMedia downloaded = feed.getItems().get(1).getMedia();
+        downloaded.setDownloaded(true, PUB_DATE);
+        adapter.setMedia(downloaded);
+
+        assertEquals(1, getCounter(FeedCounter.SHOW_NEW));
+        assertEquals(2, getCounter(FeedCounter.SHOW_UNPLAYED));
+        assertEquals(1, getCounter(FeedCounter.SHOW_DOWNLOADED));
+        assertEquals(1, getCounter(FeedCounter.SHOW_DOWNLOADED_UNPLAYED));
+        assertEquals(1, (int) adapter.getPlayedEpisodesCounters().get(feed.getId()));
+
+        downloaded.setDownloaded(false, 0);
+        adapter.setMedia(downloaded);
+        assertEquals(0, getCounter(FeedCounter.SHOW_DOWNLOADED));
+    }
+
+    @Test
+    public void testRemovedEpisodes() {
+        adapter.removeFeedItems(Collections.singletonList(feed.getItems().get(2)));
+        assertEquals(2, getCounter(FeedCounter.SHOW_NEW));
+        assertEquals(PUB_DATE + 1, (long) adapter.getMostRecentItemDates().get(feed.getId()));
+
+        adapter.removeFeed(feed);
+        assertFalse(adapter.getMostRecentItemDates().containsKey(feed.getId()));
+    }
+
+    @Test
+    public void testOtherFeedsAreSeparate() {
+        FeedItem item = new FeedItem();
+        item.setItemIdentifier("other");
+        item.setTitle("Other");
+        item.setPubDate(new Date(PUB_DATE));
+        item.setNew();
+        Feed other = DbTestUtil.storeFeed("url2", "Other", Collections.singletonList(item));
+
+        Map<Long, Integer> counters = adapter.getFeedCounters(FeedCounter.SHOW_NEW);
+        assertEquals(3, (int) counters.get(feed.getId()));
+        assertEquals(1, (int) counters.get(other.getId()));
+        assertEquals(1, adapter.getFeedCounters(FeedCounter.SHOW_NEW, other.getId()).size());
+    }
+
+    @Test
+    public void testTotalsOnlyCountSubscribedFeeds() {
+        FeedMedia downloaded = feed.getItems().get(0).getMedia();
+        downloaded.setDownloaded(true, PUB_DATE);
+        adapter.setMedia(downloaded);
+
+        Feed notSubscribed = new Feed("url2", null, "Not subscribed");
+        notSubscribed.setState(Feed.STATE_NOT_SUBSCRIBED);
+        notSubscribed.setItems(new ArrayList<>());
+        FeedItem item = new FeedItem();
+        item.setItemIdentifier("other");
+        item.setTitle("Other");
+        item.setPubDate(new Date(PUB_DATE));
+        item.setNew();
+        item.setMedia(new FeedMedia(item, "url-other", 1000, "audio/mpeg"));
+        item.setFeed(notSubscribed);
+        notSubscribed.getItems().add(item);
+        adapter.setCompleteFeed(notSubscribed);
+        FeedMedia otherDownloaded = item.getMedia();
+        otherDownloaded.setDownloaded(true, PUB_DATE);
+        adapter.setMedia(otherDownloaded);
+        assertEquals(1, (int) adapter.getFeedCounters(FeedCounter.SHOW_NEW, notSubscribed.getId())
+                .get(notSubscribed.getId()));
+
+        try (Cursor cursor = adapter.getTotalFeedCountersCursor()) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(3, cursor.getInt(0));
+            assertEquals(1, cursor.getInt(1));
+        }
+    }
+
+    private int getCounter(FeedCounter counter) {
+        Map<Long, Integer> counters = adapter.getFeedCounters(counter);
+        return counters.containsKey(feed.getId()) ? counters.get(feed.getId()) : 0;
+    }
+}
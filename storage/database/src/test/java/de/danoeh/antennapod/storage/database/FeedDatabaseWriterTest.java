@@ -18,6 +18,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -111,6 +112,91 @@ public class FeedDatabaseWriterTest {
         assertEquals(FeedItem.PLAYED, dbItems.get(2).getPlayState());
     }
 
+    @Test
+    public void testUnchangedItemsAreNotWritten() {
+        Feed feed = createFeed();
+        for (int i = 0; i < 3; i++) {
+            feed.getItems().add(createItem("item-" + i, "Item " + i, feed));
+        }
+        FeedDatabaseWriter.MergeResult result = updateFeed(feed);
+        assertEquals(3, result.getCounters().getInserted());
+        feed = result.getFeed();
+
+        // New items are hashed when they are inserted, so the first refresh does not write them again
+        Feed refreshedFeed = createFeed();
+        for (int i = 0; i < 3; i++) {
+            refreshedFeed.getItems().add(createItem("item-" + i, "Item " + i, refreshedFeed));
+        }
+        FeedDatabaseWriter.MergeCounters counters = updateFeed(refreshedFeed).getCounters();
+        assertEquals(0, counters.getUpdated());
+        assertEquals(3, counters.getUnchanged());
+
+        refreshedFeed = createFeed();
+        for (int i = 0; i < 4; i++) {
+            refreshedFeed.getItems().add(createItem("item-" + i, "Item " + i, refreshedFeed));
+        }
+        refreshedFeed.getItems().get(0).setLink("changed link");
+        counters = updateFeed(refreshedFeed).getCounters();
+        assertEquals(1, counters.getInserted());
+        assertEquals(1, counters.getUpdated());
+        assertEquals(2, counters.getUnchanged());
+
+        List<FeedItem> dbItems = DBReader.getFeedItemList(feed, FeedItemFilter.unfiltered(),
+                SortOrder.EPISODE_TITLE_A_Z, 0, Integer.MAX_VALUE);
+        assertEquals(4, dbItems.size());
+        assertEquals("changed link", dbItems.get(0).getLink());
+    }
+
+    @Test
+    public void testChangedItemKeepsLocalState() throws ExecutionException, InterruptedException {
+        Feed feed = createFeed();
+        feed.getItems().add(createItem("item-0", "Item 0", feed));
+        feed = FeedDatabaseWriter.updateFeed(context, feed, false);
+        FeedItem stored = feed.getItems().get(0);
+        DBWriter.markItemPlayed(FeedItem.PLAYED, false, stored).get();
+        stored.getMedia().setPosition(1000);
+        DBWriter.setFeedMediaPlaybackInformation(stored.getMedia()).get();
+
+        Feed refreshedFeed = createFeed();
+        refreshedFeed.getItems().add(createItem("item-0", "Item 0", refreshedFeed));
+        refreshedFeed.getItems().get(0).setLink("changed link");
+        assertEquals(1, updateFeed(refreshedFeed).getCounters().getUpdated());
+
+        FeedItem item = DBReader.getFeedItem(stored.getId());
+        assertNotNull(item);
+        assertEquals("changed link", item.getLink());
+        assertTrue(item.isPlayed());
+        assertEquals(1000, item.getMedia().getPosition());
+    }
+
+    @Test
+    public void testUpdateSeveralFeeds() {
+        Feed existingFeed = createFeed();
+        existingFeed.getItems().add(createItem("item-0", "Item 0", existingFeed));
+        existingFeed = FeedDatabaseWriter.updateFeed(context, existingFeed, false);
+
+        Feed refreshedFeed = createFeed();
+        refreshedFeed.getItems().add(createItem("item-0", "Item 0", refreshedFeed));
+        refreshedFeed.getItems().add(createItem("item-1", "Item 1", refreshedFeed));
+        Feed newFeed = new Feed("url2", null, "Other feed");
+        newFeed.setItems(new ArrayList<>());
+        newFeed.getItems().add(createItem("other-0", "Other 0", newFeed));
+
+        List<FeedDatabaseWriter.MergeResult> results = FeedDatabaseWriter.updateFeeds(context,
+                Arrays.asList(refreshedFeed, newFeed), false);
+        assertEquals(2, results.size());
+        assertEquals(existingFeed.getId(), results.get(0).getFeed().getId());
+        assertEquals(1, results.get(0).getCounters().getInserted());
+        assertEquals(1, results.get(0).getCounters().getUnchanged());
+        assertTrue(results.get(1).getFeed().getId() != 0);
+        assertEquals(1, results.get(1).getCounters().getInserted());
+
+        assertEquals(2, DBReader.getFeedItemList(existingFeed, FeedItemFilter.unfiltered(),
+                SortOrder.EPISODE_TITLE_A_Z, 0, Integer.MAX_VALUE).size());
+        assertEquals(1, DBReader.getFeedItemList(results.get(1).getFeed(), FeedItemFilter.unfiltered(),
+                SortOrder.EPISODE_TITLE_A_Z, 0, Integer.MAX_VALUE).size());
+    }
+
     @Test
     public void testDuplicateItemsInFeed() {
         Feed feed = createFeed();
@@ -318,6 +404,10 @@ public class FeedDatabaseWriterTest {
         }
     }
 
+    private FeedDatabaseWriter.MergeResult updateFeed(Feed feed) {
+        return FeedDatabaseWriter.updateFeeds(context, Collections.singletonList(feed), false).get(0);
+    }
+
     private Feed createFeed() {
         Feed feed = new Feed("url", null, null);
         feed.setItems(new ArrayList<>());
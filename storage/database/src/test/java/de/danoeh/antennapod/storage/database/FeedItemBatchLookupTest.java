@@ -0,0 +1,99 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link DBReader#getFeedItemsByGuidOrEpisodeUrl}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedItemBatchLookupTest {
+
+    @Before
+    public void setUp() {
+        DbTestUtil.initEmptyDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testMatchByGuid() {
+        List<FeedItem> items = createItems(3);
+        DbTestUtil.storeFeed(items);
+
+        List<FeedItem> result = DBReader.getFeedItemsByGuidOrEpisodeUrl(
+                Arrays.asList("guid-2", "guid-0", "unknown"),
+                Arrays.asList("unknown", null, getEpisodeUrl(1)));
+        assertEquals(3, result.size());
+        assertEquals(items.get(2).getId(), result.get(0).getId());
+        assertEquals(items.get(0).getId(), result.get(1).getId());
+        // A guid that is not found does not fall back to the episode URL
+        assertNull(result.get(2));
+    }
+
+    @Test
+    public void testMatchByEpisodeUrl() {
+        List<FeedItem> items = createItems(3);
+        DbTestUtil.storeFeed(items);
+
+        List<FeedItem> result = DBReader.getFeedItemsByGuidOrEpisodeUrl(
+                Arrays.asList(null, null, null),
+                Arrays.asList(getEpisodeUrl(1), "http://example.com/unknown.mp3", null));
+        assertEquals(3, result.size());
+        assertEquals(items.get(1).getId(), result.get(0).getId());
+        assertEquals(getEpisodeUrl(1), result.get(0).getMedia().getDownloadUrl());
+        assertNull(result.get(1));
+        assertNull(result.get(2));
+    }
+
+    @Test
+    public void testMoreValuesThanOneQueryTakes() {
+        int numItems = PodDBAdapter.IN_OPERATOR_MAXIMUM * 2 + 10;
+        List<FeedItem> items = createItems(numItems);
+        DbTestUtil.storeFeed(items);
+
+        List<String> guids = new ArrayList<>();
+        List<String> episodeUrls = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            // Every other item only by its episode URL, so both lookups need more than one query
+            guids.add(i % 2 == 0 ? "guid-" + i : null);
+            episodeUrls.add(getEpisodeUrl(i));
+        }
+        List<FeedItem> result = DBReader.getFeedItemsByGuidOrEpisodeUrl(guids, episodeUrls);
+        assertEquals(numItems, result.size());
+        for (int i = 0; i < numItems; i++) {
+            assertEquals(items.get(i).getId(), result.get(i).getId());
+        }
+    }
+
+    private static List<FeedItem> createItems(int numItems) {
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "Item " + i, "guid-" + i, "http://example.com/" + i,
+                    new Date(), FeedItem.UNPLAYED, null);
+            item.setMedia(new FeedMedia(item, getEpisodeUrl(i), 1000, "audio/mpeg"));
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static String getEpisodeUrl(int i) {
+        return "http://example.com/" + i + ".mp3";
+    }
+}
@@ -0,0 +1,131 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the size of the database file and the time of reading a page of the episode list,
+ * with the descriptions in the episode table and with {@link FeedItemDescriptionTable}.
+ * Not run with the other tests. Remove the Ignore annotation to run it.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedItemDescriptionBenchmark {
+    private static final int NUM_ITEMS = 5000;
+    private static final int DESCRIPTION_WORDS = 600;
+    private static final int PAGE_SIZE = 150;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 100;
+    private static final String[] WORDS = {
+        "episode", "podcast", "interview", "guest", "music", "show", "news", "week", "story", "science",
+        "history", "sponsor", "listen", "support", "patreon", "link", "about", "with", "from", "today"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkDescriptionStorage() throws Exception {
+        File inlineFile = folder.newFile("inline.db");
+        SQLiteDatabase inline = SQLiteDatabase.openOrCreateDatabase(inlineFile, null);
+        inline.execSQL("CREATE TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " (" + PodDBAdapter.KEY_ID
+                + " INTEGER PRIMARY KEY, " + PodDBAdapter.KEY_TITLE + " TEXT, " + PodDBAdapter.KEY_PUBDATE
+                + " INTEGER, " + PodDBAdapter.KEY_DESCRIPTION + " TEXT)");
+        fill(inline, true);
+        report("Descriptions in episode table", inlineFile, measure(inline));
+
+        inline.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                + " SET " + PodDBAdapter.KEY_DESCRIPTION + " = NULL");
+        report("Descriptions set to NULL", inlineFile, measure(inline));
+        inline.execSQL("VACUUM");
+        report("Descriptions set to NULL, vacuumed", inlineFile, measure(inline));
+        inline.close();
+
+        File compressedFile = folder.newFile("compressed.db");
+        SQLiteDatabase compressed = SQLiteDatabase.openOrCreateDatabase(compressedFile, null);
+        compressed.execSQL("CREATE TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " (" + PodDBAdapter.KEY_ID
+                + " INTEGER PRIMARY KEY, " + PodDBAdapter.KEY_TITLE + " TEXT, " + PodDBAdapter.KEY_PUBDATE
+                + " INTEGER)");
+        for (String statement : FeedItemDescriptionTable.getCreateStatements()) {
+            compressed.execSQL(statement);
+        }
+        fill(compressed, false);
+        report("Compressed description table", compressedFile, measure(compressed));
+        compressed.close();
+    }
+
+    private static void fill(SQLiteDatabase db, boolean inline) {
+        db.execSQL("CREATE INDEX " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "_" + PodDBAdapter.KEY_PUBDATE
+                + " ON " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " (" + PodDBAdapter.KEY_PUBDATE + ")");
+        Random random = new Random(1);
+        db.beginTransaction();
+        for (int id = 1; id <= NUM_ITEMS; id++) {
+            String description = createDescription(random);
+            db.execSQL("INSERT INTO " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " VALUES (?, ?, ?"
+                    + (inline ? ", ?)" : ")"), inline
+                    ? new Object[]{id, "Episode " + id, id * 1000L, description}
+                    : new Object[]{id, "Episode " + id, id * 1000L});
+            if (!inline) {
+                FeedItemDescriptionTable.setDescription(db, id, description);
+            }
+        }
+        db.setTransactionSuccessful();
+        db.endTransaction();
+    }
+
+    private static String createDescription(Random random) {
+        StringBuilder description = new StringBuilder("<p>");
+        for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+            if (i % 50 == 49) {
+                description.append("</p><p>");
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            if (random.nextInt(20) == 0) {
+                description.append("<a href=\"https://example.com/").append(random.nextInt(100000))
+                        .append("\">link</a> ");
+            }
+        }
+        return description.append("</p>").toString();
+    }
+
+    /**
+     * Reads the newest page of the episode list, without descriptions, like the episode lists do.
+     */
+    private static long measure(SQLiteDatabase db) {
+        long bestNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            try (Cursor cursor = db.rawQuery("SELECT " + PodDBAdapter.KEY_ID + ", " + PodDBAdapter.KEY_TITLE
+                    + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ORDER BY " + PodDBAdapter.KEY_PUBDATE + " DESC LIMIT " + PAGE_SIZE, null)) {
+                while (cursor.moveToNext()) {
+                    found += cursor.getString(1).length();
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                bestNanos = Math.min(bestNanos, nanos);
+            }
+        }
+        if (found < 0) {
+            throw new AssertionError(); // Keeps the loop from being optimized away
+        }
+        return bestNanos;
+    }
+
+    private static void report(String name, File file, long nanos) {
+        System.out.println(String.format(Locale.US, "%s: %d episodes in %d KiB, page of %d in %d µs",
+                name, NUM_ITEMS, file.length() / 1024, PAGE_SIZE, nanos / 1000));
+    }
+}
@@ -0,0 +1,124 @@
+package de.danoeh.antennapod.storage.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FeedItemDescriptionTableTest {
+    private static final String DESCRIPTION = "<p>Episode about <b>compression</b> ünd more</p>";
+
+    private PodDBAdapter adapter;
+    private FeedItem item;
+
+    @Before
+    public void setUp() {
+        adapter = DbTestUtil.initEmptyDatabase();
+        item = new FeedItem();
+        item.setItemIdentifier("item");
+        item.setTitle("Title");
+        item.setDescriptionIfLonger(DESCRIPTION);
+        item.setPubDate(new Date());
+        DbTestUtil.storeFeed(Collections.singletonList(item));
+    }
+
+    @Test
+    public void testCompression() {
+        String longDescription = String.join("", Collections.nCopies(1000, DESCRIPTION));
+        byte[] compressed = FeedItemDescriptionTable.compress(longDescription);
+        assertTrue(compressed.length < longDescription.length() / 10);
+        assertEquals(longDescription, FeedItemDescriptionTable.decompress(compressed));
+        assertNull(FeedItemDescriptionTable.decompress(null));
+    }
+
+    @Test
+    public void testLoadDescription() {
+        FeedItem loaded = DBReader.getFeedItem(item.getId());
+        DBReader.loadDescriptionOfFeedItem(loaded);
+        assertEquals(DESCRIPTION, loaded.getDescription());
+    }
+
+    @Test
+    public void testSearch() {
+        assertEquals(1, DBReader.searchFeedItems(0, "compression", Feed.STATE_SUBSCRIBED, 0, 10).size());
+        assertEquals(1, DBReader.searchFeedItems(0, "title", Feed.STATE_SUBSCRIBED, 0, 10).size());
+        // HTML tags are not part of the index
+        assertEquals(0, DBReader.searchFeedItems(0, "b", Feed.STATE_SUBSCRIBED, 0, 10).size());
+
+        adapter.removeFeedItems(Collections.singletonList(item));
+        assertEquals(0, DBReader.searchFeedItems(0, "compression", Feed.STATE_SUBSCRIBED, 0, 10).size());
+    }
+
+    @Test
+    public void testSearchTextDecodesEntities() {
+        assertEquals("Tom & Jerry", FeedItemDescriptionTable.toSearchText("<p>Tom &amp; Jerry</p>").trim());
+        assertEquals("one two", FeedItemDescriptionTable.toSearchText("one<br>two"));
+    }
+
+    @Test
+    public void testUnchangedDescriptionIsNotWrittenAgain() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " (" + PodDBAdapter.KEY_ID
+                + " INTEGER PRIMARY KEY, " + PodDBAdapter.KEY_TITLE + " TEXT)");
+        for (String statement : FeedItemDescriptionTable.getCreateStatements()) {
+            db.execSQL(statement);
+        }
+        db.execSQL("INSERT INTO " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " VALUES (1, 'Title')");
+        FeedItemDescriptionTable.setDescription(db, 1, DESCRIPTION);
+        assertTrue(getIndexedDescription(db).contains("compression"));
+
+        db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS_FTS + " SET "
+                + PodDBAdapter.KEY_DESCRIPTION + " = 'stale'");
+        FeedItemDescriptionTable.setDescription(db, 1, DESCRIPTION);
+        assertEquals("stale", getIndexedDescription(db));
+
+        FeedItemDescriptionTable.setDescription(db, 1, DESCRIPTION + "<p>Update</p>");
+        assertTrue(getIndexedDescription(db).contains("Update"));
+        db.close();
+    }
+
+    private static String getIndexedDescription(SQLiteDatabase db) {
+        try (Cursor cursor = db.rawQuery("SELECT " + PodDBAdapter.KEY_DESCRIPTION
+                + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS_FTS, null)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        }
+    }
+
+    @Test
+    public void testSearchPages() {
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            FeedItem other = new FeedItem();
+            other.setItemIdentifier("other" + i);
+            other.setTitle("Compression " + i);
+            other.setPubDate(new Date(i * 1000L));
+            items.add(other);
+        }
+        DbTestUtil.storeFeed("url2", "Other feed", items);
+
+        List<FeedItem> all = DBReader.searchFeedItems(0, "compression", Feed.STATE_SUBSCRIBED, 0, 10);
+        assertEquals(5, all.size());
+        List<FeedItem> paged = new ArrayList<>();
+        for (int offset = 0; offset < 6; offset += 2) {
+            paged.addAll(DBReader.searchFeedItems(0, "compression", Feed.STATE_SUBSCRIBED, offset, 2));
+        }
+        assertEquals(all, paged);
+        // Title hits rank before the episode that only mentions it in the description
+        assertEquals(item.getId(), paged.get(4).getId());
+    }
+}
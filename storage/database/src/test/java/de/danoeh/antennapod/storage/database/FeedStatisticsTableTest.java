@@ -0,0 +1,133 @@
+package de.danoeh.antennapod.storage.database;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the triggers of {@link FeedStatisticsTable} keep the statistics in line with the episodes.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedStatisticsTableTest {
+    private static final long PLAYED_AT = 1700000000000L; // November 2023
+    private static final long PLAYED_AGAIN_AT = PLAYED_AT + 31L * 24 * 3600 * 1000; // December 2023
+    private static final int DURATION = 600000;
+    private static final long SIZE = 5000;
+
+    private PodDBAdapter adapter;
+    private Feed feed;
+
+    @Before
+    public void setUp() {
+        adapter = DbTestUtil.initEmptyDatabase();
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            FeedItem item = new FeedItem();
+            item.setItemIdentifier("item-" + i);
+            item.setTitle("Item " + i);
+            item.setPubDate(new Date(PLAYED_AT - 1000));
+            FeedMedia media = new FeedMedia(item, "url-" + i, SIZE, "audio/mpeg");
+            media.setDuration(DURATION);
+            item.setMedia(media);
+            items.add(item);
+        }
+        feed = DbTestUtil.storeFeed(items);
+    }
+
+    @Test
+    public void testNewEpisodes() {
+        StatisticsItem statistics = getStatistics(false, 0, Long.MAX_VALUE);
+        assertEquals(3, statistics.episodes);
+        assertEquals(3 * DURATION / 1000, statistics.time);
+        assertEquals(0, statistics.timePlayed);
+        assertEquals(0, statistics.episodesStarted);
+        assertEquals(0, statistics.episodesDownloadCount);
+    }
+
+    @Test
+    public void testPlayedAndDownloaded() {
+        play(feed.getItems().get(0), 60000, PLAYED_AT);
+        FeedMedia downloaded = feed.getItems().get(1).getMedia();
+        downloaded.setDownloaded(true, PLAYED_AT);
+        adapter.setMedia(downloaded);
+
+        StatisticsItem statistics = getStatistics(false, 0, Long.MAX_VALUE);
+        assertEquals(60, statistics.timePlayed);
+        assertEquals(1, statistics.episodesStarted);
+        assertEquals(1, statistics.episodesDownloadCount);
+        assertEquals(SIZE, statistics.totalDownloadSize);
+
+        List<DBReader.MonthlyStatisticsItem> months = DBReader.getMonthlyTimeStatistics();
+        assertEquals(1, months.size());
+        assertEquals(2023, months.get(0).getYear());
+        assertEquals(11, months.get(0).getMonth());
+        assertEquals(60000, months.get(0).getTimePlayed());
+
+        // Played again, the episode moves on to the new month
+        play(feed.getItems().get(0), 120000, PLAYED_AGAIN_AT);
+        months = DBReader.getMonthlyTimeStatistics();
+        assertEquals(1, months.size());
+        assertEquals(12, months.get(0).getMonth());
+        assertEquals(120000, months.get(0).getTimePlayed());
+        assertEquals(1, getStatistics(false, 0, Long.MAX_VALUE).episodesStarted);
+    }
+
+    @Test
+    public void testMarkedAsPlayed() {
+        adapter.setFeedItemRead(FeedItem.PLAYED, false, feed.getItems().get(2));
+
+        assertEquals(0, getStatistics(false, 0, Long.MAX_VALUE).episodesStarted);
+        StatisticsItem statistics = getStatistics(true, 0, Long.MAX_VALUE);
+        assertEquals(1, statistics.episodesStarted);
+        assertEquals(DURATION / 1000, statistics.timePlayed);
+
+        adapter.setFeedItemRead(FeedItem.UNPLAYED, false, feed.getItems().get(2));
+        assertEquals(0, getStatistics(true, 0, Long.MAX_VALUE).episodesStarted);
+    }
+
+    @Test
+    public void testTimeFilter() {
+        play(feed.getItems().get(0), 60000, PLAYED_AT);
+        assertEquals(60, getStatistics(false, PLAYED_AT, PLAYED_AT + 1).timePlayed);
+        assertEquals(0, getStatistics(false, PLAYED_AT + 1, Long.MAX_VALUE).timePlayed);
+    }
+
+    @Test
+    public void testRemovedEpisodes() {
+        play(feed.getItems().get(0), 60000, PLAYED_AT);
+        adapter.removeFeedItems(Collections.singletonList(feed.getItems().get(0)));
+
+        StatisticsItem statistics = getStatistics(false, 0, Long.MAX_VALUE);
+        assertEquals(2, statistics.episodes);
+        assertEquals(0, statistics.timePlayed);
+        assertEquals(0, statistics.episodesStarted);
+        assertEquals(0, DBReader.getMonthlyTimeStatistics().size());
+    }
+
+    private void play(FeedItem item, int playedDuration, long playedAt) {
+        FeedMedia media = item.getMedia();
+        media.setPlayedDuration(playedDuration);
+        media.setPosition(playedDuration);
+        media.setLastPlayedTimeStatistics(playedAt);
+        media.setLastPlayedTimeHistory(new Date(playedAt));
+        adapter.setFeedMediaPlaybackInformation(media);
+    }
+
+    private StatisticsItem getStatistics(boolean includeMarkedAsPlayed, long timeFilterFrom, long timeFilterTo) {
+        List<StatisticsItem> feeds = DBReader.getStatistics(includeMarkedAsPlayed,
+                timeFilterFrom, timeFilterTo).feedTime;
+        assertEquals(1, feeds.size());
+        return feeds.get(0);
+    }
+}
@@ -0,0 +1,67 @@
+package de.danoeh.antennapod.storage.database;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link FullTextSearch}.
+ */
+public class FullTextSearchTest {
+    private static final double[] WEIGHTS = {4, 1};
+
+    @Test
+    public void testMatchQuery() {
+        assertEquals("\"star*\" \"trek*\"", FullTextSearch.toMatchQuery("  star   trek "));
+        assertEquals("\"a b*\"", FullTextSearch.toMatchQuery("a\"b"));
+        assertEquals("\"don't*\"", FullTextSearch.toMatchQuery("don't"));
+        assertNull(FullTextSearch.toMatchQuery("  - \"\" "));
+    }
+
+    @Test
+    public void testTitleHitRanksHigher() {
+        double inTitle = FullTextSearch.bm25(matchinfo(1000, 10, 10, 0), WEIGHTS);
+        double inDescription = FullTextSearch.bm25(matchinfo(1000, 10, 0, 1), WEIGHTS);
+        assertTrue(inTitle > inDescription);
+    }
+
+    @Test
+    public void testRareTermRanksHigher() {
+        double rare = FullTextSearch.bm25(matchinfo(1000, 5, 1, 0), WEIGHTS);
+        double common = FullTextSearch.bm25(matchinfo(1000, 500, 1, 0), WEIGHTS);
+        assertTrue(rare > common);
+    }
+
+    @Test
+    public void testShortDocumentRanksHigher() {
+        double shortDocument = FullTextSearch.bm25(matchinfo(1000, 10, 1, 1, 10, 100), WEIGHTS);
+        double longDocument = FullTextSearch.bm25(matchinfo(1000, 10, 1, 1, 10, 1000), WEIGHTS);
+        assertTrue(shortDocument > longDocument);
+    }
+
+    private static byte[] matchinfo(int rows, int rowsWithHit, int titleHits, int descriptionHits) {
+        return matchinfo(rows, rowsWithHit, titleHits, descriptionHits, 10, 200);
+    }
+
+    /**
+     * Creates the matchinfo of a single phrase query on an index with a title and a description column.
+     */
+    private static byte[] matchinfo(int rows, int rowsWithHit, int titleHits, int descriptionHits,
+                                    int titleLength, int descriptionLength) {
+        int[] values = {
+            1, 2, rows,
+            10, 200,
+            titleLength, descriptionLength,
+            titleHits, titleHits * rowsWithHit, rowsWithHit,
+            descriptionHits, descriptionHits * rowsWithHit, rowsWithHit
+        };
+        ByteBuffer buffer = ByteBuffer.allocate(4 * values.length).order(ByteOrder.nativeOrder());
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,67 @@
+package de.danoeh.antennapod.storage.database;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares membership checks on ID lists, like tagging a page of episodes with the queue IDs.
+ * Not run with the other tests. Remove the Ignore annotation to run it.
+ */
+public class LongHashSetBenchmark {
+    private static final int QUEUE_SIZE = 500;
+    private static final int PAGE_SIZE = 1000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 1000;
+
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkContains() {
+        Random random = new Random(1);
+        LongList queue = new LongList(QUEUE_SIZE);
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            queue.add(random.nextInt(100000));
+        }
+        long[] page = new long[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page[i] = random.nextInt(100000);
+        }
+
+        report("LongList", measure(queue, page, true));
+        report("LongHashSet", measure(queue, page, false));
+    }
+
+    private static long measure(LongList queue, long[] page, boolean useList) {
+        long bestNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            if (useList) {
+                for (long id : page) {
+                    found += queue.contains(id) ? 1 : 0;
+                }
+            } else {
+                // Building the set is part of the cost, like in DBReader.loadTagsOfFeedItemList
+                LongHashSet set = new LongHashSet(queue);
+                for (long id : page) {
+                    found += set.contains(id) ? 1 : 0;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                bestNanos = Math.min(bestNanos, nanos);
+            }
+        }
+        if (found < 0) {
+            throw new AssertionError(); // Keeps the loop from being optimized away
+        }
+        return bestNanos;
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.println(String.format(Locale.US, "%s: %d items against %d IDs in %d ns",
+                name, PAGE_SIZE, QUEUE_SIZE, nanos));
+    }
+}
@@ -0,0 +1,91 @@
+package de.danoeh.antennapod.storage.database;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link LongHashSet}.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        LongHashSet set = LongHashSet.of(1, 2, 3);
+        assertEquals(3, set.size());
+        assertTrue(set.contains(2));
+        assertFalse(set.contains(4));
+        assertFalse(set.add(2));
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2));
+        assertFalse(set.contains(2));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void testZeroAndNegativeValues() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(3, set.toArray().length);
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void testSameAsHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            // Small range, so that values are removed again and probe sequences overlap
+            long value = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = 0; value < 2000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void testSameAsLongListContains() {
+        // Like tagging a page of episodes with the queue IDs
+        Random random = new Random(1);
+        LongList queue = new LongList(500);
+        for (int i = 0; i < 500; i++) {
+            queue.add(random.nextInt(100000));
+        }
+        LongHashSet set = new LongHashSet(queue);
+        for (int i = 0; i < 1000; i++) {
+            long id = random.nextInt(100000);
+            assertEquals(queue.contains(id), set.contains(id));
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            assertTrue(set.contains(queue.get(i)));
+        }
+    }
+
+    @Test
+    public void testFromLongList() {
+        LongHashSet set = new LongHashSet(LongList.of(5, 7, 5));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(7));
+    }
+}
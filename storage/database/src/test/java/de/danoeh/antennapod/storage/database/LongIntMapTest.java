@@ -0,0 +1,40 @@
+package de.danoeh.antennapod.storage.database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link LongIntMap}.
+ */
+public class LongIntMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongIntMap map = new LongIntMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 31L, -1));
+        }
+        assertEquals(-1, map.get(1, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void testReplaceValue() {
+        LongIntMap map = new LongIntMap(1);
+        map.put(7, 1);
+        map.put(7, 2);
+        map.put(0, 3);
+        map.put(0, 4);
+        assertEquals(2, map.size());
+        assertEquals(2, map.get(7, -1));
+        assertEquals(4, map.get(0, -1));
+    }
+}
@@ -101,6 +101,8 @@ public abstract class UserPreferences {
     public static final String PREF_AUTODL_GLOBAL = "prefEnableAutoDl";
     public static final String PREF_AUTODL_QUEUE = "prefEnableAutoDlQueue";
     public static final String PREF_ENABLE_AUTODL_ON_BATTERY = "prefEnableAutoDownloadOnBattery";
+    private static final String PREF_INCREMENTAL_FEED_PARSE = "prefIncrementalFeedParse";
+    private static final String PREF_SEGMENTED_EPISODE_DOWNLOAD = "prefSegmentedEpisodeDownload";
     private static final String PREF_PROXY_TYPE = "prefProxyType";
     private static final String PREF_PROXY_HOST = "prefProxyHost";
     private static final String PREF_PROXY_PORT = "prefProxyPort";
@@ -555,6 +557,20 @@ public abstract class UserPreferences {
         return prefs.getBoolean(PREF_ENABLE_AUTODL_ON_BATTERY, true);
     }
 
+    /**
+     * @return true if refreshing a feed may stop parsing once it reaches already known episodes.
+     */
+    public static boolean isIncrementalFeedParse() {
+        return prefs.getBoolean(PREF_INCREMENTAL_FEED_PARSE, false);
+    }
+
+    /**
+     * @return true if large episodes may be downloaded over several connections at once.
+     */
+    public static boolean isSegmentedEpisodeDownload() {
+        return prefs.getBoolean(PREF_SEGMENTED_EPISODE_DOWNLOAD, false);
+    }
+
     public static int getFastForwardSecs() {
         return prefs.getInt(PREF_FAST_FORWARD_SECS, 30);
     }
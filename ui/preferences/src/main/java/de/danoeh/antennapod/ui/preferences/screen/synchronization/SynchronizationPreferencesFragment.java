@@ -73,6 +73,9 @@ public class SynchronizationPreferencesFragment extends AnimatedPreferenceFragme
                 || event.getMessageResId() == R.string.sync_status_success) {
             updateLastSyncReport(SynchronizationSettings.isLastSyncSuccessful(),
                     SynchronizationSettings.getLastSyncAttempt());
+        } else if (event.getMax() > 0) {
+            ((AppCompatActivity) getActivity()).getSupportActionBar().setSubtitle(
+                    getString(event.getMessageResId(), event.getProgress(), event.getMax()));
         } else {
             ((AppCompatActivity) getActivity()).getSupportActionBar().setSubtitle(event.getMessageResId());
         }